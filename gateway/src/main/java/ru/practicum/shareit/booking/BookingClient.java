@@ -6,11 +6,18 @@ import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.util.DefaultUriBuilderFactory;
 import ru.practicum.shareit.booking.dto.BookItemRequestDto;
 import ru.practicum.shareit.booking.dto.BookingState;
+import ru.practicum.shareit.booking.dto.BookingStatusUpdateDto;
+import ru.practicum.shareit.booking.dto.RecurringBookingRequestDto;
 import ru.practicum.shareit.client.BaseClient;
 
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @Service
@@ -18,27 +25,50 @@ public class BookingClient extends BaseClient {
     private static final String API_PREFIX = "/bookings";
 
     @Autowired
-    public BookingClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder) {
+    public BookingClient(@Value("${shareit-server.url}") String serverUrl,
+                         @Value("${shareit-server.stream.max-connections:100}") int streamMaxConnections,
+                         RestTemplateBuilder builder) {
         super(
                 builder
                         .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
                         .requestFactory(HttpComponentsClientHttpRequestFactory::new)
+                        .build(),
+                builder
+                        .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
+                        .requestFactory(() -> streamingRequestFactory(streamMaxConnections))
                         .build()
         );
     }
 
-    public ResponseEntity<Object> getBookings(long userId, BookingState state, Integer from, Integer size) {
-        Map<String, Object> parameters = Map.of(
+    public ResponseEntity<Object> getBookings(long userId, BookingState state, Integer from, Integer size,
+                                              String after) {
+        Map<String, Object> parameters = new HashMap<>(Map.of(
                 "state", state.name(),
                 "from", from,
                 "size", size
-        );
-        return get("?state={state}&from={from}&size={size}", userId, parameters);
+        ));
+        return get("?state={state}&from={from}&size={size}" + afterParameter(after, parameters), userId,
+                parameters);
     }
 
+    public ResponseEntity<Object> bookItem(long userId, String idempotencyKey, BookItemRequestDto requestDto) {
+        return post("", userId, idempotencyKey, requestDto);
+    }
 
-    public ResponseEntity<Object> bookItem(long userId, BookItemRequestDto requestDto) {
-        return post("", userId, requestDto);
+    public ResponseEntity<Object> bookItemOrEnqueue(long userId, BookItemRequestDto requestDto) {
+        return post("?waitlist=true", userId, requestDto);
+    }
+
+    public ResponseEntity<Object> bookItemRecurring(long userId, RecurringBookingRequestDto requestDto) {
+        return post("/recurring", userId, requestDto);
+    }
+
+    public ResponseEntity<Object> updateRecurring(long recurringBookingId, boolean approved, long itemOwnerId) {
+        return patch(String.format("/recurring/%d?approved=%b", recurringBookingId, approved), itemOwnerId);
+    }
+
+    public ResponseEntity<Object> deleteWaitlistEntry(long userId, long entryId) {
+        return delete("/waitlist/" + entryId, userId);
     }
 
     public ResponseEntity<Object> getBooking(long userId, Long bookingId) {
@@ -46,12 +76,75 @@ public class BookingClient extends BaseClient {
     }
 
     public ResponseEntity<Object> findByItemOwnerAndByState(long itemOwnerId, BookingState stateValue,
-                                                            int from, int size) {
-        Map<String, Object> params = Map.of("state", stateValue, "from", from, "size", size);
-        return get("/owner?state={state}&from={from}&size={size}", itemOwnerId, params);
+                                                            int from, int size, String after) {
+        Map<String, Object> params = new HashMap<>(Map.of("state", stateValue, "from", from, "size", size));
+        return get("/owner?state={state}&from={from}&size={size}" + afterParameter(after, params), itemOwnerId,
+                params);
+    }
+
+    public ResponseEntity<Object> search(long userId, String role, Long itemId, List<String> statuses,
+                                         LocalDateTime start, LocalDateTime end, int size, String after) {
+        Map<String, Object> params = new HashMap<>(Map.of("role", role, "size", size));
+        StringBuilder path = new StringBuilder("/search?role={role}&size={size}");
+        if (itemId != null) {
+            params.put("itemId", itemId);
+            path.append("&itemId={itemId}");
+        }
+        if (statuses != null && !statuses.isEmpty()) {
+            params.put("status", String.join(",", statuses));
+            path.append("&status={status}");
+        }
+        if (start != null) {
+            params.put("start", start);
+            path.append("&start={start}");
+        }
+        if (end != null) {
+            params.put("end", end);
+            path.append("&end={end}");
+        }
+        return get(path + afterParameter(after, params), userId, params);
+    }
+
+    public ResponseEntity<Object> findChangesByBooker(long bookerId, String since, int size) {
+        Map<String, Object> params = new HashMap<>(Map.of("size", size));
+        return get("/changes?size={size}" + sinceParameter(since, params), bookerId, params);
+    }
+
+    public ResponseEntity<Object> findChangesByItemOwner(long itemOwnerId, String since, int size) {
+        Map<String, Object> params = new HashMap<>(Map.of("size", size));
+        return get("/owner/changes?size={size}" + sinceParameter(since, params), itemOwnerId, params);
+    }
+
+    public ResponseEntity<StreamingResponseBody> streamByItemOwner(long itemOwnerId) throws IOException {
+        return stream("/owner/stream", itemOwnerId);
+    }
+
+    public ResponseEntity<StreamingResponseBody> exportByItemOwner(long itemOwnerId, String format)
+            throws IOException {
+        return download("/owner/export?format=" + format, itemOwnerId);
     }
 
     public ResponseEntity<Object> update(long bookingId, boolean approved, long itemOwnerId) {
         return patch(String.format("/%d?approved=%b", bookingId, approved), itemOwnerId);
     }
+
+    public ResponseEntity<Object> updateAll(BookingStatusUpdateDto statusUpdateDto, long itemOwnerId) {
+        return patch("/status", itemOwnerId, statusUpdateDto);
+    }
+
+    private String afterParameter(String after, Map<String, Object> parameters) {
+        if (after == null) {
+            return "";
+        }
+        parameters.put("after", after);
+        return "&after={after}";
+    }
+
+    private String sinceParameter(String since, Map<String, Object> parameters) {
+        if (since == null) {
+            return "";
+        }
+        parameters.put("since", since);
+        return "&since={since}";
+    }
 }
@@ -2,18 +2,29 @@ package ru.practicum.shareit.booking;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.practicum.shareit.booking.dto.BookItemRequestDto;
 import ru.practicum.shareit.booking.dto.BookingState;
+import ru.practicum.shareit.booking.dto.BookingStatusUpdateDto;
+import ru.practicum.shareit.booking.dto.RecurringBookingRequestDto;
+import ru.practicum.shareit.client.BaseClient;
 import ru.practicum.shareit.util.EndIsAfterStart;
 import ru.practicum.shareit.util.UnknownStateException;
 
 import javax.validation.Valid;
+import javax.validation.constraints.Pattern;
 import javax.validation.constraints.Positive;
 import javax.validation.constraints.PositiveOrZero;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
 
 import static ru.practicum.shareit.util.Logging.logInfoIncomingRequest;
 
@@ -29,29 +40,117 @@ public class BookingController {
     public ResponseEntity<Object> getBookings(@RequestHeader("X-Sharer-User-Id") long userId,
                                               @RequestParam(name = "state", defaultValue = "all") String stateParam,
                                               @PositiveOrZero @RequestParam(name = "from", defaultValue = "0") Integer from,
-                                              @Positive @RequestParam(name = "size", defaultValue = "10") Integer size) {
+                                              @Positive @RequestParam(name = "size", defaultValue = "10") Integer size,
+                                              @RequestParam(required = false) String after) {
         BookingState state = BookingState.from(stateParam)
                 .orElseThrow(() -> new UnknownStateException("Unknown state: " + stateParam));
-        log.info("Get booking with state {}, userId={}, from={}, size={}", stateParam, userId, from, size);
-        return bookingClient.getBookings(userId, state, from, size);
+        log.info("Get booking with state {}, userId={}, from={}, size={}, after={}", stateParam, userId, from, size,
+                after);
+        return bookingClient.getBookings(userId, state, from, size, after);
     }
 
     @GetMapping("/owner")
     public ResponseEntity<Object> findByItemOwnerAndByState(@RequestParam(defaultValue = "all") String state,
                                                             @RequestHeader("X-Sharer-User-Id") long itemOwnerId,
                                                             @PositiveOrZero @RequestParam(defaultValue = "0") int from,
-                                                            @Positive @RequestParam(defaultValue = "20") int size) {
+                                                            @Positive @RequestParam(defaultValue = "20") int size,
+                                                            @RequestParam(required = false) String after) {
         BookingState stateValue = BookingState.from(state)
                 .orElseThrow(() -> new UnknownStateException("Unknown state: " + state));
         logInfoIncomingRequest(log, "GET /bookings/owner", stateValue, itemOwnerId, from, size);
-        return bookingClient.findByItemOwnerAndByState(itemOwnerId, stateValue, from, size);
+        return bookingClient.findByItemOwnerAndByState(itemOwnerId, stateValue, from, size, after);
+    }
+
+    @GetMapping("/search")
+    public ResponseEntity<Object> search(
+            @RequestHeader("X-Sharer-User-Id") long userId,
+            @Pattern(regexp = "booker|owner", flags = Pattern.Flag.CASE_INSENSITIVE)
+            @RequestParam(defaultValue = "booker") String role,
+            @RequestParam(required = false) Long itemId,
+            @RequestParam(name = "status", required = false)
+            List<@Pattern(regexp = "APPROVED|CANCELED|REJECTED|WAITING", flags = Pattern.Flag.CASE_INSENSITIVE)
+                    String> statuses,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime start,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end,
+            @Positive @RequestParam(defaultValue = "20") int size,
+            @RequestParam(required = false) String after) {
+        log.info("Search bookings, userId={}, role={}, itemId={}, statuses={}, start={}, end={}, size={}, after={}",
+                userId, role, itemId, statuses, start, end, size, after);
+        List<String> upperCaseStatuses = statuses == null ? null : statuses.stream()
+                .map(String::toUpperCase)
+                .collect(Collectors.toList());
+        return bookingClient.search(userId, role, itemId, upperCaseStatuses, start, end, size, after);
+    }
+
+    @GetMapping("/changes")
+    public ResponseEntity<Object> findChangesByBooker(@RequestHeader("X-Sharer-User-Id") long bookerId,
+                                                      @RequestParam(required = false) String since,
+                                                      @Positive @RequestParam(defaultValue = "100") int size) {
+        logInfoIncomingRequest(log, "GET /bookings/changes", bookerId, size);
+        return bookingClient.findChangesByBooker(bookerId, since, size);
+    }
+
+    @GetMapping("/owner/changes")
+    public ResponseEntity<Object> findChangesByItemOwner(@RequestHeader("X-Sharer-User-Id") long itemOwnerId,
+                                                         @RequestParam(required = false) String since,
+                                                         @Positive @RequestParam(defaultValue = "100") int size) {
+        logInfoIncomingRequest(log, "GET /bookings/owner/changes", itemOwnerId, size);
+        return bookingClient.findChangesByItemOwner(itemOwnerId, since, size);
+    }
+
+    @GetMapping("/owner/export")
+    public ResponseEntity<StreamingResponseBody> exportByItemOwner(
+            @RequestHeader("X-Sharer-User-Id") long itemOwnerId,
+            @Pattern(regexp = "ndjson|csv", flags = Pattern.Flag.CASE_INSENSITIVE)
+            @RequestParam(defaultValue = "ndjson") String format) throws IOException {
+        logInfoIncomingRequest(log, "GET /bookings/owner/export", itemOwnerId, format);
+        return bookingClient.exportByItemOwner(itemOwnerId, format);
+    }
+
+    @GetMapping(path = "/owner/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamByItemOwner(@RequestHeader("X-Sharer-User-Id") long itemOwnerId)
+            throws IOException {
+        logInfoIncomingRequest(log, "GET /bookings/owner/stream", itemOwnerId);
+        return bookingClient.streamByItemOwner(itemOwnerId);
     }
 
     @PostMapping
     public ResponseEntity<Object> bookItem(@RequestHeader("X-Sharer-User-Id") long userId,
+                                           @RequestHeader(value = BaseClient.IDEMPOTENCY_KEY_HEADER, required = false)
+                                           String idempotencyKey,
                                            @RequestBody @EndIsAfterStart @Valid BookItemRequestDto requestDto) {
-        log.info("Creating booking {}, userId={}", requestDto, userId);
-        return bookingClient.bookItem(userId, requestDto);
+        log.info("Creating booking {}, userId={}, idempotencyKey={}", requestDto, userId, idempotencyKey);
+        return bookingClient.bookItem(userId, idempotencyKey, requestDto);
+    }
+
+    @PostMapping(params = "waitlist=true")
+    public ResponseEntity<Object> bookItemOrEnqueue(@RequestHeader("X-Sharer-User-Id") long userId,
+                                                    @RequestBody @EndIsAfterStart @Valid BookItemRequestDto requestDto) {
+        log.info("Creating booking or waitlist entry {}, userId={}", requestDto, userId);
+        return bookingClient.bookItemOrEnqueue(userId, requestDto);
+    }
+
+    @PostMapping("/recurring")
+    public ResponseEntity<Object> bookItemRecurring(@RequestHeader("X-Sharer-User-Id") long userId,
+                                                    @RequestBody @Valid RecurringBookingRequestDto requestDto) {
+        log.info("Creating recurring booking {}, userId={}", requestDto, userId);
+        return bookingClient.bookItemRecurring(userId, requestDto);
+    }
+
+    @PatchMapping("/recurring/{recurringBookingId}")
+    public ResponseEntity<Object> updateRecurring(@PathVariable long recurringBookingId,
+                                                  @RequestParam boolean approved,
+                                                  @RequestHeader("X-Sharer-User-Id") long itemOwnerId) {
+        logInfoIncomingRequest(log, "PATCH /bookings/recurring/{recurringBookingId}", recurringBookingId, approved,
+                itemOwnerId);
+        return bookingClient.updateRecurring(recurringBookingId, approved, itemOwnerId);
+    }
+
+    @DeleteMapping("/waitlist/{entryId}")
+    public ResponseEntity<Object> deleteWaitlistEntry(@RequestHeader("X-Sharer-User-Id") long userId,
+                                                      @PathVariable long entryId) {
+        logInfoIncomingRequest(log, "DELETE /bookings/waitlist/{entryId}", entryId, userId);
+        return bookingClient.deleteWaitlistEntry(userId, entryId);
     }
 
     @GetMapping("/{bookingId}")
@@ -61,6 +160,13 @@ public class BookingController {
         return bookingClient.getBooking(userId, bookingId);
     }
 
+    @PatchMapping("/status")
+    public ResponseEntity<Object> updateAll(@RequestBody @Valid BookingStatusUpdateDto statusUpdateDto,
+                                            @RequestHeader("X-Sharer-User-Id") long itemOwnerId) {
+        logInfoIncomingRequest(log, "PATCH /bookings/status", statusUpdateDto, itemOwnerId);
+        return bookingClient.updateAll(statusUpdateDto, itemOwnerId);
+    }
+
     @PatchMapping("/{bookingId}")
     public ResponseEntity<Object> update(@PathVariable long bookingId, @RequestParam boolean approved,
                                          @RequestHeader("X-Sharer-User-Id") long itemOwnerId) {
@@ -1,20 +1,57 @@
 package ru.practicum.shareit.client;
 
 import lombok.Getter;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
 import org.springframework.http.*;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.lang.Nullable;
+import org.springframework.util.StreamUtils;
 import org.springframework.web.client.HttpStatusCodeException;
 import org.springframework.web.client.RestTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.List;
 import java.util.Map;
 
 public class BaseClient {
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
     @Getter
     protected final RestTemplate rest;
+    /**
+     * Клиент потоковых ответов и выгрузок. Такие соединения держатся долго, поэтому у них свой пул,
+     * и они не занимают соединения обычных запросов.
+     */
+    @Getter
+    protected final RestTemplate streamRest;
 
     public BaseClient(RestTemplate rest) {
+        this(rest, rest);
+    }
+
+    public BaseClient(RestTemplate rest, RestTemplate streamRest) {
         this.rest = rest;
+        this.streamRest = streamRest;
+    }
+
+    /**
+     * Фабрика запросов с отдельным пулом, где на сервер можно открыть до maxConnections соединений
+     * (у фабрики по умолчанию их 5). Время ожидания ответа не ограничено: поток событий молчит,
+     * пока нет изменений.
+     */
+    protected static ClientHttpRequestFactory streamingRequestFactory(int maxConnections) {
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(maxConnections);
+        connectionManager.setDefaultMaxPerRoute(maxConnections);
+        return new HttpComponentsClientHttpRequestFactory(HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .build());
     }
 
     private static ResponseEntity<Object> prepareGatewayResponse(ResponseEntity<Object> response) {
@@ -51,6 +88,14 @@ public class BaseClient {
         return makeAndSendRequest(HttpMethod.POST, path, userId, null, body);
     }
 
+    protected <T> ResponseEntity<Object> post(String path, Long userId, @Nullable String idempotencyKey, T body) {
+        HttpHeaders headers = defaultHeaders(userId);
+        if (idempotencyKey != null) {
+            headers.set(IDEMPOTENCY_KEY_HEADER, idempotencyKey);
+        }
+        return sendRequest(HttpMethod.POST, path, headers, null, body);
+    }
+
     protected <T> ResponseEntity<Object> patch(String path, T body) {
         return patch(path, null, body);
     }
@@ -67,9 +112,88 @@ public class BaseClient {
         return makeAndSendRequest(HttpMethod.DELETE, path, null, null, null);
     }
 
+    protected ResponseEntity<Object> delete(String path, long userId) {
+        return makeAndSendRequest(HttpMethod.DELETE, path, userId, null, null);
+    }
+
+    /**
+     * Проксирует потоковый ответ сервера (text/event-stream) без буферизации: каждый прочитанный фрагмент
+     * сразу отправляется клиенту. Ответ сервера с ошибкой передается целиком, как в остальных запросах.
+     */
+    protected ResponseEntity<StreamingResponseBody> stream(String path, long userId) throws IOException {
+        ClientHttpResponse response = open(path, userId, MediaType.TEXT_EVENT_STREAM);
+        if (!response.getStatusCode().is2xxSuccessful()) {
+            return passError(response);
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.TEXT_EVENT_STREAM)
+                .cacheControl(CacheControl.noCache())
+                .header("X-Accel-Buffering", "no")
+                .body(out -> {
+                    try (response) {
+                        copyFlushing(response.getBody(), out);
+                    }
+                });
+    }
+
+    /**
+     * Проксирует выгрузку файла: тело сервера копируется в ответ через буфер постоянного размера,
+     * тип содержимого и Content-Disposition берутся из ответа сервера.
+     */
+    protected ResponseEntity<StreamingResponseBody> download(String path, long userId) throws IOException {
+        ClientHttpResponse response = open(path, userId, MediaType.ALL);
+        if (!response.getStatusCode().is2xxSuccessful()) {
+            return passError(response);
+        }
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+                .contentType(response.getHeaders().getContentType() != null
+                        ? response.getHeaders().getContentType()
+                        : MediaType.APPLICATION_OCTET_STREAM);
+        String contentDisposition = response.getHeaders().getFirst(HttpHeaders.CONTENT_DISPOSITION);
+        if (contentDisposition != null) {
+            builder.header(HttpHeaders.CONTENT_DISPOSITION, contentDisposition);
+        }
+        return builder.body(out -> {
+            try (response) {
+                StreamUtils.copy(response.getBody(), out);
+            }
+        });
+    }
+
+    private ClientHttpResponse open(String path, long userId, MediaType accept) throws IOException {
+        ClientHttpRequest request = streamRest.getRequestFactory()
+                .createRequest(streamRest.getUriTemplateHandler().expand(path), HttpMethod.GET);
+        request.getHeaders().setAccept(List.of(accept));
+        request.getHeaders().set("X-Sharer-User-Id", String.valueOf(userId));
+        return request.execute();
+    }
+
+    private static ResponseEntity<StreamingResponseBody> passError(ClientHttpResponse response) throws IOException {
+        try (response) {
+            byte[] body = StreamUtils.copyToByteArray(response.getBody());
+            return ResponseEntity.status(response.getStatusCode())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(out -> out.write(body));
+        }
+    }
+
+    private static void copyFlushing(InputStream in, OutputStream out) throws IOException {
+        byte[] buffer = new byte[StreamUtils.BUFFER_SIZE];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+            out.flush();
+        }
+    }
+
     private <T> ResponseEntity<Object> makeAndSendRequest(HttpMethod method, String path, Long userId,
                                                           @Nullable Map<String, Object> parameters, @Nullable T body) {
-        HttpEntity<T> requestEntity = new HttpEntity<>(body, defaultHeaders(userId));
+        return sendRequest(method, path, defaultHeaders(userId), parameters, body);
+    }
+
+    private <T> ResponseEntity<Object> sendRequest(HttpMethod method, String path, HttpHeaders headers,
+                                                   @Nullable Map<String, Object> parameters, @Nullable T body) {
+        HttpEntity<T> requestEntity = new HttpEntity<>(body, headers);
 
         ResponseEntity<Object> shareitServerResponse;
         try {
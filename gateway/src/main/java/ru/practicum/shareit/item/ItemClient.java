@@ -11,6 +11,7 @@ import ru.practicum.shareit.client.BaseClient;
 import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 
+import java.time.LocalDateTime;
 import java.util.Map;
 
 @Service
@@ -36,14 +37,24 @@ public class ItemClient extends BaseClient {
         return get(String.format("/%d", id), requesterId);
     }
 
+    public ResponseEntity<Object> getAvailability(long id, LocalDateTime from, LocalDateTime to) {
+        Map<String, Object> params = Map.of("from", from, "to", to);
+        return get(String.format("/%d/availability?from={from}&to={to}", id), null, params);
+    }
+
+    public ResponseEntity<Object> getOwnerUtilization(long ownerId, LocalDateTime from, LocalDateTime to) {
+        Map<String, Object> params = Map.of("from", from, "to", to);
+        return get("/owner/stats?from={from}&to={to}", ownerId, params);
+    }
+
     public ResponseEntity<Object> searchByText(String text, int from, int size) {
         Map<String, Object> params = Map.of("from", from, "size", size, "text", text);
 
         return get("/search?text={text}&from={from}&size={size}", null, params);
     }
 
-    public ResponseEntity<Object> create(long ownerId, ItemDto itemDto) {
-        return post("", ownerId, itemDto);
+    public ResponseEntity<Object> create(long ownerId, String idempotencyKey, ItemDto itemDto) {
+        return post("", ownerId, idempotencyKey, itemDto);
     }
 
     public ResponseEntity<Object> create(long itemId, long authorId, CommentDto dto) {
@@ -2,10 +2,12 @@ package ru.practicum.shareit.item;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import ru.practicum.shareit.client.BaseClient;
 import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.util.Scenario;
@@ -13,6 +15,7 @@ import ru.practicum.shareit.util.Scenario;
 import javax.validation.Valid;
 import javax.validation.constraints.Positive;
 import javax.validation.constraints.PositiveOrZero;
+import java.time.LocalDateTime;
 
 import static ru.practicum.shareit.util.Logging.logInfoIncomingRequest;
 
@@ -38,6 +41,26 @@ public class ItemController {
         return itemClient.retrieve(id, requesterId);
     }
 
+    @GetMapping("/{id}/availability")
+    public ResponseEntity<Object> getAvailability(@PathVariable long id,
+                                                  @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+                                                  LocalDateTime from,
+                                                  @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+                                                  LocalDateTime to) {
+        logInfoIncomingRequest(log, "GET /items/{id}/availability", id, from, to);
+        return itemClient.getAvailability(id, from, to);
+    }
+
+    @GetMapping("/owner/stats")
+    public ResponseEntity<Object> getOwnerUtilization(@RequestHeader("X-Sharer-User-Id") long ownerId,
+                                                      @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+                                                      LocalDateTime from,
+                                                      @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+                                                      LocalDateTime to) {
+        logInfoIncomingRequest(log, "GET /items/owner/stats", ownerId, from, to);
+        return itemClient.getOwnerUtilization(ownerId, from, to);
+    }
+
     @GetMapping("/search")
     public ResponseEntity<Object> searchByText(@RequestParam String text,
                                                @PositiveOrZero @RequestParam(defaultValue = "0") int from,
@@ -50,9 +73,11 @@ public class ItemController {
     @ResponseStatus(HttpStatus.CREATED)
     @Validated({Scenario.OnCreate.class, Scenario.Always.class})
     public ResponseEntity<Object> create(@Valid @RequestBody ItemDto itemDto,
-                                         @RequestHeader("X-Sharer-User-Id") long ownerId) {
+                                         @RequestHeader("X-Sharer-User-Id") long ownerId,
+                                         @RequestHeader(value = BaseClient.IDEMPOTENCY_KEY_HEADER, required = false)
+                                         String idempotencyKey) {
         logInfoIncomingRequest(log, "POST /items", ownerId, itemDto);
-        return itemClient.create(ownerId, itemDto);
+        return itemClient.create(ownerId, idempotencyKey, itemDto);
     }
 
     @PostMapping("/{itemId}/comment")
@@ -11,18 +11,24 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.test.web.client.ExpectedCount;
 import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.practicum.shareit.booking.dto.BookItemRequestDto;
 import ru.practicum.shareit.booking.dto.BookingState;
+import ru.practicum.shareit.booking.dto.BookingStatusUpdateDto;
 
+import java.io.ByteArrayOutputStream;
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.time.Year;
+import java.util.List;
 
 import static org.springframework.test.web.client.match.MockRestRequestMatchers.*;
 import static org.springframework.test.web.client.response.MockRestResponseCreators.withStatus;
@@ -35,6 +41,7 @@ public class BookingClientTest {
     private final ObjectMapper mapper;
     private final String testObject = "testObject";
     private MockRestServiceServer mockServer;
+    private MockRestServiceServer streamServer;
     private ResponseEntity<Object> responseEntity;
     private String serverURI;
 
@@ -48,6 +55,7 @@ public class BookingClientTest {
     @SneakyThrows
     public void setup() {
         mockServer = MockRestServiceServer.createServer(bookingClient.getRest());
+        streamServer = MockRestServiceServer.createServer(bookingClient.getStreamRest());
         responseEntity = ResponseEntity.ok(testObject);
     }
 
@@ -62,7 +70,7 @@ public class BookingClientTest {
                         .contentType(MediaType.APPLICATION_JSON)
                         .body(mapper.writeValueAsString(testObject)));
 
-        ResponseEntity<Object> result = bookingClient.getBookings(0L, BookingState.ALL, 0, 10);
+        ResponseEntity<Object> result = bookingClient.getBookings(0L, BookingState.ALL, 0, 10, null);
         mockServer.verify();
         Assertions.assertEquals(responseEntity.getStatusCode(), result.getStatusCode());
         Assertions.assertEquals(responseEntity.getBody(), result.getBody());
@@ -79,13 +87,70 @@ public class BookingClientTest {
                         .contentType(MediaType.APPLICATION_JSON)
                         .body(mapper.writeValueAsString(testObject)));
 
-        ResponseEntity<Object> result = bookingClient.findByItemOwnerAndByState(0L, BookingState.ALL, 0, 10);
+        ResponseEntity<Object> result = bookingClient.findByItemOwnerAndByState(0L, BookingState.ALL, 0, 10, null);
         mockServer.verify();
         Assertions.assertEquals(responseEntity.getStatusCode(), result.getStatusCode());
         Assertions.assertEquals(responseEntity.getBody(), result.getBody());
     }
 
 
+    @Test
+    @SneakyThrows
+    public void methodFindByItemOwnerAndByStateWithAfterPassesCursorAndNextPageHeader() {
+        HttpHeaders nextPage = new HttpHeaders();
+        nextPage.set("X-Next-After", "def");
+        mockServer.expect(ExpectedCount.once(),
+                        requestTo(new URI(serverURI + "/bookings/owner?state=WAITING&from=0&size=10&after=abc")))
+                .andExpect(method(HttpMethod.GET))
+                .andExpect(header("X-Sharer-User-Id", "0"))
+                .andRespond(withStatus(HttpStatus.OK)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .headers(nextPage)
+                        .body(mapper.writeValueAsString(testObject)));
+
+        ResponseEntity<Object> result = bookingClient.findByItemOwnerAndByState(0L, BookingState.WAITING, 0, 10,
+                "abc");
+        mockServer.verify();
+        Assertions.assertEquals("def", result.getHeaders().getFirst("X-Next-After"));
+        Assertions.assertEquals(responseEntity.getBody(), result.getBody());
+    }
+
+    @Test
+    @SneakyThrows
+    public void methodFindChangesByBookerPassesSinceAndSyncTokenHeader() {
+        HttpHeaders syncToken = new HttpHeaders();
+        syncToken.set("X-Sync-Token", "def");
+        mockServer.expect(ExpectedCount.once(),
+                        requestTo(new URI(serverURI + "/bookings/changes?size=100&since=abc")))
+                .andExpect(method(HttpMethod.GET))
+                .andExpect(header("X-Sharer-User-Id", "0"))
+                .andRespond(withStatus(HttpStatus.OK)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .headers(syncToken)
+                        .body(mapper.writeValueAsString(testObject)));
+
+        ResponseEntity<Object> result = bookingClient.findChangesByBooker(0L, "abc", 100);
+        mockServer.verify();
+        Assertions.assertEquals("def", result.getHeaders().getFirst("X-Sync-Token"));
+        Assertions.assertEquals(responseEntity.getBody(), result.getBody());
+    }
+
+    @Test
+    @SneakyThrows
+    public void methodFindChangesByItemOwnerWithoutSinceSendsOnlySize() {
+        mockServer.expect(ExpectedCount.once(),
+                        requestTo(new URI(serverURI + "/bookings/owner/changes?size=10")))
+                .andExpect(method(HttpMethod.GET))
+                .andExpect(header("X-Sharer-User-Id", "0"))
+                .andRespond(withStatus(HttpStatus.OK)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .body(mapper.writeValueAsString(testObject)));
+
+        ResponseEntity<Object> result = bookingClient.findChangesByItemOwner(0L, null, 10);
+        mockServer.verify();
+        Assertions.assertEquals(responseEntity.getBody(), result.getBody());
+    }
+
     @Test
     @SneakyThrows
     public void methodBookItemSendsRequestWithHeaders() {
@@ -103,12 +168,84 @@ public class BookingClientTest {
                         .contentType(MediaType.APPLICATION_JSON)
                         .body(mapper.writeValueAsString(testObject)));
 
-        ResponseEntity<Object> result = bookingClient.bookItem(0L, dto);
+        ResponseEntity<Object> result = bookingClient.bookItem(0L, null, dto);
         mockServer.verify();
         Assertions.assertEquals(responseEntity.getStatusCode(), result.getStatusCode());
         Assertions.assertEquals(responseEntity.getBody(), result.getBody());
     }
 
+    @Test
+    @SneakyThrows
+    public void methodBookItemForwardsIdempotencyKeyAndReplayedHeader() {
+        BookItemRequestDto dto = new BookItemRequestDto(0L, LocalDateTime.of(
+                Year.now().plusYears(1).getValue(), 1, 1, 1, 1),
+                LocalDateTime.of(Year.now().plusYears(1).getValue(), 2, 2, 2, 2));
+        HttpHeaders replayedHeaders = new HttpHeaders();
+        replayedHeaders.set("Idempotent-Replayed", "true");
+
+        mockServer.expect(ExpectedCount.once(), requestTo(new URI(serverURI + "/bookings")))
+                .andExpect(method(HttpMethod.POST))
+                .andExpect(header("Idempotency-Key", "key"))
+                .andRespond(withStatus(HttpStatus.OK)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .headers(replayedHeaders)
+                        .body(mapper.writeValueAsString(testObject)));
+
+        ResponseEntity<Object> result = bookingClient.bookItem(0L, "key", dto);
+        mockServer.verify();
+        Assertions.assertEquals("true", result.getHeaders().getFirst("Idempotent-Replayed"));
+        Assertions.assertEquals(responseEntity.getBody(), result.getBody());
+    }
+
+    @Test
+    @SneakyThrows
+    public void methodBookItemOrEnqueueSendsRequestWithWaitlistParameter() {
+        BookItemRequestDto dto = new BookItemRequestDto(0L, LocalDateTime.of(
+                Year.now().plusYears(1).getValue(), 1, 1, 1, 1),
+                LocalDateTime.of(Year.now().plusYears(1).getValue(), 2, 2, 2, 2));
+
+        mockServer.expect(ExpectedCount.once(), requestTo(new URI(serverURI + "/bookings?waitlist=true")))
+                .andExpect(method(HttpMethod.POST))
+                .andExpect(header("X-Sharer-User-Id", "0"))
+                .andExpect(content().json(mapper.writeValueAsString(dto)))
+                .andRespond(withStatus(HttpStatus.ACCEPTED)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .body(mapper.writeValueAsString(testObject)));
+
+        ResponseEntity<Object> result = bookingClient.bookItemOrEnqueue(0L, dto);
+        mockServer.verify();
+        Assertions.assertEquals(HttpStatus.ACCEPTED, result.getStatusCode());
+        Assertions.assertEquals(responseEntity.getBody(), result.getBody());
+    }
+
+    @Test
+    @SneakyThrows
+    public void methodUpdateRecurringSendsRequestWithApprovedParameter() {
+        mockServer.expect(ExpectedCount.once(), requestTo(new URI(serverURI + "/bookings/recurring/3?approved=true")))
+                .andExpect(method(HttpMethod.PATCH))
+                .andExpect(header("X-Sharer-User-Id", "0"))
+                .andRespond(withStatus(HttpStatus.OK)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .body(mapper.writeValueAsString(testObject)));
+
+        ResponseEntity<Object> result = bookingClient.updateRecurring(3L, true, 0L);
+        mockServer.verify();
+        Assertions.assertEquals(responseEntity.getBody(), result.getBody());
+    }
+
+    @Test
+    @SneakyThrows
+    public void methodDeleteWaitlistEntrySendsRequestWithHeaders() {
+        mockServer.expect(ExpectedCount.once(), requestTo(new URI(serverURI + "/bookings/waitlist/7")))
+                .andExpect(method(HttpMethod.DELETE))
+                .andExpect(header("X-Sharer-User-Id", "0"))
+                .andRespond(withStatus(HttpStatus.OK));
+
+        ResponseEntity<Object> result = bookingClient.deleteWaitlistEntry(0L, 7L);
+        mockServer.verify();
+        Assertions.assertEquals(HttpStatus.OK, result.getStatusCode());
+    }
+
     @Test
     @SneakyThrows
     public void methodGetBookingSendsRequestWithHeaders() {
@@ -142,4 +279,102 @@ public class BookingClientTest {
         Assertions.assertEquals(responseEntity.getStatusCode(), result.getStatusCode());
         Assertions.assertEquals(responseEntity.getBody(), result.getBody());
     }
+
+    @Test
+    @SneakyThrows
+    public void methodUpdateAllSendsRequestWithBodyAndHeaders() {
+        BookingStatusUpdateDto dto = new BookingStatusUpdateDto(List.of(1L, 2L), false);
+        mockServer.expect(ExpectedCount.once(), requestTo(new URI(serverURI + "/bookings/status")))
+                .andExpect(method(HttpMethod.PATCH))
+                .andExpect(header("X-Sharer-User-Id", "0"))
+                .andExpect(content().json(mapper.writeValueAsString(dto)))
+                .andRespond(withStatus(HttpStatus.OK)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .body(mapper.writeValueAsString(testObject)));
+
+        ResponseEntity<Object> result = bookingClient.updateAll(dto, 0L);
+        mockServer.verify();
+        Assertions.assertEquals(responseEntity.getBody(), result.getBody());
+    }
+
+    @Test
+    @SneakyThrows
+    public void methodStreamByItemOwnerProxiesEventStream() {
+        String events = "event:created\ndata:{\"bookingId\":1}\n\n";
+        streamServer.expect(ExpectedCount.once(), requestTo(new URI(serverURI + "/bookings/owner/stream")))
+                .andExpect(method(HttpMethod.GET))
+                .andExpect(header("X-Sharer-User-Id", "0"))
+                .andExpect(header("Accept", MediaType.TEXT_EVENT_STREAM_VALUE))
+                .andRespond(withStatus(HttpStatus.OK)
+                        .contentType(MediaType.TEXT_EVENT_STREAM)
+                        .body(events));
+
+        ResponseEntity<StreamingResponseBody> result = bookingClient.streamByItemOwner(0L);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        result.getBody().writeTo(out);
+
+        streamServer.verify();
+        Assertions.assertEquals(HttpStatus.OK, result.getStatusCode());
+        Assertions.assertEquals(MediaType.TEXT_EVENT_STREAM, result.getHeaders().getContentType());
+        Assertions.assertEquals(events, out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    @SneakyThrows
+    public void methodStreamByItemOwnerPassesServerErrorThrough() {
+        streamServer.expect(ExpectedCount.once(), requestTo(new URI(serverURI + "/bookings/owner/stream")))
+                .andRespond(withStatus(HttpStatus.NOT_FOUND)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .body("{\"error\":\"not found\"}"));
+
+        ResponseEntity<StreamingResponseBody> result = bookingClient.streamByItemOwner(0L);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        result.getBody().writeTo(out);
+
+        Assertions.assertEquals(HttpStatus.NOT_FOUND, result.getStatusCode());
+        Assertions.assertEquals("{\"error\":\"not found\"}", out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    @SneakyThrows
+    public void methodExportByItemOwnerPassesBodyAndAttachmentHeadersThrough() {
+        String csv = "id,start\n1,2030-01-01T10:00:00\n";
+        HttpHeaders attachment = new HttpHeaders();
+        attachment.set(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"bookings.csv\"");
+        streamServer.expect(ExpectedCount.once(), requestTo(new URI(serverURI + "/bookings/owner/export?format=csv")))
+                .andExpect(method(HttpMethod.GET))
+                .andExpect(header("X-Sharer-User-Id", "0"))
+                .andRespond(withStatus(HttpStatus.OK)
+                        .contentType(MediaType.parseMediaType("text/csv"))
+                        .headers(attachment)
+                        .body(csv));
+
+        ResponseEntity<StreamingResponseBody> result = bookingClient.exportByItemOwner(0L, "csv");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        result.getBody().writeTo(out);
+
+        streamServer.verify();
+        Assertions.assertEquals(MediaType.parseMediaType("text/csv"), result.getHeaders().getContentType());
+        Assertions.assertEquals("attachment; filename=\"bookings.csv\"",
+                result.getHeaders().getFirst(HttpHeaders.CONTENT_DISPOSITION));
+        Assertions.assertEquals(csv, out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    @SneakyThrows
+    public void methodSearchSendsOnlyGivenFilters() {
+        mockServer.expect(ExpectedCount.once(), requestTo(new URI(serverURI
+                        + "/bookings/search?role=owner&size=20&itemId=5&status=APPROVED%2CWAITING"
+                        + "&start=2030-03-01T00%3A00&after=abc")))
+                .andExpect(method(HttpMethod.GET))
+                .andExpect(header("X-Sharer-User-Id", "0"))
+                .andRespond(withStatus(HttpStatus.OK)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .body(mapper.writeValueAsString(testObject)));
+
+        ResponseEntity<Object> result = bookingClient.search(0L, "owner", 5L, List.of("APPROVED", "WAITING"),
+                LocalDateTime.of(2030, 3, 1, 0, 0), null, 20, "abc");
+        mockServer.verify();
+        Assertions.assertEquals(responseEntity.getBody(), result.getBody());
+    }
 }
@@ -17,13 +17,18 @@ import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import ru.practicum.shareit.booking.dto.BookItemRequestDto;
 import ru.practicum.shareit.booking.dto.BookingState;
+import ru.practicum.shareit.booking.dto.BookingStatusUpdateDto;
+import ru.practicum.shareit.booking.dto.RecurringBookingRequestDto;
 import ru.practicum.shareit.util.ExceptionControllerAdvice;
 
 import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.time.Year;
+import java.util.List;
 
-import static org.mockito.Mockito.when;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
@@ -56,7 +61,7 @@ public class BookingControllerTest {
     @Test
     @SneakyThrows
     public void methodGetBookingsCallsClientMethod() {
-        when(bookingClient.getBookings(0L, BookingState.ALL, 0, 10)).thenReturn(responseEntity);
+        when(bookingClient.getBookings(0L, BookingState.ALL, 0, 10, null)).thenReturn(responseEntity);
 
         mockMvc.perform(get("/bookings")
                         .accept(MediaType.APPLICATION_JSON)
@@ -65,6 +70,69 @@ public class BookingControllerTest {
                 .andExpect(jsonPath("$").value("testObject"));
     }
 
+    @Test
+    @SneakyThrows
+    public void methodGetBookingsWithAfterPassesCursorToClient() {
+        when(bookingClient.getBookings(0L, BookingState.PAST, 0, 10, "abc")).thenReturn(responseEntity);
+
+        mockMvc.perform(get("/bookings?state=past&after=abc")
+                        .accept(MediaType.APPLICATION_JSON)
+                        .header("X-Sharer-User-Id", 0))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$").value("testObject"));
+    }
+
+    @Test
+    @SneakyThrows
+    public void methodFindChangesByBookerPassesSinceToClient() {
+        when(bookingClient.findChangesByBooker(0L, "abc", 100)).thenReturn(responseEntity);
+
+        mockMvc.perform(get("/bookings/changes?since=abc")
+                        .accept(MediaType.APPLICATION_JSON)
+                        .header("X-Sharer-User-Id", 0))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$").value("testObject"));
+    }
+
+    @Test
+    @SneakyThrows
+    public void methodFindChangesByItemOwnerWhenSizeIsZeroReturnsCode400() {
+        mockMvc.perform(get("/bookings/owner/changes?size=0")
+                        .accept(MediaType.APPLICATION_JSON)
+                        .header("X-Sharer-User-Id", 0))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @SneakyThrows
+    public void methodExportByItemOwnerWhenFormatUnsupportedReturnsCode400() {
+        mockMvc.perform(get("/bookings/owner/export?format=xml")
+                        .header("X-Sharer-User-Id", 0))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @SneakyThrows
+    public void methodSearchPassesUpperCaseStatusesToClient() {
+        when(bookingClient.search(0L, "owner", 5L, List.of("APPROVED", "WAITING"),
+                LocalDateTime.of(2030, 3, 1, 0, 0), null, 20, null)).thenReturn(responseEntity);
+
+        mockMvc.perform(get("/bookings/search?role=owner&itemId=5&status=approved,waiting&start=2030-03-01T00:00:00")
+                        .accept(MediaType.APPLICATION_JSON)
+                        .header("X-Sharer-User-Id", 0))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$").value("testObject"));
+    }
+
+    @Test
+    @SneakyThrows
+    public void methodSearchWhenStatusUnknownReturnsCode400() {
+        mockMvc.perform(get("/bookings/search?status=approved,unknown")
+                        .accept(MediaType.APPLICATION_JSON)
+                        .header("X-Sharer-User-Id", 0))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     @SneakyThrows
     public void methodGetBookingsWhenStateUnsupportedReturnsCode500() {
@@ -95,7 +163,7 @@ public class BookingControllerTest {
     @Test
     @SneakyThrows
     public void methodFindByItemOwnerAndByStateCallsClientMethod() {
-        when(bookingClient.findByItemOwnerAndByState(0L, BookingState.ALL, 0, 20)).thenReturn(responseEntity);
+        when(bookingClient.findByItemOwnerAndByState(0L, BookingState.ALL, 0, 20, null)).thenReturn(responseEntity);
 
         mockMvc.perform(get("/bookings/owner")
                         .accept(MediaType.APPLICATION_JSON)
@@ -134,7 +202,7 @@ public class BookingControllerTest {
     @Test
     @SneakyThrows
     public void methodCreateCallsClientMethod() {
-        when(bookingClient.bookItem(0L, dto)).thenReturn(responseEntity);
+        when(bookingClient.bookItem(0L, null, dto)).thenReturn(responseEntity);
 
         mockMvc.perform(post("/bookings")
                         .header("X-Sharer-User-Id", 0)
@@ -146,6 +214,66 @@ public class BookingControllerTest {
                 .andExpect(jsonPath("$").value("testObject"));
     }
 
+    @Test
+    @SneakyThrows
+    public void methodCreateWithWaitlistCallsClientMethod() {
+        when(bookingClient.bookItemOrEnqueue(0L, dto)).thenReturn(ResponseEntity.accepted().body("testObject"));
+
+        mockMvc.perform(post("/bookings?waitlist=true")
+                        .header("X-Sharer-User-Id", 0)
+                        .content(mapper.writeValueAsString(dto))
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$").value("testObject"));
+        verify(bookingClient, never()).bookItem(anyLong(), any(), any());
+    }
+
+    @Test
+    @SneakyThrows
+    public void methodCreateRecurringCallsClientMethod() {
+        RecurringBookingRequestDto recurring = new RecurringBookingRequestDto(0L, dto.getStart(), dto.getEnd(),
+                "WEEKLY", 2, dto.getEnd().plusMonths(3));
+        when(bookingClient.bookItemRecurring(0L, recurring)).thenReturn(ResponseEntity.ok("testObject"));
+
+        mockMvc.perform(post("/bookings/recurring")
+                        .header("X-Sharer-User-Id", 0)
+                        .content(mapper.writeValueAsString(recurring))
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$").value("testObject"));
+    }
+
+    @Test
+    @SneakyThrows
+    public void methodCreateRecurringWithUnknownFrequencyReturnsCode400() {
+        RecurringBookingRequestDto recurring = new RecurringBookingRequestDto(0L, dto.getStart(), dto.getEnd(),
+                "HOURLY", 1, dto.getEnd().plusMonths(3));
+
+        mockMvc.perform(post("/bookings/recurring")
+                        .header("X-Sharer-User-Id", 0)
+                        .content(mapper.writeValueAsString(recurring))
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+        verify(bookingClient, never()).bookItemRecurring(anyLong(), any());
+    }
+
+    @Test
+    @SneakyThrows
+    public void methodDeleteWaitlistEntryCallsClientMethod() {
+        when(bookingClient.deleteWaitlistEntry(0L, 7L)).thenReturn(ResponseEntity.ok().build());
+
+        mockMvc.perform(delete("/bookings/waitlist/7")
+                        .header("X-Sharer-User-Id", 0))
+                .andExpect(status().isOk());
+        verify(bookingClient).deleteWaitlistEntry(0L, 7L);
+    }
+
     @Test
     @SneakyThrows
     public void methodCreateWhenItemIdIsNullReturnsCode400() {
@@ -239,4 +367,32 @@ public class BookingControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$").value("testObject"));
     }
+
+    @Test
+    @SneakyThrows
+    public void methodUpdateAllCallsClientMethod() {
+        BookingStatusUpdateDto statusUpdateDto = new BookingStatusUpdateDto(List.of(1L, 2L), true);
+        when(bookingClient.updateAll(statusUpdateDto, 0L)).thenReturn(responseEntity);
+
+        mockMvc.perform(patch("/bookings/status")
+                        .header("X-Sharer-User-Id", 0)
+                        .content(mapper.writeValueAsString(statusUpdateDto))
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$").value("testObject"));
+    }
+
+    @Test
+    @SneakyThrows
+    public void methodUpdateAllWhenIdsAreEmptyReturnsCode400() {
+        mockMvc.perform(patch("/bookings/status")
+                        .header("X-Sharer-User-Id", 0)
+                        .content(mapper.writeValueAsString(new BookingStatusUpdateDto(List.of(), true)))
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+    }
 }
@@ -21,6 +21,7 @@ import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 
 import java.net.URI;
+import java.time.LocalDateTime;
 
 import static org.springframework.test.web.client.match.MockRestRequestMatchers.*;
 import static org.springframework.test.web.client.response.MockRestResponseCreators.withStatus;
@@ -100,6 +101,39 @@ public class ItemClientTest {
         Assertions.assertEquals(responseEntity.getBody(), result.getBody());
     }
 
+    @Test
+    @SneakyThrows
+    public void methodGetAvailabilitySendsRequestWithWindow() {
+        LocalDateTime from = LocalDateTime.of(2030, 1, 1, 0, 0, 0);
+        mockServer.expect(ExpectedCount.once(), requestTo(new URI(serverURI
+                        + "/items/1/availability?from=2030-01-01T00%3A00&to=2030-01-02T00%3A00")))
+                .andExpect(method(HttpMethod.GET))
+                .andRespond(withStatus(HttpStatus.OK)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .body(mapper.writeValueAsString(testObject)));
+
+        ResponseEntity<Object> result = itemClient.getAvailability(1L, from, from.plusDays(1));
+        mockServer.verify();
+        Assertions.assertEquals(responseEntity.getBody(), result.getBody());
+    }
+
+    @Test
+    @SneakyThrows
+    public void methodGetOwnerUtilizationSendsRequestWithOwnerAndWindow() {
+        LocalDateTime from = LocalDateTime.of(2030, 1, 1, 0, 0, 0);
+        mockServer.expect(ExpectedCount.once(), requestTo(new URI(serverURI
+                        + "/items/owner/stats?from=2030-01-01T00%3A00&to=2030-01-02T00%3A00")))
+                .andExpect(method(HttpMethod.GET))
+                .andExpect(header("X-Sharer-User-Id", "1"))
+                .andRespond(withStatus(HttpStatus.OK)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .body(mapper.writeValueAsString(testObject)));
+
+        ResponseEntity<Object> result = itemClient.getOwnerUtilization(1L, from, from.plusDays(1));
+        mockServer.verify();
+        Assertions.assertEquals(responseEntity.getBody(), result.getBody());
+    }
+
     @Test
     @SneakyThrows
     public void methodCreateSendsRequestWithHeaders() {
@@ -115,7 +149,7 @@ public class ItemClientTest {
                         .contentType(MediaType.APPLICATION_JSON)
                         .body(mapper.writeValueAsString(testObject)));
 
-        ResponseEntity<Object> result = itemClient.create(0L, dto);
+        ResponseEntity<Object> result = itemClient.create(0L, null, dto);
         mockServer.verify();
         Assertions.assertEquals(responseEntity.getStatusCode(), result.getStatusCode());
         Assertions.assertEquals(responseEntity.getBody(), result.getBody());
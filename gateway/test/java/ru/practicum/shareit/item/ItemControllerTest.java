@@ -20,6 +20,7 @@ import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.util.ExceptionControllerAdvice;
 
 import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
 
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -95,6 +96,31 @@ public class ItemControllerTest {
                 .andExpect(jsonPath("$").value("testObject"));
     }
 
+    @Test
+    @SneakyThrows
+    public void methodGetAvailabilityCallsItemClientMethod() {
+        LocalDateTime from = LocalDateTime.of(2030, 1, 1, 0, 0);
+        when(itemClient.getAvailability(1L, from, from.plusDays(1))).thenReturn(responseEntity);
+
+        mockMvc.perform(get("/items/1/availability?from=2030-01-01T00:00:00&to=2030-01-02T00:00:00")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$").value("testObject"));
+    }
+
+    @Test
+    @SneakyThrows
+    public void methodGetOwnerUtilizationCallsItemClientMethod() {
+        LocalDateTime from = LocalDateTime.of(2030, 1, 1, 0, 0);
+        when(itemClient.getOwnerUtilization(0L, from, from.plusDays(1))).thenReturn(responseEntity);
+
+        mockMvc.perform(get("/items/owner/stats?from=2030-01-01T00:00:00&to=2030-01-02T00:00:00")
+                        .accept(MediaType.APPLICATION_JSON)
+                        .header("X-Sharer-User-Id", "0"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$").value("testObject"));
+    }
+
     @Test
     @SneakyThrows
     public void methodSearchByTextCallsUserClientMethod() {
@@ -128,10 +154,26 @@ public class ItemControllerTest {
     @Test
     @SneakyThrows
     public void methodCreateItemDtoCallsClientMethod() {
-        when(itemClient.create(0L, dto)).thenReturn(responseEntity);
+        when(itemClient.create(0L, null, dto)).thenReturn(responseEntity);
+
+        mockMvc.perform(post("/items")
+                        .header("X-Sharer-User-Id", 0)
+                        .content(mapper.writeValueAsString(dto))
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$").value("testObject"));
+    }
+
+    @Test
+    @SneakyThrows
+    public void methodCreateItemDtoPassesIdempotencyKeyToClient() {
+        when(itemClient.create(0L, "key", dto)).thenReturn(responseEntity);
 
         mockMvc.perform(post("/items")
                         .header("X-Sharer-User-Id", 0)
+                        .header("Idempotency-Key", "key")
                         .content(mapper.writeValueAsString(dto))
                         .characterEncoding(StandardCharsets.UTF_8)
                         .contentType(MediaType.APPLICATION_JSON)
@@ -2,13 +2,43 @@ package ru.practicum.shareit.booking.controller;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.practicum.shareit.booking.dto.BookingChanges;
+import ru.practicum.shareit.booking.dto.BookingCreationResult;
 import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingImportReport;
+import ru.practicum.shareit.booking.dto.BookingSearchFilter;
+import ru.practicum.shareit.booking.dto.BookingStatusUpdateDto;
+import ru.practicum.shareit.booking.dto.BookingStatusUpdateResult;
+import ru.practicum.shareit.booking.dto.RecurringBookingDto;
 import ru.practicum.shareit.booking.dto.SimpleBookingDto;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.service.BookingChangeService;
+import ru.practicum.shareit.booking.service.BookingEventBroadcaster;
+import ru.practicum.shareit.booking.service.BookingExportFormat;
+import ru.practicum.shareit.booking.service.BookingExportService;
+import ru.practicum.shareit.booking.service.BookingImportService;
+import ru.practicum.shareit.booking.service.BookingSearchRole;
 import ru.practicum.shareit.booking.service.BookingService;
 import ru.practicum.shareit.booking.service.BookingState;
+import ru.practicum.shareit.booking.service.BookingWaitlistService;
+import ru.practicum.shareit.booking.service.RecurringBookingService;
+import ru.practicum.shareit.idempotency.dto.IdempotentResponse;
+import ru.practicum.shareit.idempotency.service.IdempotencyService;
+import ru.practicum.shareit.util.KeysetSlice;
 
+import java.io.InputStream;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Set;
 
 import static ru.practicum.shareit.util.Logging.logInfoIncomingRequest;
 
@@ -17,13 +47,73 @@ import static ru.practicum.shareit.util.Logging.logInfoIncomingRequest;
 @Slf4j
 @RequestMapping(path = "/bookings")
 public class BookingController {
+    public static final String NEXT_PAGE_HEADER = "X-Next-After";
+    public static final String TOTAL_COUNT_HEADER = "X-Total-Count";
+    public static final String SYNC_TOKEN_HEADER = "X-Sync-Token";
     private final BookingService bookingService;
+    private final BookingImportService bookingImportService;
+    private final BookingWaitlistService bookingWaitlistService;
+    private final RecurringBookingService recurringBookingService;
+    private final BookingEventBroadcaster bookingEventBroadcaster;
+    private final IdempotencyService idempotencyService;
+    private final BookingChangeService bookingChangeService;
+    private final BookingExportService bookingExportService;
 
     @PostMapping
-    public BookingDto create(@RequestBody SimpleBookingDto bookingDto,
-                             @RequestHeader("X-Sharer-User-Id") long bookerId) {
+    public ResponseEntity<Object> create(@RequestBody SimpleBookingDto bookingDto,
+                                         @RequestHeader("X-Sharer-User-Id") long bookerId,
+                                         @RequestHeader(value = IdempotencyService.IDEMPOTENCY_KEY_HEADER,
+                                                 required = false) String idempotencyKey) {
         logInfoIncomingRequest(log, "POST /bookings", bookingDto, bookerId);
-        return bookingService.create(bookingDto, bookerId);
+        IdempotentResponse response = idempotencyService.execute(idempotencyKey, bookerId, "POST /bookings",
+                bookingDto, () -> bookingService.create(bookingDto, bookerId));
+        return ResponseEntity.ok()
+                .header(IdempotencyService.REPLAYED_HEADER, String.valueOf(response.isReplayed()))
+                .body(response.getBody());
+    }
+
+    @PostMapping(params = "waitlist=true")
+    public ResponseEntity<Object> createOrEnqueue(@RequestBody SimpleBookingDto bookingDto,
+                                                  @RequestHeader("X-Sharer-User-Id") long bookerId) {
+        logInfoIncomingRequest(log, "POST /bookings?waitlist=true", bookingDto, bookerId);
+        BookingCreationResult result = bookingService.createOrEnqueue(bookingDto, bookerId);
+        return result.getBooking() != null
+                ? ResponseEntity.ok(result.getBooking())
+                : ResponseEntity.status(HttpStatus.ACCEPTED).body(result.getWaitlistEntry());
+    }
+
+    @DeleteMapping("/waitlist/{entryId}")
+    public void deleteWaitlistEntry(@PathVariable long entryId, @RequestHeader("X-Sharer-User-Id") long bookerId) {
+        logInfoIncomingRequest(log, "DELETE /bookings/waitlist/{entryId}", entryId, bookerId);
+        bookingWaitlistService.delete(entryId, bookerId);
+    }
+
+    @PostMapping("/recurring")
+    public RecurringBookingDto createRecurring(@RequestBody RecurringBookingDto recurringBookingDto,
+                                               @RequestHeader("X-Sharer-User-Id") long bookerId) {
+        logInfoIncomingRequest(log, "POST /bookings/recurring", recurringBookingDto, bookerId);
+        return recurringBookingService.create(recurringBookingDto, bookerId);
+    }
+
+    @PatchMapping("/recurring/{recurringBookingId}")
+    public RecurringBookingDto updateRecurring(@PathVariable long recurringBookingId, @RequestParam boolean approved,
+                                               @RequestHeader("X-Sharer-User-Id") long itemOwnerId) {
+        logInfoIncomingRequest(log, "PATCH /bookings/recurring/{recurringBookingId}", recurringBookingId, approved,
+                itemOwnerId);
+        return recurringBookingService.update(recurringBookingId, approved, itemOwnerId);
+    }
+
+    @PostMapping(path = "/import", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public BookingImportReport importBookings(InputStream ndjson, @RequestHeader("X-Sharer-User-Id") long userId) {
+        logInfoIncomingRequest(log, "POST /bookings/import", userId);
+        return bookingImportService.importBookings(ndjson, userId);
+    }
+
+    @PatchMapping("/status")
+    public List<BookingStatusUpdateResult> updateAll(@RequestBody BookingStatusUpdateDto statusUpdateDto,
+                                                     @RequestHeader("X-Sharer-User-Id") long itemOwnerId) {
+        logInfoIncomingRequest(log, "PATCH /bookings/status", statusUpdateDto, itemOwnerId);
+        return bookingService.updateAll(statusUpdateDto, itemOwnerId);
     }
 
     @PatchMapping("/{bookingId}")
@@ -43,21 +133,100 @@ public class BookingController {
     }
 
     @GetMapping
-    public List<BookingDto> findByBookerAndByState(@RequestParam(defaultValue = "all") BookingState state,
-                                                   @RequestHeader("X-Sharer-User-Id") long bookerId,
-                                                   @RequestParam(defaultValue = "0") int from,
-                                                   @RequestParam(defaultValue = "20") int size) {
+    public ResponseEntity<List<BookingDto>> findByBookerAndByState(
+            @RequestParam(defaultValue = "all") BookingState state,
+            @RequestHeader("X-Sharer-User-Id") long bookerId,
+            @RequestParam(defaultValue = "0") int from,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(required = false) String after) {
         logInfoIncomingRequest(log, "GET /bookings", state, bookerId, from, size);
 
-        return bookingService.findByBookerAndByState(state, bookerId, from, size);
+        return toResponse(bookingService.findByBookerAndByState(state, bookerId, from, size, after),
+                bookingService.countByBookerAndByState(state, bookerId));
     }
 
     @GetMapping("/owner")
-    public List<BookingDto> findByItemOwnerAndByState(@RequestParam(defaultValue = "all") BookingState state,
-                                                      @RequestHeader("X-Sharer-User-Id") long itemOwnerId,
-                                                      @RequestParam(defaultValue = "0") int from,
-                                                      @RequestParam(defaultValue = "20") int size) {
+    public ResponseEntity<List<BookingDto>> findByItemOwnerAndByState(
+            @RequestParam(defaultValue = "all") BookingState state,
+            @RequestHeader("X-Sharer-User-Id") long itemOwnerId,
+            @RequestParam(defaultValue = "0") int from,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(required = false) String after) {
         logInfoIncomingRequest(log, "GET /bookings/owner", state, itemOwnerId, from, size);
-        return bookingService.findByItemOwnerAndByState(state, itemOwnerId, from, size);
+        return toResponse(bookingService.findByItemOwnerAndByState(state, itemOwnerId, from, size, after),
+                bookingService.countByItemOwnerAndByState(state, itemOwnerId));
+    }
+
+    @GetMapping("/search")
+    public ResponseEntity<List<BookingDto>> search(
+            @RequestHeader("X-Sharer-User-Id") long userId,
+            @RequestParam(defaultValue = "booker") BookingSearchRole role,
+            @RequestParam(required = false) Long itemId,
+            @RequestParam(name = "status", required = false) Set<BookingStatus> statuses,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime start,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(required = false) String after) {
+        logInfoIncomingRequest(log, "GET /bookings/search", userId, role, size);
+        KeysetSlice<BookingDto> slice = bookingService.search(
+                new BookingSearchFilter(role, itemId, statuses, start, end), userId, size, after);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (slice.getAfter() != null) {
+            response.header(NEXT_PAGE_HEADER, slice.getAfter());
+        }
+        return response.body(slice.getContent());
+    }
+
+    @GetMapping("/changes")
+    public ResponseEntity<List<BookingDto>> findChangesByBooker(@RequestHeader("X-Sharer-User-Id") long bookerId,
+                                                                @RequestParam(required = false) String since,
+                                                                @RequestParam(defaultValue = "100") int size) {
+        logInfoIncomingRequest(log, "GET /bookings/changes", bookerId, size);
+        return toResponse(bookingChangeService.findChangesByBooker(bookerId, since, size));
+    }
+
+    @GetMapping("/owner/changes")
+    public ResponseEntity<List<BookingDto>> findChangesByItemOwner(
+            @RequestHeader("X-Sharer-User-Id") long itemOwnerId,
+            @RequestParam(required = false) String since,
+            @RequestParam(defaultValue = "100") int size) {
+        logInfoIncomingRequest(log, "GET /bookings/owner/changes", itemOwnerId, size);
+        return toResponse(bookingChangeService.findChangesByItemOwner(itemOwnerId, since, size));
+    }
+
+    @GetMapping("/owner/export")
+    public ResponseEntity<StreamingResponseBody> exportByItemOwner(
+            @RequestHeader("X-Sharer-User-Id") long itemOwnerId,
+            @RequestParam(defaultValue = "ndjson") BookingExportFormat format) {
+        logInfoIncomingRequest(log, "GET /bookings/owner/export", itemOwnerId, format);
+        StreamingResponseBody body = bookingExportService.exportByItemOwner(itemOwnerId, format);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(format.getMediaType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("bookings." + format.getExtension())
+                        .build()
+                        .toString())
+                .body(body);
+    }
+
+    @GetMapping(path = "/owner/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamByItemOwner(@RequestHeader("X-Sharer-User-Id") long itemOwnerId) {
+        logInfoIncomingRequest(log, "GET /bookings/owner/stream", itemOwnerId);
+        return bookingEventBroadcaster.subscribe(itemOwnerId);
+    }
+
+    private ResponseEntity<List<BookingDto>> toResponse(KeysetSlice<BookingDto> slice, long total) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .header(TOTAL_COUNT_HEADER, String.valueOf(total));
+        if (slice.getAfter() != null) {
+            response.header(NEXT_PAGE_HEADER, slice.getAfter());
+        }
+        return response.body(slice.getContent());
+    }
+
+    private ResponseEntity<List<BookingDto>> toResponse(BookingChanges changes) {
+        return ResponseEntity.ok()
+                .header(SYNC_TOKEN_HEADER, changes.getToken())
+                .body(changes.getBookings());
     }
 }
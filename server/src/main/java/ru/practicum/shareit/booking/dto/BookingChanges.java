@@ -0,0 +1,16 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Бронирования, созданные или измененные после токена, и токен для следующего запроса изменений.
+ */
+@Data
+@AllArgsConstructor
+public class BookingChanges {
+    private List<BookingDto> bookings;
+    private String token;
+}
@@ -0,0 +1,24 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Арендатор и бронируемая вещь одной выборкой: хватает и для проверок перед созданием бронирования,
+ * и для ответа. Если вещь не найдена, все ее поля равны null.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BookingCreationCheck {
+    private Long bookerId;
+    private String bookerName;
+    private String bookerEmail;
+    private Long itemId;
+    private Long itemOwnerId;
+    private String itemName;
+    private String itemDescription;
+    private Boolean itemAvailable;
+    private Long itemRequestId;
+}
@@ -0,0 +1,16 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Результат запроса на бронирование с листом ожидания: заполнено либо booking, либо waitlistEntry.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BookingCreationResult {
+    private BookingDto booking;
+    private WaitlistEntryDto waitlistEntry;
+}
@@ -0,0 +1,29 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BookingImportReport {
+    private long received;
+    private long imported;
+    private long rejected;
+    private String writeMode;
+    private long durationMillis;
+    private long rowsPerSecond;
+    private List<LineError> errors = new ArrayList<>();
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class LineError {
+        private long line;
+        private String message;
+    }
+}
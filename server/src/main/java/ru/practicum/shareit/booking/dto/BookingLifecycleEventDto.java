@@ -0,0 +1,49 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import ru.practicum.shareit.booking.model.BookingChangedEvent;
+import ru.practicum.shareit.booking.model.BookingStatus;
+
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BookingLifecycleEventDto {
+    private Type type;
+    private Long bookingId;
+    private Long itemId;
+    private Long bookerId;
+    private BookingStatus status;
+    private LocalDateTime start;
+    private LocalDateTime end;
+
+    /**
+     * Возвращает null для изменений, о которых владельцу не сообщается (например, возврат в WAITING).
+     */
+    public static BookingLifecycleEventDto of(BookingChangedEvent event) {
+        Type type;
+        if (event.getPreviousStatus() == null) {
+            type = Type.CREATED;
+        } else if (event.getStatus() == BookingStatus.APPROVED) {
+            type = Type.APPROVED;
+        } else if (event.getStatus() == BookingStatus.REJECTED) {
+            type = Type.REJECTED;
+        } else if (event.getStatus() == BookingStatus.CANCELED) {
+            type = Type.CANCELED;
+        } else {
+            return null;
+        }
+        return new BookingLifecycleEventDto(type, event.getBookingId(), event.getItemId(), event.getBookerId(),
+                event.getStatus(), event.getStart(), event.getEnd());
+    }
+
+    public enum Type {
+        CREATED,
+        APPROVED,
+        REJECTED,
+        CANCELED
+    }
+}
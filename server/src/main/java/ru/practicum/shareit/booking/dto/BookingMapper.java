@@ -1,6 +1,8 @@
 package ru.practicum.shareit.booking.dto;
 
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.RecurringBooking;
+import ru.practicum.shareit.booking.model.WaitlistEntry;
 import ru.practicum.shareit.item.dto.item.ItemDto;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.user.dto.UserDto;
@@ -12,5 +14,13 @@ public interface BookingMapper {
 
     BookingDto bookingToSimpleDto(Booking booking);
 
+    BookingDto viewToOutcomingDto(BookingView view);
+
+    WaitlistEntryDto waitlistEntryToDto(WaitlistEntry entry);
+
+    RecurringBookingDto recurringBookingToDto(RecurringBooking series);
+
+    RecurringBooking recurringBookingFromDto(RecurringBookingDto dto, Item item, User booker);
+
     Booking bookingFromDto(SimpleBookingDto dto, Item item, User booker);
 }
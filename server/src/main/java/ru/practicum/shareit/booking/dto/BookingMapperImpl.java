@@ -4,6 +4,8 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.model.RecurringBooking;
+import ru.practicum.shareit.booking.model.WaitlistEntry;
 import ru.practicum.shareit.item.dto.item.ItemDto;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.user.dto.UserDto;
@@ -25,10 +27,47 @@ public class BookingMapperImpl implements BookingMapper {
                 booking.getStatus(), booking.getItem().getId(), booking.getBooker().getId());
     }
 
+    @Override
+    public BookingDto viewToOutcomingDto(BookingView view) {
+        ItemDto itemDto = new ItemDto(view.getItemId(), view.getItemOwnerId(), view.getItemName(),
+                view.getItemDescription(), view.getItemAvailable(), view.getItemRequestId());
+        UserDto bookerDto = new UserDto(view.getBookerId(), view.getBookerName(), view.getBookerEmail());
+        if (view.getRecurringBookingId() == null) {
+            return new OutcomingBookingDto(view.getId(), view.getStart(), view.getEnd(), view.getStatus(),
+                    itemDto, bookerDto);
+        }
+        OutcomingBookingDto occurrence = new OutcomingBookingDto(null, view.getStart(), view.getEnd(),
+                view.getStatus(), itemDto, bookerDto);
+        occurrence.setRecurringBookingId(view.getRecurringBookingId());
+        return occurrence;
+    }
+
+    @Override
+    public WaitlistEntryDto waitlistEntryToDto(WaitlistEntry entry) {
+        return new WaitlistEntryDto(entry.getId(), entry.getItem().getId(), entry.getBooker().getId(),
+                entry.getStart(), entry.getEnd(), entry.getCreated());
+    }
+
+    @Override
+    public RecurringBookingDto recurringBookingToDto(RecurringBooking series) {
+        return new RecurringBookingDto(series.getId(), series.getItem().getId(), series.getBooker().getId(),
+                series.getStart(), series.getEnd(), series.getFrequency(), series.getInterval(), series.getUntil(),
+                series.getStatus());
+    }
+
+    @Override
+    public RecurringBooking recurringBookingFromDto(RecurringBookingDto dto, Item item, User booker) {
+        int interval = dto.getInterval() != null ? dto.getInterval() : 1;
+        return new RecurringBooking(null, item, booker, dto.getStart(), dto.getEnd(), dto.getFrequency(), interval,
+                dto.getUntil(), null, BookingStatus.WAITING);
+    }
+
+    /**
+     * id нового бронирования назначает база, переданный в DTO id не используется.
+     */
     @Override
     public Booking bookingFromDto(SimpleBookingDto dto, Item item, User booker) {
-        long id = dto.getId() != null ? dto.getId() : 0L;
         BookingStatus status = dto.getStatus() != null ? dto.getStatus() : BookingStatus.WAITING;
-        return new Booking(id, item, booker, dto.getStart(), dto.getEnd(), status);
+        return new Booking(null, item, booker, dto.getStart(), dto.getEnd(), status);
     }
 }
@@ -0,0 +1,23 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.service.BookingSearchRole;
+
+import java.time.LocalDateTime;
+import java.util.Set;
+
+/**
+ * Условия поиска бронирований. Незаданные условия не ограничивают выборку.
+ * Окно [start, end) отбирает бронирования, пересекающиеся с ним хотя бы частично.
+ */
+@Data
+@AllArgsConstructor
+public class BookingSearchFilter {
+    private BookingSearchRole role;
+    private Long itemId;
+    private Set<BookingStatus> statuses;
+    private LocalDateTime start;
+    private LocalDateTime end;
+}
@@ -0,0 +1,24 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import ru.practicum.shareit.booking.model.BookingStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * Данные бронирования, достаточные для проверки права владельца на смену статуса.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BookingStatusCheck {
+    private Long bookingId;
+    private Long itemId;
+    private Long itemOwnerId;
+    private Long bookerId;
+    private BookingStatus status;
+    private LocalDateTime start;
+    private LocalDateTime end;
+}
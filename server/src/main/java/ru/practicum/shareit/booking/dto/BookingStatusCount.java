@@ -0,0 +1,18 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import ru.practicum.shareit.booking.model.BookingStatus;
+
+/**
+ * Число бронирований пользователя (арендатора или владельца вещей) с заданным статусом.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BookingStatusCount {
+    private Long userId;
+    private BookingStatus status;
+    private Long count;
+}
@@ -0,0 +1,19 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import ru.practicum.shareit.booking.model.BookingStatus;
+
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BookingStatusMark {
+    private Long bookingId;
+    private Long changeSeq;
+    private LocalDateTime changed;
+    private BookingStatus status;
+    private LocalDateTime start;
+}
@@ -0,0 +1,24 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import ru.practicum.shareit.booking.model.BookingStatus;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BookingStatusUpdateResult {
+    private Long bookingId;
+    private Outcome outcome;
+    private BookingStatus status;
+
+    public enum Outcome {
+        UPDATED,
+        NOT_FOUND,
+        OWNER_MISMATCH,
+        ALREADY_APPROVED,
+        ITEM_NOT_AVAILABLE,
+        STATUS_CHANGED
+    }
+}
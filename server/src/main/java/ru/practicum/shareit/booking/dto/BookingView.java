@@ -0,0 +1,41 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import ru.practicum.shareit.booking.model.BookingStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * Плоская проекция бронирования вместе с предметом и арендатором.
+ * Заполняется одним запросом и отображается в OutcomingBookingDto без обращения к ленивым связям.
+ * Вхождения повторяющихся бронирований проецируются в ту же форму: у них заполнен recurringBookingId,
+ * а id - синтетический отрицательный ключ, нужный только для курсора.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BookingView {
+    private Long id;
+    private LocalDateTime start;
+    private LocalDateTime end;
+    private BookingStatus status;
+    private Long itemId;
+    private Long itemOwnerId;
+    private String itemName;
+    private String itemDescription;
+    private Boolean itemAvailable;
+    private Long itemRequestId;
+    private Long bookerId;
+    private String bookerName;
+    private String bookerEmail;
+    private Long recurringBookingId;
+
+    public BookingView(Long id, LocalDateTime start, LocalDateTime end, BookingStatus status, Long itemId,
+                       Long itemOwnerId, String itemName, String itemDescription, Boolean itemAvailable,
+                       Long itemRequestId, Long bookerId, String bookerName, String bookerEmail) {
+        this(id, start, end, status, itemId, itemOwnerId, itemName, itemDescription, itemAvailable, itemRequestId,
+                bookerId, bookerName, bookerEmail, null);
+    }
+}
@@ -1,5 +1,6 @@
 package ru.practicum.shareit.booking.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.Setter;
@@ -15,8 +16,10 @@ import java.time.LocalDateTime;
 public class OutcomingBookingDto extends BookingDto {
     ItemDto item;
     UserDto booker;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    Long recurringBookingId;
 
-    public OutcomingBookingDto(long id, LocalDateTime start, LocalDateTime end, BookingStatus status,
+    public OutcomingBookingDto(Long id, LocalDateTime start, LocalDateTime end, BookingStatus status,
                                ItemDto item, UserDto booker) {
         super(id, start, end, status);
         this.item = item;
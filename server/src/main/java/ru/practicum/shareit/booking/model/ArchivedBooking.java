@@ -0,0 +1,37 @@
+package ru.practicum.shareit.booking.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.model.User;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Бронирование, завершившееся давно и перенесенное из bookings в холодный архив.
+ * Записи переносятся с прежним id и после переноса не изменяются.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "bookings_archive")
+public class ArchivedBooking {
+    @EqualsAndHashCode.Include
+    @Id
+    private Long id;
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "item_id", nullable = false)
+    private Item item;
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "booker_id", nullable = false)
+    private User booker;
+    private LocalDateTime start;
+    @Column(name = "ending")
+    private LocalDateTime end;
+    @Enumerated(value = EnumType.STRING)
+    private BookingStatus status;
+}
@@ -31,4 +31,15 @@ public class Booking {
     private LocalDateTime end;
     @Enumerated(value = EnumType.STRING)
     private BookingStatus status = BookingStatus.WAITING;
+    /**
+     * Номер последнего изменения и его время выставляет база при каждой вставке и обновлении строки.
+     */
+    @Column(name = "change_seq", insertable = false, updatable = false)
+    private Long changeSeq;
+    @Column(insertable = false, updatable = false)
+    private LocalDateTime changed;
+
+    public Booking(Long id, Item item, User booker, LocalDateTime start, LocalDateTime end, BookingStatus status) {
+        this(id, item, booker, start, end, status, null, null);
+    }
 }
@@ -0,0 +1,32 @@
+package ru.practicum.shareit.booking.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Публикуется после создания бронирования или смены его статуса. previousStatus равен null для нового бронирования.
+ * Все поля, кроме itemId, равны null, если событие описывает пакет бронирований одного предмета (импорт).
+ */
+@Data
+@AllArgsConstructor
+public class BookingChangedEvent {
+    private Long bookingId;
+    private Long itemId;
+    private Long itemOwnerId;
+    private Long bookerId;
+    private BookingStatus previousStatus;
+    private BookingStatus status;
+    private LocalDateTime start;
+    private LocalDateTime end;
+
+    public static BookingChangedEvent of(Booking booking, BookingStatus previousStatus) {
+        return new BookingChangedEvent(booking.getId(), booking.getItem().getId(), booking.getItem().getOwner().getId(),
+                booking.getBooker().getId(), previousStatus, booking.getStatus(), booking.getStart(), booking.getEnd());
+    }
+
+    public static BookingChangedEvent forImportedItem(long itemId) {
+        return new BookingChangedEvent(null, itemId, null, null, null, null, null, null);
+    }
+}
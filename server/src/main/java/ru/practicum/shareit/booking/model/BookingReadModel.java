@@ -0,0 +1,53 @@
+package ru.practicum.shareit.booking.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Денормализованная строка списков бронирований: бронирование вместе с полями вещи, ее владельца и арендатора.
+ * Поддерживается BookingReadModelWriter из путей записи бронирований, вещей и пользователей,
+ * через JPA только читается.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Immutable
+@Table(name = "booking_view")
+public class BookingReadModel {
+    @EqualsAndHashCode.Include
+    @Id
+    @Column(name = "booking_id")
+    private Long id;
+    private LocalDateTime start;
+    @Column(name = "ending")
+    private LocalDateTime end;
+    @Enumerated(value = EnumType.STRING)
+    private BookingStatus status;
+    @Column(name = "change_seq")
+    private Long changeSeq;
+    @Column(name = "item_id")
+    private Long itemId;
+    @Column(name = "owner_id")
+    private Long ownerId;
+    @Column(name = "item_name")
+    private String itemName;
+    @Column(name = "item_description")
+    private String itemDescription;
+    @Column(name = "item_available")
+    private Boolean itemAvailable;
+    @Column(name = "item_request_id")
+    private Long itemRequestId;
+    @Column(name = "booker_id")
+    private Long bookerId;
+    @Column(name = "booker_name")
+    private String bookerName;
+    @Column(name = "booker_email")
+    private String bookerEmail;
+}
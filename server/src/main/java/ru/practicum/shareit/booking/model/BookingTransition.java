@@ -0,0 +1,21 @@
+package ru.practicum.shareit.booking.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.Instant;
+
+/**
+ * Смена статуса бронирования для журнала аудита: кто (actorId) и когда перевел бронирование
+ * из previousStatus в status. previousStatus равен null при создании бронирования.
+ */
+@Data
+@AllArgsConstructor
+public class BookingTransition {
+    private long bookingId;
+    private long itemId;
+    private long actorId;
+    private BookingStatus previousStatus;
+    private BookingStatus status;
+    private Instant timestamp;
+}
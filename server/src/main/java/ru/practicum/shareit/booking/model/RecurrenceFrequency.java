@@ -0,0 +1,16 @@
+package ru.practicum.shareit.booking.model;
+
+public enum RecurrenceFrequency {
+    DAILY(1),
+    WEEKLY(7);
+
+    private final int days;
+
+    RecurrenceFrequency(int days) {
+        this.days = days;
+    }
+
+    public int getDays() {
+        return days;
+    }
+}
@@ -0,0 +1,46 @@
+package ru.practicum.shareit.booking.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.model.User;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Повторяющееся бронирование хранится одной строкой: первое вхождение (start, end), правило повтора
+ * и горизонт until. Вхождения не сохраняются, а вычисляются по запросу (см. RecurrenceExpander).
+ * last_end - окончание последнего вхождения, по нему серии отбираются запросами на пересечение.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "recurring_bookings")
+public class RecurringBooking {
+    @EqualsAndHashCode.Include
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "item_id", nullable = false)
+    private Item item;
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "booker_id", nullable = false)
+    private User booker;
+    private LocalDateTime start;
+    @Column(name = "ending")
+    private LocalDateTime end;
+    @Enumerated(value = EnumType.STRING)
+    private RecurrenceFrequency frequency;
+    @Column(name = "interval_count")
+    private Integer interval;
+    private LocalDateTime until;
+    @Column(name = "last_end")
+    private LocalDateTime lastEnd;
+    @Enumerated(value = EnumType.STRING)
+    private BookingStatus status;
+}
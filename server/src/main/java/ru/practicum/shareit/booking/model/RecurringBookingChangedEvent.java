@@ -0,0 +1,20 @@
+package ru.practicum.shareit.booking.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Публикуется после создания повторяющегося бронирования или смены его статуса.
+ */
+@Data
+@AllArgsConstructor
+public class RecurringBookingChangedEvent {
+    private Long recurringBookingId;
+    private Long bookerId;
+    private Long itemOwnerId;
+
+    public static RecurringBookingChangedEvent of(RecurringBooking series) {
+        return new RecurringBookingChangedEvent(series.getId(), series.getBooker().getId(),
+                series.getItem().getOwner().getId());
+    }
+}
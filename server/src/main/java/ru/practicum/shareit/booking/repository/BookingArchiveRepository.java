@@ -0,0 +1,72 @@
+package ru.practicum.shareit.booking.repository;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import ru.practicum.shareit.booking.dto.BookingStatusCount;
+import ru.practicum.shareit.booking.dto.BookingView;
+import ru.practicum.shareit.booking.model.ArchivedBooking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface BookingArchiveRepository extends JpaRepository<ArchivedBooking, Long> {
+    String SELECT_VIEW = "SELECT new ru.practicum.shareit.booking.dto.BookingView(b.id, b.start, b.end, b.status, "
+            + "i.id, i.owner.id, i.name, i.description, i.available, r.id, u.id, u.name, u.email) "
+            + "FROM ArchivedBooking b "
+            + "JOIN b.item i "
+            + "JOIN b.booker u "
+            + "LEFT JOIN i.request r ";
+
+    @Query(SELECT_VIEW
+            + "WHERE u.id = :bookerId "
+            + "AND b.status IN :statuses "
+            + "AND (b.start < :afterStart OR (b.start = :afterStart AND b.id < :afterId)) "
+            + "ORDER BY b.start DESC, b.id DESC")
+    Slice<BookingView> findByBooker(@Param("bookerId") long bookerId,
+                                    @Param("statuses") Collection<BookingStatus> statuses,
+                                    @Param("afterStart") LocalDateTime afterStart,
+                                    @Param("afterId") long afterId,
+                                    Pageable pageable);
+
+    @Query(SELECT_VIEW
+            + "WHERE i.owner.id = :itemOwnerId "
+            + "AND b.status IN :statuses "
+            + "AND (b.start < :afterStart OR (b.start = :afterStart AND b.id < :afterId)) "
+            + "ORDER BY b.start DESC, b.id DESC")
+    Slice<BookingView> findByItemOwner(@Param("itemOwnerId") long itemOwnerId,
+                                       @Param("statuses") Collection<BookingStatus> statuses,
+                                       @Param("afterStart") LocalDateTime afterStart,
+                                       @Param("afterId") long afterId,
+                                       Pageable pageable);
+
+    @Query("SELECT new ru.practicum.shareit.booking.dto.BookingStatusCount(b.booker.id, b.status, COUNT(b)) "
+            + "FROM ArchivedBooking b "
+            + "GROUP BY b.booker.id, b.status")
+    List<BookingStatusCount> countByBookerAndStatus();
+
+    @Query("SELECT new ru.practicum.shareit.booking.dto.BookingStatusCount(i.owner.id, b.status, COUNT(b)) "
+            + "FROM ArchivedBooking b "
+            + "JOIN b.item i "
+            + "GROUP BY i.owner.id, b.status")
+    List<BookingStatusCount> countByItemOwnerAndStatus();
+
+    @Query("SELECT new ru.practicum.shareit.booking.dto.BookingStatusCount(b.booker.id, b.status, COUNT(b)) "
+            + "FROM ArchivedBooking b "
+            + "WHERE b.booker.id = :bookerId "
+            + "GROUP BY b.booker.id, b.status")
+    List<BookingStatusCount> countByStatusOfBooker(@Param("bookerId") long bookerId);
+
+    @Query("SELECT new ru.practicum.shareit.booking.dto.BookingStatusCount(i.owner.id, b.status, COUNT(b)) "
+            + "FROM ArchivedBooking b "
+            + "JOIN b.item i "
+            + "WHERE i.owner.id = :itemOwnerId "
+            + "GROUP BY i.owner.id, b.status")
+    List<BookingStatusCount> countByStatusOfItemOwner(@Param("itemOwnerId") long itemOwnerId);
+}
@@ -0,0 +1,142 @@
+package ru.practicum.shareit.booking.repository;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import ru.practicum.shareit.booking.dto.BookingView;
+import ru.practicum.shareit.booking.model.BookingReadModel;
+import ru.practicum.shareit.booking.model.BookingStatus;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+
+/**
+ * Списки бронирований арендатора и владельца читаются из booking_view без соединений: все поля страницы
+ * лежат в одной строке, а на Postgres - и в покрывающих индексах по (owner_id | booker_id, start, id).
+ */
+@Repository
+public interface BookingReadModelRepository extends JpaRepository<BookingReadModel, Long> {
+    String SELECT_VIEW = "SELECT new ru.practicum.shareit.booking.dto.BookingView(v.id, v.start, v.end, v.status, "
+            + "v.itemId, v.ownerId, v.itemName, v.itemDescription, v.itemAvailable, v.itemRequestId, v.bookerId, "
+            + "v.bookerName, v.bookerEmail) "
+            + "FROM BookingReadModel v ";
+
+    @Query(SELECT_VIEW
+            + "WHERE v.bookerId = :bookerId "
+            + "AND (v.start < :afterStart OR (v.start = :afterStart AND v.id < :afterId)) "
+            + "ORDER BY v.start DESC, v.id DESC")
+    Slice<BookingView> findAllByBooker(@Param("bookerId") long bookerId,
+                                       @Param("afterStart") LocalDateTime afterStart,
+                                       @Param("afterId") long afterId,
+                                       Pageable pageable);
+
+    @Query(SELECT_VIEW
+            + "WHERE v.ownerId = :itemOwnerId "
+            + "AND (v.start < :afterStart OR (v.start = :afterStart AND v.id < :afterId)) "
+            + "ORDER BY v.start DESC, v.id DESC")
+    Slice<BookingView> findAllByItemOwner(@Param("itemOwnerId") long itemOwnerId,
+                                          @Param("afterStart") LocalDateTime afterStart,
+                                          @Param("afterId") long afterId,
+                                          Pageable pageable);
+
+    @Query(SELECT_VIEW
+            + "WHERE v.bookerId = :bookerId "
+            + "AND v.start < :now "
+            + "AND v.end > :now "
+            + "AND (v.start > :afterStart OR (v.start = :afterStart AND v.id > :afterId)) "
+            + "ORDER BY v.start ASC, v.id ASC")
+    Slice<BookingView> findCurrentByBooker(@Param("bookerId") long bookerId,
+                                           @Param("now") LocalDateTime now,
+                                           @Param("afterStart") LocalDateTime afterStart,
+                                           @Param("afterId") long afterId,
+                                           Pageable pageable);
+
+    @Query(SELECT_VIEW
+            + "WHERE v.ownerId = :itemOwnerId "
+            + "AND v.start < :now "
+            + "AND v.end > :now "
+            + "AND (v.start > :afterStart OR (v.start = :afterStart AND v.id > :afterId)) "
+            + "ORDER BY v.start ASC, v.id ASC")
+    Slice<BookingView> findCurrentByItemOwner(@Param("itemOwnerId") long itemOwnerId,
+                                              @Param("now") LocalDateTime now,
+                                              @Param("afterStart") LocalDateTime afterStart,
+                                              @Param("afterId") long afterId,
+                                              Pageable pageable);
+
+    @Query(SELECT_VIEW
+            + "WHERE v.bookerId = :bookerId "
+            + "AND v.status IN :statuses "
+            + "AND v.start > :now "
+            + "AND (v.start < :afterStart OR (v.start = :afterStart AND v.id < :afterId)) "
+            + "ORDER BY v.start DESC, v.id DESC")
+    Slice<BookingView> findFutureByBooker(@Param("bookerId") long bookerId,
+                                          @Param("statuses") Collection<BookingStatus> statuses,
+                                          @Param("now") LocalDateTime now,
+                                          @Param("afterStart") LocalDateTime afterStart,
+                                          @Param("afterId") long afterId,
+                                          Pageable pageable);
+
+    @Query(SELECT_VIEW
+            + "WHERE v.ownerId = :itemOwnerId "
+            + "AND v.status IN :statuses "
+            + "AND v.start > :now "
+            + "AND (v.start < :afterStart OR (v.start = :afterStart AND v.id < :afterId)) "
+            + "ORDER BY v.start DESC, v.id DESC")
+    Slice<BookingView> findFutureByItemOwner(@Param("itemOwnerId") long itemOwnerId,
+                                             @Param("statuses") Collection<BookingStatus> statuses,
+                                             @Param("now") LocalDateTime now,
+                                             @Param("afterStart") LocalDateTime afterStart,
+                                             @Param("afterId") long afterId,
+                                             Pageable pageable);
+
+    @Query(SELECT_VIEW
+            + "WHERE v.bookerId = :bookerId "
+            + "AND v.status IN :statuses "
+            + "AND v.end < :now "
+            + "AND (v.start < :afterStart OR (v.start = :afterStart AND v.id < :afterId)) "
+            + "ORDER BY v.start DESC, v.id DESC")
+    Slice<BookingView> findPastByBooker(@Param("bookerId") long bookerId,
+                                        @Param("statuses") Collection<BookingStatus> statuses,
+                                        @Param("now") LocalDateTime now,
+                                        @Param("afterStart") LocalDateTime afterStart,
+                                        @Param("afterId") long afterId,
+                                        Pageable pageable);
+
+    @Query(SELECT_VIEW
+            + "WHERE v.ownerId = :itemOwnerId "
+            + "AND v.status IN :statuses "
+            + "AND v.end < :now "
+            + "AND (v.start < :afterStart OR (v.start = :afterStart AND v.id < :afterId)) "
+            + "ORDER BY v.start DESC, v.id DESC")
+    Slice<BookingView> findPastByItemOwner(@Param("itemOwnerId") long itemOwnerId,
+                                           @Param("statuses") Collection<BookingStatus> statuses,
+                                           @Param("now") LocalDateTime now,
+                                           @Param("afterStart") LocalDateTime afterStart,
+                                           @Param("afterId") long afterId,
+                                           Pageable pageable);
+
+    @Query(SELECT_VIEW
+            + "WHERE v.bookerId = :bookerId "
+            + "AND v.status = :status "
+            + "AND (v.start < :afterStart OR (v.start = :afterStart AND v.id < :afterId)) "
+            + "ORDER BY v.start DESC, v.id DESC")
+    Slice<BookingView> findByBookerAndStatus(@Param("bookerId") long bookerId,
+                                             @Param("status") BookingStatus status,
+                                             @Param("afterStart") LocalDateTime afterStart,
+                                             @Param("afterId") long afterId,
+                                             Pageable pageable);
+
+    @Query(SELECT_VIEW
+            + "WHERE v.ownerId = :itemOwnerId "
+            + "AND v.status = :status "
+            + "AND (v.start < :afterStart OR (v.start = :afterStart AND v.id < :afterId)) "
+            + "ORDER BY v.start DESC, v.id DESC")
+    Slice<BookingView> findByItemOwnerAndStatus(@Param("itemOwnerId") long itemOwnerId,
+                                                @Param("status") BookingStatus status,
+                                                @Param("afterStart") LocalDateTime afterStart,
+                                                @Param("afterId") long afterId,
+                                                Pageable pageable);
+}
@@ -0,0 +1,128 @@
+package ru.practicum.shareit.booking.repository;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Запись в booking_view через JDBC: строка собирается одним INSERT ... SELECT из bookings, items и users
+ * и вставляется или обновляется по booking_id. На Postgres это INSERT ... ON CONFLICT, на H2 (профили ci, test) -
+ * MERGE. Обновление пропускается, если в booking_view уже лежит более позднее изменение бронирования
+ * (change_seq больше), поэтому перестройка, идущая параллельно с обычной записью, не откатывает свежий статус.
+ */
+@Repository
+public class BookingReadModelWriter {
+    private static final String COLUMNS = "booking_id, start, ending, status, change_seq, item_id, owner_id, "
+            + "item_name, item_description, item_available, item_request_id, booker_id, booker_name, booker_email";
+    private static final String SOURCE = "SELECT b.id AS booking_id, b.start AS start, b.ending AS ending, "
+            + "b.status AS status, b.change_seq AS change_seq, i.id AS item_id, i.owner_id AS owner_id, "
+            + "i.name AS item_name, i.description AS item_description, i.available AS item_available, "
+            + "i.request_id AS item_request_id, u.id AS booker_id, u.name AS booker_name, u.email AS booker_email "
+            + "FROM bookings b "
+            + "JOIN items i ON i.id = b.item_id "
+            + "JOIN users u ON u.id = b.booker_id ";
+    private static final String UPSERT_POSTGRESQL = "INSERT INTO booking_view (" + COLUMNS + ") "
+            + SOURCE + "WHERE %s "
+            + "ON CONFLICT (booking_id) DO UPDATE SET start = EXCLUDED.start, ending = EXCLUDED.ending, "
+            + "status = EXCLUDED.status, change_seq = EXCLUDED.change_seq, item_id = EXCLUDED.item_id, "
+            + "owner_id = EXCLUDED.owner_id, item_name = EXCLUDED.item_name, "
+            + "item_description = EXCLUDED.item_description, item_available = EXCLUDED.item_available, "
+            + "item_request_id = EXCLUDED.item_request_id, booker_id = EXCLUDED.booker_id, "
+            + "booker_name = EXCLUDED.booker_name, booker_email = EXCLUDED.booker_email "
+            + "WHERE booking_view.change_seq <= EXCLUDED.change_seq";
+    private static final String UPSERT_H2 = "MERGE INTO booking_view v "
+            + "USING (" + SOURCE + "WHERE %s) s "
+            + "ON (v.booking_id = s.booking_id) "
+            + "WHEN MATCHED AND v.change_seq <= s.change_seq THEN UPDATE SET start = s.start, ending = s.ending, "
+            + "status = s.status, change_seq = s.change_seq, item_id = s.item_id, owner_id = s.owner_id, "
+            + "item_name = s.item_name, item_description = s.item_description, item_available = s.item_available, "
+            + "item_request_id = s.item_request_id, booker_id = s.booker_id, booker_name = s.booker_name, "
+            + "booker_email = s.booker_email "
+            + "WHEN NOT MATCHED THEN INSERT (" + COLUMNS + ") VALUES (s.booking_id, s.start, s.ending, s.status, "
+            + "s.change_seq, s.item_id, s.owner_id, s.item_name, s.item_description, s.item_available, "
+            + "s.item_request_id, s.booker_id, s.booker_name, s.booker_email)";
+    private static final String BY_IDS = "b.id IN (:ids)";
+    private static final String BY_ITEM = "b.item_id = :itemId";
+    private static final String BY_ITEM_RANGE = "b.item_id BETWEEN :fromItemId AND :toItemId";
+    private static final String DELETE_ORPHANS_IN_ITEM_RANGE = "DELETE FROM booking_view "
+            + "WHERE item_id BETWEEN :fromItemId AND :toItemId "
+            + "AND NOT EXISTS (SELECT 1 FROM bookings b WHERE b.id = booking_view.booking_id)";
+    private static final String UPDATE_ITEM = "UPDATE booking_view SET owner_id = :ownerId, item_name = :name, "
+            + "item_description = :description, item_available = :available "
+            + "WHERE item_id = :itemId";
+    private static final String UPDATE_BOOKER = "UPDATE booking_view SET booker_name = :name, booker_email = :email "
+            + "WHERE booker_id = :userId";
+    private static final String DELETE_BY_IDS = "DELETE FROM booking_view WHERE booking_id IN (:ids)";
+    private static final String DELETE_BY_ITEM = "DELETE FROM booking_view WHERE item_id = :itemId";
+    private static final String DELETE_BY_USER = "DELETE FROM booking_view "
+            + "WHERE booker_id = :userId OR owner_id = :userId";
+    private static final String MAX_ITEM_ID = "SELECT COALESCE(MAX(item_id), 0) FROM bookings";
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final String upsert;
+
+    public BookingReadModelWriter(NamedParameterJdbcTemplate jdbcTemplate,
+                                  @Value("${spring.sql.init.platform:postgresql}") String platform) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.upsert = "h2".equals(platform) ? UPSERT_H2 : UPSERT_POSTGRESQL;
+    }
+
+    /**
+     * Перечитывает строки бронирований из bookings. Бронирования, которых там уже нет, не удаляются.
+     */
+    public int refresh(Collection<Long> bookingIds) {
+        return jdbcTemplate.update(String.format(upsert, BY_IDS), Map.of("ids", bookingIds));
+    }
+
+    public int refreshItem(long itemId) {
+        return jdbcTemplate.update(String.format(upsert, BY_ITEM), Map.of("itemId", itemId));
+    }
+
+    /**
+     * Перестраивает строки вещей с id из [fromItemId, toItemId]: перечитывает все их бронирования
+     * и удаляет строки бронирований, которых в bookings больше нет.
+     */
+    public int rebuildItemRange(long fromItemId, long toItemId) {
+        MapSqlParameterSource range = new MapSqlParameterSource()
+                .addValue("fromItemId", fromItemId)
+                .addValue("toItemId", toItemId);
+        jdbcTemplate.update(DELETE_ORPHANS_IN_ITEM_RANGE, range);
+        return jdbcTemplate.update(String.format(upsert, BY_ITEM_RANGE), range);
+    }
+
+    public int updateItem(long itemId, long ownerId, String name, String description, boolean available) {
+        return jdbcTemplate.update(UPDATE_ITEM, new MapSqlParameterSource()
+                .addValue("itemId", itemId)
+                .addValue("ownerId", ownerId)
+                .addValue("name", name)
+                .addValue("description", description)
+                .addValue("available", available));
+    }
+
+    public int updateBooker(long userId, String name, String email) {
+        return jdbcTemplate.update(UPDATE_BOOKER, new MapSqlParameterSource()
+                .addValue("userId", userId)
+                .addValue("name", name)
+                .addValue("email", email));
+    }
+
+    public int deleteByIds(Collection<Long> bookingIds) {
+        return jdbcTemplate.update(DELETE_BY_IDS, Map.of("ids", bookingIds));
+    }
+
+    public int deleteByItemId(long itemId) {
+        return jdbcTemplate.update(DELETE_BY_ITEM, Map.of("itemId", itemId));
+    }
+
+    public int deleteByUserId(long userId) {
+        return jdbcTemplate.update(DELETE_BY_USER, Map.of("userId", userId));
+    }
+
+    public long findMaxItemId() {
+        Long max = jdbcTemplate.queryForObject(MAX_ITEM_ID, Map.of(), Long.class);
+        return max == null ? 0 : max;
+    }
+}
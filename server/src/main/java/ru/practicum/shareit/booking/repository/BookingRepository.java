@@ -1,61 +1,54 @@
 package ru.practicum.shareit.booking.repository;
 
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import ru.practicum.shareit.booking.dto.BookingChangeMark;
+import ru.practicum.shareit.booking.dto.BookingCreationCheck;
+import ru.practicum.shareit.booking.dto.BookingInterval;
+import ru.practicum.shareit.booking.dto.BookingStatusCheck;
+import ru.practicum.shareit.booking.dto.BookingStatusCount;
+import ru.practicum.shareit.booking.dto.BookingStatusMark;
+import ru.practicum.shareit.booking.dto.BookingView;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.model.BookingStatus;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.user.model.User;
 
+import javax.persistence.QueryHint;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
 
 @Repository
 public interface BookingRepository extends JpaRepository<Booking, Long> {
-    Page<Booking> findAllByBookerIdOrderByStartDesc(long bookerId, PageRequest pageRequest);
-
-    Page<Booking> findAllByItemOwnerIdOrderByStartDesc(long itemOwnerId, PageRequest pageRequest);
-
-    @Query("SELECT b FROM Booking b "
-            + "JOIN FETCH b.booker "
-            + "WHERE b.booker.id = :bookerId "
-            + "AND b.start < :now "
-            + "AND b.end > :now "
-            + "ORDER BY b.start ASC")
-    List<Booking> findCurrentByBooker(@Param("bookerId") long bookerId,
-                                      @Param("now") LocalDateTime now);
-
-    @Query("SELECT b FROM Booking b "
-            + "JOIN FETCH b.item "
-            + "WHERE b.item.owner.id = :itemOwnerId "
-            + "AND b.start < :now "
-            + "AND b.end > :now "
-            + "ORDER BY b.start ASC")
-    List<Booking> findCurrentByItemOwner(@Param("itemOwnerId") long itemOwnerId,
-                                         @Param("now") LocalDateTime now);
-
-    List<Booking> findAllByBookerIdAndStatusOrderByStartDesc(long bookerId, BookingStatus status);
-
-    List<Booking> findAllByItemOwnerIdAndStatusOrderByStartDesc(long itemOwnerId, BookingStatus status);
-
-    List<Booking> findAllByBookerIdAndStatusInAndStartIsAfterOrderByStartDesc(long bookerId, BookingStatus[] status,
-                                                                              LocalDateTime now);
-
-    List<Booking> findAllByItemOwnerIdAndStatusInAndStartIsAfterOrderByStartDesc(long itemOwnerId,
-                                                                                 BookingStatus[] status,
-                                                                                 LocalDateTime now);
-
-    List<Booking> findAllByBookerIdAndStatusInAndEndIsBeforeOrderByStartDesc(long bookerId, BookingStatus[] status,
-                                                                             LocalDateTime now);
-
-    List<Booking> findAllByItemOwnerIdAndStatusInAndEndIsBeforeOrderByStartDesc(long itemOwnerId,
-                                                                                BookingStatus[] status,
-                                                                                LocalDateTime now);
-
+    String EXPORT_FETCH_SIZE = "500";
+    String SELECT_VIEW = "SELECT new ru.practicum.shareit.booking.dto.BookingView(b.id, b.start, b.end, b.status, "
+            + "i.id, i.owner.id, i.name, i.description, i.available, r.id, u.id, u.name, u.email) "
+            + "FROM Booking b "
+            + "JOIN b.item i "
+            + "JOIN b.booker u "
+            + "LEFT JOIN i.request r ";
+
+    /**
+     * Пустой результат - арендатор не найден, пустой itemId - не найдена вещь.
+     */
+    @Query("SELECT new ru.practicum.shareit.booking.dto.BookingCreationCheck(u.id, u.name, u.email, "
+            + "i.id, i.owner.id, i.name, i.description, i.available, r.id) "
+            + "FROM User u "
+            + "LEFT JOIN Item i ON i.id = :itemId "
+            + "LEFT JOIN i.request r "
+            + "WHERE u.id = :bookerId")
+    Optional<BookingCreationCheck> findCreationCheck(@Param("bookerId") long bookerId,
+                                                     @Param("itemId") long itemId);
 
     Booking findFirstByItemAndStatusInAndStartBeforeOrderByStartDesc(Item item, BookingStatus[] status,
                                                                      LocalDateTime now);
@@ -75,4 +68,174 @@ public interface BookingRepository extends JpaRepository<Booking, Long> {
     Integer lastCurrentBookingExistsForCommentAuthor(@Param("item") Item item,
                                                      @Param("author") User author,
                                                      @Param("now") LocalDateTime now);
+
+    @Query(SELECT_VIEW
+            + "WHERE b.id IN :ids")
+    List<BookingView> findViewsByIds(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Читается курсором порциями по EXPORT_FETCH_SIZE строк. Поток нужно закрыть внутри той же транзакции.
+     */
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE))
+    @Query(SELECT_VIEW
+            + "WHERE i.owner.id = :itemOwnerId "
+            + "ORDER BY b.start ASC, b.id ASC")
+    Stream<BookingView> streamAllByItemOwner(@Param("itemOwnerId") long itemOwnerId);
+
+    @Query("SELECT new ru.practicum.shareit.booking.dto.BookingChangeMark(b.id, b.changeSeq, b.changed) "
+            + "FROM Booking b "
+            + "WHERE b.booker.id = :bookerId AND b.changeSeq > :since "
+            + "ORDER BY b.changeSeq ASC")
+    List<BookingChangeMark> findChangeMarksByBooker(@Param("bookerId") long bookerId,
+                                                    @Param("since") long since,
+                                                    Pageable pageable);
+
+    @Query("SELECT new ru.practicum.shareit.booking.dto.BookingChangeMark(b.id, b.changeSeq, b.changed) "
+            + "FROM Booking b "
+            + "WHERE b.item.owner.id = :itemOwnerId AND b.changeSeq > :since "
+            + "ORDER BY b.changeSeq ASC")
+    List<BookingChangeMark> findChangeMarksByItemOwner(@Param("itemOwnerId") long itemOwnerId,
+                                                       @Param("since") long since,
+                                                       Pageable pageable);
+
+    @Query("SELECT new ru.practicum.shareit.booking.dto.BookingStatusMark(b.id, b.changeSeq, b.changed, b.status, "
+            + "b.start) "
+            + "FROM Booking b "
+            + "WHERE b.changeSeq > :since "
+            + "ORDER BY b.changeSeq ASC")
+    List<BookingStatusMark> findStatusMarksChangedAfter(@Param("since") long since, Pageable pageable);
+
+    @Query("SELECT COALESCE(MAX(b.changeSeq), 0) FROM Booking b")
+    long findMaxChangeSeq();
+
+    @Query("SELECT new ru.practicum.shareit.booking.dto.BookingInterval(b.item.id, b.id, b.start, b.end) "
+            + "FROM Booking b "
+            + "WHERE b.status = :status "
+            + "AND b.end > :now "
+            + "AND b.id > :afterId "
+            + "ORDER BY b.id ASC")
+    List<BookingInterval> findIntervalsByStatusAndEndAfter(@Param("status") BookingStatus status,
+                                                           @Param("now") LocalDateTime now,
+                                                           @Param("afterId") long afterId,
+                                                           Pageable pageable);
+
+    /**
+     * @return id бронирований из ids, пересекающихся с другими бронированиями той же вещи в статусе status.
+     */
+    @Query("SELECT DISTINCT b.id "
+            + "FROM Booking b, Booking o "
+            + "WHERE b.id IN :ids "
+            + "AND o.item.id = b.item.id "
+            + "AND o.status = :status "
+            + "AND o.id <> b.id "
+            + "AND o.start < b.end "
+            + "AND o.end > b.start")
+    List<Long> findIdsOverlappingStatus(@Param("ids") Collection<Long> ids, @Param("status") BookingStatus status);
+
+    @Query("SELECT new ru.practicum.shareit.booking.dto.BookingInterval(b.item.id, b.id, b.start, b.end) "
+            + "FROM Booking b "
+            + "WHERE b.item.id = :itemId "
+            + "AND b.status IN :statuses "
+            + "AND b.start < :to "
+            + "AND b.end > :from "
+            + "ORDER BY b.start ASC")
+    List<BookingInterval> findIntervalsByItemOverlapping(@Param("itemId") long itemId,
+                                                         @Param("statuses") Collection<BookingStatus> statuses,
+                                                         @Param("from") LocalDateTime from,
+                                                         @Param("to") LocalDateTime to);
+
+    @Query("SELECT new ru.practicum.shareit.booking.dto.BookingInterval(b.item.id, b.id, b.start, b.end) "
+            + "FROM Booking b "
+            + "WHERE b.status = :status "
+            + "AND b.id > :afterId "
+            + "ORDER BY b.id ASC")
+    List<BookingInterval> findIntervalsByStatus(@Param("status") BookingStatus status,
+                                                @Param("afterId") long afterId,
+                                                Pageable pageable);
+
+    @Query("SELECT new ru.practicum.shareit.booking.dto.BookingStatusCheck(b.id, i.id, i.owner.id, b.booker.id, "
+            + "b.status, b.start, b.end) "
+            + "FROM Booking b "
+            + "JOIN b.item i "
+            + "WHERE b.id IN :ids")
+    List<BookingStatusCheck> findStatusChecksByIds(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT new ru.practicum.shareit.booking.dto.BookingStatusCheck(b.id, i.id, i.owner.id, b.booker.id, "
+            + "b.status, b.start, b.end) "
+            + "FROM Booking b "
+            + "JOIN b.item i "
+            + "WHERE b.end > :now "
+            + "AND b.id > :afterId "
+            + "ORDER BY b.id ASC")
+    List<BookingStatusCheck> findStatusChecksByEndAfter(@Param("now") LocalDateTime now,
+                                                        @Param("afterId") long afterId,
+                                                        Pageable pageable);
+
+    @Query("SELECT new ru.practicum.shareit.booking.dto.BookingStatusCount(b.booker.id, b.status, COUNT(b)) "
+            + "FROM Booking b "
+            + "WHERE b.end <= :now "
+            + "GROUP BY b.booker.id, b.status")
+    List<BookingStatusCount> countEndedByBookerAndStatus(@Param("now") LocalDateTime now);
+
+    @Query("SELECT new ru.practicum.shareit.booking.dto.BookingStatusCount(i.owner.id, b.status, COUNT(b)) "
+            + "FROM Booking b "
+            + "JOIN b.item i "
+            + "WHERE b.end <= :now "
+            + "GROUP BY i.owner.id, b.status")
+    List<BookingStatusCount> countEndedByItemOwnerAndStatus(@Param("now") LocalDateTime now);
+
+    @Query("SELECT new ru.practicum.shareit.booking.dto.BookingStatusCount(b.booker.id, b.status, COUNT(b)) "
+            + "FROM Booking b "
+            + "WHERE b.booker.id = :bookerId AND b.end <= :now "
+            + "GROUP BY b.booker.id, b.status")
+    List<BookingStatusCount> countEndedByStatusOfBooker(@Param("bookerId") long bookerId,
+                                                        @Param("now") LocalDateTime now);
+
+    @Query("SELECT new ru.practicum.shareit.booking.dto.BookingStatusCount(i.owner.id, b.status, COUNT(b)) "
+            + "FROM Booking b "
+            + "JOIN b.item i "
+            + "WHERE i.owner.id = :itemOwnerId AND b.end <= :now "
+            + "GROUP BY i.owner.id, b.status")
+    List<BookingStatusCount> countEndedByStatusOfItemOwner(@Param("itemOwnerId") long itemOwnerId,
+                                                           @Param("now") LocalDateTime now);
+
+    @Query("SELECT new ru.practicum.shareit.booking.dto.BookingStatusCheck(b.id, i.id, i.owner.id, b.booker.id, "
+            + "b.status, b.start, b.end) "
+            + "FROM Booking b "
+            + "JOIN b.item i "
+            + "WHERE b.booker.id = :bookerId AND b.end > :now")
+    List<BookingStatusCheck> findStatusChecksByBookerAndEndAfter(@Param("bookerId") long bookerId,
+                                                                 @Param("now") LocalDateTime now);
+
+    @Query("SELECT new ru.practicum.shareit.booking.dto.BookingStatusCheck(b.id, i.id, i.owner.id, b.booker.id, "
+            + "b.status, b.start, b.end) "
+            + "FROM Booking b "
+            + "JOIN b.item i "
+            + "WHERE i.owner.id = :itemOwnerId AND b.end > :now")
+    List<BookingStatusCheck> findStatusChecksByItemOwnerAndEndAfter(@Param("itemOwnerId") long itemOwnerId,
+                                                                    @Param("now") LocalDateTime now);
+
+    /**
+     * Меняет статус только у бронирований, чей статус все еще равен previous.
+     *
+     * @return число измененных строк.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Booking b SET b.status = :status WHERE b.id IN :ids AND b.status = :previous")
+    int updateStatusByIds(@Param("ids") Collection<Long> ids, @Param("previous") BookingStatus previous,
+                          @Param("status") BookingStatus status);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Booking b SET b.status = 'CANCELED' WHERE b.id IN :ids AND b.status = 'WAITING'")
+    int cancelWaitingByIds(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT b.id FROM Booking b WHERE b.id IN :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT b.id FROM Booking b WHERE b.end < :cutoff ORDER BY b.id ASC")
+    List<Long> findIdsEndedBefore(@Param("cutoff") LocalDateTime cutoff, Pageable pageable);
+
+    @Modifying(clearAutomatically = true)
+    @Query("DELETE FROM Booking b WHERE b.id IN :ids")
+    int deleteByIds(@Param("ids") Collection<Long> ids);
 }
@@ -0,0 +1,82 @@
+package ru.practicum.shareit.booking.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.stereotype.Repository;
+import ru.practicum.shareit.booking.dto.BookingSearchFilter;
+import ru.practicum.shareit.booking.dto.BookingView;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.service.BookingSearchRole;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.util.KeysetCursor;
+
+import javax.persistence.EntityManager;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Join;
+import javax.persistence.criteria.JoinType;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Собирает из заданных условий поиска один запрос Criteria API. В запрос попадают только заданные условия,
+ * поэтому база выбирает индекс по фактическому набору: (item_id, status, start, id) при поиске по вещи
+ * и статусам, (item_id, start, id) по вещи или вещам владельца, (booker_id, start, id) по арендатору.
+ * Выдача упорядочена по (start, id) по убыванию и листается курсором, как списки по состоянию.
+ */
+@Repository
+@RequiredArgsConstructor
+public class BookingSearchRepository {
+    private final EntityManager entityManager;
+
+    public Slice<BookingView> search(long userId, BookingSearchFilter filter, KeysetCursor cursor, int size) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<BookingView> query = cb.createQuery(BookingView.class);
+        Root<Booking> b = query.from(Booking.class);
+        Join<Booking, Item> i = b.join("item");
+        Join<Booking, User> u = b.join("booker");
+        Join<Item, ItemRequest> r = i.join("request", JoinType.LEFT);
+        query.select(cb.construct(BookingView.class, b.get("id"), b.get("start"), b.get("end"), b.get("status"),
+                i.get("id"), i.get("owner").get("id"), i.get("name"), i.get("description"), i.get("available"),
+                r.get("id"), u.get("id"), u.get("name"), u.get("email")));
+
+        List<Predicate> predicates = new ArrayList<>();
+        if (filter.getRole() == BookingSearchRole.OWNER) {
+            predicates.add(cb.equal(i.get("owner").get("id"), userId));
+        } else {
+            predicates.add(cb.equal(u.get("id"), userId));
+        }
+        if (filter.getItemId() != null) {
+            predicates.add(cb.equal(b.get("item").get("id"), filter.getItemId()));
+        }
+        if (filter.getStatuses() != null && !filter.getStatuses().isEmpty()) {
+            predicates.add(b.get("status").in(filter.getStatuses()));
+        }
+        if (filter.getStart() != null) {
+            predicates.add(cb.greaterThan(b.get("end"), filter.getStart()));
+        }
+        if (filter.getEnd() != null) {
+            predicates.add(cb.lessThan(b.get("start"), filter.getEnd()));
+        }
+        predicates.add(cb.or(
+                cb.lessThan(b.get("start"), cursor.getStart()),
+                cb.and(cb.equal(b.get("start"), cursor.getStart()), cb.lessThan(b.get("id"), cursor.getId()))));
+        query.where(predicates.toArray(new Predicate[0]))
+                .orderBy(cb.desc(b.get("start")), cb.desc(b.get("id")));
+
+        List<BookingView> content = entityManager.createQuery(query)
+                .setMaxResults(size + 1)
+                .getResultList();
+        boolean hasNext = content.size() > size;
+        if (hasNext) {
+            content = content.subList(0, size);
+        }
+        return new SliceImpl<>(content, PageRequest.of(0, size), hasNext);
+    }
+}
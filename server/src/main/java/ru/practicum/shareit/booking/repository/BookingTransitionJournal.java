@@ -0,0 +1,204 @@
+package ru.practicum.shareit.booking.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.unit.DataSize;
+import ru.practicum.shareit.booking.model.BookingTransition;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Журнал аудита смен статусов бронирований: только дозапись в сегменты фиксированного размера.
+ * В память отображен только текущий сегмент; заполненный запечатывается, и запись продолжается в следующем.
+ * При запуске сегменты читаются заново, восстанавливая конец записанной части и индекс блоков (границы времени
+ * и фильтр по id бронирований), после чего все сегменты, кроме последнего, запечатываются. Каталог журнала
+ * занимается одним узлом через блокировку файла. Политика fsync: ALWAYS сбрасывает сегмент на диск после каждой
+ * записи, INTERVAL - по расписанию, NONE оставляет сброс операционной системе.
+ */
+@Slf4j
+@Repository
+public class BookingTransitionJournal {
+    private static final String SEGMENT_PREFIX = "transitions-";
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private final Path directory;
+    private final int segmentRecords;
+    private final FsyncPolicy fsyncPolicy;
+    private final FileChannel lockChannel;
+    private final FileLock directoryLock;
+    private final List<JournalSegment> segments = new ArrayList<>();
+    private boolean dirty;
+
+    public BookingTransitionJournal(@Value("${shareit.bookings.journal.dir:}") String directory,
+                                    @Value("${shareit.bookings.journal.segment-size:64MB}") DataSize segmentSize,
+                                    @Value("${shareit.bookings.journal.fsync:interval}") FsyncPolicy fsyncPolicy)
+            throws IOException {
+        this.directory = directory.isBlank() ? Files.createTempDirectory("shareit-journal")
+                : Files.createDirectories(Paths.get(directory));
+        this.segmentRecords = (int) Math.min(Integer.MAX_VALUE / JournalSegment.RECORD_SIZE,
+                segmentSize.toBytes() / JournalSegment.RECORD_SIZE);
+        if (segmentRecords <= 0) {
+            throw new IllegalArgumentException("Размер сегмента журнала меньше одной записи.");
+        }
+        this.fsyncPolicy = fsyncPolicy;
+        this.lockChannel = FileChannel.open(this.directory.resolve("journal.lock"), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE);
+        this.directoryLock = tryLock(lockChannel);
+        if (directoryLock == null) {
+            lockChannel.close();
+            throw new IllegalStateException("Каталог журнала " + this.directory + " занят другим процессом.");
+        }
+        try (Stream<Path> files = Files.list(this.directory)) {
+            for (Path path : files.filter(BookingTransitionJournal::isSegment).sorted().collect(Collectors.toList())) {
+                segments.add(new JournalSegment(path, segmentRecords));
+            }
+        }
+        if (segments.isEmpty()) {
+            segments.add(new JournalSegment(segmentPath(0), segmentRecords));
+        }
+        for (JournalSegment segment : segments.subList(0, segments.size() - 1)) {
+            segment.seal();
+        }
+        log.info("Журнал смен статусов бронирований открыт в {}: сегментов {}, записей в последнем {}.",
+                this.directory, segments.size(), active().getCount());
+    }
+
+    /**
+     * Записывает смену статуса после фиксации текущей транзакции, чтобы в журнал не попадали откаченные
+     * изменения, или сразу, если транзакции нет. Ошибка записи журнала не отменяет уже зафиксированную операцию.
+     */
+    public void appendAfterCommit(BookingTransition transition) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            appendQuietly(transition);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                appendQuietly(transition);
+            }
+        });
+    }
+
+    public synchronized void append(BookingTransition transition) {
+        if (active().isFull()) {
+            rotate();
+        }
+        active().append(transition);
+        if (fsyncPolicy == FsyncPolicy.ALWAYS) {
+            active().force();
+        } else {
+            dirty = true;
+        }
+    }
+
+    /**
+     * Все смены статуса бронирования в порядке записи. Читаются только блоки, фильтр которых может
+     * содержать бронирование.
+     */
+    public List<BookingTransition> findByBookingId(long bookingId) {
+        List<BookingTransition> transitions = new ArrayList<>();
+        snapshot().forEach(segment -> segment.scanByBookingId(bookingId, transitions::add));
+        return transitions;
+    }
+
+    /**
+     * Смены статусов с from включительно по to не включительно, упорядоченные по времени. Читаются только блоки,
+     * интервал времени которых пересекается с запрошенным.
+     */
+    public List<BookingTransition> findBetween(Instant from, Instant to) {
+        List<BookingTransition> transitions = new ArrayList<>();
+        snapshot().forEach(segment -> segment.scanBetween(from.toEpochMilli(), to.toEpochMilli(),
+                transitions::add));
+        transitions.sort(Comparator.comparing(BookingTransition::getTimestamp));
+        return transitions;
+    }
+
+    @Scheduled(fixedDelayString = "${shareit.bookings.journal.fsync-interval:PT1S}")
+    public synchronized void flush() {
+        if (fsyncPolicy == FsyncPolicy.INTERVAL && dirty) {
+            active().force();
+            dirty = false;
+        }
+    }
+
+    @PreDestroy
+    public synchronized void close() throws IOException {
+        for (JournalSegment segment : segments) {
+            segment.close();
+        }
+        directoryLock.release();
+        lockChannel.close();
+    }
+
+    private void appendQuietly(BookingTransition transition) {
+        try {
+            append(transition);
+        } catch (RuntimeException e) {
+            log.error("Не удалось записать в журнал смену статуса бронирования {}.", transition, e);
+        }
+    }
+
+    private synchronized List<JournalSegment.Snapshot> snapshot() {
+        return segments.stream()
+                .map(JournalSegment::snapshot)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Заполненный сегмент сбрасывается на диск при любой политике и запечатывается: после ротации
+     * он больше не меняется.
+     */
+    private void rotate() {
+        try {
+            active().seal();
+            segments.add(new JournalSegment(segmentPath(segments.size()), segmentRecords));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        log.info("Журнал смен статусов бронирований перешел на сегмент {}.", active().getPath());
+    }
+
+    private JournalSegment active() {
+        return segments.get(segments.size() - 1);
+    }
+
+    private Path segmentPath(int number) {
+        return directory.resolve(String.format("%s%010d%s", SEGMENT_PREFIX, number, SEGMENT_SUFFIX));
+    }
+
+    private static FileLock tryLock(FileChannel channel) throws IOException {
+        try {
+            return channel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            return null;
+        }
+    }
+
+    private static boolean isSegment(Path path) {
+        String name = path.getFileName().toString();
+        return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+    }
+
+    public enum FsyncPolicy {
+        ALWAYS, INTERVAL, NONE
+    }
+}
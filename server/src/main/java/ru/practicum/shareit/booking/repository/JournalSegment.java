@@ -0,0 +1,306 @@
+package ru.practicum.shareit.booking.repository;
+
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.model.BookingTransition;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.function.Consumer;
+import java.util.function.IntPredicate;
+import java.util.function.Predicate;
+import java.util.zip.CRC32;
+
+/**
+ * Сегмент журнала: файл фиксированного размера с записями по RECORD_SIZE байт.
+ * Формат записи: время (мс), id бронирования, id вещи, id инициатора, коды прежнего и нового статуса,
+ * два резервных байта и CRC32 первых 36 байт. Нулевое время означает конец записанной части, а запись
+ * с неверной контрольной суммой считается оборванной при сбое и тоже завершает сегмент.
+ * Индекс хранит для каждого блока из BLOCK_RECORDS записей границы времени и фильтр Блума по id бронирований
+ * (FILTER_WORDS слов, 8 бит на запись, около 3% ложных срабатываний), по которым чтение пропускает
+ * заведомо неподходящие блоки.
+ * Дозаписываемый сегмент отображен в память целиком. Заполненный сегмент запечатывается: файл закрывается,
+ * ссылка на отображение отпускается (память освобождает сборщик мусора), а блоки читаются из файла.
+ * Все изменяющие методы вызываются под блокировкой журнала.
+ */
+class JournalSegment implements AutoCloseable {
+    static final int RECORD_SIZE = 40;
+    static final int BLOCK_RECORDS = 256;
+    static final int FILTER_WORDS = 32;
+    private static final int FILTER_BITS = FILTER_WORDS * Long.SIZE;
+    private static final int FILTER_HASHES = 3;
+    private static final int CRC_OFFSET = 36;
+    private static final BookingStatus[] STATUS_CODES = {null, BookingStatus.APPROVED, BookingStatus.CANCELED,
+            BookingStatus.REJECTED, BookingStatus.WAITING};
+    private final Path path;
+    private final int capacity;
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private int count;
+    private long[] minTimestamps = new long[16];
+    private long[] maxTimestamps = new long[16];
+    private long[] bookingIdFilters = new long[16 * FILTER_WORDS];
+
+    /**
+     * Открывает существующий сегмент или создает новый и восстанавливает число записей и индекс чтением файла.
+     */
+    JournalSegment(Path path, int capacity) throws IOException {
+        this.path = path;
+        this.capacity = capacity;
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, (long) capacity * RECORD_SIZE);
+        while (count < capacity && isValid(count)) {
+            index(count, buffer.getLong(offset(count)), buffer.getLong(offset(count) + 8));
+            count++;
+        }
+    }
+
+    Path getPath() {
+        return path;
+    }
+
+    int getCount() {
+        return count;
+    }
+
+    boolean isFull() {
+        return count == capacity;
+    }
+
+    boolean isSealed() {
+        return buffer == null;
+    }
+
+    void append(BookingTransition transition) {
+        int offset = offset(count);
+        long timestamp = transition.getTimestamp().toEpochMilli();
+        buffer.putLong(offset, timestamp);
+        buffer.putLong(offset + 8, transition.getBookingId());
+        buffer.putLong(offset + 16, transition.getItemId());
+        buffer.putLong(offset + 24, transition.getActorId());
+        buffer.put(offset + 32, encode(transition.getPreviousStatus()));
+        buffer.put(offset + 33, encode(transition.getStatus()));
+        buffer.putShort(offset + 34, (short) 0);
+        buffer.putInt(offset + CRC_OFFSET, crc(offset));
+        index(count, timestamp, transition.getBookingId());
+        count++;
+    }
+
+    void force() {
+        if (!isSealed()) {
+            buffer.force();
+        }
+    }
+
+    /**
+     * Сбрасывает сегмент на диск и закрывает его для записи. Снимки, взятые до этого, продолжают читать
+     * из отображения, пока на него есть ссылки.
+     */
+    void seal() throws IOException {
+        if (isSealed()) {
+            return;
+        }
+        buffer.force();
+        buffer = null;
+        channel.close();
+        channel = null;
+    }
+
+    /**
+     * Снимок записанной части: записи и границы блоков до count уже не меняются, поэтому снимок разделяет
+     * массивы индекса с сегментом и читается без блокировки журнала.
+     */
+    Snapshot snapshot() {
+        int blocks = count == 0 ? 0 : blockOf(count - 1) + 1;
+        return new Snapshot(count, blocks, buffer, minTimestamps, maxTimestamps, bookingIdFilters);
+    }
+
+    @Override
+    public void close() throws IOException {
+        seal();
+    }
+
+    private boolean isValid(int record) {
+        int offset = offset(record);
+        return buffer.getLong(offset) != 0 && buffer.getInt(offset + CRC_OFFSET) == crc(offset);
+    }
+
+    private int crc(int offset) {
+        CRC32 crc = new CRC32();
+        for (int i = offset; i < offset + CRC_OFFSET; i++) {
+            crc.update(buffer.get(i));
+        }
+        return (int) crc.getValue();
+    }
+
+    private void index(int record, long timestamp, long bookingId) {
+        int block = blockOf(record);
+        if (block == minTimestamps.length) {
+            minTimestamps = Arrays.copyOf(minTimestamps, block * 2);
+            maxTimestamps = Arrays.copyOf(maxTimestamps, block * 2);
+            bookingIdFilters = Arrays.copyOf(bookingIdFilters, block * 2 * FILTER_WORDS);
+        }
+        if (record % BLOCK_RECORDS == 0) {
+            minTimestamps[block] = timestamp;
+            maxTimestamps[block] = timestamp;
+        } else {
+            minTimestamps[block] = Math.min(minTimestamps[block], timestamp);
+            maxTimestamps[block] = Math.max(maxTimestamps[block], timestamp);
+        }
+        long hash = mix(bookingId);
+        for (int i = 1; i <= FILTER_HASHES; i++) {
+            int bit = filterBit(hash, i);
+            bookingIdFilters[block * FILTER_WORDS + bit / Long.SIZE] |= 1L << bit;
+        }
+    }
+
+    private static boolean mightContain(long[] filters, int block, long bookingId) {
+        long hash = mix(bookingId);
+        for (int i = 1; i <= FILTER_HASHES; i++) {
+            int bit = filterBit(hash, i);
+            if ((filters[block * FILTER_WORDS + bit / Long.SIZE] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * i-й бит фильтра по схеме двойного хеширования из двух половин hash.
+     */
+    private static int filterBit(long hash, int i) {
+        return ((int) hash + i * (int) (hash >>> 32)) & (FILTER_BITS - 1);
+    }
+
+    /**
+     * Финальное перемешивание MurmurHash3: последовательные id расходятся по всем битам.
+     */
+    private static long mix(long value) {
+        long hash = value;
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    private static int blockOf(int record) {
+        return record / BLOCK_RECORDS;
+    }
+
+    private static int offset(int record) {
+        return record * RECORD_SIZE;
+    }
+
+    private static byte encode(BookingStatus status) {
+        for (byte code = 1; code < STATUS_CODES.length; code++) {
+            if (STATUS_CODES[code] == status) {
+                return code;
+            }
+        }
+        return 0;
+    }
+
+    class Snapshot {
+        private final int count;
+        private final int blocks;
+        private final MappedByteBuffer mapped;
+        private final long[] minTimestamps;
+        private final long[] maxTimestamps;
+        private final long[] bookingIdFilters;
+
+        private Snapshot(int count, int blocks, MappedByteBuffer mapped, long[] minTimestamps, long[] maxTimestamps,
+                         long[] bookingIdFilters) {
+            this.count = count;
+            this.blocks = blocks;
+            this.mapped = mapped;
+            this.minTimestamps = minTimestamps;
+            this.maxTimestamps = maxTimestamps;
+            this.bookingIdFilters = bookingIdFilters;
+        }
+
+        void scanByBookingId(long bookingId, Consumer<BookingTransition> consumer) {
+            scan(block -> mightContain(bookingIdFilters, block, bookingId),
+                    transition -> transition.getBookingId() == bookingId, consumer);
+        }
+
+        void scanBetween(long fromMillis, long toMillis, Consumer<BookingTransition> consumer) {
+            scan(block -> minTimestamps[block] < toMillis && fromMillis <= maxTimestamps[block], transition -> {
+                long timestamp = transition.getTimestamp().toEpochMilli();
+                return fromMillis <= timestamp && timestamp < toMillis;
+            }, consumer);
+        }
+
+        /**
+         * Запечатанный сегмент открывается для чтения только если хотя бы один блок прошел индекс.
+         */
+        private void scan(IntPredicate blockFilter, Predicate<BookingTransition> filter,
+                          Consumer<BookingTransition> consumer) {
+            FileChannel file = null;
+            try {
+                for (int block = 0; block < blocks; block++) {
+                    if (!blockFilter.test(block)) {
+                        continue;
+                    }
+                    int first = block * BLOCK_RECORDS;
+                    int end = Math.min(count, first + BLOCK_RECORDS);
+                    ByteBuffer data = mapped;
+                    int base = 0;
+                    if (data == null) {
+                        if (file == null) {
+                            file = FileChannel.open(path, StandardOpenOption.READ);
+                        }
+                        base = offset(first);
+                        data = readFully(file, base, offset(end) - base);
+                    }
+                    for (int record = first; record < end; record++) {
+                        BookingTransition transition = read(data, offset(record) - base);
+                        if (filter.test(transition)) {
+                            consumer.accept(transition);
+                        }
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } finally {
+                release(file);
+            }
+        }
+
+        private ByteBuffer readFully(FileChannel file, long position, int length) throws IOException {
+            ByteBuffer data = ByteBuffer.allocate(length);
+            while (data.hasRemaining()) {
+                if (file.read(data, position + data.position()) < 0) {
+                    throw new EOFException("Сегмент журнала " + path + " короче записанной части.");
+                }
+            }
+            return data;
+        }
+
+        private void release(FileChannel file) {
+            if (file == null) {
+                return;
+            }
+            try {
+                file.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private BookingTransition read(ByteBuffer data, int offset) {
+            return new BookingTransition(data.getLong(offset + 8), data.getLong(offset + 16),
+                    data.getLong(offset + 24), STATUS_CODES[data.get(offset + 32)],
+                    STATUS_CODES[data.get(offset + 33)], Instant.ofEpochMilli(data.getLong(offset)));
+        }
+    }
+}
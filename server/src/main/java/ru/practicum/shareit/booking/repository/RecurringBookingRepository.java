@@ -0,0 +1,60 @@
+package ru.practicum.shareit.booking.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.model.RecurringBooking;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface RecurringBookingRepository extends JpaRepository<RecurringBooking, Long> {
+
+    @Query("SELECT r FROM RecurringBooking r "
+            + "JOIN FETCH r.item i "
+            + "JOIN FETCH i.owner "
+            + "JOIN FETCH r.booker "
+            + "WHERE r.id = :id")
+    Optional<RecurringBooking> findWithItemAndBookerById(@Param("id") long id);
+
+    @Query("SELECT r FROM RecurringBooking r "
+            + "WHERE r.item.id IN :itemIds "
+            + "AND r.status = :status "
+            + "AND r.start < :to "
+            + "AND r.lastEnd > :from")
+    List<RecurringBooking> findByItemsOverlapping(@Param("itemIds") Collection<Long> itemIds,
+                                                  @Param("status") BookingStatus status,
+                                                  @Param("from") LocalDateTime from,
+                                                  @Param("to") LocalDateTime to);
+
+    @Query("SELECT r FROM RecurringBooking r "
+            + "JOIN FETCH r.item i "
+            + "JOIN FETCH i.owner "
+            + "JOIN FETCH r.booker "
+            + "WHERE r.booker.id = :bookerId "
+            + "AND r.status IN :statuses "
+            + "AND r.start < :to "
+            + "AND r.lastEnd > :from")
+    List<RecurringBooking> findByBookerOverlapping(@Param("bookerId") long bookerId,
+                                                   @Param("statuses") Collection<BookingStatus> statuses,
+                                                   @Param("from") LocalDateTime from,
+                                                   @Param("to") LocalDateTime to);
+
+    @Query("SELECT r FROM RecurringBooking r "
+            + "JOIN FETCH r.item i "
+            + "JOIN FETCH i.owner "
+            + "JOIN FETCH r.booker "
+            + "WHERE i.owner.id = :itemOwnerId "
+            + "AND r.status IN :statuses "
+            + "AND r.start < :to "
+            + "AND r.lastEnd > :from")
+    List<RecurringBooking> findByItemOwnerOverlapping(@Param("itemOwnerId") long itemOwnerId,
+                                                      @Param("statuses") Collection<BookingStatus> statuses,
+                                                      @Param("from") LocalDateTime from,
+                                                      @Param("to") LocalDateTime to);
+}
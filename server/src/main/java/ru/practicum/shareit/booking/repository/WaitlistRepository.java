@@ -0,0 +1,27 @@
+package ru.practicum.shareit.booking.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import ru.practicum.shareit.booking.model.WaitlistEntry;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface WaitlistRepository extends JpaRepository<WaitlistEntry, Long> {
+
+    @Query("SELECT w FROM WaitlistEntry w "
+            + "JOIN FETCH w.item "
+            + "JOIN FETCH w.booker "
+            + "WHERE w.item.id = :itemId "
+            + "AND w.start < :to "
+            + "AND w.end > :from "
+            + "AND w.start > :now "
+            + "ORDER BY w.created ASC, w.id ASC")
+    List<WaitlistEntry> findQueuedOverlapping(@Param("itemId") long itemId,
+                                              @Param("from") LocalDateTime from,
+                                              @Param("to") LocalDateTime to,
+                                              @Param("now") LocalDateTime now);
+}
@@ -0,0 +1,71 @@
+package ru.practicum.shareit.booking.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.repository.BookingReadModelWriter;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Переносит бронирования, завершившиеся больше afterMonths месяцев назад, из bookings в bookings_archive.
+ * Перенос идет пачками, каждая пачка - отдельная транзакция, чтобы не держать долгих блокировок.
+ */
+@Slf4j
+@Component
+public class BookingArchiver {
+    static final int BATCH_SIZE = 1_000;
+    private static final String COPY_TO_ARCHIVE = "INSERT INTO bookings_archive "
+            + "(id, item_id, booker_id, start, ending, status, created) "
+            + "SELECT id, item_id, booker_id, start, ending, status, created "
+            + "FROM bookings "
+            + "WHERE id IN (:ids)";
+    private final BookingRepository bookingRepository;
+    private final BookingReadModelWriter bookingReadModelWriter;
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int afterMonths;
+
+    public BookingArchiver(BookingRepository bookingRepository,
+                           BookingReadModelWriter bookingReadModelWriter,
+                           NamedParameterJdbcTemplate jdbcTemplate,
+                           TransactionTemplate transactionTemplate,
+                           @Value("${shareit.bookings.archive.after-months:12}") int afterMonths) {
+        this.bookingRepository = bookingRepository;
+        this.bookingReadModelWriter = bookingReadModelWriter;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.afterMonths = afterMonths;
+    }
+
+    @Scheduled(cron = "${shareit.bookings.archive.cron:0 30 3 * * *}")
+    public void archive() {
+        LocalDateTime cutoff = LocalDate.now().minusMonths(afterMonths).atStartOfDay();
+        long total = 0;
+        int moved;
+        do {
+            Integer batch = transactionTemplate.execute(status -> moveBatch(cutoff));
+            moved = batch == null ? 0 : batch;
+            total += moved;
+        } while (moved == BATCH_SIZE);
+        log.info("В архив перенесено {} бронирований, завершившихся до {}.", total, cutoff);
+    }
+
+    private int moveBatch(LocalDateTime cutoff) {
+        List<Long> ids = bookingRepository.findIdsEndedBefore(cutoff, PageRequest.of(0, BATCH_SIZE));
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        jdbcTemplate.update(COPY_TO_ARCHIVE, Map.of("ids", ids));
+        bookingReadModelWriter.deleteByIds(ids);
+        return bookingRepository.deleteByIds(ids);
+    }
+}
@@ -0,0 +1,9 @@
+package ru.practicum.shareit.booking.service;
+
+import ru.practicum.shareit.booking.dto.BookingChanges;
+
+public interface BookingChangeService {
+    BookingChanges findChangesByBooker(long bookerId, String since, int size);
+
+    BookingChanges findChangesByItemOwner(long itemOwnerId, String since, int size);
+}
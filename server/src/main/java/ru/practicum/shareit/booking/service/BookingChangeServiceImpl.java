@@ -0,0 +1,92 @@
+package ru.practicum.shareit.booking.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.dto.BookingChangeMark;
+import ru.practicum.shareit.booking.dto.BookingChanges;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingMapper;
+import ru.practicum.shareit.booking.dto.BookingView;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.user.service.UserService;
+import ru.practicum.shareit.util.ChangeToken;
+import ru.practicum.shareit.util.PaginationInfo;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Изменения отбираются по номеру change_seq, который база выдает при каждой вставке и обновлении бронирования.
+ * Номер выдается при записи, а транзакции фиксируются в другом порядке, поэтому изменение с меньшим номером
+ * может стать видимым позже изменения с большим. Токен продвигается только до изменений старше settleTime:
+ * более свежие изменения возвращаются и при следующем запросе, и клиент применяет их по id как замену.
+ * Изменение пропускается, только если транзакция зафиксирована позже чем через settleTime после записи строки.
+ * Транзакции, меняющие бронирования, ограничены таймаутами блокировки и запросов (shareit.bookings.locks.*),
+ * поэтому settleTime задается с запасом больше их суммы. Паузы самого приложения между записью и фиксацией
+ * таймауты не ограничивают: для них гарантия остается вероятностной.
+ */
+@Service
+public class BookingChangeServiceImpl implements BookingChangeService {
+    private final BookingRepository bookingRepository;
+    private final BookingMapper bookingMapper;
+    private final UserService userService;
+    private final Duration settleTime;
+
+    public BookingChangeServiceImpl(BookingRepository bookingRepository,
+                                    BookingMapper bookingMapper,
+                                    UserService userService,
+                                    @Value("${shareit.bookings.changes.settle-time:PT30S}") Duration settleTime) {
+        this.bookingRepository = bookingRepository;
+        this.bookingMapper = bookingMapper;
+        this.userService = userService;
+        this.settleTime = settleTime;
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public BookingChanges findChangesByBooker(long bookerId, String since, int size) {
+        userService.throwIfRepositoryNotContains(bookerId);
+        long sinceSeq = ChangeToken.decode(since);
+        return load(sinceSeq, bookingRepository.findChangeMarksByBooker(bookerId, sinceSeq,
+                PaginationInfo.firstPage(size)));
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public BookingChanges findChangesByItemOwner(long itemOwnerId, String since, int size) {
+        userService.throwIfRepositoryNotContains(itemOwnerId);
+        long sinceSeq = ChangeToken.decode(since);
+        return load(sinceSeq, bookingRepository.findChangeMarksByItemOwner(itemOwnerId, sinceSeq,
+                PaginationInfo.firstPage(size)));
+    }
+
+    private BookingChanges load(long since, List<BookingChangeMark> marks) {
+        LocalDateTime settledBefore = LocalDateTime.now().minus(settleTime);
+        long token = since;
+        for (BookingChangeMark mark : marks) {
+            if (!mark.getChanged().isBefore(settledBefore)) {
+                break;
+            }
+            token = mark.getChangeSeq();
+        }
+        if (marks.isEmpty()) {
+            return new BookingChanges(List.of(), ChangeToken.encode(token));
+        }
+        Map<Long, BookingView> views = bookingRepository.findViewsByIds(marks.stream()
+                        .map(BookingChangeMark::getBookingId)
+                        .collect(Collectors.toList())).stream()
+                .collect(Collectors.toMap(BookingView::getId, Function.identity()));
+        List<BookingDto> bookings = marks.stream()
+                .map(mark -> views.get(mark.getBookingId()))
+                .filter(Objects::nonNull)
+                .map(bookingMapper::viewToOutcomingDto)
+                .collect(Collectors.toList());
+        return new BookingChanges(bookings, ChangeToken.encode(token));
+    }
+}
@@ -0,0 +1,190 @@
+package ru.practicum.shareit.booking.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.practicum.shareit.booking.dto.BookingLifecycleEventDto;
+import ru.practicum.shareit.booking.model.BookingChangedEvent;
+import ru.practicum.shareit.user.service.UserService;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Рассылает владельцам события жизненного цикла бронирований их вещей (SSE).
+ * События приходят после фиксации транзакции и раскладываются по ограниченным буферам подписчиков,
+ * а отправку выполняют потоки рассылки, поэтому медленный клиент не задерживает запрос, изменивший бронирование.
+ * Подписчик, чей буфер переполнился, отключается: клиент переподключается и перечитывает список WAITING.
+ * Запись в сокет клиента, который перестал читать, блокирует поток рассылки, поэтому отправка, идущая дольше
+ * send-timeout, прерывается, а подписчик отключается. Если контейнер не прерывает блокирующую запись,
+ * поток освобождается по таймауту записи контейнера, но новых событий этот подписчик уже не получает.
+ */
+@Slf4j
+@Component
+public class BookingEventBroadcaster {
+    private static final String HEARTBEAT = "heartbeat";
+    private final Map<Long, Set<Subscriber>> subscribersByOwner = new ConcurrentHashMap<>();
+    private final UserService userService;
+    private final int bufferSize;
+    private final long timeoutMillis;
+    private final long sendTimeoutNanos;
+    private final ExecutorService senders;
+
+    public BookingEventBroadcaster(UserService userService,
+                                   @Value("${shareit.bookings.stream.buffer-size:64}") int bufferSize,
+                                   @Value("${shareit.bookings.stream.timeout:PT30M}") Duration timeout,
+                                   @Value("${shareit.bookings.stream.sender-threads:2}") int senderThreads,
+                                   @Value("${shareit.bookings.stream.send-timeout:PT10S}") Duration sendTimeout) {
+        this.userService = userService;
+        this.bufferSize = bufferSize;
+        this.timeoutMillis = timeout.toMillis();
+        this.sendTimeoutNanos = sendTimeout.toNanos();
+        this.senders = Executors.newFixedThreadPool(senderThreads);
+    }
+
+    public SseEmitter subscribe(long itemOwnerId) {
+        userService.throwIfRepositoryNotContains(itemOwnerId);
+        SseEmitter emitter = newEmitter(timeoutMillis);
+        Subscriber subscriber = new Subscriber(itemOwnerId, emitter, new ArrayBlockingQueue<>(bufferSize));
+        emitter.onCompletion(() -> unsubscribe(subscriber));
+        emitter.onTimeout(() -> unsubscribe(subscriber));
+        emitter.onError(e -> unsubscribe(subscriber));
+        subscribersByOwner.compute(itemOwnerId, (id, subscribers) -> {
+            Set<Subscriber> updated = subscribers == null ? ConcurrentHashMap.newKeySet() : subscribers;
+            updated.add(subscriber);
+            return updated;
+        });
+        log.info("Владелец id = {} подписался на события бронирований.", itemOwnerId);
+        return emitter;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookingChanged(BookingChangedEvent event) {
+        if (event.getItemOwnerId() == null) {
+            return;
+        }
+        Set<Subscriber> subscribers = subscribersByOwner.get(event.getItemOwnerId());
+        if (subscribers == null) {
+            return;
+        }
+        BookingLifecycleEventDto dto = BookingLifecycleEventDto.of(event);
+        if (dto == null) {
+            return;
+        }
+        subscribers.forEach(subscriber -> offer(subscriber, SseEmitter.event()
+                .name(dto.getType().name().toLowerCase())
+                .data(dto, MediaType.APPLICATION_JSON)));
+    }
+
+    /**
+     * Комментарий раз в heartbeat не дает прокси закрыть простаивающее соединение
+     * и выявляет отключившихся клиентов.
+     */
+    @Scheduled(fixedDelayString = "${shareit.bookings.stream.heartbeat:PT30S}")
+    public void heartbeat() {
+        subscribersByOwner.values().forEach(subscribers -> subscribers.forEach(subscriber ->
+                offer(subscriber, SseEmitter.event().comment(HEARTBEAT))));
+    }
+
+    @Scheduled(fixedDelayString = "${shareit.bookings.stream.send-timeout:PT10S}")
+    public void closeStalled() {
+        long now = System.nanoTime();
+        subscribersByOwner.values().forEach(subscribers -> subscribers.forEach(subscriber -> {
+            synchronized (subscriber) {
+                if (subscriber.sender != null && now - subscriber.sendStartedNanos > sendTimeoutNanos) {
+                    log.warn("Отправка события владельцу id = {} зависла, подписка закрыта.", subscriber.itemOwnerId);
+                    unsubscribe(subscriber);
+                    subscriber.buffer.clear();
+                    subscriber.sender.interrupt();
+                }
+            }
+        }));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        senders.shutdownNow();
+        subscribersByOwner.values().forEach(subscribers -> subscribers.forEach(subscriber ->
+                subscriber.emitter.complete()));
+        subscribersByOwner.clear();
+    }
+
+    protected SseEmitter newEmitter(long timeoutMillis) {
+        return new SseEmitter(timeoutMillis);
+    }
+
+    private void offer(Subscriber subscriber, SseEmitter.SseEventBuilder event) {
+        if (!subscriber.buffer.offer(event)) {
+            log.warn("Буфер событий владельца id = {} переполнен, подписка закрыта.", subscriber.itemOwnerId);
+            unsubscribe(subscriber);
+            subscriber.emitter.complete();
+            return;
+        }
+        if (subscriber.draining.compareAndSet(false, true)) {
+            senders.execute(() -> drain(subscriber));
+        }
+    }
+
+    /**
+     * Отправку для одного подписчика выполняет не более одного потока за раз, поэтому порядок событий сохраняется.
+     */
+    private void drain(Subscriber subscriber) {
+        do {
+            SseEmitter.SseEventBuilder event;
+            while ((event = subscriber.buffer.poll()) != null) {
+                synchronized (subscriber) {
+                    subscriber.sender = Thread.currentThread();
+                    subscriber.sendStartedNanos = System.nanoTime();
+                }
+                try {
+                    subscriber.emitter.send(event);
+                } catch (IOException | IllegalStateException e) {
+                    unsubscribe(subscriber);
+                    subscriber.buffer.clear();
+                    subscriber.emitter.completeWithError(e);
+                } finally {
+                    synchronized (subscriber) {
+                        subscriber.sender = null;
+                        Thread.interrupted();
+                    }
+                }
+            }
+            subscriber.draining.set(false);
+        } while (!subscriber.buffer.isEmpty() && subscriber.draining.compareAndSet(false, true));
+    }
+
+    private void unsubscribe(Subscriber subscriber) {
+        subscribersByOwner.computeIfPresent(subscriber.itemOwnerId, (id, subscribers) -> {
+            subscribers.remove(subscriber);
+            return subscribers.isEmpty() ? null : subscribers;
+        });
+    }
+
+    private static class Subscriber {
+        private final long itemOwnerId;
+        private final SseEmitter emitter;
+        private final BlockingQueue<SseEmitter.SseEventBuilder> buffer;
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private Thread sender;
+        private long sendStartedNanos;
+
+        private Subscriber(long itemOwnerId, SseEmitter emitter, BlockingQueue<SseEmitter.SseEventBuilder> buffer) {
+            this.itemOwnerId = itemOwnerId;
+            this.emitter = emitter;
+            this.buffer = buffer;
+        }
+    }
+}
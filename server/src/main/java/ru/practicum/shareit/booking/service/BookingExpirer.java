@@ -0,0 +1,219 @@
+package ru.practicum.shareit.booking.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.dto.BookingInterval;
+import ru.practicum.shareit.booking.dto.BookingStatusCheck;
+import ru.practicum.shareit.booking.dto.BookingStatusMark;
+import ru.practicum.shareit.booking.model.BookingChangedEvent;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.util.TimingWheel;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.stream.Collectors;
+
+/**
+ * Переводит бронирования, которые владелец не подтвердил за leadTime до начала, из WAITING в CANCELED.
+ * Дедлайны хранятся в колесе таймеров и заполняются из базы один раз при старте; дальше колесо узнает
+ * о новых и измененных бронированиях своего узла из BookingChangedEvent. Изменения других узлов и импорта
+ * раз в syncInterval дочитываются по индексу change_seq начиная с последнего прочитанного номера, без полного
+ * прохода по таблице. Номер продвигается только до изменений старше settleTime, как в BookingChangeServiceImpl,
+ * поэтому транзакция, получившая номер раньше, а зафиксированная позже, не пропускается.
+ * Отмена идет под блокировкой вещей, как подтверждение и отклонение, а статусы перечитываются после ее взятия,
+ * поэтому события публикуются только для бронирований, действительно отмененных этим узлом.
+ * Включается свойством shareit.bookings.approval.lead-time.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "shareit.bookings.approval.lead-time")
+public class BookingExpirer {
+    static final int BATCH_SIZE = 1_000;
+    private static final int WHEEL_BITS_PER_LEVEL = 6;
+    private static final int WHEEL_LEVELS = 4;
+    private final BookingRepository bookingRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final BookingWaitlistService bookingWaitlistService;
+    private final ItemBookingLock itemBookingLock;
+    private final Duration leadTime;
+    private final Duration settleTime;
+    private volatile long syncedSeq;
+    private final Queue<Long> overdue = new ConcurrentLinkedQueue<>();
+    private final TimingWheel<Long> wheel;
+
+    public BookingExpirer(BookingRepository bookingRepository,
+                          TransactionTemplate transactionTemplate,
+                          ApplicationEventPublisher eventPublisher,
+                          BookingWaitlistService bookingWaitlistService,
+                          ItemBookingLock itemBookingLock,
+                          @Value("${shareit.bookings.approval.lead-time}") Duration leadTime,
+                          @Value("${shareit.bookings.approval.tick:PT1S}") Duration tick,
+                          @Value("${shareit.bookings.changes.settle-time:PT30S}") Duration settleTime) {
+        this.bookingRepository = bookingRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.eventPublisher = eventPublisher;
+        this.bookingWaitlistService = bookingWaitlistService;
+        this.itemBookingLock = itemBookingLock;
+        this.leadTime = leadTime;
+        this.settleTime = settleTime;
+        this.wheel = new TimingWheel<>(tick.toMillis(), WHEEL_BITS_PER_LEVEL, WHEEL_LEVELS,
+                System.currentTimeMillis());
+    }
+
+    /**
+     * Номер изменений запоминается до чтения, поэтому бронирования, измененные во время загрузки,
+     * дочитываются следующей синхронизацией. Записи о бронированиях, успевших выйти из WAITING,
+     * отсеиваются при отмене.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        syncedSeq = bookingRepository.findMaxChangeSeq();
+        int loaded = 0;
+        long lastId = 0L;
+        List<BookingInterval> chunk;
+        do {
+            chunk = bookingRepository.findIntervalsByStatus(BookingStatus.WAITING, lastId,
+                    PageRequest.of(0, BATCH_SIZE));
+            for (BookingInterval interval : chunk) {
+                schedule(interval.getBookingId(), interval.getStart());
+                lastId = interval.getBookingId();
+            }
+            loaded += chunk.size();
+        } while (chunk.size() == BATCH_SIZE);
+        log.info("Загружено {} бронирований, ожидающих подтверждения, просрочено {}.", loaded, overdue.size());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookingChanged(BookingChangedEvent event) {
+        if (event.getBookingId() == null) {
+            return;
+        }
+        if (event.getStatus() == BookingStatus.WAITING) {
+            schedule(event.getBookingId(), event.getStart());
+        } else {
+            wheel.cancel(event.getBookingId());
+        }
+    }
+
+    /**
+     * Изменения моложе settleTime перечитываются и при следующей синхронизации: повторная постановка
+     * того же дедлайна колесо не меняет.
+     */
+    @Scheduled(fixedDelayString = "${shareit.bookings.approval.sync-interval:PT10S}",
+            initialDelayString = "${shareit.bookings.approval.sync-interval:PT10S}")
+    public void sync() {
+        LocalDateTime settledBefore = LocalDateTime.now().minus(settleTime);
+        long since = syncedSeq;
+        boolean settled = true;
+        int read = 0;
+        List<BookingStatusMark> marks;
+        do {
+            marks = bookingRepository.findStatusMarksChangedAfter(since, PageRequest.of(0, BATCH_SIZE));
+            for (BookingStatusMark mark : marks) {
+                if (mark.getStatus() == BookingStatus.WAITING) {
+                    schedule(mark.getBookingId(), mark.getStart());
+                } else {
+                    wheel.cancel(mark.getBookingId());
+                }
+                settled &= mark.getChanged().isBefore(settledBefore);
+                if (settled) {
+                    syncedSeq = mark.getChangeSeq();
+                }
+                since = mark.getChangeSeq();
+            }
+            read += marks.size();
+        } while (marks.size() == BATCH_SIZE);
+        log.debug("Прочитано {} изменений бронирований, номер синхронизации {}.", read, syncedSeq);
+    }
+
+    @Scheduled(fixedDelayString = "${shareit.bookings.approval.tick:PT1S}")
+    public void expire() {
+        List<Long> expired = wheel.advance(System.currentTimeMillis());
+        Long id;
+        while ((id = overdue.poll()) != null) {
+            expired.add(id);
+        }
+        cancel(expired);
+    }
+
+    private void schedule(long bookingId, LocalDateTime start) {
+        if (!wheel.schedule(bookingId, deadlineMillis(start))) {
+            overdue.add(bookingId);
+        }
+    }
+
+    private void cancel(List<Long> ids) {
+        int canceled = 0;
+        for (int from = 0; from < ids.size(); from += BATCH_SIZE) {
+            List<Long> batch = ids.subList(from, Math.min(ids.size(), from + BATCH_SIZE));
+            Integer updated = transactionTemplate.execute(status -> cancelBatch(batch));
+            canceled += updated == null ? 0 : updated;
+        }
+        if (canceled > 0) {
+            log.info("Отменено {} бронирований, не подтвержденных за {} до начала.", canceled, leadTime);
+        }
+    }
+
+    private int cancelBatch(List<Long> ids) {
+        List<BookingStatusCheck> candidates = findWaiting(ids);
+        if (candidates.isEmpty()) {
+            return 0;
+        }
+        itemBookingLock.lockAll(candidates.stream()
+                .map(BookingStatusCheck::getItemId)
+                .collect(Collectors.toSet()));
+        List<BookingStatusCheck> waiting = findWaiting(idsOf(candidates));
+        if (waiting.isEmpty()) {
+            return 0;
+        }
+        List<Long> waitingIds = idsOf(waiting);
+        if (bookingRepository.cancelWaitingByIds(waitingIds) < waiting.size()) {
+            Set<Long> canceled = bookingRepository.findStatusChecksByIds(waitingIds).stream()
+                    .filter(check -> check.getStatus() == BookingStatus.CANCELED)
+                    .map(BookingStatusCheck::getBookingId)
+                    .collect(Collectors.toSet());
+            waiting = waiting.stream()
+                    .filter(check -> canceled.contains(check.getBookingId()))
+                    .collect(Collectors.toList());
+        }
+        waiting.forEach(check -> {
+            eventPublisher.publishEvent(new BookingChangedEvent(check.getBookingId(), check.getItemId(),
+                    check.getItemOwnerId(), check.getBookerId(), BookingStatus.WAITING, BookingStatus.CANCELED,
+                    check.getStart(), check.getEnd()));
+            bookingWaitlistService.promote(check.getItemId(), check.getStart(), check.getEnd());
+        });
+        return waiting.size();
+    }
+
+    private List<BookingStatusCheck> findWaiting(List<Long> ids) {
+        return bookingRepository.findStatusChecksByIds(ids).stream()
+                .filter(check -> check.getStatus() == BookingStatus.WAITING)
+                .collect(Collectors.toList());
+    }
+
+    private static List<Long> idsOf(List<BookingStatusCheck> checks) {
+        return checks.stream()
+                .map(BookingStatusCheck::getBookingId)
+                .collect(Collectors.toList());
+    }
+
+    private long deadlineMillis(LocalDateTime start) {
+        return start.minus(leadTime).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,10 @@
+package ru.practicum.shareit.booking.service;
+
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+public interface BookingExportService {
+    /**
+     * Владелец проверяется сразу, а бронирования читаются из базы и пишутся в ответ только при записи тела.
+     */
+    StreamingResponseBody exportByItemOwner(long itemOwnerId, BookingExportFormat format);
+}
@@ -0,0 +1,129 @@
+package ru.practicum.shareit.booking.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.practicum.shareit.booking.dto.BookingMapper;
+import ru.practicum.shareit.booking.dto.BookingView;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.user.service.UserService;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Выгрузка истории бронирований владельца без накопления в памяти. Строки читаются курсором базы порциями
+ * по BookingRepository.EXPORT_FETCH_SIZE в отдельной транзакции только для чтения и сразу пишутся в ответ.
+ * Читаются плоские проекции BookingView, а не сущности: они не попадают в контекст персистентности,
+ * поэтому память не растет с числом бронирований.
+ */
+@Slf4j
+@Service
+public class BookingExportServiceImpl implements BookingExportService {
+    static final String CSV_HEADER = "id,start,end,status,itemId,itemName,bookerId,bookerName,bookerEmail";
+    private static final int WRITER_BUFFER_SIZE = 64 * 1024;
+    private final BookingRepository bookingRepository;
+    private final BookingMapper bookingMapper;
+    private final UserService userService;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate readOnlyTransaction;
+
+    public BookingExportServiceImpl(BookingRepository bookingRepository,
+                                    BookingMapper bookingMapper,
+                                    UserService userService,
+                                    ObjectMapper objectMapper,
+                                    PlatformTransactionManager transactionManager) {
+        this.bookingRepository = bookingRepository;
+        this.bookingMapper = bookingMapper;
+        this.userService = userService;
+        this.objectMapper = objectMapper;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    @Override
+    public StreamingResponseBody exportByItemOwner(long itemOwnerId, BookingExportFormat format) {
+        userService.throwIfRepositoryNotContains(itemOwnerId);
+        return out -> readOnlyTransaction.executeWithoutResult(status -> {
+            try (Stream<BookingView> views = bookingRepository.streamAllByItemOwner(itemOwnerId)) {
+                long rows = write(views.iterator(), format, out);
+                log.info("Выгружено {} бронирований владельца с id = {} в формате {}.", rows, itemOwnerId, format);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    private long write(Iterator<BookingView> views, BookingExportFormat format, OutputStream out)
+            throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), WRITER_BUFFER_SIZE);
+        if (format == BookingExportFormat.CSV) {
+            writer.write(CSV_HEADER);
+            writer.write('\n');
+        }
+        long rows = 0;
+        while (views.hasNext()) {
+            BookingView view = views.next();
+            if (format == BookingExportFormat.CSV) {
+                writeCsvRow(writer, view);
+            } else {
+                writer.write(objectMapper.writeValueAsString(bookingMapper.viewToOutcomingDto(view)));
+            }
+            writer.write('\n');
+            rows++;
+        }
+        writer.flush();
+        return rows;
+    }
+
+    private void writeCsvRow(Writer writer, BookingView view) throws IOException {
+        writer.write(String.valueOf(view.getId()));
+        writer.write(',');
+        writer.write(format(view.getStart()));
+        writer.write(',');
+        writer.write(format(view.getEnd()));
+        writer.write(',');
+        writer.write(view.getStatus().name());
+        writer.write(',');
+        writer.write(String.valueOf(view.getItemId()));
+        writer.write(',');
+        writer.write(escapeCsv(view.getItemName()));
+        writer.write(',');
+        writer.write(String.valueOf(view.getBookerId()));
+        writer.write(',');
+        writer.write(escapeCsv(view.getBookerName()));
+        writer.write(',');
+        writer.write(escapeCsv(view.getBookerEmail()));
+    }
+
+    private static String format(LocalDateTime dateTime) {
+        return DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(dateTime);
+    }
+
+    /**
+     * Экранирование по RFC 4180: поле с запятой, кавычкой или переводом строки берется в кавычки,
+     * а кавычки внутри него удваиваются.
+     */
+    static String escapeCsv(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0
+                && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
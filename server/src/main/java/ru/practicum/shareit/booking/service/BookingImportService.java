@@ -0,0 +1,9 @@
+package ru.practicum.shareit.booking.service;
+
+import ru.practicum.shareit.booking.dto.BookingImportReport;
+
+import java.io.InputStream;
+
+public interface BookingImportService {
+    BookingImportReport importBookings(InputStream ndjson, long userId);
+}
@@ -0,0 +1,226 @@
+package ru.practicum.shareit.booking.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import ru.practicum.shareit.booking.dto.BookingImportDto;
+import ru.practicum.shareit.booking.dto.BookingImportReport;
+import ru.practicum.shareit.booking.model.BookingChangedEvent;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.repository.BookingBatchWriter;
+import ru.practicum.shareit.exception.mismatch.ImportNotAllowedException;
+import ru.practicum.shareit.item.dto.item.ItemOwnership;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Потоковый импорт бронирований из NDJSON. Строки читаются и проверяются пачками по CHUNK_SIZE:
+ * предметы и арендаторы пачки ищутся двумя запросами, прошедшие проверку строки записываются одним пакетом.
+ * Каждая пачка записывается в своей транзакции, поэтому ошибка записи отклоняет только ее.
+ * Импорт доступен только пользователям из shareit.bookings.import.allowed-user-ids: по умолчанию список пуст
+ * и импорт запрещен всем.
+ */
+@Service
+@Slf4j
+public class BookingImportServiceImpl implements BookingImportService {
+    static final int CHUNK_SIZE = 1_000;
+    private static final int MAX_REPORTED_ERRORS = 100;
+    private final ObjectMapper objectMapper;
+    private final ItemRepository itemRepository;
+    private final UserRepository userRepository;
+    private final BookingBatchWriter bookingBatchWriter;
+    private final BookingIntervalIndex bookingIntervalIndex;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Set<Long> allowedUserIds;
+
+    public BookingImportServiceImpl(ObjectMapper objectMapper, ItemRepository itemRepository,
+                                    UserRepository userRepository, BookingBatchWriter bookingBatchWriter,
+                                    BookingIntervalIndex bookingIntervalIndex, ApplicationEventPublisher eventPublisher,
+                                    @Value("${shareit.bookings.import.allowed-user-ids:}") Set<Long> allowedUserIds) {
+        this.objectMapper = objectMapper;
+        this.itemRepository = itemRepository;
+        this.userRepository = userRepository;
+        this.bookingBatchWriter = bookingBatchWriter;
+        this.bookingIntervalIndex = bookingIntervalIndex;
+        this.eventPublisher = eventPublisher;
+        this.allowedUserIds = Set.copyOf(allowedUserIds);
+    }
+
+    @Override
+    public BookingImportReport importBookings(InputStream ndjson, long userId) {
+        if (!allowedUserIds.contains(userId)) {
+            throw new ImportNotAllowedException(
+                    "Пользователь с id " + userId + " не может импортировать бронирования.");
+        }
+        long started = System.nanoTime();
+        BookingImportReport report = new BookingImportReport();
+        boolean indexTouched = false;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(ndjson, StandardCharsets.UTF_8))) {
+            List<ImportLine> chunk = new ArrayList<>(CHUNK_SIZE);
+            long lineNumber = 0;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                report.setReceived(report.getReceived() + 1);
+                ImportLine parsed = parse(lineNumber, line, report);
+                if (parsed != null) {
+                    chunk.add(parsed);
+                }
+                if (chunk.size() == CHUNK_SIZE) {
+                    indexTouched |= importChunk(chunk, report);
+                    logProgress(report, started);
+                    chunk.clear();
+                }
+            }
+            if (!chunk.isEmpty()) {
+                indexTouched |= importChunk(chunk, report);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            if (indexTouched) {
+                bookingIntervalIndex.build();
+            }
+        }
+        report.getErrors().sort(Comparator.comparingLong(BookingImportReport.LineError::getLine));
+        long durationMillis = Math.max(1, (System.nanoTime() - started) / 1_000_000);
+        report.setDurationMillis(durationMillis);
+        report.setRowsPerSecond(report.getImported() * 1000 / durationMillis);
+        log.info("Импорт бронирований завершен: получено {}, загружено {}, отклонено {} за {} мс ({} строк/с).",
+                report.getReceived(), report.getImported(), report.getRejected(), durationMillis,
+                report.getRowsPerSecond());
+        return report;
+    }
+
+    private ImportLine parse(long lineNumber, String line, BookingImportReport report) {
+        BookingImportDto dto;
+        try {
+            dto = objectMapper.readValue(line, BookingImportDto.class);
+        } catch (JsonProcessingException e) {
+            reject(report, lineNumber, "Строка не является корректным JSON-объектом бронирования.");
+            return null;
+        }
+        if (dto.getItemId() == null || dto.getBookerId() == null || dto.getStart() == null
+                || dto.getEnd() == null) {
+            reject(report, lineNumber, "Не заполнены обязательные поля itemId, bookerId, start, end.");
+            return null;
+        }
+        if (!dto.getEnd().isAfter(dto.getStart())) {
+            reject(report, lineNumber, "Окончание бронирования должно быть позже начала.");
+            return null;
+        }
+        if (dto.getStatus() == null) {
+            dto.setStatus(BookingStatus.WAITING);
+        }
+        return new ImportLine(lineNumber, dto);
+    }
+
+    /**
+     * @return true, если в индекс интервалов добавлялись записи и его нужно перестроить.
+     */
+    private boolean importChunk(List<ImportLine> chunk, BookingImportReport report) {
+        Set<Long> itemIds = chunk.stream().map(line -> line.getDto().getItemId()).collect(Collectors.toSet());
+        Set<Long> bookerIds = chunk.stream().map(line -> line.getDto().getBookerId()).collect(Collectors.toSet());
+        Map<Long, Long> ownerByItem = itemRepository.findOwnershipByIds(itemIds).stream()
+                .collect(Collectors.toMap(ItemOwnership::getItemId, ItemOwnership::getOwnerId));
+        Set<Long> existingBookers = new HashSet<>(userRepository.findExistingIds(bookerIds));
+        LocalDateTime now = LocalDateTime.now();
+        boolean indexTouched = false;
+        List<ImportLine> accepted = new ArrayList<>(chunk.size());
+        for (ImportLine line : chunk) {
+            BookingImportDto dto = line.getDto();
+            Long ownerId = ownerByItem.get(dto.getItemId());
+            if (ownerId == null) {
+                reject(report, line.getNumber(), "Вещь с id = " + dto.getItemId() + " не найдена.");
+            } else if (!existingBookers.contains(dto.getBookerId())) {
+                reject(report, line.getNumber(), "Пользователь с id = " + dto.getBookerId() + " не найден.");
+            } else if (ownerId.equals(dto.getBookerId())) {
+                reject(report, line.getNumber(), "Нельзя создавать бронирование для своих предметов.");
+            } else if (isActiveApproval(dto, now) && !reserveInterval(line)) {
+                reject(report, line.getNumber(), "Вещь с id = " + dto.getItemId()
+                        + " уже забронирована на пересекающийся период.");
+            } else {
+                indexTouched |= isActiveApproval(dto, now);
+                accepted.add(line);
+            }
+        }
+        if (accepted.isEmpty()) {
+            return indexTouched;
+        }
+        try {
+            BookingBatchWriter.Mode mode = bookingBatchWriter.write(accepted.stream()
+                    .map(ImportLine::getDto)
+                    .collect(Collectors.toList()));
+            report.setWriteMode(mode.name());
+            report.setImported(report.getImported() + accepted.size());
+            accepted.stream()
+                    .map(line -> line.getDto().getItemId())
+                    .distinct()
+                    .forEach(itemId -> eventPublisher.publishEvent(BookingChangedEvent.forImportedItem(itemId)));
+        } catch (DataAccessException e) {
+            log.warn("Пачка из {} бронирований, начиная со строки {}, не записана: {}", accepted.size(),
+                    accepted.get(0).getNumber(), e.getMostSpecificCause().getMessage());
+            accepted.forEach(line -> reject(report, line.getNumber(), "Пачка отклонена базой данных: "
+                    + e.getMostSpecificCause().getMessage()));
+        }
+        return indexTouched;
+    }
+
+    private boolean isActiveApproval(BookingImportDto dto, LocalDateTime now) {
+        return dto.getStatus() == BookingStatus.APPROVED && dto.getEnd().isAfter(now);
+    }
+
+    /**
+     * Строка еще не имеет id, поэтому интервал резервируется под отрицательным номером строки.
+     * После импорта индекс перестраивается по базе и получает настоящие id.
+     */
+    private boolean reserveInterval(ImportLine line) {
+        BookingImportDto dto = line.getDto();
+        return bookingIntervalIndex.tryAdd(dto.getItemId(), -line.getNumber(), dto.getStart(), dto.getEnd());
+    }
+
+    private void reject(BookingImportReport report, long lineNumber, String message) {
+        report.setRejected(report.getRejected() + 1);
+        if (report.getErrors().size() < MAX_REPORTED_ERRORS) {
+            report.getErrors().add(new BookingImportReport.LineError(lineNumber, message));
+        }
+    }
+
+    private void logProgress(BookingImportReport report, long started) {
+        long elapsedMillis = Math.max(1, (System.nanoTime() - started) / 1_000_000);
+        log.info("Импорт бронирований: обработано {} строк, загружено {}, отклонено {}, {} строк/с.",
+                report.getReceived(), report.getImported(), report.getRejected(),
+                report.getImported() * 1000 / elapsedMillis);
+    }
+
+    @Getter
+    @AllArgsConstructor
+    private static class ImportLine {
+        private final long number;
+        private final BookingImportDto dto;
+    }
+}
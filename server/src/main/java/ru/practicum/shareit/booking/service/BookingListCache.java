@@ -0,0 +1,201 @@
+package ru.practicum.shareit.booking.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.model.BookingChangedEvent;
+import ru.practicum.shareit.booking.model.RecurringBookingChangedEvent;
+import ru.practicum.shareit.util.KeysetSlice;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+
+/**
+ * Кэш страниц списков бронирований по ключу (пользователь, роль, состояние, страница).
+ * Списки CURRENT, FUTURE и PAST меняются без записи в базу только в моменты начала и окончания бронирований,
+ * поэтому запись живет до ближайшего такого момента среди бронирований на странице и незавершившихся
+ * бронирований пользователя (их знает BookingStateCounters). Изменение бронирования сбрасывает записи
+ * арендатора и владельца после фиксации транзакции, а версия пользователя защищает от записи в кэш результата,
+ * вычисленного до сброса. Версии хранятся в массиве фиксированного размера по хешу пользователя, поэтому
+ * их память не растет с числом пользователей; совпадение хешей лишь чаще не дает закэшировать страницу.
+ * Изменения вещей и пользователей, а также вхождения повторяющихся бронирований,
+ * попадающие в окно проекции, видны не позднее чем через max-ttl.
+ * Сброс узнает только об изменениях своего узла, поэтому кэш включен вместе со счетчиками в памяти
+ * (shareit.bookings.counters.in-memory), которые рассчитаны на то же условие, и выключается вместе с ними,
+ * когда в базу пишут несколько узлов. Свойство shareit.bookings.list-cache.enabled переопределяет это.
+ */
+@Component
+public class BookingListCache {
+    private static final int MAX_PAGES_PER_USER = 32;
+    private static final int VERSION_STRIPES = 4096;
+    private static final Set<BookingState> TIME_DEPENDENT_STATES = EnumSet.of(BookingState.CURRENT,
+            BookingState.FUTURE, BookingState.PAST);
+    private final Map<UserKey, Map<PageKey, Entry>> entriesByUser = new ConcurrentHashMap<>();
+    private final AtomicLongArray versions = new AtomicLongArray(VERSION_STRIPES);
+    private final AtomicLong generation = new AtomicLong();
+    private final BookingStateCounters bookingStateCounters;
+    private final Duration maxTtl;
+    private final boolean enabled;
+    private final Counter hits;
+    private final Counter misses;
+
+    public BookingListCache(BookingStateCounters bookingStateCounters,
+                            MeterRegistry meterRegistry,
+                            @Value("${shareit.bookings.list-cache.max-ttl:PT5M}") Duration maxTtl,
+                            @Value("${shareit.bookings.list-cache.enabled:${shareit.bookings.counters.in-memory:true}}")
+                            boolean enabled) {
+        this.bookingStateCounters = bookingStateCounters;
+        this.maxTtl = maxTtl;
+        this.enabled = enabled;
+        this.hits = Counter.builder("shareit.bookings.list.cache")
+                .tag("result", "hit")
+                .description("Обращения к кэшу списков бронирований")
+                .register(meterRegistry);
+        this.misses = Counter.builder("shareit.bookings.list.cache")
+                .tag("result", "miss")
+                .description("Обращения к кэшу списков бронирований")
+                .register(meterRegistry);
+        Gauge.builder("shareit.bookings.list.cache.size", entriesByUser,
+                        entries -> entries.values().stream().mapToInt(Map::size).sum())
+                .description("Число страниц в кэше списков бронирований")
+                .register(meterRegistry);
+    }
+
+    public KeysetSlice<BookingDto> get(Role role, long userId, BookingState state, int from, int size, String after,
+                                       Supplier<KeysetSlice<BookingDto>> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+        UserKey user = new UserKey(role, userId);
+        PageKey page = new PageKey(state, from, size, after);
+        long generation = this.generation.get();
+        long version = versions.get(stripe(user));
+        LocalDateTime now = LocalDateTime.now();
+        Entry cached = entriesByUser.getOrDefault(user, Map.of()).get(page);
+        if (cached != null && cached.getGeneration() == generation && cached.getVersion() == version
+                && now.isBefore(cached.getExpiresAt())) {
+            hits.increment();
+            return cached.getSlice();
+        }
+        misses.increment();
+        KeysetSlice<BookingDto> slice = loader.get();
+        LocalDateTime expiresAt = expiresAt(user, state, slice, now);
+        if (this.generation.get() == generation && versions.get(stripe(user)) == version
+                && expiresAt.isAfter(now)) {
+            Map<PageKey, Entry> pages = entriesByUser.computeIfAbsent(user, key -> new ConcurrentHashMap<>());
+            if (pages.size() >= MAX_PAGES_PER_USER) {
+                pages.clear();
+            }
+            pages.put(page, new Entry(slice, generation, version, expiresAt));
+        }
+        return slice;
+    }
+
+    public void invalidate(Role role, long userId) {
+        UserKey user = new UserKey(role, userId);
+        versions.incrementAndGet(stripe(user));
+        entriesByUser.remove(user);
+    }
+
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        entriesByUser.clear();
+    }
+
+    /**
+     * Выполняется после BookingStateCounters, чтобы страница, прочитанная после сброса,
+     * получила срок жизни с учетом границ нового бронирования.
+     */
+    @Order(1)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookingChanged(BookingChangedEvent event) {
+        if (event.getBookingId() == null) {
+            invalidateAll();
+            return;
+        }
+        invalidate(Role.BOOKER, event.getBookerId());
+        invalidate(Role.ITEM_OWNER, event.getItemOwnerId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRecurringBookingChanged(RecurringBookingChangedEvent event) {
+        invalidate(Role.BOOKER, event.getBookerId());
+        invalidate(Role.ITEM_OWNER, event.getItemOwnerId());
+    }
+
+    @Scheduled(fixedDelayString = "${shareit.bookings.list-cache.max-ttl:PT5M}")
+    public void evictExpired() {
+        LocalDateTime now = LocalDateTime.now();
+        entriesByUser.values().forEach(pages -> pages.values().removeIf(entry -> !now.isBefore(entry.getExpiresAt())));
+        entriesByUser.values().removeIf(Map::isEmpty);
+    }
+
+    private LocalDateTime expiresAt(UserKey user, BookingState state, KeysetSlice<BookingDto> slice,
+                                    LocalDateTime now) {
+        LocalDateTime expiresAt = now.plus(maxTtl);
+        if (!TIME_DEPENDENT_STATES.contains(state)) {
+            return expiresAt;
+        }
+        for (BookingDto booking : slice.getContent()) {
+            expiresAt = earliestAfter(now, expiresAt, booking.getStart());
+            expiresAt = earliestAfter(now, expiresAt, booking.getEnd());
+        }
+        LocalDateTime nextBoundary = user.getRole() == Role.BOOKER
+                ? bookingStateCounters.nextBoundaryOfBooker(user.getUserId(), now)
+                : bookingStateCounters.nextBoundaryOfItemOwner(user.getUserId(), now);
+        return earliestAfter(now, expiresAt, nextBoundary);
+    }
+
+    private static int stripe(UserKey user) {
+        return Math.floorMod(user.hashCode(), VERSION_STRIPES);
+    }
+
+    private static LocalDateTime earliestAfter(LocalDateTime now, LocalDateTime current, LocalDateTime candidate) {
+        return candidate != null && candidate.isAfter(now) && candidate.isBefore(current) ? candidate : current;
+    }
+
+    public enum Role {
+        BOOKER,
+        ITEM_OWNER
+    }
+
+    @Data
+    @AllArgsConstructor
+    private static class UserKey {
+        private final Role role;
+        private final long userId;
+    }
+
+    @Data
+    @AllArgsConstructor
+    private static class PageKey {
+        private final BookingState state;
+        private final int from;
+        private final int size;
+        private final String after;
+    }
+
+    @Data
+    @AllArgsConstructor
+    private static class Entry {
+        private final KeysetSlice<BookingDto> slice;
+        private final long generation;
+        private final long version;
+        private final LocalDateTime expiresAt;
+    }
+}
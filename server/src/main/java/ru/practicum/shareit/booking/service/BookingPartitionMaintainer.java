@@ -0,0 +1,88 @@
+package ru.practicum.shareit.booking.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.YearMonth;
+
+/**
+ * Создает месячные секции таблицы bookings (Postgres) на monthsAhead месяцев вперед.
+ * Бронирования месяца, у которого еще нет секции (дальние и импортированные), лежат в bookings_default.
+ * Postgres не создает секцию, если в секции по умолчанию есть строки ее диапазона, поэтому секция создается
+ * отдельной таблицей, строки месяца переносятся в нее из bookings_default и она присоединяется к bookings -
+ * все в одной транзакции под блокировкой bookings_default, которую все равно берет ATTACH PARTITION.
+ * Ограничение исключения на секционированную таблицу в Postgres 15 повесить нельзя,
+ * поэтому каждая секция получает собственное ограничение *_approved_no_overlap. Пересечения бронирований
+ * из разных секций (например, переходящих через границу месяца) отсекает триггер bookings_check_approved_overlap.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "spring.sql.init.platform", havingValue = "postgresql")
+public class BookingPartitionMaintainer {
+    private static final String LOCK_DEFAULT = "LOCK TABLE bookings_default IN ACCESS EXCLUSIVE MODE";
+    private static final String CREATE_TABLE = "CREATE TABLE %s (LIKE bookings INCLUDING DEFAULTS "
+            + "INCLUDING CONSTRAINTS)";
+    private static final String MOVE_FROM_DEFAULT = "WITH moved AS (DELETE FROM bookings_default "
+            + "WHERE start >= '%2$s' AND start < '%3$s' RETURNING *) INSERT INTO %1$s SELECT * FROM moved";
+    private static final String ATTACH_PARTITION = "ALTER TABLE bookings ATTACH PARTITION %s "
+            + "FOR VALUES FROM ('%s') TO ('%s')";
+    private static final String ADD_OVERLAP_CONSTRAINT = "ALTER TABLE %1$s ADD CONSTRAINT %1$s_approved_no_overlap "
+            + "EXCLUDE USING gist (item_id WITH =, tsrange(start, ending) WITH &&) WHERE (status = 'APPROVED')";
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int monthsAhead;
+
+    public BookingPartitionMaintainer(JdbcTemplate jdbcTemplate,
+                                      TransactionTemplate transactionTemplate,
+                                      @Value("${shareit.bookings.partitions.months-ahead:3}") int monthsAhead) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.monthsAhead = monthsAhead;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${shareit.bookings.partitions.cron:0 0 3 * * *}")
+    public void createPartitions() {
+        YearMonth current = YearMonth.now();
+        for (int i = 0; i <= monthsAhead; i++) {
+            createPartitionIfAbsent(current.plusMonths(i));
+        }
+    }
+
+    static String partitionName(YearMonth month) {
+        return String.format("bookings_y%dm%02d", month.getYear(), month.getMonthValue());
+    }
+
+    private void createPartitionIfAbsent(YearMonth month) {
+        String name = partitionName(month);
+        Boolean exists = jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class, name);
+        if (Boolean.TRUE.equals(exists)) {
+            return;
+        }
+        try {
+            Integer moved = transactionTemplate.execute(status -> {
+                jdbcTemplate.execute(LOCK_DEFAULT);
+                jdbcTemplate.execute(String.format(CREATE_TABLE, name));
+                int rows = jdbcTemplate.update(String.format(MOVE_FROM_DEFAULT, name, month.atDay(1),
+                        month.plusMonths(1).atDay(1)));
+                jdbcTemplate.execute(String.format(ATTACH_PARTITION, name, month.atDay(1),
+                        month.plusMonths(1).atDay(1)));
+                jdbcTemplate.execute(String.format(ADD_OVERLAP_CONSTRAINT, name));
+                return rows;
+            });
+            log.info("Создана секция {} таблицы bookings, из секции по умолчанию перенесено {} бронирований.",
+                    name, moved);
+        } catch (DataAccessException e) {
+            log.error("Не удалось создать секцию {} таблицы bookings, бронирования месяца остаются в bookings_default.",
+                    name, e);
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package ru.practicum.shareit.booking.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.booking.model.BookingChangedEvent;
+import ru.practicum.shareit.booking.repository.BookingReadModelWriter;
+import ru.practicum.shareit.item.model.ItemChangedEvent;
+import ru.practicum.shareit.user.model.UserChangedEvent;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Поддерживает booking_view в той же транзакции, что и изменение бронирования, вещи или пользователя:
+ * слушатели синхронные, поэтому строка списка фиксируется или откатывается вместе с исходными данными.
+ * Id измененных бронирований копятся до фиксации транзакции и перечитываются перед ней одним запросом
+ * на REFRESH_BATCH_SIZE id, так что массовое подтверждение не выполняет запрос на каждое бронирование.
+ * Удаление вещи или пользователя каскадом удаляет их бронирования, и строки booking_view удаляются следом.
+ */
+@Component
+@RequiredArgsConstructor
+public class BookingReadModelProjector {
+    private static final int REFRESH_BATCH_SIZE = 1_000;
+    private final BookingReadModelWriter bookingReadModelWriter;
+    private final EntityManager entityManager;
+
+    /**
+     * После импорта id новых бронирований неизвестны, и перечитываются все бронирования вещи.
+     * Вне транзакции строка перечитывается сразу.
+     */
+    @EventListener
+    public void onBookingChanged(BookingChangedEvent event) {
+        if (event.getBookingId() == null) {
+            bookingReadModelWriter.refreshItem(event.getItemId());
+        } else if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            pendingRefresh().bookingIds.add(event.getBookingId());
+        } else {
+            bookingReadModelWriter.refresh(List.of(event.getBookingId()));
+        }
+    }
+
+    @EventListener
+    public void onItemChanged(ItemChangedEvent event) {
+        switch (event.getType()) {
+            case UPDATED:
+                bookingReadModelWriter.updateItem(event.getItemId(), event.getOwnerId(), event.getName(),
+                        event.getDescription(), event.getAvailable());
+                break;
+            case DELETED:
+                bookingReadModelWriter.deleteByItemId(event.getItemId());
+                break;
+            default:
+                break;
+        }
+    }
+
+    @EventListener
+    public void onUserChanged(UserChangedEvent event) {
+        switch (event.getType()) {
+            case UPDATED:
+                bookingReadModelWriter.updateBooker(event.getUserId(), event.getName(), event.getEmail());
+                break;
+            case DELETED:
+                bookingReadModelWriter.deleteByUserId(event.getUserId());
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Накопитель текущей транзакции привязан к ней как ресурс и регистрируется при первом событии.
+     */
+    private PendingRefresh pendingRefresh() {
+        PendingRefresh pending = (PendingRefresh) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            pending = new PendingRefresh();
+            TransactionSynchronizationManager.bindResource(this, pending);
+            TransactionSynchronizationManager.registerSynchronization(pending);
+        }
+        return pending;
+    }
+
+    /**
+     * Отвязывается при приостановке транзакции, чтобы вложенная REQUIRES_NEW копила свои id отдельно.
+     */
+    private class PendingRefresh implements TransactionSynchronization {
+        private final Set<Long> bookingIds = new LinkedHashSet<>();
+
+        /**
+         * Hibernate сбрасывает изменения только при самой фиксации, уже после этого шага, поэтому они
+         * сбрасываются заранее: иначе строки собрались бы из прежних данных вещей и пользователей.
+         */
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            if (bookingIds.isEmpty()) {
+                return;
+            }
+            List<Long> ids = new ArrayList<>(bookingIds);
+            bookingIds.clear();
+            entityManager.flush();
+            for (int from = 0; from < ids.size(); from += REFRESH_BATCH_SIZE) {
+                bookingReadModelWriter.refresh(ids.subList(from, Math.min(ids.size(), from + REFRESH_BATCH_SIZE)));
+            }
+        }
+
+        @Override
+        public void suspend() {
+            TransactionSynchronizationManager.unbindResource(BookingReadModelProjector.this);
+        }
+
+        @Override
+        public void resume() {
+            TransactionSynchronizationManager.bindResource(BookingReadModelProjector.this, this);
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(BookingReadModelProjector.this);
+        }
+    }
+}
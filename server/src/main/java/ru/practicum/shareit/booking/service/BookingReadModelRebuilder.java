@@ -0,0 +1,81 @@
+package ru.practicum.shareit.booking.service;
+
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.repository.BookingReadModelWriter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Полная перестройка booking_view. Запускается при старте с аргументом --rebuild-booking-view, например
+ * после восстановления базы из резервной копии или прямой правки bookings. Диапазон id вещей делится на отрезки
+ * по rangeSize, отрезки перестраиваются параллельно в threads потоках, каждый в своей транзакции.
+ * Перестройка идемпотентна и может идти под нагрузкой: свежий статус бронирования она не перезаписывает.
+ */
+@Slf4j
+@Component
+public class BookingReadModelRebuilder implements ApplicationRunner {
+    static final String REBUILD_OPTION = "rebuild-booking-view";
+    private final BookingReadModelWriter bookingReadModelWriter;
+    private final TransactionTemplate transactionTemplate;
+    private final int threads;
+    private final long rangeSize;
+
+    public BookingReadModelRebuilder(BookingReadModelWriter bookingReadModelWriter,
+                                     TransactionTemplate transactionTemplate,
+                                     @Value("${shareit.bookings.read-model.rebuild-threads:4}") int threads,
+                                     @Value("${shareit.bookings.read-model.rebuild-range-size:10000}")
+                                     long rangeSize) {
+        this.bookingReadModelWriter = bookingReadModelWriter;
+        this.transactionTemplate = transactionTemplate;
+        this.threads = threads;
+        this.rangeSize = rangeSize;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (args.containsOption(REBUILD_OPTION)) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Возвращает число записанных строк. Ошибка в любом отрезке прерывает перестройку: еще не начатые отрезки
+     * отменяются, уже зафиксированные остаются перестроенными.
+     */
+    @SneakyThrows(InterruptedException.class)
+    public long rebuild() {
+        long maxItemId = bookingReadModelWriter.findMaxItemId();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Integer>> ranges = new ArrayList<>();
+            for (long from = 1; from <= maxItemId; from += rangeSize) {
+                long fromItemId = from;
+                long toItemId = Math.min(maxItemId, from + rangeSize - 1);
+                ranges.add(executor.submit(() -> transactionTemplate.execute(
+                        status -> bookingReadModelWriter.rebuildItemRange(fromItemId, toItemId))));
+            }
+            long rows = 0;
+            for (Future<Integer> range : ranges) {
+                Integer written = range.get();
+                rows += written == null ? 0 : written;
+            }
+            log.info("booking_view перестроена: {} строк, {} отрезков id вещей.", rows, ranges.size());
+            return rows;
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Перестройка booking_view прервана.", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package ru.practicum.shareit.booking.service;
+
+/**
+ * С чьей стороны ищутся бронирования: арендатора (booker) или владельца вещей (owner).
+ */
+public enum BookingSearchRole {
+    BOOKER,
+    OWNER
+}
@@ -1,18 +1,35 @@
 package ru.practicum.shareit.booking.service;
 
+import ru.practicum.shareit.booking.dto.BookingCreationResult;
 import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingSearchFilter;
+import ru.practicum.shareit.booking.dto.BookingStatusUpdateDto;
+import ru.practicum.shareit.booking.dto.BookingStatusUpdateResult;
 import ru.practicum.shareit.booking.dto.SimpleBookingDto;
+import ru.practicum.shareit.util.KeysetSlice;
 
 import java.util.List;
 
 public interface BookingService {
     BookingDto create(SimpleBookingDto bookingDto, long bookerId);
 
+    BookingCreationResult createOrEnqueue(SimpleBookingDto bookingDto, long bookerId);
+
     BookingDto update(long bookingId, boolean approved, long itemOwnerId);
 
+    List<BookingStatusUpdateResult> updateAll(BookingStatusUpdateDto statusUpdateDto, long itemOwnerId);
+
     BookingDto retrieve(long bookingId, long itemOwnerOrBookerId);
 
-    List<BookingDto> findByBookerAndByState(BookingState state, long bookerId, int from, int size);
+    KeysetSlice<BookingDto> findByBookerAndByState(BookingState state, long bookerId, int from, int size,
+                                                   String after);
+
+    KeysetSlice<BookingDto> findByItemOwnerAndByState(BookingState state, long itemOwnerId, int from, int size,
+                                                      String after);
+
+    KeysetSlice<BookingDto> search(BookingSearchFilter filter, long userId, int size, String after);
+
+    long countByBookerAndByState(BookingState state, long bookerId);
 
-    List<BookingDto> findByItemOwnerAndByState(BookingState state, long itemOwnerId, int from, int size);
+    long countByItemOwnerAndByState(BookingState state, long itemOwnerId);
 }
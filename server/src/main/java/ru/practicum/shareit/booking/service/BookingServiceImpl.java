@@ -2,33 +2,64 @@ package ru.practicum.shareit.booking.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.dto.BookingCreationCheck;
+import ru.practicum.shareit.booking.dto.BookingCreationResult;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingMapper;
+import ru.practicum.shareit.booking.dto.BookingSearchFilter;
+import ru.practicum.shareit.booking.dto.BookingStatusCheck;
+import ru.practicum.shareit.booking.dto.BookingStatusUpdateDto;
+import ru.practicum.shareit.booking.dto.BookingStatusUpdateResult;
+import ru.practicum.shareit.booking.dto.BookingView;
 import ru.practicum.shareit.booking.dto.SimpleBookingDto;
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingChangedEvent;
 import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.repository.BookingArchiveRepository;
+import ru.practicum.shareit.booking.repository.BookingReadModelRepository;
 import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.booking.repository.BookingSearchRepository;
+import ru.practicum.shareit.exception.InvalidPaginationException;
 import ru.practicum.shareit.exception.ItemNotAvailableException;
 import ru.practicum.shareit.exception.alreadyExists.ApprovedAlreadyExistsException;
-import ru.practicum.shareit.exception.alreadyExists.BookingAlreadyExistsException;
 import ru.practicum.shareit.exception.mismatch.ItemOwnerOrBookerMismatchException;
 import ru.practicum.shareit.exception.mismatch.OwnerMismatchException;
+import ru.practicum.shareit.exception.mismatch.TimeMismatchException;
 import ru.practicum.shareit.exception.notFound.BookingNotFoundException;
+import ru.practicum.shareit.exception.notFound.ItemNotFoundException;
+import ru.practicum.shareit.exception.notFound.UserNotFoundException;
 import ru.practicum.shareit.item.dto.item.ItemDto;
 import ru.practicum.shareit.item.dto.item.ItemMapper;
-import ru.practicum.shareit.item.model.Item;
-import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.item.repository.ItemRepository;
 import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.dto.UserMapper;
-import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserRepository;
 import ru.practicum.shareit.user.service.UserService;
+import ru.practicum.shareit.util.KeysetCursor;
+import ru.practicum.shareit.util.KeysetSlice;
 import ru.practicum.shareit.util.PaginationInfo;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 
@@ -36,33 +67,234 @@ import java.util.stream.Collectors;
 @Slf4j
 @RequiredArgsConstructor
 public class BookingServiceImpl implements BookingService {
+    private static final String APPROVED_OVERLAP_CONSTRAINT = "approved_no_overlap";
+    private static final List<BookingStatus> ACTIVE_STATUSES = List.of(BookingStatus.APPROVED,
+            BookingStatus.WAITING);
+    private static final List<BookingStatus> ALL_STATUSES = List.of(BookingStatus.values());
+    private static final Comparator<BookingView> START_ASCENDING = Comparator.comparing(BookingView::getStart)
+            .thenComparing(BookingView::getId);
+    private static final Comparator<BookingView> START_DESCENDING = START_ASCENDING.reversed();
 
     private final BookingRepository bookingRepository;
+    private final BookingReadModelRepository bookingReadModelRepository;
+    private final BookingArchiveRepository bookingArchiveRepository;
     private final BookingMapper bookingMapper;
     private final UserService userService;
     private final UserMapper userMapper;
-    private final ItemService itemService;
+    private final ItemRepository itemRepository;
+    private final UserRepository userRepository;
     private final ItemMapper itemMapper;
+    private final BookingIntervalIndex bookingIntervalIndex;
+    private final ApplicationEventPublisher eventPublisher;
+    private final BookingWaitlistService bookingWaitlistService;
+    private final RecurringBookingService recurringBookingService;
+    private final BookingStateCounters bookingStateCounters;
+    private final BookingListCache bookingListCache;
+    private final ItemBookingLock itemBookingLock;
+    private final BookingSearchRepository bookingSearchRepository;
 
+    /**
+     * Проверка занятости интервала и вставка выполняются под блокировкой вещи, общей для всех узлов.
+     * До вставки в базу уходит один запрос проверки вещи и арендатора (и запрос к повторяющимся бронированиям).
+     * Подтверждения других узлов, которых нет в индексе, новое бронирование не нарушает: оно создается
+     * в статусе WAITING, а его подтверждение отклонят ограничения базы.
+     */
     @Transactional
     @Override
     public BookingDto create(SimpleBookingDto bookingDto, long bookerId) {
+        BookingCreationCheck check = findCreationCheckOrThrow(bookingDto.getItemId(), bookerId);
+        Booking booking = mapNewBooking(bookingDto, bookerId);
+        itemBookingLock.lock(check.getItemId());
+        throwIfIntervalOccupied(booking);
+        return saveNewBooking(booking, check);
+    }
+
+    /**
+     * Если интервал занят подтвержденным или ожидающим бронированием, запрос ставится в лист ожидания
+     * и будет продвинут, когда мешающее бронирование отклонят или отменят.
+     */
+    @Transactional
+    @Override
+    public BookingCreationResult createOrEnqueue(SimpleBookingDto bookingDto, long bookerId) {
+        BookingCreationCheck check = findCreationCheckOrThrow(bookingDto.getItemId(), bookerId);
+        Booking booking = mapNewBooking(bookingDto, bookerId);
+        itemBookingLock.lock(check.getItemId());
+        if (isOccupiedByApproved(booking)
+                || !bookingRepository.findIntervalsByItemOverlapping(booking.getItem().getId(), ACTIVE_STATUSES,
+                booking.getStart(), booking.getEnd()).isEmpty()) {
+            return new BookingCreationResult(null, bookingWaitlistService.enqueue(booking));
+        }
+        return new BookingCreationResult(saveNewBooking(booking, check), null);
+    }
+
+    /**
+     * Существование арендатора, вещи, ее доступность и владелец проверяются одним запросом.
+     */
+    private BookingCreationCheck findCreationCheckOrThrow(long itemId, long bookerId) {
+        BookingCreationCheck check = bookingRepository.findCreationCheck(bookerId, itemId).orElseThrow(
+                () -> new UserNotFoundException("Пользователь с id = " + bookerId + " не найден."));
+        if (check.getItemId() == null) {
+            throw new ItemNotFoundException("Предмет с id = " + itemId + " не найден.");
+        }
+        if (!check.getItemAvailable()) {
+            throw new ItemNotAvailableException(String.format("Вещь с id = %d недоступна для аренды.", itemId));
+        }
+        if (check.getItemOwnerId() == bookerId) {
+            throw new OwnerMismatchException("Нельзя создавать бронирование для своих предметов.");
+        }
+        return check;
+    }
+
+    /**
+     * Вещь и арендатор уже проверены, поэтому бронирование ссылается на них без загрузки из базы.
+     */
+    private Booking mapNewBooking(SimpleBookingDto bookingDto, long bookerId) {
         bookingDto.setBookerId(bookerId);
-        Booking booking = mapBookingFromSimpleDto(bookingDto);
-        throwIfRepositoryContains(booking.getId());
-        throwIfItemNotAvailable(booking);
-        throwIfItemOwnerIsBooker(booking);
-        return mapBookingToOutcomingDto(bookingRepository.save(booking));
+        return bookingMapper.bookingFromDto(bookingDto, itemRepository.getReferenceById(bookingDto.getItemId()),
+                userRepository.getReferenceById(bookerId));
     }
 
+    /**
+     * Событие и ответ собираются из проверки: обращение к ссылкам на вещь и арендатора загрузило бы их.
+     */
+    private BookingDto saveNewBooking(Booking booking, BookingCreationCheck check) {
+        Booking saved = saveOrThrowIfIntervalOccupied(booking);
+        if (saved.getStatus() == BookingStatus.APPROVED) {
+            reserveIntervalOrThrow(saved);
+        }
+        eventPublisher.publishEvent(new BookingChangedEvent(saved.getId(), check.getItemId(),
+                check.getItemOwnerId(), check.getBookerId(), null, saved.getStatus(), saved.getStart(),
+                saved.getEnd()));
+        ItemDto itemDto = new ItemDto(check.getItemId(), check.getItemOwnerId(), check.getItemName(),
+                check.getItemDescription(), check.getItemAvailable(), check.getItemRequestId());
+        UserDto bookerDto = new UserDto(check.getBookerId(), check.getBookerName(), check.getBookerEmail());
+        return bookingMapper.bookingToOutcomingDto(saved, itemDto, bookerDto);
+    }
+
+    /**
+     * Вещь и владелец определяются легким запросом до блокировки, а бронирование читается и проверяется
+     * уже под блокировкой вещи, поэтому статус и занятость интервала не могут измениться до сохранения.
+     * Пересечение с подтверждениями других узлов, которых индекс узла не видит, отклоняется при сохранении
+     * ограничениями базы (см. saveOrThrowIfIntervalOccupied).
+     */
     @Transactional
     @Override
     public BookingDto update(long bookingId, boolean approved, long itemOwnerId) {
+        BookingStatusCheck check = bookingRepository.findStatusChecksByIds(List.of(bookingId)).stream()
+                .findFirst()
+                .orElseThrow(() -> new BookingNotFoundException(
+                        "Бронирование с id = " + bookingId + " не найдено."));
+        throwIfItemOwnerMismatched(check.getItemOwnerId(), itemOwnerId);
+        itemBookingLock.lock(check.getItemId());
         Booking booking = findByIdOrThrow(bookingId);
-        throwIfItemOwnerMismatched(booking, itemOwnerId);
         throwIfAlreadyApproved(booking);
+        BookingStatus previousStatus = booking.getStatus();
+        if (approved) {
+            throwIfIntervalOccupied(booking);
+            reserveIntervalOrThrow(booking);
+        }
         defineBookingStatusWithApprovedValue(booking, approved);
-        return mapBookingToOutcomingDto(bookingRepository.save(booking));
+        Booking saved = saveOrThrowIfIntervalOccupied(booking);
+        publishChanged(saved, previousStatus);
+        if (!approved) {
+            bookingWaitlistService.promote(saved.getItem().getId(), saved.getStart(), saved.getEnd());
+        }
+        return mapBookingToOutcomingDto(saved);
+    }
+
+    /**
+     * Права владельца и статусы проверяются одним запросом по всем id, статус меняется одним UPDATE.
+     * Бронирования, не прошедшие проверку, не прерывают операцию, а попадают в результат с причиной отказа.
+     * Статусы перечитываются после блокировки вещей, а пересечения подтверждаемых бронирований
+     * с уже подтвержденными ищутся одним запросом к базе на всю пачку, чтобы отказать только занятым
+     * бронированиям, а не откатывать всю пачку по нарушению ограничения.
+     */
+    @Transactional
+    @Override
+    public List<BookingStatusUpdateResult> updateAll(BookingStatusUpdateDto statusUpdateDto, long itemOwnerId) {
+        List<Long> ids = statusUpdateDto.getBookingIds().stream()
+                .distinct()
+                .collect(Collectors.toList());
+        itemBookingLock.lockAll(findStatusChecksById(ids).values().stream()
+                .map(BookingStatusCheck::getItemId)
+                .collect(Collectors.toSet()));
+        Map<Long, BookingStatusCheck> checks = findStatusChecksById(ids);
+        boolean approved = statusUpdateDto.getApproved();
+        BookingStatus status = approved ? BookingStatus.APPROVED : BookingStatus.REJECTED;
+        List<BookingStatusUpdateResult> results = new ArrayList<>(ids.size());
+        List<BookingStatusCheck> accepted = new ArrayList<>();
+        Set<Long> occupied = approved ? findOccupied(checks.values()) : Collections.emptySet();
+        for (Long id : ids) {
+            BookingStatusCheck check = checks.get(id);
+            BookingStatusUpdateResult.Outcome outcome = defineStatusUpdateOutcome(check, approved, itemOwnerId,
+                    occupied);
+            if (outcome == BookingStatusUpdateResult.Outcome.UPDATED) {
+                accepted.add(check);
+                results.add(new BookingStatusUpdateResult(id, outcome, status));
+            } else {
+                boolean visible = check != null && outcome != BookingStatusUpdateResult.Outcome.OWNER_MISMATCH;
+                results.add(new BookingStatusUpdateResult(id, outcome, visible ? check.getStatus() : null));
+            }
+        }
+        if (!accepted.isEmpty()) {
+            Map<Long, BookingStatus> skipped = updateStatusOrThrow(accepted, status);
+            List<BookingStatusCheck> applied = skipped.isEmpty() ? accepted
+                    : reportSkipped(accepted, skipped, approved, results);
+            applied.forEach(check -> eventPublisher.publishEvent(
+                    new BookingChangedEvent(check.getBookingId(), check.getItemId(), check.getItemOwnerId(),
+                            check.getBookerId(), check.getStatus(), status, check.getStart(), check.getEnd())));
+            if (!approved) {
+                applied.forEach(check -> bookingWaitlistService.promote(check.getItemId(), check.getStart(),
+                        check.getEnd()));
+            }
+            log.info("Владелец id = {} изменил статус {} из {} бронирований на {}.", itemOwnerId, applied.size(),
+                    ids.size(), status);
+        }
+        return results;
+    }
+
+    private Map<Long, BookingStatusCheck> findStatusChecksById(List<Long> ids) {
+        return bookingRepository.findStatusChecksByIds(ids).stream()
+                .collect(Collectors.toMap(BookingStatusCheck::getBookingId, Function.identity()));
+    }
+
+    /**
+     * @return id бронирований, пересекающихся с подтвержденными обычными или повторяющимися бронированиями.
+     */
+    private Set<Long> findOccupied(Collection<BookingStatusCheck> checks) {
+        Set<Long> occupied = new HashSet<>(recurringBookingService.findOverlappingApproved(checks));
+        if (!checks.isEmpty()) {
+            occupied.addAll(bookingRepository.findIdsOverlappingStatus(checks.stream()
+                    .map(BookingStatusCheck::getBookingId)
+                    .collect(Collectors.toList()), BookingStatus.APPROVED));
+        }
+        return occupied;
+    }
+
+    /**
+     * Бронирования, статус которых изменился между проверкой и UPDATE, получают результат STATUS_CHANGED
+     * с текущим статусом, а занятые для них интервалы освобождаются.
+     *
+     * @return бронирования, статус которых действительно изменен.
+     */
+    private List<BookingStatusCheck> reportSkipped(List<BookingStatusCheck> accepted, Map<Long, BookingStatus> skipped,
+                                                   boolean approved, List<BookingStatusUpdateResult> results) {
+        for (BookingStatusUpdateResult result : results) {
+            if (skipped.containsKey(result.getBookingId())) {
+                result.setOutcome(BookingStatusUpdateResult.Outcome.STATUS_CHANGED);
+                result.setStatus(skipped.get(result.getBookingId()));
+            }
+        }
+        List<BookingStatusCheck> applied = new ArrayList<>(accepted.size());
+        for (BookingStatusCheck check : accepted) {
+            if (!skipped.containsKey(check.getBookingId())) {
+                applied.add(check);
+            } else if (approved) {
+                bookingIntervalIndex.remove(check.getItemId(), check.getBookingId());
+            }
+        }
+        log.warn("Статус {} бронирований изменился до их обновления: {}.", skipped.size(), skipped.keySet());
+        return applied;
     }
 
     @Transactional(readOnly = true)
@@ -73,113 +305,254 @@ public class BookingServiceImpl implements BookingService {
         return mapBookingToOutcomingDto(booking);
     }
 
+    /**
+     * Горячие бронирования читаются из booking_view без соединений с items и users.
+     */
     @Transactional(readOnly = true)
     @Override
-    public List<BookingDto> findByBookerAndByState(BookingState state, long bookerId, int from, int size) {
+    public KeysetSlice<BookingDto> findByBookerAndByState(BookingState state, long bookerId, int from, int size,
+                                                          String after) {
         userService.throwIfRepositoryNotContains(bookerId);
-        PaginationInfo info = new PaginationInfo(from, size);
+        return bookingListCache.get(BookingListCache.Role.BOOKER, bookerId, state, from, size, after,
+                () -> loadByBookerAndByState(state, bookerId, from, size, after));
+    }
+
+    private KeysetSlice<BookingDto> loadByBookerAndByState(BookingState state, long bookerId, int from, int size,
+                                                           String after) {
+        Pageable page = pageOf(from, size, after);
         switch (state) {
             case ALL: {
-                return bookingRepository.findAllByBookerIdOrderByStartDesc(bookerId, info.asPageRequest())
-                        .stream()
-                        .map(this::mapBookingToOutcomingDto)
-                        .collect(Collectors.toList());
+                return hotThenArchive(from, size, after,
+                        cursor -> bookingReadModelRepository.findAllByBooker(bookerId,
+                                cursor.getStart(), cursor.getId(), page),
+                        (cursor, archivePage) -> bookingArchiveRepository.findByBooker(bookerId, ALL_STATUSES,
+                                cursor.getStart(), cursor.getId(), archivePage));
             }
             case CURRENT: {
-                return bookingRepository.findCurrentByBooker(
-                                bookerId, LocalDateTime.now()).stream()
-                        .map(this::mapBookingToOutcomingDto)
-                        .collect(Collectors.toList());
+                KeysetCursor cursor = ascendingCursor(after);
+                LocalDateTime now = LocalDateTime.now();
+                return withOccurrences(from, size, after, cursor, START_ASCENDING,
+                        bookingReadModelRepository.findCurrentByBooker(bookerId, now, cursor.getStart(), cursor.getId(),
+                                page),
+                        () -> recurringBookingService.findCurrentOccurrencesByBooker(bookerId, now));
             }
             case FUTURE: {
-                return bookingRepository.findAllByBookerIdAndStatusInAndStartIsAfterOrderByStartDesc(
-                                bookerId, new BookingStatus[]{BookingStatus.APPROVED, BookingStatus.WAITING},
-                                LocalDateTime.now()).stream()
-                        .map(this::mapBookingToOutcomingDto)
-                        .collect(Collectors.toList());
+                KeysetCursor cursor = descendingCursor(after);
+                LocalDateTime now = LocalDateTime.now();
+                return withOccurrences(from, size, after, cursor, START_DESCENDING,
+                        bookingReadModelRepository.findFutureByBooker(bookerId, ACTIVE_STATUSES, now,
+                                cursor.getStart(), cursor.getId(), page),
+                        () -> recurringBookingService.findFutureOccurrencesByBooker(bookerId, ACTIVE_STATUSES, now));
             }
             case PAST: {
-                return bookingRepository.findAllByBookerIdAndStatusInAndEndIsBeforeOrderByStartDesc(
-                                bookerId, new BookingStatus[]{BookingStatus.APPROVED, BookingStatus.WAITING},
-                                LocalDateTime.now()).stream()
-                        .map(this::mapBookingToOutcomingDto)
-                        .collect(Collectors.toList());
-            }
-            case WAITING: {
-                return bookingRepository.findAllByBookerIdAndStatusOrderByStartDesc(bookerId, BookingStatus.WAITING)
-                        .stream()
-                        .map(this::mapBookingToOutcomingDto)
-                        .collect(Collectors.toList());
+                LocalDateTime now = LocalDateTime.now();
+                return hotThenArchive(from, size, after,
+                        cursor -> bookingReadModelRepository.findPastByBooker(bookerId, ACTIVE_STATUSES,
+                                now, cursor.getStart(), cursor.getId(), page),
+                        (cursor, archivePage) -> bookingArchiveRepository.findByBooker(bookerId, ACTIVE_STATUSES,
+                                cursor.getStart(), cursor.getId(), archivePage));
             }
+            case WAITING:
             case REJECTED: {
-                return bookingRepository.findAllByBookerIdAndStatusOrderByStartDesc(bookerId, BookingStatus.REJECTED)
-                        .stream()
-                        .map(this::mapBookingToOutcomingDto)
-                        .collect(Collectors.toList());
+                BookingStatus status = BookingStatus.valueOf(state.name());
+                return hotThenArchive(from, size, after,
+                        cursor -> bookingReadModelRepository.findByBookerAndStatus(bookerId, status,
+                                cursor.getStart(), cursor.getId(), page),
+                        (cursor, archivePage) -> bookingArchiveRepository.findByBooker(bookerId, List.of(status),
+                                cursor.getStart(), cursor.getId(), archivePage));
             }
             default: {
-                return Collections.emptyList();
+                return new KeysetSlice<>(Collections.emptyList(), null);
             }
         }
     }
 
     @Transactional(readOnly = true)
     @Override
-    public List<BookingDto> findByItemOwnerAndByState(BookingState state, long itemOwnerId, int from, int size) {
+    public KeysetSlice<BookingDto> findByItemOwnerAndByState(BookingState state, long itemOwnerId, int from, int size,
+                                                             String after) {
         userService.throwIfRepositoryNotContains(itemOwnerId);
-        PaginationInfo info = new PaginationInfo(from, size);
+        return bookingListCache.get(BookingListCache.Role.ITEM_OWNER, itemOwnerId, state, from, size, after,
+                () -> loadByItemOwnerAndByState(state, itemOwnerId, from, size, after));
+    }
+
+    private KeysetSlice<BookingDto> loadByItemOwnerAndByState(BookingState state, long itemOwnerId, int from,
+                                                              int size, String after) {
+        Pageable page = pageOf(from, size, after);
         switch (state) {
             case ALL: {
-                return bookingRepository.findAllByItemOwnerIdOrderByStartDesc(itemOwnerId, info.asPageRequest())
-                        .stream()
-                        .map(this::mapBookingToOutcomingDto)
-                        .collect(Collectors.toList());
+                return hotThenArchive(from, size, after,
+                        cursor -> bookingReadModelRepository.findAllByItemOwner(itemOwnerId,
+                                cursor.getStart(), cursor.getId(), page),
+                        (cursor, archivePage) -> bookingArchiveRepository.findByItemOwner(itemOwnerId,
+                                ALL_STATUSES, cursor.getStart(), cursor.getId(), archivePage));
             }
             case CURRENT: {
-                return bookingRepository.findCurrentByItemOwner(
-                                itemOwnerId, LocalDateTime.now()).stream()
-                        .map(this::mapBookingToOutcomingDto)
-                        .collect(Collectors.toList());
+                KeysetCursor cursor = ascendingCursor(after);
+                LocalDateTime now = LocalDateTime.now();
+                return withOccurrences(from, size, after, cursor, START_ASCENDING,
+                        bookingReadModelRepository.findCurrentByItemOwner(itemOwnerId, now,
+                                cursor.getStart(), cursor.getId(), page),
+                        () -> recurringBookingService.findCurrentOccurrencesByItemOwner(itemOwnerId, now));
             }
             case FUTURE: {
-                return bookingRepository.findAllByItemOwnerIdAndStatusInAndStartIsAfterOrderByStartDesc(
-                                itemOwnerId, new BookingStatus[]{BookingStatus.APPROVED, BookingStatus.WAITING},
-                                LocalDateTime.now()).stream()
-                        .map(this::mapBookingToOutcomingDto)
-                        .collect(Collectors.toList());
+                KeysetCursor cursor = descendingCursor(after);
+                LocalDateTime now = LocalDateTime.now();
+                return withOccurrences(from, size, after, cursor, START_DESCENDING,
+                        bookingReadModelRepository.findFutureByItemOwner(itemOwnerId, ACTIVE_STATUSES, now,
+                                cursor.getStart(), cursor.getId(), page),
+                        () -> recurringBookingService.findFutureOccurrencesByItemOwner(itemOwnerId,
+                                ACTIVE_STATUSES, now));
             }
             case PAST: {
-                return bookingRepository.findAllByItemOwnerIdAndStatusInAndEndIsBeforeOrderByStartDesc(
-                                itemOwnerId, new BookingStatus[]{BookingStatus.APPROVED},
-                                LocalDateTime.now()).stream()
-                        .map(this::mapBookingToOutcomingDto)
-                        .collect(Collectors.toList());
-            }
-            case WAITING: {
-                return bookingRepository.findAllByItemOwnerIdAndStatusOrderByStartDesc(itemOwnerId,
-                                BookingStatus.WAITING)
-                        .stream()
-                        .map(this::mapBookingToOutcomingDto)
-                        .collect(Collectors.toList());
+                LocalDateTime now = LocalDateTime.now();
+                return hotThenArchive(from, size, after,
+                        cursor -> bookingReadModelRepository.findPastByItemOwner(itemOwnerId,
+                                List.of(BookingStatus.APPROVED), now, cursor.getStart(), cursor.getId(), page),
+                        (cursor, archivePage) -> bookingArchiveRepository.findByItemOwner(itemOwnerId,
+                                List.of(BookingStatus.APPROVED), cursor.getStart(), cursor.getId(), archivePage));
             }
+            case WAITING:
             case REJECTED: {
-                return bookingRepository.findAllByItemOwnerIdAndStatusOrderByStartDesc(itemOwnerId,
-                                BookingStatus.REJECTED)
-                        .stream()
-                        .map(this::mapBookingToOutcomingDto)
-                        .collect(Collectors.toList());
+                BookingStatus status = BookingStatus.valueOf(state.name());
+                return hotThenArchive(from, size, after,
+                        cursor -> bookingReadModelRepository.findByItemOwnerAndStatus(itemOwnerId, status,
+                                cursor.getStart(), cursor.getId(), page),
+                        (cursor, archivePage) -> bookingArchiveRepository.findByItemOwner(itemOwnerId,
+                                List.of(status), cursor.getStart(), cursor.getId(), archivePage));
             }
             default: {
-                return Collections.emptyList();
+                return new KeysetSlice<>(Collections.emptyList(), null);
             }
         }
     }
 
-    private void throwIfRepositoryContains(long id) throws BookingAlreadyExistsException {
-        if (bookingRepository.existsById(id)) {
-            throw new BookingAlreadyExistsException("Бронирование с id = " + id + " уже существует. "
-                    + "Попробуйте изменить передаваемые данные или используйте подходящий метод.");
+    /**
+     * Поиск идет только по горячей таблице: архивные бронирования и вхождения повторяющихся в него не попадают.
+     */
+    @Transactional(readOnly = true)
+    @Override
+    public KeysetSlice<BookingDto> search(BookingSearchFilter filter, long userId, int size, String after) {
+        userService.throwIfRepositoryNotContains(userId);
+        if (filter.getStart() != null && filter.getEnd() != null && !filter.getEnd().isAfter(filter.getStart())) {
+            throw new TimeMismatchException("Окончание окна поиска должно быть позже его начала.");
         }
+        return toKeysetSlice(bookingSearchRepository.search(userId, filter, descendingCursor(after),
+                PaginationInfo.firstPage(size).getPageSize()));
+    }
+
+    /**
+     * Счетчики поддерживаются в памяти, поэтому подсчет не обращается к базе.
+     * Вхождения повторяющихся бронирований в счетчики не входят.
+     */
+    @Override
+    public long countByBookerAndByState(BookingState state, long bookerId) {
+        return bookingStateCounters.countByBooker(state, bookerId);
+    }
+
+    @Override
+    public long countByItemOwnerAndByState(BookingState state, long itemOwnerId) {
+        return bookingStateCounters.countByItemOwner(state, itemOwnerId);
+    }
+
+    /**
+     * Без курсора сохраняется прежнее поведение параметра from (смещение), но без подсчета общего количества.
+     * С курсором выборка всегда начинается с первой строки после него.
+     */
+    private Pageable pageOf(int from, int size, String after) {
+        return after == null ? new PaginationInfo(from, size).asPageRequest() : PaginationInfo.firstPage(size);
+    }
+
+    private KeysetCursor descendingCursor(String after) {
+        return after == null ? KeysetCursor.beforeFirstDescending() : KeysetCursor.decode(after);
+    }
+
+    private KeysetCursor ascendingCursor(String after) {
+        return after == null ? KeysetCursor.beforeFirstAscending() : KeysetCursor.decode(after);
+    }
+
+    private KeysetSlice<BookingDto> toKeysetSlice(Slice<BookingView> slice) {
+        List<BookingView> bookings = slice.getContent();
+        String after = null;
+        if (slice.hasNext() && !bookings.isEmpty()) {
+            BookingView last = bookings.get(bookings.size() - 1);
+            after = new KeysetCursor(last.getStart(), last.getId()).encode();
+        }
+        return new KeysetSlice<>(mapViewsToOutcomingDto(bookings), after);
+    }
+
+    /**
+     * Вхождения повторяющихся бронирований из ограниченного окна сливаются со страницей из базы
+     * в общем порядке (start, id), и курсор следующей страницы строится по последней строке слияния.
+     * Устаревшая пагинация смещением from вхождения не учитывает.
+     */
+    private KeysetSlice<BookingDto> withOccurrences(int from, int size, String after, KeysetCursor cursor,
+                                                    Comparator<BookingView> order, Slice<BookingView> slice,
+                                                    Supplier<List<BookingView>> occurrencesQuery) {
+        if (after == null && from > 0) {
+            return toKeysetSlice(slice);
+        }
+        BookingView cursorRow = new BookingView();
+        cursorRow.setStart(cursor.getStart());
+        cursorRow.setId(cursor.getId());
+        List<BookingView> merged = occurrencesQuery.get().stream()
+                .filter(occurrence -> order.compare(occurrence, cursorRow) > 0)
+                .collect(Collectors.toList());
+        if (merged.isEmpty()) {
+            return toKeysetSlice(slice);
+        }
+        merged.addAll(slice.getContent());
+        merged.sort(order);
+        boolean hasNext = slice.hasNext() || merged.size() > size;
+        List<BookingView> page = new ArrayList<>(merged.subList(0, Math.min(size, merged.size())));
+        return toKeysetSlice(new SliceImpl<>(page, slice.getPageable(), hasNext));
+    }
+
+    /**
+     * Давно завершившиеся бронирования лежат в bookings_archive и читаются, только если горячих данных
+     * не хватило на страницу. После перехода в архив курсор получает признак archive,
+     * и следующие страницы читаются только из архива. Смещение from без курсора продолжается в архив
+     * только со страницы, на которой кончаются горячие бронирования: число горячих строк до смещения неизвестно,
+     * поэтому смещение за их пределы при непустом архиве отклоняется, а дальше нужно идти по курсору after.
+     */
+    private KeysetSlice<BookingDto> hotThenArchive(
+            int from, int size, String after, Function<KeysetCursor, Slice<BookingView>> hotQuery,
+            BiFunction<KeysetCursor, Pageable, Slice<BookingView>> archiveQuery) throws InvalidPaginationException {
+        KeysetCursor cursor = descendingCursor(after);
+        List<BookingView> bookings = new ArrayList<>(size);
+        boolean offsetPastHot = false;
+        if (!cursor.isArchive()) {
+            Slice<BookingView> hot = hotQuery.apply(cursor);
+            if (hot.hasNext()) {
+                return toKeysetSlice(hot);
+            }
+            offsetPastHot = after == null && from > 0 && hot.getContent().isEmpty();
+            bookings.addAll(hot.getContent());
+            cursor = KeysetCursor.beforeFirstArchived();
+        }
+        int remaining = size - bookings.size();
+        Slice<BookingView> archived = archiveQuery.apply(cursor, PageRequest.of(0, Math.max(remaining, 1)));
+        if (offsetPastHot && !archived.getContent().isEmpty()) {
+            throw new InvalidPaginationException("Смещение from = " + from + " выходит за пределы горячих "
+                    + "бронирований. Архивные бронирования читаются по курсору after из предыдущей страницы.");
+        }
+        String next = null;
+        if (remaining == 0) {
+            next = archived.getContent().isEmpty() ? null : KeysetCursor.beforeFirstArchived().encode();
+        } else {
+            bookings.addAll(archived.getContent());
+            if (archived.hasNext()) {
+                BookingView last = bookings.get(bookings.size() - 1);
+                next = new KeysetCursor(last.getStart(), last.getId(), true).encode();
+            }
+        }
+        return new KeysetSlice<>(mapViewsToOutcomingDto(bookings), next);
+    }
+
+    private List<BookingDto> mapViewsToOutcomingDto(List<BookingView> bookings) {
+        return bookings.stream()
+                .map(bookingMapper::viewToOutcomingDto)
+                .collect(Collectors.toList());
     }
 
     private Booking findByIdOrThrow(long id) throws BookingNotFoundException {
@@ -195,18 +568,12 @@ public class BookingServiceImpl implements BookingService {
         }
     }
 
-    private void throwIfItemOwnerMismatched(Booking booking, long itemOwnerId) throws OwnerMismatchException {
-        if (booking.getItem().getOwner().getId() != itemOwnerId) {
+    private void throwIfItemOwnerMismatched(long actualOwnerId, long itemOwnerId) throws OwnerMismatchException {
+        if (actualOwnerId != itemOwnerId) {
             throw new OwnerMismatchException("Редактировать статус бронирования может только владелец предмета.");
         }
     }
 
-    private void throwIfItemOwnerIsBooker(Booking booking) throws OwnerMismatchException {
-        if (booking.getItem().getOwner().getId().equals(booking.getBooker().getId())) {
-            throw new OwnerMismatchException("Нельзя создавать бронирование для своих предметов.");
-        }
-    }
-
     private void throwIfItemOwnerAndBookerMismatched(Booking booking, long itemOwnerOrBookerId)
             throws ItemOwnerOrBookerMismatchException {
         if (booking.getItem().getOwner().getId() != itemOwnerOrBookerId
@@ -216,23 +583,128 @@ public class BookingServiceImpl implements BookingService {
         }
     }
 
-    private void throwIfItemNotAvailable(Booking booking) {
-        if (!booking.getItem().getAvailable()) {
-            throw new ItemNotAvailableException(String.format("Вещь с id = %d недоступна для аренды.",
-                    booking.getItem().getId()));
+    private void throwIfIntervalOccupied(Booking booking) throws ItemNotAvailableException {
+        if (isOccupiedByApproved(booking)) {
+            throw intervalOccupiedException(booking);
+        }
+    }
+
+    private boolean isOccupiedByApproved(Booking booking) {
+        long itemId = booking.getItem().getId();
+        return bookingIntervalIndex.overlaps(itemId, booking.getStart(), booking.getEnd())
+                || recurringBookingService.overlapsApproved(itemId, booking.getStart(), booking.getEnd());
+    }
+
+    private void reserveIntervalOrThrow(Booking booking) throws ItemNotAvailableException {
+        if (!bookingIntervalIndex.tryAdd(booking.getItem().getId(), booking.getId(),
+                booking.getStart(), booking.getEnd())) {
+            throw intervalOccupiedException(booking);
+        }
+    }
+
+    /**
+     * В Postgres пересечение подтвержденных бронирований запрещено ограничениями исключения
+     * на каждой секции bookings (*_approved_no_overlap) и триггером для пересечений между секциями
+     * (его ошибка называет bookings_approved_no_overlap), поэтому запись сбрасывается в базу сразу,
+     * а нарушение ограничения превращается в ItemNotAvailableException. Интервал, занятый в индексе,
+     * освобождается при откате транзакции.
+     * На H2 (профили ci, test) ограничения нет: база в памяти доступна одному узлу, и проверки по индексу достаточно.
+     */
+    private Booking saveOrThrowIfIntervalOccupied(Booking booking) throws ItemNotAvailableException {
+        try {
+            return bookingRepository.saveAndFlush(booking);
+        } catch (DataIntegrityViolationException e) {
+            if (!isApprovedOverlapViolation(e)) {
+                throw e;
+            }
+            throw intervalOccupiedException(booking);
         }
     }
 
+    private boolean isApprovedOverlapViolation(DataIntegrityViolationException e) {
+        String message = e.getMostSpecificCause().getMessage();
+        return message != null && message.contains(APPROVED_OVERLAP_CONSTRAINT);
+    }
+
+    private ItemNotAvailableException intervalOccupiedException(Booking booking) {
+        return new ItemNotAvailableException(String.format("Вещь с id = %d уже забронирована "
+                + "на пересекающийся период.", booking.getItem().getId()));
+    }
+
     private void throwIfAlreadyApproved(Booking booking) throws ApprovedAlreadyExistsException {
         if (booking.getStatus().equals(BookingStatus.APPROVED)) {
             throw new ApprovedAlreadyExistsException("После подтверждения бронирования менять статус запрещено.");
         }
     }
 
-    private Booking mapBookingFromSimpleDto(SimpleBookingDto dto) {
-        User booker = userService.findByIdOrThrow(dto.getBookerId());
-        Item item = itemService.findByIdOrThrow(dto.getItemId());
-        return bookingMapper.bookingFromDto(dto, item, booker);
+    private void publishChanged(Booking booking, BookingStatus previousStatus) {
+        eventPublisher.publishEvent(BookingChangedEvent.of(booking, previousStatus));
+    }
+
+    private BookingStatusUpdateResult.Outcome defineStatusUpdateOutcome(BookingStatusCheck check, boolean approved,
+                                                                        long itemOwnerId,
+                                                                        Set<Long> occupied) {
+        if (check == null) {
+            return BookingStatusUpdateResult.Outcome.NOT_FOUND;
+        }
+        if (check.getItemOwnerId() != itemOwnerId) {
+            return BookingStatusUpdateResult.Outcome.OWNER_MISMATCH;
+        }
+        if (check.getStatus() == BookingStatus.APPROVED) {
+            return BookingStatusUpdateResult.Outcome.ALREADY_APPROVED;
+        }
+        if (approved && (occupied.contains(check.getBookingId())
+                || !bookingIntervalIndex.tryAdd(check.getItemId(), check.getBookingId(), check.getStart(),
+                check.getEnd()))) {
+            return BookingStatusUpdateResult.Outcome.ITEM_NOT_AVAILABLE;
+        }
+        return BookingStatusUpdateResult.Outcome.UPDATED;
+    }
+
+    /**
+     * Статус меняется отдельным UPDATE для каждого прежнего статуса и только у строк, которые его сохранили.
+     * Если изменено меньше строк, чем ожидалось, статусы перечитываются.
+     *
+     * @return текущие статусы бронирований, которые не были изменены (null - бронирование удалено).
+     */
+    private Map<Long, BookingStatus> updateStatusOrThrow(List<BookingStatusCheck> accepted, BookingStatus status)
+            throws ItemNotAvailableException {
+        Map<BookingStatus, List<Long>> idsByPrevious = accepted.stream()
+                .collect(Collectors.groupingBy(BookingStatusCheck::getStatus,
+                        Collectors.mapping(BookingStatusCheck::getBookingId, Collectors.toList())));
+        Map<Long, BookingStatus> skipped = new HashMap<>();
+        try {
+            for (Map.Entry<BookingStatus, List<Long>> group : idsByPrevious.entrySet()) {
+                List<Long> ids = group.getValue();
+                if (bookingRepository.updateStatusByIds(ids, group.getKey(), status) < ids.size()) {
+                    skipped.putAll(findNotUpdated(ids, status));
+                }
+            }
+            return skipped;
+        } catch (DataIntegrityViolationException e) {
+            if (!isApprovedOverlapViolation(e)) {
+                throw e;
+            }
+            throw new ItemNotAvailableException("Одна из вещей уже забронирована на пересекающийся период. "
+                    + "Статусы бронирований не изменены.");
+        }
+    }
+
+    /**
+     * Под блокировкой вещей другие запросы не переводят бронирования в тот же статус, поэтому строка
+     * с новым статусом изменена этим UPDATE.
+     */
+    private Map<Long, BookingStatus> findNotUpdated(List<Long> ids, BookingStatus status) {
+        Map<Long, BookingStatus> current = bookingRepository.findStatusChecksByIds(ids).stream()
+                .collect(Collectors.toMap(BookingStatusCheck::getBookingId, BookingStatusCheck::getStatus));
+        Map<Long, BookingStatus> notUpdated = new HashMap<>();
+        for (Long id : ids) {
+            BookingStatus currentStatus = current.get(id);
+            if (currentStatus != status) {
+                notUpdated.put(id, currentStatus);
+            }
+        }
+        return notUpdated;
     }
 
     private BookingDto mapBookingToOutcomingDto(Booking booking) {
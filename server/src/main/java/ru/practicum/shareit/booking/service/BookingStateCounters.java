@@ -0,0 +1,427 @@
+package ru.practicum.shareit.booking.service;
+
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.practicum.shareit.booking.dto.BookingStatusCheck;
+import ru.practicum.shareit.booking.dto.BookingStatusCount;
+import ru.practicum.shareit.booking.model.BookingChangedEvent;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.repository.BookingArchiveRepository;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.item.model.ItemChangedEvent;
+import ru.practicum.shareit.user.model.UserChangedEvent;
+import ru.practicum.shareit.util.TimingWheel;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Счетчики бронирований каждого арендатора и каждого владельца по состояниям BookingState.
+ * Вклад бронирования в счетчики - битовая маска состояний. Завершившиеся бронирования (в том числе архивные)
+ * больше не меняют состояние и учитываются только суммами. Незавершившиеся хранятся в памяти вместе с маской,
+ * а колесо таймеров пересчитывает маску в моменты начала и окончания (FUTURE -> CURRENT -> PAST).
+ * Изменения статусов приходят из BookingChangedEvent. Сверка с базой раз в reconcile-interval
+ * перестраивает счетчики целиком и устраняет накопившееся расхождение (сбои и т.п.).
+ * Бронирования, удаленные каскадом вместе с вещью или пользователем, событий не порождают, поэтому после
+ * ItemChangedEvent или UserChangedEvent с типом DELETED счетчики перестраиваются на следующем тике,
+ * а до окончания перестройки количество считается запросами к базе.
+ * Счетчики видят только изменения своего узла. Если в базу пишут несколько узлов, нужно выключить
+ * shareit.bookings.counters.in-memory: тогда количество всегда считается запросами к базе по одному пользователю.
+ */
+@Slf4j
+@Component
+public class BookingStateCounters implements SmartInitializingSingleton {
+    private static final int LOAD_CHUNK_SIZE = 10_000;
+    private static final int WHEEL_BITS_PER_LEVEL = 6;
+    private static final int WHEEL_LEVELS = 4;
+    private static final Set<BookingStatus> FUTURE_STATUSES = EnumSet.of(BookingStatus.APPROVED,
+            BookingStatus.WAITING);
+    private static final Set<BookingStatus> BOOKER_PAST_STATUSES = EnumSet.of(BookingStatus.APPROVED,
+            BookingStatus.WAITING);
+    private static final Set<BookingStatus> OWNER_PAST_STATUSES = EnumSet.of(BookingStatus.APPROVED);
+    private final BookingRepository bookingRepository;
+    private final BookingArchiveRepository bookingArchiveRepository;
+    private final long tickMillis;
+    private final boolean inMemory;
+    private final AtomicBoolean rebuildRequested = new AtomicBoolean();
+    private Counters counters;
+    private List<BookingChangedEvent> pending;
+    private long deletions;
+    private long countedDeletions;
+
+    public BookingStateCounters(BookingRepository bookingRepository,
+                                BookingArchiveRepository bookingArchiveRepository,
+                                @Value("${shareit.bookings.counters.tick:PT1S}") Duration tick,
+                                @Value("${shareit.bookings.counters.in-memory:true}") boolean inMemory) {
+        this.bookingRepository = bookingRepository;
+        this.bookingArchiveRepository = bookingArchiveRepository;
+        this.tickMillis = tick.toMillis();
+        this.inMemory = inMemory;
+        this.counters = new Counters(tickMillis, System.currentTimeMillis());
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        rebuild();
+    }
+
+    public long countByBooker(BookingState state, long bookerId) {
+        synchronized (this) {
+            if (isCurrent()) {
+                return counters.count(counters.byBooker, bookerId, state);
+            }
+        }
+        LocalDateTime now = LocalDateTime.now();
+        Counters fresh = loadOne(false, now, bookingRepository.countEndedByStatusOfBooker(bookerId, now),
+                bookingArchiveRepository.countByStatusOfBooker(bookerId),
+                bookingRepository.findStatusChecksByBookerAndEndAfter(bookerId, now));
+        return fresh.count(fresh.byBooker, bookerId, state);
+    }
+
+    public long countByItemOwner(BookingState state, long itemOwnerId) {
+        synchronized (this) {
+            if (isCurrent()) {
+                return counters.count(counters.byOwner, itemOwnerId, state);
+            }
+        }
+        LocalDateTime now = LocalDateTime.now();
+        Counters fresh = loadOne(true, now, bookingRepository.countEndedByStatusOfItemOwner(itemOwnerId, now),
+                bookingArchiveRepository.countByStatusOfItemOwner(itemOwnerId),
+                bookingRepository.findStatusChecksByItemOwnerAndEndAfter(itemOwnerId, now));
+        return fresh.count(fresh.byOwner, itemOwnerId, state);
+    }
+
+    /**
+     * Ближайший после now момент начала или окончания незавершившегося бронирования арендатора,
+     * то есть момент, когда его списки CURRENT, FUTURE и PAST могут измениться без записи в базу.
+     */
+    public synchronized LocalDateTime nextBoundaryOfBooker(long bookerId, LocalDateTime now) {
+        return counters.nextBoundary(counters.boundariesByBooker, bookerId, now);
+    }
+
+    public synchronized LocalDateTime nextBoundaryOfItemOwner(long itemOwnerId, LocalDateTime now) {
+        return counters.nextBoundary(counters.boundariesByOwner, itemOwnerId, now);
+    }
+
+    @Order(0)
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onBookingChanged(BookingChangedEvent event) {
+        if (event.getBookingId() == null) {
+            rebuildRequested.set(true);
+            return;
+        }
+        counters.apply(event, LocalDateTime.now());
+        if (pending != null) {
+            pending.add(event);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onItemChanged(ItemChangedEvent event) {
+        if (event.getType() == ItemChangedEvent.Type.DELETED) {
+            markCascadedDeletion();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onUserChanged(UserChangedEvent event) {
+        if (event.getType() == UserChangedEvent.Type.DELETED) {
+            markCascadedDeletion();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${shareit.bookings.counters.tick:PT1S}")
+    public void advance() {
+        if (rebuildRequested.getAndSet(false)) {
+            rebuild();
+        }
+        synchronized (this) {
+            counters.advance(LocalDateTime.now(), System.currentTimeMillis());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${shareit.bookings.counters.reconcile-interval:PT1H}",
+            initialDelayString = "${shareit.bookings.counters.reconcile-interval:PT1H}")
+    public void reconcile() {
+        rebuild();
+    }
+
+    /**
+     * База читается без блокировки. События, пришедшие за это время, применяются и к текущим счетчикам,
+     * и после чтения - к новым. Для незавершившихся бронирований применение идемпотентно, поэтому событие,
+     * уже учтенное в прочитанных строках, не считается дважды.
+     */
+    public void rebuild() {
+        long seenDeletions;
+        synchronized (this) {
+            pending = new ArrayList<>();
+            seenDeletions = deletions;
+        }
+        Counters fresh;
+        try {
+            fresh = load();
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                pending = null;
+            }
+            throw e;
+        }
+        synchronized (this) {
+            LocalDateTime now = LocalDateTime.now();
+            pending.forEach(event -> fresh.replay(event, now));
+            int drift = counters.diff(fresh);
+            if (drift > 0) {
+                log.warn("Сверка счетчиков бронирований исправила {} расхождений.", drift);
+            }
+            counters = fresh;
+            countedDeletions = seenDeletions;
+            pending = null;
+        }
+    }
+
+    /**
+     * Удаление видно в базе до того, как приходит событие, поэтому перестройка, начатая после события,
+     * его уже учитывает.
+     */
+    private void markCascadedDeletion() {
+        deletions++;
+        rebuildRequested.set(true);
+    }
+
+    private boolean isCurrent() {
+        return inMemory && countedDeletions == deletions;
+    }
+
+    /**
+     * Счетчики одного пользователя, построенные так же, как при перестройке, но только по его бронированиям.
+     */
+    private Counters loadOne(boolean byOwner, LocalDateTime now, List<BookingStatusCount> ended,
+                             List<BookingStatusCount> archived, List<BookingStatusCheck> unfinished) {
+        Counters fresh = new Counters(tickMillis, System.currentTimeMillis());
+        Map<Long, long[]> counts = byOwner ? fresh.byOwner : fresh.byBooker;
+        Set<BookingStatus> pastStatuses = byOwner ? OWNER_PAST_STATUSES : BOOKER_PAST_STATUSES;
+        ended.forEach(count -> fresh.addEnded(counts, pastStatuses, count));
+        archived.forEach(count -> fresh.addEnded(counts, pastStatuses, count));
+        unfinished.forEach(check -> fresh.put(new Tracked(check.getBookingId(), check.getBookerId(),
+                check.getItemOwnerId(), check.getStatus(), check.getStart(), check.getEnd(), 0, 0), now));
+        return fresh;
+    }
+
+    private Counters load() {
+        LocalDateTime now = LocalDateTime.now();
+        Counters fresh = new Counters(tickMillis, System.currentTimeMillis());
+        bookingRepository.countEndedByBookerAndStatus(now)
+                .forEach(count -> fresh.addEnded(fresh.byBooker, BOOKER_PAST_STATUSES, count));
+        bookingRepository.countEndedByItemOwnerAndStatus(now)
+                .forEach(count -> fresh.addEnded(fresh.byOwner, OWNER_PAST_STATUSES, count));
+        bookingArchiveRepository.countByBookerAndStatus()
+                .forEach(count -> fresh.addEnded(fresh.byBooker, BOOKER_PAST_STATUSES, count));
+        bookingArchiveRepository.countByItemOwnerAndStatus()
+                .forEach(count -> fresh.addEnded(fresh.byOwner, OWNER_PAST_STATUSES, count));
+        long lastId = 0L;
+        List<BookingStatusCheck> chunk;
+        do {
+            chunk = bookingRepository.findStatusChecksByEndAfter(now, lastId, PageRequest.of(0, LOAD_CHUNK_SIZE));
+            for (BookingStatusCheck check : chunk) {
+                fresh.put(new Tracked(check.getBookingId(), check.getBookerId(), check.getItemOwnerId(),
+                        check.getStatus(), check.getStart(), check.getEnd(), 0, 0), now);
+                lastId = check.getBookingId();
+            }
+        } while (chunk.size() == LOAD_CHUNK_SIZE);
+        log.info("Счетчики бронирований построены: {} арендаторов, {} владельцев, {} незавершившихся бронирований.",
+                fresh.byBooker.size(), fresh.byOwner.size(), fresh.tracked.size());
+        return fresh;
+    }
+
+    private static int mask(BookingStatus status, LocalDateTime start, LocalDateTime end, LocalDateTime now,
+                            Set<BookingStatus> pastStatuses) {
+        int mask = bit(BookingState.ALL);
+        if (start.isBefore(now) && end.isAfter(now)) {
+            mask |= bit(BookingState.CURRENT);
+        }
+        if (start.isAfter(now) && FUTURE_STATUSES.contains(status)) {
+            mask |= bit(BookingState.FUTURE);
+        }
+        if (end.isBefore(now) && pastStatuses.contains(status)) {
+            mask |= bit(BookingState.PAST);
+        }
+        if (status == BookingStatus.WAITING) {
+            mask |= bit(BookingState.WAITING);
+        }
+        if (status == BookingStatus.REJECTED) {
+            mask |= bit(BookingState.REJECTED);
+        }
+        return mask;
+    }
+
+    private static int bit(BookingState state) {
+        return 1 << state.ordinal();
+    }
+
+    @AllArgsConstructor
+    private static class Tracked {
+        private long bookingId;
+        private long bookerId;
+        private long ownerId;
+        private BookingStatus status;
+        private LocalDateTime start;
+        private LocalDateTime end;
+        private int bookerMask;
+        private int ownerMask;
+    }
+
+    private static class Counters {
+        private final Map<Long, long[]> byBooker = new HashMap<>();
+        private final Map<Long, long[]> byOwner = new HashMap<>();
+        private final Map<Long, Tracked> tracked = new HashMap<>();
+        private final Map<Long, TreeMap<LocalDateTime, Integer>> boundariesByBooker = new HashMap<>();
+        private final Map<Long, TreeMap<LocalDateTime, Integer>> boundariesByOwner = new HashMap<>();
+        private final List<Long> overdue = new ArrayList<>();
+        private final TimingWheel<Long> wheel;
+
+        Counters(long tickMillis, long nowMillis) {
+            wheel = new TimingWheel<>(tickMillis, WHEEL_BITS_PER_LEVEL, WHEEL_LEVELS, nowMillis);
+        }
+
+        long count(Map<Long, long[]> counts, long userId, BookingState state) {
+            long[] byState = counts.get(userId);
+            return byState == null ? 0 : byState[state.ordinal()];
+        }
+
+        LocalDateTime nextBoundary(Map<Long, TreeMap<LocalDateTime, Integer>> boundaries, long userId,
+                                   LocalDateTime now) {
+            TreeMap<LocalDateTime, Integer> instants = boundaries.get(userId);
+            return instants == null ? null : instants.higherKey(now);
+        }
+
+        void addEnded(Map<Long, long[]> counts, Set<BookingStatus> pastStatuses, BookingStatusCount count) {
+            int mask = mask(count.getStatus(), LocalDateTime.MIN, LocalDateTime.MIN, LocalDateTime.MAX,
+                    pastStatuses);
+            add(counts, count.getUserId(), mask, count.getCount());
+        }
+
+        /**
+         * Прежний вклад бронирования берется из памяти, а для завершившегося бронирования, которого в памяти нет,
+         * вычисляется по previousStatus из события.
+         */
+        void apply(BookingChangedEvent event, LocalDateTime now) {
+            Tracked previous = tracked.get(event.getBookingId());
+            if (previous == null && event.getPreviousStatus() != null) {
+                add(byBooker, event.getBookerId(), mask(event.getPreviousStatus(), event.getStart(), event.getEnd(),
+                        now, BOOKER_PAST_STATUSES), -1);
+                add(byOwner, event.getItemOwnerId(), mask(event.getPreviousStatus(), event.getStart(),
+                        event.getEnd(), now, OWNER_PAST_STATUSES), -1);
+            }
+            put(new Tracked(event.getBookingId(), event.getBookerId(), event.getItemOwnerId(), event.getStatus(),
+                    event.getStart(), event.getEnd(), 0, 0), now);
+        }
+
+        /**
+         * Повтор события на свежих счетчиках: бронирование, уже прочитанное из базы, обновляется идемпотентно,
+         * а новое учитывается, только если оно еще не завершилось. Прочие события отбрасываются до следующей сверки.
+         */
+        void replay(BookingChangedEvent event, LocalDateTime now) {
+            if (tracked.containsKey(event.getBookingId())
+                    || (event.getPreviousStatus() == null && event.getEnd().isAfter(now))) {
+                apply(event, now);
+            }
+        }
+
+        void put(Tracked next, LocalDateTime now) {
+            Tracked previous = tracked.remove(next.bookingId);
+            if (previous != null) {
+                add(byBooker, previous.bookerId, previous.bookerMask, -1);
+                add(byOwner, previous.ownerId, previous.ownerMask, -1);
+                addBoundaries(previous, -1);
+            }
+            next.bookerMask = mask(next.status, next.start, next.end, now, BOOKER_PAST_STATUSES);
+            next.ownerMask = mask(next.status, next.start, next.end, now, OWNER_PAST_STATUSES);
+            add(byBooker, next.bookerId, next.bookerMask, 1);
+            add(byOwner, next.ownerId, next.ownerMask, 1);
+            LocalDateTime boundary = next.start.isAfter(now) ? next.start : next.end;
+            if (!boundary.isAfter(now)) {
+                wheel.cancel(next.bookingId);
+                return;
+            }
+            tracked.put(next.bookingId, next);
+            addBoundaries(next, 1);
+            if (!wheel.schedule(next.bookingId, boundary.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli())) {
+                overdue.add(next.bookingId);
+            }
+        }
+
+        void advance(LocalDateTime now, long nowMillis) {
+            List<Long> due = wheel.advance(nowMillis);
+            due.addAll(overdue);
+            overdue.clear();
+            for (Long bookingId : due) {
+                Tracked booking = tracked.get(bookingId);
+                if (booking != null) {
+                    put(booking, now);
+                }
+            }
+        }
+
+        int diff(Counters other) {
+            return diff(byBooker, other.byBooker) + diff(byOwner, other.byOwner);
+        }
+
+        private static int diff(Map<Long, long[]> counts, Map<Long, long[]> other) {
+            Set<Long> userIds = new HashSet<>(counts.keySet());
+            userIds.addAll(other.keySet());
+            long[] empty = new long[BookingState.values().length];
+            int diff = 0;
+            for (Long userId : userIds) {
+                if (!Arrays.equals(counts.getOrDefault(userId, empty), other.getOrDefault(userId, empty))) {
+                    diff++;
+                }
+            }
+            return diff;
+        }
+
+        private void addBoundaries(Tracked booking, int delta) {
+            addBoundary(boundariesByBooker, booking.bookerId, booking.start, delta);
+            addBoundary(boundariesByBooker, booking.bookerId, booking.end, delta);
+            addBoundary(boundariesByOwner, booking.ownerId, booking.start, delta);
+            addBoundary(boundariesByOwner, booking.ownerId, booking.end, delta);
+        }
+
+        private static void addBoundary(Map<Long, TreeMap<LocalDateTime, Integer>> boundaries, long userId,
+                                        LocalDateTime instant, int delta) {
+            TreeMap<LocalDateTime, Integer> instants = boundaries.computeIfAbsent(userId, id -> new TreeMap<>());
+            if (instants.merge(instant, delta, Integer::sum) == 0) {
+                instants.remove(instant);
+            }
+            if (instants.isEmpty()) {
+                boundaries.remove(userId);
+            }
+        }
+
+        private static void add(Map<Long, long[]> counts, long userId, int mask, long delta) {
+            long[] byState = counts.computeIfAbsent(userId, id -> new long[BookingState.values().length]);
+            for (BookingState state : BookingState.values()) {
+                if ((mask & bit(state)) != 0) {
+                    byState[state.ordinal()] += delta;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package ru.practicum.shareit.booking.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.booking.model.BookingChangedEvent;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.model.BookingTransition;
+import ru.practicum.shareit.booking.repository.BookingTransitionJournal;
+
+import java.time.Instant;
+
+/**
+ * Записывает в журнал аудита каждую смену статуса, о которой публикуется BookingChangedEvent: создание,
+ * подтверждение и отклонение, отмену по сроку и продвижение из листа ожидания. Слушатель синхронный, поэтому
+ * запись регистрируется в транзакции изменения и попадает в журнал только после ее фиксации.
+ * Инициатор определяется по переходу: создает бронирование арендатор, подтверждает и отклоняет владелец вещи,
+ * а отменяет по сроку система (SYSTEM_ACTOR_ID). События импорта без id бронирования не записываются.
+ */
+@Component
+@RequiredArgsConstructor
+public class BookingTransitionRecorder {
+    public static final long SYSTEM_ACTOR_ID = 0L;
+    private final BookingTransitionJournal bookingTransitionJournal;
+
+    @EventListener
+    public void onBookingChanged(BookingChangedEvent event) {
+        if (event.getBookingId() == null) {
+            return;
+        }
+        bookingTransitionJournal.appendAfterCommit(new BookingTransition(event.getBookingId(), event.getItemId(),
+                actorOf(event), event.getPreviousStatus(), event.getStatus(), Instant.now()));
+    }
+
+    private static long actorOf(BookingChangedEvent event) {
+        if (event.getPreviousStatus() == null) {
+            return event.getBookerId();
+        }
+        if (event.getStatus() == BookingStatus.CANCELED) {
+            return SYSTEM_ACTOR_ID;
+        }
+        return event.getItemOwnerId();
+    }
+}
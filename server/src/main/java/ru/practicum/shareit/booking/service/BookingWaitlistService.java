@@ -0,0 +1,14 @@
+package ru.practicum.shareit.booking.service;
+
+import ru.practicum.shareit.booking.dto.WaitlistEntryDto;
+import ru.practicum.shareit.booking.model.Booking;
+
+import java.time.LocalDateTime;
+
+public interface BookingWaitlistService {
+    WaitlistEntryDto enqueue(Booking booking);
+
+    void promote(long itemId, LocalDateTime start, LocalDateTime end);
+
+    void delete(long entryId, long bookerId);
+}
@@ -0,0 +1,86 @@
+package ru.practicum.shareit.booking.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.dto.BookingMapper;
+import ru.practicum.shareit.booking.dto.WaitlistEntryDto;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingChangedEvent;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.model.WaitlistEntry;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.booking.repository.WaitlistRepository;
+import ru.practicum.shareit.exception.notFound.WaitlistEntryNotFoundException;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Лист ожидания бронирований. Очередь предмета - строки booking_waitlist, упорядоченные по времени
+ * постановки (индекс item_id, created, id), поэтому продвижение идет в транзакции, освободившей интервал.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BookingWaitlistServiceImpl implements BookingWaitlistService {
+    private static final List<BookingStatus> OCCUPYING_STATUSES = List.of(BookingStatus.APPROVED,
+            BookingStatus.WAITING);
+    private final WaitlistRepository waitlistRepository;
+    private final BookingRepository bookingRepository;
+    private final BookingIntervalIndex bookingIntervalIndex;
+    private final BookingMapper bookingMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final RecurringBookingService recurringBookingService;
+
+    @Transactional
+    @Override
+    public WaitlistEntryDto enqueue(Booking booking) {
+        WaitlistEntry entry = waitlistRepository.save(new WaitlistEntry(null, booking.getItem(), booking.getBooker(),
+                booking.getStart(), booking.getEnd(), LocalDateTime.now()));
+        log.info("Пользователь id = {} поставлен в лист ожидания предмета id = {}.", booking.getBooker().getId(),
+                booking.getItem().getId());
+        return bookingMapper.waitlistEntryToDto(entry);
+    }
+
+    /**
+     * Записи, пересекающиеся с освободившимся интервалом, по очереди превращаются в бронирования WAITING,
+     * если их интервал теперь свободен. Уже продвинутые записи занимают интервал для следующих.
+     */
+    @Transactional
+    @Override
+    public void promote(long itemId, LocalDateTime start, LocalDateTime end) {
+        List<WaitlistEntry> queued = waitlistRepository.findQueuedOverlapping(itemId, start, end,
+                LocalDateTime.now());
+        for (WaitlistEntry entry : queued) {
+            if (!entry.getItem().getAvailable() || isOccupied(itemId, entry.getStart(), entry.getEnd())) {
+                continue;
+            }
+            Booking booking = bookingRepository.saveAndFlush(new Booking(null, entry.getItem(), entry.getBooker(),
+                    entry.getStart(), entry.getEnd(), BookingStatus.WAITING));
+            waitlistRepository.delete(entry);
+            eventPublisher.publishEvent(BookingChangedEvent.of(booking, null));
+            log.info("Запись листа ожидания id = {} продвинута в бронирование id = {}.", entry.getId(),
+                    booking.getId());
+        }
+    }
+
+    @Transactional
+    @Override
+    public void delete(long entryId, long bookerId) {
+        WaitlistEntry entry = waitlistRepository.findById(entryId)
+                .filter(found -> found.getBooker().getId() == bookerId)
+                .orElseThrow(() -> new WaitlistEntryNotFoundException("Запись листа ожидания с id = " + entryId
+                        + " не найдена."));
+        waitlistRepository.delete(entry);
+    }
+
+    private boolean isOccupied(long itemId, LocalDateTime start, LocalDateTime end) {
+        return bookingIntervalIndex.overlaps(itemId, start, end)
+                || recurringBookingService.overlapsApproved(itemId, start, end)
+                || !bookingRepository.findIntervalsByItemOverlapping(itemId, OCCUPYING_STATUSES, start, end)
+                .isEmpty();
+    }
+}
@@ -0,0 +1,8 @@
+package ru.practicum.shareit.booking.service;
+
+/**
+ * Межузловая блокировка полосы вещей до конца текущей транзакции.
+ */
+public interface ItemAdvisoryLock {
+    void lock(int stripe);
+}
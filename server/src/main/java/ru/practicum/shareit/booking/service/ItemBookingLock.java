@@ -0,0 +1,56 @@
+package ru.practicum.shareit.booking.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.util.StripedLocks;
+
+import java.util.Collection;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * Сериализует создание и подтверждение бронирований одной вещи до конца транзакции, в том числе между узлами.
+ * Сначала берется блокировка полосы внутри JVM: конкурирующие запросы одного узла ждут на ней, не занимая
+ * соединений с базой, и до advisory-блокировки Postgres доходит не больше одного запроса узла на полосу.
+ * Обе блокировки берутся по одной и той же полосе, а несколько полос - по возрастанию номера, поэтому взаимных
+ * блокировок между транзакциями нет.
+ */
+@Component
+public class ItemBookingLock {
+    private final ItemAdvisoryLock itemAdvisoryLock;
+    private final StripedLocks stripedLocks;
+
+    public ItemBookingLock(ItemAdvisoryLock itemAdvisoryLock,
+                           @Value("${shareit.bookings.locks.stripes:1024}") int stripes) {
+        this.itemAdvisoryLock = itemAdvisoryLock;
+        this.stripedLocks = new StripedLocks(stripes);
+    }
+
+    public void lock(long itemId) {
+        lockStripe(stripedLocks.stripeOf(itemId));
+    }
+
+    public void lockAll(Collection<Long> itemIds) {
+        itemIds.stream()
+                .map(stripedLocks::stripeOf)
+                .distinct()
+                .sorted()
+                .forEach(this::lockStripe);
+    }
+
+    private void lockStripe(int stripe) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Блокировка вещи берется только внутри транзакции.");
+        }
+        Lock lock = stripedLocks.lockOf(stripe);
+        lock.lock();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                lock.unlock();
+            }
+        });
+        itemAdvisoryLock.lock(stripe);
+    }
+}
@@ -0,0 +1,15 @@
+package ru.practicum.shareit.booking.service;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * H2 (профили ci, test) работает в памяти одного узла, и блокировки полос внутри JVM достаточно.
+ */
+@Component
+@ConditionalOnProperty(name = "spring.sql.init.platform", havingValue = "h2")
+public class NoOpItemAdvisoryLock implements ItemAdvisoryLock {
+    @Override
+    public void lock(int stripe) {
+    }
+}
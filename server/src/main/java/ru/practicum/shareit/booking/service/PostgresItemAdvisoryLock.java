@@ -0,0 +1,41 @@
+package ru.practicum.shareit.booking.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * pg_advisory_xact_lock снимается самим Postgres при фиксации или откате транзакции,
+ * поэтому блокировка не переживает упавший узел. Первый ключ отделяет полосы вещей от других advisory-блокировок.
+ * Тем же запросом до конца транзакции ставятся lock_timeout и statement_timeout: транзакции, меняющие бронирования,
+ * берут эту блокировку, и таймауты ограничивают время между выдачей change_seq и фиксацией, на которое
+ * рассчитан shareit.bookings.changes.settle-time.
+ */
+@Component
+@ConditionalOnProperty(name = "spring.sql.init.platform", havingValue = "postgresql")
+public class PostgresItemAdvisoryLock implements ItemAdvisoryLock {
+    static final int ITEM_LOCK_SPACE = 1;
+    private static final String LOCK = "SELECT 1 FROM (SELECT set_config('lock_timeout', ?, true), "
+            + "set_config('statement_timeout', ?, true), pg_advisory_xact_lock(?, ?)) AS locked";
+    private final JdbcTemplate jdbcTemplate;
+    private final String lockTimeoutMillis;
+    private final String statementTimeoutMillis;
+
+    public PostgresItemAdvisoryLock(JdbcTemplate jdbcTemplate,
+                                    @Value("${shareit.bookings.locks.lock-timeout:PT5S}") Duration lockTimeout,
+                                    @Value("${shareit.bookings.locks.statement-timeout:PT5S}")
+                                    Duration statementTimeout) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.lockTimeoutMillis = String.valueOf(lockTimeout.toMillis());
+        this.statementTimeoutMillis = String.valueOf(statementTimeout.toMillis());
+    }
+
+    @Override
+    public void lock(int stripe) {
+        jdbcTemplate.queryForObject(LOCK, Integer.class, lockTimeoutMillis, statementTimeoutMillis, ITEM_LOCK_SPACE,
+                stripe);
+    }
+}
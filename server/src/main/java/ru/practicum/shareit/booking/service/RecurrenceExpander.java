@@ -0,0 +1,102 @@
+package ru.practicum.shareit.booking.service;
+
+import ru.practicum.shareit.booking.dto.BookingInterval;
+import ru.practicum.shareit.booking.model.RecurringBooking;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Ленивое развертывание повторяющегося бронирования. Вхождение k - это первое вхождение, сдвинутое на k периодов,
+ * поэтому номера вхождений, пересекающих окно, вычисляются арифметически без перебора серии с начала.
+ */
+public class RecurrenceExpander {
+    public static final int MAX_OCCURRENCES = 1000;
+
+    private RecurrenceExpander() {
+    }
+
+    /**
+     * Синтетический отрицательный id вхождения не пересекается с id обычных бронирований
+     * и однозначен в пределах всех серий, поэтому годится для курсора.
+     */
+    public static long occurrenceId(long recurringBookingId, long occurrence) {
+        return -(recurringBookingId * MAX_OCCURRENCES + occurrence + 1);
+    }
+
+    public static Duration period(RecurringBooking series) {
+        return Duration.ofDays((long) series.getFrequency().getDays() * series.getInterval());
+    }
+
+    /**
+     * Число вхождений, начинающихся до горизонта until.
+     */
+    public static long count(RecurringBooking series) {
+        long span = Duration.between(series.getStart(), series.getUntil()).toNanos();
+        return span <= 0 ? 0 : ceilDiv(span, period(series).toNanos());
+    }
+
+    public static LocalDateTime lastEnd(RecurringBooking series) {
+        return series.getEnd().plus(period(series).multipliedBy(Math.max(count(series) - 1, 0)));
+    }
+
+    /**
+     * Вхождения, пересекающие полуинтервал [from, to), по возрастанию начала.
+     * В BookingInterval номер вхождения записывается в bookingId.
+     */
+    public static List<BookingInterval> expand(RecurringBooking series, LocalDateTime from, LocalDateTime to) {
+        long count = count(series);
+        if (count == 0 || !to.isAfter(series.getStart()) || !from.isBefore(series.getLastEnd())) {
+            return Collections.emptyList();
+        }
+        long periodNanos = period(series).toNanos();
+        long low = from.isBefore(series.getEnd())
+                ? 0
+                : Math.floorDiv(Duration.between(series.getEnd(), from).toNanos(), periodNanos) + 1;
+        long high = Math.min(ceilDiv(Duration.between(series.getStart(), to).toNanos(), periodNanos), count) - 1;
+        List<BookingInterval> occurrences = new ArrayList<>();
+        for (long k = low; k <= high; k++) {
+            Duration shift = period(series).multipliedBy(k);
+            occurrences.add(new BookingInterval(series.getItem().getId(), k, series.getStart().plus(shift),
+                    series.getEnd().plus(shift)));
+        }
+        return occurrences;
+    }
+
+    public static boolean overlaps(RecurringBooking series, LocalDateTime from, LocalDateTime to) {
+        return !expand(series, from, to).isEmpty();
+    }
+
+    /**
+     * Две серии пересекаются, если хотя бы одно вхождение первой пересекает вхождение второй.
+     * Вхождения второй серии разворачиваются только в пределах каждого вхождения первой.
+     */
+    public static boolean overlaps(RecurringBooking series, RecurringBooking other) {
+        LocalDateTime from = max(series.getStart(), other.getStart());
+        LocalDateTime to = min(series.getLastEnd(), other.getLastEnd());
+        if (!from.isBefore(to)) {
+            return false;
+        }
+        for (BookingInterval occurrence : expand(series, from, to)) {
+            if (overlaps(other, occurrence.getStart(), occurrence.getEnd())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static long ceilDiv(long dividend, long divisor) {
+        return -Math.floorDiv(-dividend, divisor);
+    }
+
+    private static LocalDateTime max(LocalDateTime first, LocalDateTime second) {
+        return first.isAfter(second) ? first : second;
+    }
+
+    private static LocalDateTime min(LocalDateTime first, LocalDateTime second) {
+        return first.isBefore(second) ? first : second;
+    }
+}
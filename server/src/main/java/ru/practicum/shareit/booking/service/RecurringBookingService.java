@@ -0,0 +1,31 @@
+package ru.practicum.shareit.booking.service;
+
+import ru.practicum.shareit.booking.dto.BookingStatusCheck;
+import ru.practicum.shareit.booking.dto.BookingView;
+import ru.practicum.shareit.booking.dto.RecurringBookingDto;
+import ru.practicum.shareit.booking.model.BookingStatus;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+public interface RecurringBookingService {
+    RecurringBookingDto create(RecurringBookingDto recurringBookingDto, long bookerId);
+
+    RecurringBookingDto update(long recurringBookingId, boolean approved, long itemOwnerId);
+
+    boolean overlapsApproved(long itemId, LocalDateTime start, LocalDateTime end);
+
+    Set<Long> findOverlappingApproved(Collection<BookingStatusCheck> checks);
+
+    List<BookingView> findCurrentOccurrencesByBooker(long bookerId, LocalDateTime now);
+
+    List<BookingView> findFutureOccurrencesByBooker(long bookerId, Collection<BookingStatus> statuses,
+                                                    LocalDateTime now);
+
+    List<BookingView> findCurrentOccurrencesByItemOwner(long itemOwnerId, LocalDateTime now);
+
+    List<BookingView> findFutureOccurrencesByItemOwner(long itemOwnerId, Collection<BookingStatus> statuses,
+                                                       LocalDateTime now);
+}
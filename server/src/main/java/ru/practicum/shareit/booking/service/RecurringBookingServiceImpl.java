@@ -0,0 +1,247 @@
+package ru.practicum.shareit.booking.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.dto.BookingInterval;
+import ru.practicum.shareit.booking.dto.BookingMapper;
+import ru.practicum.shareit.booking.dto.BookingStatusCheck;
+import ru.practicum.shareit.booking.dto.BookingView;
+import ru.practicum.shareit.booking.dto.RecurringBookingDto;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.model.RecurringBooking;
+import ru.practicum.shareit.booking.model.RecurringBookingChangedEvent;
+import ru.practicum.shareit.booking.repository.RecurringBookingRepository;
+import ru.practicum.shareit.exception.ItemNotAvailableException;
+import ru.practicum.shareit.exception.alreadyExists.ApprovedAlreadyExistsException;
+import ru.practicum.shareit.exception.mismatch.OwnerMismatchException;
+import ru.practicum.shareit.exception.mismatch.TimeMismatchException;
+import ru.practicum.shareit.exception.notFound.RecurringBookingNotFoundException;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.service.UserService;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Повторяющиеся бронирования. Серия хранится одной строкой, а вхождения разворачиваются лениво:
+ * для проверок пересечения - только в пределах проверяемого интервала, для списков бронирований -
+ * только в пределах окна projectionWindow от текущего момента.
+ */
+@Slf4j
+@Service
+public class RecurringBookingServiceImpl implements RecurringBookingService {
+    private static final List<BookingStatus> ALL_STATUSES = List.of(BookingStatus.values());
+    private final RecurringBookingRepository recurringBookingRepository;
+    private final BookingMapper bookingMapper;
+    private final UserService userService;
+    private final ItemService itemService;
+    private final BookingIntervalIndex bookingIntervalIndex;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Duration projectionWindow;
+
+    public RecurringBookingServiceImpl(RecurringBookingRepository recurringBookingRepository,
+                                       BookingMapper bookingMapper,
+                                       UserService userService,
+                                       ItemService itemService,
+                                       BookingIntervalIndex bookingIntervalIndex,
+                                       ApplicationEventPublisher eventPublisher,
+                                       @Value("${shareit.bookings.recurring.projection-window:P30D}")
+                                       Duration projectionWindow) {
+        this.recurringBookingRepository = recurringBookingRepository;
+        this.bookingMapper = bookingMapper;
+        this.userService = userService;
+        this.itemService = itemService;
+        this.bookingIntervalIndex = bookingIntervalIndex;
+        this.eventPublisher = eventPublisher;
+        this.projectionWindow = projectionWindow;
+    }
+
+    @Transactional
+    @Override
+    public RecurringBookingDto create(RecurringBookingDto recurringBookingDto, long bookerId) {
+        User booker = userService.findByIdOrThrow(bookerId);
+        Item item = itemService.findByIdOrThrow(recurringBookingDto.getItemId());
+        RecurringBooking series = bookingMapper.recurringBookingFromDto(recurringBookingDto, item, booker);
+        throwIfRuleInvalid(series);
+        if (!item.getAvailable()) {
+            throw new ItemNotAvailableException(String.format("Вещь с id = %d недоступна для аренды.",
+                    item.getId()));
+        }
+        if (item.getOwner().getId().equals(bookerId)) {
+            throw new OwnerMismatchException("Нельзя создавать бронирование для своих предметов.");
+        }
+        series.setLastEnd(RecurrenceExpander.lastEnd(series));
+        throwIfOccupied(series);
+        RecurringBooking saved = recurringBookingRepository.save(series);
+        eventPublisher.publishEvent(RecurringBookingChangedEvent.of(saved));
+        log.info("Создано повторяющееся бронирование id = {} вещи id = {} из {} вхождений.", saved.getId(),
+                item.getId(), RecurrenceExpander.count(saved));
+        return bookingMapper.recurringBookingToDto(saved);
+    }
+
+    @Transactional
+    @Override
+    public RecurringBookingDto update(long recurringBookingId, boolean approved, long itemOwnerId) {
+        RecurringBooking series = recurringBookingRepository.findWithItemAndBookerById(recurringBookingId)
+                .orElseThrow(() -> new RecurringBookingNotFoundException("Повторяющееся бронирование с id = "
+                        + recurringBookingId + " не найдено."));
+        if (series.getItem().getOwner().getId() != itemOwnerId) {
+            throw new OwnerMismatchException("Редактировать статус бронирования может только владелец предмета.");
+        }
+        if (series.getStatus() == BookingStatus.APPROVED) {
+            throw new ApprovedAlreadyExistsException("После подтверждения бронирования менять статус запрещено.");
+        }
+        if (approved) {
+            throwIfOccupied(series);
+        }
+        series.setStatus(approved ? BookingStatus.APPROVED : BookingStatus.REJECTED);
+        RecurringBooking saved = recurringBookingRepository.save(series);
+        eventPublisher.publishEvent(RecurringBookingChangedEvent.of(saved));
+        return bookingMapper.recurringBookingToDto(saved);
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public boolean overlapsApproved(long itemId, LocalDateTime start, LocalDateTime end) {
+        return recurringBookingRepository.findByItemsOverlapping(List.of(itemId), BookingStatus.APPROVED, start, end)
+                .stream()
+                .anyMatch(series -> RecurrenceExpander.overlaps(series, start, end));
+    }
+
+    /**
+     * Подтвержденные серии по всем вещам читаются одним запросом в пределах общего интервала проверок.
+     */
+    @Transactional(readOnly = true)
+    @Override
+    public Set<Long> findOverlappingApproved(Collection<BookingStatusCheck> checks) {
+        if (checks.isEmpty()) {
+            return Collections.emptySet();
+        }
+        Set<Long> itemIds = new HashSet<>();
+        LocalDateTime from = LocalDateTime.MAX;
+        LocalDateTime to = LocalDateTime.MIN;
+        for (BookingStatusCheck check : checks) {
+            itemIds.add(check.getItemId());
+            from = check.getStart().isBefore(from) ? check.getStart() : from;
+            to = check.getEnd().isAfter(to) ? check.getEnd() : to;
+        }
+        Map<Long, List<RecurringBooking>> seriesByItem = recurringBookingRepository
+                .findByItemsOverlapping(itemIds, BookingStatus.APPROVED, from, to).stream()
+                .collect(Collectors.groupingBy(series -> series.getItem().getId()));
+        Set<Long> overlapping = new HashSet<>();
+        for (BookingStatusCheck check : checks) {
+            for (RecurringBooking series : seriesByItem.getOrDefault(check.getItemId(), Collections.emptyList())) {
+                if (RecurrenceExpander.overlaps(series, check.getStart(), check.getEnd())) {
+                    overlapping.add(check.getBookingId());
+                    break;
+                }
+            }
+        }
+        return overlapping;
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public List<BookingView> findCurrentOccurrencesByBooker(long bookerId, LocalDateTime now) {
+        return project(recurringBookingRepository.findByBookerOverlapping(bookerId, ALL_STATUSES, now, now),
+                now, now, false);
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public List<BookingView> findFutureOccurrencesByBooker(long bookerId, Collection<BookingStatus> statuses,
+                                                           LocalDateTime now) {
+        LocalDateTime to = now.plus(projectionWindow);
+        return project(recurringBookingRepository.findByBookerOverlapping(bookerId, statuses, now, to),
+                now, to, true);
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public List<BookingView> findCurrentOccurrencesByItemOwner(long itemOwnerId, LocalDateTime now) {
+        return project(recurringBookingRepository.findByItemOwnerOverlapping(itemOwnerId, ALL_STATUSES, now, now),
+                now, now, false);
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public List<BookingView> findFutureOccurrencesByItemOwner(long itemOwnerId, Collection<BookingStatus> statuses,
+                                                              LocalDateTime now) {
+        LocalDateTime to = now.plus(projectionWindow);
+        return project(recurringBookingRepository.findByItemOwnerOverlapping(itemOwnerId, statuses, now, to),
+                now, to, true);
+    }
+
+    /**
+     * Для текущих вхождений окно вырождается в момент now: подходят вхождения, у которых start < now < end.
+     * Для будущих берутся только вхождения, начинающиеся после now.
+     */
+    private List<BookingView> project(List<RecurringBooking> series, LocalDateTime from, LocalDateTime to,
+                                      boolean startingAfterFrom) {
+        List<BookingView> views = new ArrayList<>();
+        for (RecurringBooking recurring : series) {
+            Item item = recurring.getItem();
+            User booker = recurring.getBooker();
+            Long itemRequestId = item.getRequest() != null ? item.getRequest().getId() : null;
+            for (BookingInterval occurrence : RecurrenceExpander.expand(recurring, from, to)) {
+                if (startingAfterFrom && !occurrence.getStart().isAfter(from)) {
+                    continue;
+                }
+                views.add(new BookingView(RecurrenceExpander.occurrenceId(recurring.getId(),
+                        occurrence.getBookingId()), occurrence.getStart(), occurrence.getEnd(), recurring.getStatus(),
+                        item.getId(), item.getOwner().getId(), item.getName(), item.getDescription(),
+                        item.getAvailable(), itemRequestId, booker.getId(), booker.getName(), booker.getEmail(),
+                        recurring.getId()));
+            }
+        }
+        return views;
+    }
+
+    private void throwIfRuleInvalid(RecurringBooking series) throws TimeMismatchException {
+        if (!series.getEnd().isAfter(series.getStart())) {
+            throw new TimeMismatchException("Окончание бронирования должно быть позже его начала.");
+        }
+        if (!series.getUntil().isAfter(series.getStart())) {
+            throw new TimeMismatchException("Горизонт повторения должен быть позже начала бронирования.");
+        }
+        if (Duration.between(series.getStart(), series.getEnd()).compareTo(RecurrenceExpander.period(series)) > 0) {
+            throw new TimeMismatchException("Длительность бронирования не может превышать период повторения.");
+        }
+        if (RecurrenceExpander.count(series) > RecurrenceExpander.MAX_OCCURRENCES) {
+            throw new TimeMismatchException("Серия не может содержать больше "
+                    + RecurrenceExpander.MAX_OCCURRENCES + " вхождений.");
+        }
+    }
+
+    /**
+     * Вхождения проверяются по индексу подтвержденных бронирований, а с другими подтвержденными сериями
+     * той же вещи серия сравнивается попарно, без развертывания обеих целиком.
+     */
+    private void throwIfOccupied(RecurringBooking series) throws ItemNotAvailableException {
+        long itemId = series.getItem().getId();
+        boolean occupied = RecurrenceExpander.expand(series, series.getStart(), series.getLastEnd()).stream()
+                .anyMatch(occurrence -> bookingIntervalIndex.overlaps(itemId, occurrence.getStart(),
+                        occurrence.getEnd()))
+                || recurringBookingRepository.findByItemsOverlapping(List.of(itemId), BookingStatus.APPROVED,
+                        series.getStart(), series.getLastEnd()).stream()
+                .anyMatch(other -> !other.getId().equals(series.getId())
+                        && RecurrenceExpander.overlaps(series, other));
+        if (occupied) {
+            throw new ItemNotAvailableException(String.format("Вещь с id = %d уже забронирована "
+                    + "на период, пересекающийся с одним из вхождений серии.", itemId));
+        }
+    }
+}
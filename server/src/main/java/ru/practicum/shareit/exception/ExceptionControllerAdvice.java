@@ -29,7 +29,8 @@ public class ExceptionControllerAdvice {
     }
 
     @ExceptionHandler({AlreadyExistsException.class, TimeMismatchException.class, ItemNotAvailableException.class,
-            BookingForCommentNotFoundException.class})
+            BookingForCommentNotFoundException.class, InvalidCursorException.class,
+            InvalidIdempotencyKeyException.class, InvalidPaginationException.class})
     public ResponseEntity<String> handleBadRequest(ShareItException e) {
         logDebugException(log, e);
         return new ResponseEntity<>('\"' + e.getMessage() + '\"', HttpStatus.BAD_REQUEST);
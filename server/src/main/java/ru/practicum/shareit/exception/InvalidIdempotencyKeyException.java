@@ -0,0 +1,7 @@
+package ru.practicum.shareit.exception;
+
+public class InvalidIdempotencyKeyException extends ShareItException {
+    public InvalidIdempotencyKeyException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package ru.practicum.shareit.exception;
+
+public class InvalidPaginationException extends ShareItException {
+    public InvalidPaginationException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package ru.practicum.shareit.exception.mismatch;
+
+public class ImportNotAllowedException extends MismatchException {
+    public ImportNotAllowedException(String message) {
+        super(message);
+    }
+}
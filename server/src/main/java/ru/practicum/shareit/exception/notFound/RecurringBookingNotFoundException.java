@@ -0,0 +1,7 @@
+package ru.practicum.shareit.exception.notFound;
+
+public class RecurringBookingNotFoundException extends NotFoundException {
+    public RecurringBookingNotFoundException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package ru.practicum.shareit.exception.notFound;
+
+public class WaitlistEntryNotFoundException extends NotFoundException {
+    public WaitlistEntryNotFoundException(String message) {
+        super(message);
+    }
+}
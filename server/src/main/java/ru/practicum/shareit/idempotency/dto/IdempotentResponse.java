@@ -0,0 +1,15 @@
+package ru.practicum.shareit.idempotency.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Тело ответа и признак того, что оно взято из сохраненного ответа на повторенный запрос.
+ * Повторный ответ хранится как JSON, поэтому body в этом случае - JsonNode.
+ */
+@Data
+@AllArgsConstructor
+public class IdempotentResponse {
+    private Object body;
+    private boolean replayed;
+}
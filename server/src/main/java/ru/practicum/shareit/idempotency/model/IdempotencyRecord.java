@@ -0,0 +1,28 @@
+package ru.practicum.shareit.idempotency.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Column;
+import javax.persistence.EmbeddedId;
+import javax.persistence.Entity;
+import javax.persistence.Table;
+import java.time.LocalDateTime;
+
+/**
+ * Ответ на запрос с заголовком Idempotency-Key. Хранится, пока не истечет shareit.idempotency.ttl.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "idempotency_keys")
+public class IdempotencyRecord {
+    @EmbeddedId
+    private IdempotencyRecordId id;
+    @Column(name = "request_hash")
+    private String requestHash;
+    private String response;
+    private LocalDateTime created;
+}
@@ -0,0 +1,21 @@
+package ru.practicum.shareit.idempotency.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Column;
+import javax.persistence.Embeddable;
+import java.io.Serializable;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Embeddable
+public class IdempotencyRecordId implements Serializable {
+    @Column(name = "user_id")
+    private Long userId;
+    private String operation;
+    @Column(name = "idempotency_key")
+    private String key;
+}
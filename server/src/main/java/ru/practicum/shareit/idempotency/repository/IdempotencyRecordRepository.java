@@ -0,0 +1,20 @@
+package ru.practicum.shareit.idempotency.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import ru.practicum.shareit.idempotency.model.IdempotencyRecord;
+import ru.practicum.shareit.idempotency.model.IdempotencyRecordId;
+
+import java.time.LocalDateTime;
+
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, IdempotencyRecordId> {
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.id = :id AND r.created < :threshold")
+    int deleteExpired(@Param("id") IdempotencyRecordId id, @Param("threshold") LocalDateTime threshold);
+
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.created < :threshold")
+    int deleteCreatedBefore(@Param("threshold") LocalDateTime threshold);
+}
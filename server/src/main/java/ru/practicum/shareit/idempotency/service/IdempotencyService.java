@@ -0,0 +1,16 @@
+package ru.practicum.shareit.idempotency.service;
+
+import ru.practicum.shareit.idempotency.dto.IdempotentResponse;
+
+import java.util.function.Supplier;
+
+public interface IdempotencyService {
+    String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    /**
+     * Выполняет action один раз для ключа key пользователя userId в операции operation.
+     * Повтор с тем же ключом возвращает сохраненный ответ, не выполняя action. Без ключа action выполняется всегда.
+     */
+    IdempotentResponse execute(String key, long userId, String operation, Object request, Supplier<?> action);
+}
@@ -0,0 +1,179 @@
+package ru.practicum.shareit.idempotency.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.exception.InvalidIdempotencyKeyException;
+import ru.practicum.shareit.idempotency.dto.IdempotentResponse;
+import ru.practicum.shareit.idempotency.model.IdempotencyRecord;
+import ru.practicum.shareit.idempotency.model.IdempotencyRecordId;
+import ru.practicum.shareit.idempotency.repository.IdempotencyRecordRepository;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Ответы хранятся в таблице idempotency_keys, а недавние дополнительно в LRU-кэше в памяти.
+ * Действие и запись ответа выполняются в одной транзакции, поэтому ответ сохраняется только вместе
+ * с результатом действия. Параллельный повтор с тем же ключом нарушает первичный ключ таблицы,
+ * его транзакция откатывается, и он возвращает ответ первого запроса.
+ */
+@Slf4j
+@Service
+public class IdempotencyServiceImpl implements IdempotencyService {
+    private static final int MAX_KEY_LENGTH = 255;
+    private static final String INSERT = "INSERT INTO idempotency_keys "
+            + "(user_id, operation, idempotency_key, request_hash, response, created) "
+            + "VALUES (:userId, :operation, :key, :requestHash, :response, :created)";
+    private final IdempotencyRecordRepository idempotencyRecordRepository;
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final Duration ttl;
+    private final Map<IdempotencyRecordId, IdempotencyRecord> recent;
+
+    public IdempotencyServiceImpl(IdempotencyRecordRepository idempotencyRecordRepository,
+                                  NamedParameterJdbcTemplate jdbcTemplate,
+                                  TransactionTemplate transactionTemplate,
+                                  ObjectMapper objectMapper,
+                                  @Value("${shareit.idempotency.ttl:PT24H}") Duration ttl,
+                                  @Value("${shareit.idempotency.cache-size:10000}") int cacheSize) {
+        this.idempotencyRecordRepository = idempotencyRecordRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.ttl = ttl;
+        this.recent = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<IdempotencyRecordId, IdempotencyRecord> eldest) {
+                return size() > cacheSize;
+            }
+        });
+    }
+
+    @Override
+    public IdempotentResponse execute(String key, long userId, String operation, Object request,
+                                      Supplier<?> action) {
+        if (key == null) {
+            return new IdempotentResponse(action.get(), false);
+        }
+        throwIfKeyInvalid(key);
+        IdempotencyRecordId id = new IdempotencyRecordId(userId, operation, key);
+        String requestHash = hash(request);
+        IdempotencyRecord stored = find(id);
+        if (stored != null) {
+            return replay(stored, requestHash);
+        }
+        IdempotencyRecord record = new IdempotencyRecord(id, requestHash, null, LocalDateTime.now());
+        Object body;
+        try {
+            body = transactionTemplate.execute(status -> {
+                Object result = action.get();
+                record.setResponse(toJson(result));
+                insert(record);
+                return result;
+            });
+        } catch (DataIntegrityViolationException e) {
+            IdempotencyRecord concurrent = idempotencyRecordRepository.findById(id).orElseThrow(() -> e);
+            log.info("Запрос {} с ключом идемпотентности {} уже выполнен параллельно.", operation, key);
+            return replay(concurrent, requestHash);
+        }
+        recent.put(id, record);
+        return new IdempotentResponse(body, false);
+    }
+
+    @Scheduled(cron = "${shareit.idempotency.purge-cron:0 15 * * * *}")
+    public void purgeExpired() {
+        Integer deleted = transactionTemplate.execute(status ->
+                idempotencyRecordRepository.deleteCreatedBefore(LocalDateTime.now().minus(ttl)));
+        log.info("Удалено {} просроченных ключей идемпотентности.", deleted);
+    }
+
+    /**
+     * Просроченная запись удаляется сразу, чтобы ключ можно было использовать снова до очистки по расписанию.
+     */
+    private IdempotencyRecord find(IdempotencyRecordId id) {
+        IdempotencyRecord record = recent.get(id);
+        if (record == null) {
+            record = idempotencyRecordRepository.findById(id).orElse(null);
+        }
+        LocalDateTime threshold = LocalDateTime.now().minus(ttl);
+        if (record != null && record.getCreated().isBefore(threshold)) {
+            recent.remove(id);
+            transactionTemplate.executeWithoutResult(status ->
+                    idempotencyRecordRepository.deleteExpired(id, threshold));
+            return null;
+        }
+        if (record != null) {
+            recent.put(id, record);
+        }
+        return record;
+    }
+
+    /**
+     * В отличие от save, который для записи с заданным ключом выполняет merge, вставка нарушает первичный ключ,
+     * если тот же ключ уже сохранил параллельный запрос.
+     */
+    private void insert(IdempotencyRecord record) {
+        jdbcTemplate.update(INSERT, new MapSqlParameterSource()
+                .addValue("userId", record.getId().getUserId())
+                .addValue("operation", record.getId().getOperation())
+                .addValue("key", record.getId().getKey())
+                .addValue("requestHash", record.getRequestHash())
+                .addValue("response", record.getResponse())
+                .addValue("created", record.getCreated()));
+    }
+
+    private IdempotentResponse replay(IdempotencyRecord record, String requestHash) {
+        if (!record.getRequestHash().equals(requestHash)) {
+            throw new InvalidIdempotencyKeyException(String.format("Ключ идемпотентности %s уже использован "
+                    + "для другого запроса.", record.getId().getKey()));
+        }
+        try {
+            return new IdempotentResponse(objectMapper.readTree(record.getResponse()), true);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Сохраненный ответ не является JSON.", e);
+        }
+    }
+
+    private void throwIfKeyInvalid(String key) {
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new InvalidIdempotencyKeyException(String.format("Ключ идемпотентности должен быть непустым "
+                    + "и не длиннее %d символов.", MAX_KEY_LENGTH));
+        }
+    }
+
+    private String toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Не удалось сохранить ответ в JSON.", e);
+        }
+    }
+
+    private String hash(Object request) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(objectMapper.writeValueAsBytes(request));
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException | JsonProcessingException e) {
+            throw new IllegalStateException("Не удалось вычислить отпечаток запроса.", e);
+        }
+    }
+}
@@ -2,13 +2,20 @@ package ru.practicum.shareit.item.controller;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import ru.practicum.shareit.idempotency.dto.IdempotentResponse;
+import ru.practicum.shareit.idempotency.service.IdempotencyService;
 import ru.practicum.shareit.item.dto.comment.CommentDto;
 import ru.practicum.shareit.item.dto.comment.IncomingCommentDto;
 import ru.practicum.shareit.item.dto.item.AdvancedItemDto;
+import ru.practicum.shareit.item.dto.item.ItemAvailabilityDto;
 import ru.practicum.shareit.item.dto.item.ItemDto;
+import ru.practicum.shareit.item.dto.item.OwnerUtilizationDto;
 import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.item.service.ItemUtilizationService;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -21,6 +28,8 @@ import static ru.practicum.shareit.util.Logging.logInfoIncomingRequest;
 @RequestMapping(path = "/items")
 public class ItemController {
     private final ItemService itemService;
+    private final ItemUtilizationService itemUtilizationService;
+    private final IdempotencyService idempotencyService;
 
     @GetMapping
     public List<AdvancedItemDto> findAllByOwner(@RequestHeader("X-Sharer-User-Id") long ownerId,
@@ -36,6 +45,26 @@ public class ItemController {
         return itemService.retrieve(id, requesterId);
     }
 
+    @GetMapping("/{id}/availability")
+    public ItemAvailabilityDto getAvailability(@PathVariable long id,
+                                               @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+                                               LocalDateTime from,
+                                               @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+                                               LocalDateTime to) {
+        logInfoIncomingRequest(log, "GET /items/{id}/availability", id, from, to);
+        return itemService.getAvailability(id, from, to);
+    }
+
+    @GetMapping("/owner/stats")
+    public OwnerUtilizationDto getOwnerUtilization(@RequestHeader("X-Sharer-User-Id") long ownerId,
+                                                   @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+                                                   LocalDateTime from,
+                                                   @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+                                                   LocalDateTime to) {
+        logInfoIncomingRequest(log, "GET /items/owner/stats", ownerId, from, to);
+        return itemUtilizationService.getOwnerUtilization(ownerId, from, to);
+    }
+
     @GetMapping("/search")
     public List<ItemDto> searchByText(@RequestParam String text,
                                       @RequestParam(defaultValue = "0") int from,
@@ -45,11 +74,16 @@ public class ItemController {
     }
 
     @PostMapping
-    @ResponseStatus(HttpStatus.CREATED)
-    public ItemDto create(@RequestBody ItemDto itemDto, @RequestHeader("X-Sharer-User-Id") long ownerId) {
+    public ResponseEntity<Object> create(@RequestBody ItemDto itemDto, @RequestHeader("X-Sharer-User-Id") long ownerId,
+                                         @RequestHeader(value = IdempotencyService.IDEMPOTENCY_KEY_HEADER,
+                                                 required = false) String idempotencyKey) {
         logInfoIncomingRequest(log, "POST /items", ownerId, itemDto);
         itemDto.setOwnerId(ownerId);
-        return itemService.create(itemDto);
+        IdempotentResponse response = idempotencyService.execute(idempotencyKey, ownerId, "POST /items", itemDto,
+                () -> itemService.create(itemDto));
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .header(IdempotencyService.REPLAYED_HEADER, String.valueOf(response.isReplayed()))
+                .body(response.getBody());
     }
 
     @PostMapping("/{itemId}/comment")
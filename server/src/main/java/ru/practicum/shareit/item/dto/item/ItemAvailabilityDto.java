@@ -0,0 +1,27 @@
+package ru.practicum.shareit.item.dto.item;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ItemAvailabilityDto {
+    private Long itemId;
+    private LocalDateTime from;
+    private LocalDateTime to;
+    private List<Slot> busy;
+    private List<Slot> free;
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Slot {
+        private LocalDateTime start;
+        private LocalDateTime end;
+    }
+}
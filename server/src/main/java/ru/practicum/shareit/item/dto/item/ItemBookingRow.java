@@ -0,0 +1,23 @@
+package ru.practicum.shareit.item.dto.item;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import ru.practicum.shareit.booking.model.BookingStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * Бронирование вещи в объеме, нужном для подсчета ее загрузки. created равно null, если время создания
+ * бронирования неизвестно.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ItemBookingRow {
+    private Long itemId;
+    private LocalDateTime start;
+    private LocalDateTime end;
+    private BookingStatus status;
+    private LocalDateTime created;
+}
@@ -0,0 +1,13 @@
+package ru.practicum.shareit.item.dto.item;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ItemOwnership {
+    private Long itemId;
+    private Long ownerId;
+}
@@ -0,0 +1,30 @@
+package ru.practicum.shareit.item.dto.item;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Загрузка вещи за период. bookedHours - часы подтвержденных бронирований внутри периода,
+ * utilization - их доля от calendarHours. approvalRate считается по решенным бронированиям
+ * (подтвержденным и отклоненным) и равен null, если решений не было. averageLeadTimeHours - среднее время
+ * от создания бронирования до его начала, null - если время создания неизвестно ни для одного бронирования.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ItemUtilizationDto {
+    private Long itemId;
+    private String itemName;
+    private long bookings;
+    private double bookedHours;
+    private double calendarHours;
+    private double utilization;
+    private Double approvalRate;
+    private Double averageLeadTimeHours;
+
+    public ItemUtilizationDto(Long itemId, String itemName) {
+        this.itemId = itemId;
+        this.itemName = itemName;
+    }
+}
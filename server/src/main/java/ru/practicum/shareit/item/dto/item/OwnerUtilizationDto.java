@@ -0,0 +1,18 @@
+package ru.practicum.shareit.item.dto.item;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class OwnerUtilizationDto {
+    private Long ownerId;
+    private LocalDateTime from;
+    private LocalDateTime to;
+    private List<ItemUtilizationDto> items;
+}
@@ -0,0 +1,34 @@
+package ru.practicum.shareit.item.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Публикуется внутри транзакции создания, изменения или удаления вещи.
+ * Для удаленной вещи заполнены только itemId и type.
+ */
+@Data
+@AllArgsConstructor
+public class ItemChangedEvent {
+    private Long itemId;
+    private Long ownerId;
+    private String name;
+    private String description;
+    private Boolean available;
+    private Type type;
+
+    public enum Type {
+        CREATED,
+        UPDATED,
+        DELETED
+    }
+
+    public static ItemChangedEvent of(Item item, Type type) {
+        return new ItemChangedEvent(item.getId(), item.getOwner().getId(), item.getName(), item.getDescription(),
+                item.getAvailable(), type);
+    }
+
+    public static ItemChangedEvent deleted(long itemId) {
+        return new ItemChangedEvent(itemId, null, null, null, null, Type.DELETED);
+    }
+}
@@ -3,8 +3,12 @@ package ru.practicum.shareit.item.repository;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import ru.practicum.shareit.item.dto.item.ItemOwnership;
+import ru.practicum.shareit.item.dto.item.ItemUtilizationDto;
 import ru.practicum.shareit.item.model.Item;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface ItemRepository extends JpaRepository<Item, Long> {
@@ -16,4 +20,15 @@ public interface ItemRepository extends JpaRepository<Item, Long> {
             + "AND (UPPER(i.name) LIKE UPPER(?1) "
             + "OR UPPER(i.description) LIKE UPPER(?1))")
     List<Item> findByText(String text, PageRequest pageRequest);
+
+    @Query("SELECT new ru.practicum.shareit.item.dto.item.ItemOwnership(i.id, i.owner.id) "
+            + "FROM Item i "
+            + "WHERE i.id IN :ids")
+    List<ItemOwnership> findOwnershipByIds(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT new ru.practicum.shareit.item.dto.item.ItemUtilizationDto(i.id, i.name) "
+            + "FROM Item i "
+            + "WHERE i.owner.id = :ownerId "
+            + "ORDER BY i.id")
+    List<ItemUtilizationDto> findUtilizationSeedsByOwnerId(@Param("ownerId") long ownerId);
 }
@@ -0,0 +1,45 @@
+package ru.practicum.shareit.item.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.item.dto.item.ItemBookingRow;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.function.Consumer;
+
+/**
+ * Бронирования вещей, пересекающиеся с периодом, из bookings и bookings_archive. Строки передаются
+ * обработчику по мере чтения из результата запроса и не собираются в список.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ItemUtilizationRepository {
+    private static final String SELECT_OVERLAPPING = "SELECT item_id, start, ending, status, created "
+            + "FROM %s "
+            + "WHERE item_id IN (:itemIds) AND start < :to AND ending > :from";
+    private static final String SELECT = String.format(SELECT_OVERLAPPING, "bookings")
+            + " UNION ALL " + String.format(SELECT_OVERLAPPING, "bookings_archive");
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public void streamOverlapping(Collection<Long> itemIds, LocalDateTime from, LocalDateTime to,
+                                  Consumer<ItemBookingRow> consumer) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("itemIds", itemIds)
+                .addValue("from", Timestamp.valueOf(from))
+                .addValue("to", Timestamp.valueOf(to));
+        jdbcTemplate.query(SELECT, params, rs -> {
+            Timestamp created = rs.getTimestamp("created");
+            consumer.accept(new ItemBookingRow(
+                    rs.getLong("item_id"),
+                    rs.getTimestamp("start").toLocalDateTime(),
+                    rs.getTimestamp("ending").toLocalDateTime(),
+                    BookingStatus.valueOf(rs.getString("status")),
+                    created == null ? null : created.toLocalDateTime()));
+        });
+    }
+}
@@ -0,0 +1,77 @@
+package ru.practicum.shareit.item.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.practicum.shareit.booking.model.BookingChangedEvent;
+import ru.practicum.shareit.item.dto.item.ItemAvailabilityDto;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Кэш календаря занятости предметов с коротким временем жизни.
+ * Сбрасывается для предмета после фиксации транзакции, изменившей его бронирования.
+ * Версия предмета защищает от записи в кэш результата, вычисленного до сброса.
+ */
+@Component
+public class ItemAvailabilityCache {
+    private static final int MAX_WINDOWS_PER_ITEM = 16;
+    private final Map<Long, Map<Window, Entry>> entriesByItem = new ConcurrentHashMap<>();
+    private final Map<Long, Long> versions = new ConcurrentHashMap<>();
+    private final long ttlNanos;
+
+    public ItemAvailabilityCache(@Value("${shareit.items.availability.cache-ttl:PT30S}") Duration ttl) {
+        this.ttlNanos = ttl.toNanos();
+    }
+
+    public ItemAvailabilityDto get(long itemId, LocalDateTime from, LocalDateTime to,
+                                   Supplier<ItemAvailabilityDto> loader) {
+        Window window = new Window(from, to);
+        long version = versions.getOrDefault(itemId, 0L);
+        Entry cached = entriesByItem.getOrDefault(itemId, Map.of()).get(window);
+        long now = System.nanoTime();
+        if (cached != null && cached.getVersion() == version && now - cached.getExpiresAt() < 0) {
+            return cached.getAvailability();
+        }
+        ItemAvailabilityDto availability = loader.get();
+        if (versions.getOrDefault(itemId, 0L) == version) {
+            Map<Window, Entry> windows = entriesByItem.computeIfAbsent(itemId, id -> new ConcurrentHashMap<>());
+            if (windows.size() >= MAX_WINDOWS_PER_ITEM) {
+                windows.clear();
+            }
+            windows.put(window, new Entry(availability, version, now + ttlNanos));
+        }
+        return availability;
+    }
+
+    public void invalidate(long itemId) {
+        versions.merge(itemId, 1L, Long::sum);
+        entriesByItem.remove(itemId);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookingChanged(BookingChangedEvent event) {
+        invalidate(event.getItemId());
+    }
+
+    @Data
+    @AllArgsConstructor
+    private static class Window {
+        private final LocalDateTime from;
+        private final LocalDateTime to;
+    }
+
+    @Data
+    @AllArgsConstructor
+    private static class Entry {
+        private final ItemAvailabilityDto availability;
+        private final long version;
+        private final long expiresAt;
+    }
+}
@@ -3,11 +3,13 @@ package ru.practicum.shareit.item.service;
 import ru.practicum.shareit.item.dto.comment.CommentDto;
 import ru.practicum.shareit.item.dto.comment.IncomingCommentDto;
 import ru.practicum.shareit.item.dto.item.AdvancedItemDto;
+import ru.practicum.shareit.item.dto.item.ItemAvailabilityDto;
 import ru.practicum.shareit.item.dto.item.ItemDto;
 import ru.practicum.shareit.item.model.Item;
 
 import javax.validation.Valid;
 import javax.validation.constraints.NotNull;
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface ItemService {
@@ -21,6 +23,8 @@ public interface ItemService {
 
     ItemDto retrieve(long id, long requesterId);
 
+    ItemAvailabilityDto getAvailability(long id, LocalDateTime from, LocalDateTime to);
+
     ItemDto update(ItemDto itemDto);
 
     void delete(long id);
@@ -2,16 +2,19 @@ package ru.practicum.shareit.item.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.validation.annotation.Validated;
 import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingInterval;
 import ru.practicum.shareit.booking.dto.BookingMapper;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.model.BookingStatus;
 import ru.practicum.shareit.booking.repository.BookingRepository;
 import ru.practicum.shareit.exception.alreadyExists.ItemAlreadyExistsException;
 import ru.practicum.shareit.exception.mismatch.OwnerMismatchException;
+import ru.practicum.shareit.exception.mismatch.TimeMismatchException;
 import ru.practicum.shareit.exception.notFound.BookingForCommentNotFoundException;
 import ru.practicum.shareit.exception.notFound.ItemNotFoundException;
 import ru.practicum.shareit.exception.notFound.UserNotFoundException;
@@ -19,10 +22,12 @@ import ru.practicum.shareit.item.dto.comment.CommentDto;
 import ru.practicum.shareit.item.dto.comment.CommentMapper;
 import ru.practicum.shareit.item.dto.comment.IncomingCommentDto;
 import ru.practicum.shareit.item.dto.item.AdvancedItemDto;
+import ru.practicum.shareit.item.dto.item.ItemAvailabilityDto;
 import ru.practicum.shareit.item.dto.item.ItemDto;
 import ru.practicum.shareit.item.dto.item.ItemMapper;
 import ru.practicum.shareit.item.model.Comment;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.model.ItemChangedEvent;
 import ru.practicum.shareit.item.repository.CommentRepository;
 import ru.practicum.shareit.item.repository.ItemRepository;
 import ru.practicum.shareit.request.model.ItemRequest;
@@ -31,7 +36,9 @@ import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.service.UserService;
 import ru.practicum.shareit.util.PaginationInfo;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
@@ -42,6 +49,9 @@ import java.util.stream.Collectors;
 @Slf4j
 @RequiredArgsConstructor
 public class ItemServiceImpl implements ItemService {
+    private static final List<BookingStatus> OCCUPYING_STATUSES = List.of(BookingStatus.APPROVED,
+            BookingStatus.WAITING);
+    private static final Duration MAX_AVAILABILITY_WINDOW = Duration.ofDays(366);
     private final ItemRepository itemRepository;
     private final UserService userService;
     private final ItemMapper itemMapper;
@@ -50,6 +60,8 @@ public class ItemServiceImpl implements ItemService {
     private final CommentMapper commentMapper;
     private final CommentRepository commentRepository;
     private final ItemRequestService itemRequestService;
+    private final ItemAvailabilityCache itemAvailabilityCache;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Transactional
     @Override
@@ -57,7 +69,9 @@ public class ItemServiceImpl implements ItemService {
         Item itemFromDto = mapItemFromDto(itemDto);
         throwIfRepositoryContains(itemFromDto.getId());
         userService.throwIfRepositoryNotContains(itemFromDto.getOwner().getId());
-        return itemMapper.itemToDto(itemRepository.save(itemFromDto));
+        Item saved = itemRepository.save(itemFromDto);
+        eventPublisher.publishEvent(ItemChangedEvent.of(saved, ItemChangedEvent.Type.CREATED));
+        return itemMapper.itemToDto(saved);
     }
 
     @Transactional
@@ -109,13 +123,27 @@ public class ItemServiceImpl implements ItemService {
         }
     }
 
+    @Transactional(readOnly = true)
+    @Override
+    public ItemAvailabilityDto getAvailability(long id, LocalDateTime from, LocalDateTime to) {
+        throwIfAvailabilityWindowInvalid(from, to);
+        return itemAvailabilityCache.get(id, from, to, () -> {
+            throwIfRepositoryNotContains(id);
+            List<ItemAvailabilityDto.Slot> busy = mergeIntervals(
+                    bookingRepository.findIntervalsByItemOverlapping(id, OCCUPYING_STATUSES, from, to), from, to);
+            return new ItemAvailabilityDto(id, from, to, busy, complementSlots(busy, from, to));
+        });
+    }
+
     @Transactional
     @Override
     public ItemDto update(ItemDto itemDto) {
         Item itemToUpdate = findByIdOrThrow(itemDto.getId());
         throwIfOwnerMismatched(itemToUpdate.getOwner().getId(), itemDto.getOwnerId());
         mergeDtoIntoExistingItem(itemDto, itemToUpdate);
-        return itemMapper.itemToDto(itemRepository.save(itemToUpdate));
+        Item saved = itemRepository.save(itemToUpdate);
+        eventPublisher.publishEvent(ItemChangedEvent.of(saved, ItemChangedEvent.Type.UPDATED));
+        return itemMapper.itemToDto(saved);
     }
 
     @Transactional
@@ -123,6 +151,7 @@ public class ItemServiceImpl implements ItemService {
     public void delete(long id) {
         throwIfRepositoryNotContains(id);
         itemRepository.deleteById(id);
+        eventPublisher.publishEvent(ItemChangedEvent.deleted(id));
     }
 
     @Override
@@ -137,6 +166,54 @@ public class ItemServiceImpl implements ItemService {
         }
     }
 
+    private void throwIfAvailabilityWindowInvalid(LocalDateTime from, LocalDateTime to) {
+        if (!from.isBefore(to)) {
+            throw new TimeMismatchException("Начало периода должно быть раньше его окончания.");
+        }
+        if (Duration.between(from, to).compareTo(MAX_AVAILABILITY_WINDOW) > 0) {
+            throw new TimeMismatchException("Период не может превышать " + MAX_AVAILABILITY_WINDOW.toDays()
+                    + " дней.");
+        }
+    }
+
+    /**
+     * Склеивает отсортированные по началу интервалы, обрезая их границами периода.
+     */
+    private List<ItemAvailabilityDto.Slot> mergeIntervals(List<BookingInterval> intervals,
+                                                          LocalDateTime from, LocalDateTime to) {
+        List<ItemAvailabilityDto.Slot> merged = new ArrayList<>();
+        ItemAvailabilityDto.Slot last = null;
+        for (BookingInterval interval : intervals) {
+            LocalDateTime start = interval.getStart().isBefore(from) ? from : interval.getStart();
+            LocalDateTime end = interval.getEnd().isAfter(to) ? to : interval.getEnd();
+            if (last != null && !start.isAfter(last.getEnd())) {
+                if (end.isAfter(last.getEnd())) {
+                    last.setEnd(end);
+                }
+            } else {
+                last = new ItemAvailabilityDto.Slot(start, end);
+                merged.add(last);
+            }
+        }
+        return merged;
+    }
+
+    private List<ItemAvailabilityDto.Slot> complementSlots(List<ItemAvailabilityDto.Slot> busy,
+                                                           LocalDateTime from, LocalDateTime to) {
+        List<ItemAvailabilityDto.Slot> free = new ArrayList<>();
+        LocalDateTime cursor = from;
+        for (ItemAvailabilityDto.Slot slot : busy) {
+            if (slot.getStart().isAfter(cursor)) {
+                free.add(new ItemAvailabilityDto.Slot(cursor, slot.getStart()));
+            }
+            cursor = slot.getEnd();
+        }
+        if (cursor.isBefore(to)) {
+            free.add(new ItemAvailabilityDto.Slot(cursor, to));
+        }
+        return free;
+    }
+
     private void throwIfRepositoryContains(long id) {
         if (itemRepository.existsById(id)) {
             throw new ItemAlreadyExistsException("Предмет с id = " + id + " уже существует. "
@@ -0,0 +1,9 @@
+package ru.practicum.shareit.item.service;
+
+import ru.practicum.shareit.item.dto.item.OwnerUtilizationDto;
+
+import java.time.LocalDateTime;
+
+public interface ItemUtilizationService {
+    OwnerUtilizationDto getOwnerUtilization(long ownerId, LocalDateTime from, LocalDateTime to);
+}
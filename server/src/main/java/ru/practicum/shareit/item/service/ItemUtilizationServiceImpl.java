@@ -0,0 +1,153 @@
+package ru.practicum.shareit.item.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.exception.mismatch.TimeMismatchException;
+import ru.practicum.shareit.item.dto.item.ItemBookingRow;
+import ru.practicum.shareit.item.dto.item.ItemUtilizationDto;
+import ru.practicum.shareit.item.dto.item.OwnerUtilizationDto;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.repository.ItemUtilizationRepository;
+import ru.practicum.shareit.user.service.UserService;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Загрузка вещей владельца считается на сервере, без выдачи бронирований клиенту. Вещи владельца берутся
+ * в порядке id и делятся пополам, пока в части не останется не больше chunkSize вещей. Части считаются
+ * в отдельном fork-join пуле: бронирования части читаются одним запросом и сразу сворачиваются в итоги
+ * по вещам, поэтому память занимают только итоги. Части не пересекаются по вещам, и каждая заполняет
+ * только свои строки результата. Каждый запрос части идет в своем соединении, поэтому parallelism не должен
+ * превышать размер пула соединений.
+ */
+@Slf4j
+@Service
+public class ItemUtilizationServiceImpl implements ItemUtilizationService {
+    private static final double SECONDS_PER_HOUR = 3600.0;
+    private final ItemRepository itemRepository;
+    private final ItemUtilizationRepository itemUtilizationRepository;
+    private final UserService userService;
+    private final OwnerUtilizationCache ownerUtilizationCache;
+    private final ForkJoinPool pool;
+    private final int chunkSize;
+
+    public ItemUtilizationServiceImpl(ItemRepository itemRepository,
+                                      ItemUtilizationRepository itemUtilizationRepository,
+                                      UserService userService,
+                                      OwnerUtilizationCache ownerUtilizationCache,
+                                      @Value("${shareit.items.stats.parallelism:4}") int parallelism,
+                                      @Value("${shareit.items.stats.chunk-size:200}") int chunkSize) {
+        this.itemRepository = itemRepository;
+        this.itemUtilizationRepository = itemUtilizationRepository;
+        this.userService = userService;
+        this.ownerUtilizationCache = ownerUtilizationCache;
+        this.pool = new ForkJoinPool(parallelism);
+        this.chunkSize = chunkSize;
+    }
+
+    @Override
+    public OwnerUtilizationDto getOwnerUtilization(long ownerId, LocalDateTime from, LocalDateTime to) {
+        if (!from.isBefore(to)) {
+            throw new TimeMismatchException("Начало периода должно быть раньше его окончания.");
+        }
+        userService.throwIfRepositoryNotContains(ownerId);
+        return ownerUtilizationCache.get(ownerId, from, to, () -> compute(ownerId, from, to));
+    }
+
+    private OwnerUtilizationDto compute(long ownerId, LocalDateTime from, LocalDateTime to) {
+        List<ItemUtilizationDto> items = itemRepository.findUtilizationSeedsByOwnerId(ownerId);
+        pool.invoke(new ChunkTask(items, from, to));
+        log.info("Посчитана загрузка {} вещей владельца с id = {} за период с {} по {}.", items.size(), ownerId,
+                from, to);
+        return new OwnerUtilizationDto(ownerId, from, to, items);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    private void aggregate(List<ItemUtilizationDto> items, LocalDateTime from, LocalDateTime to) {
+        Map<Long, Totals> totals = new HashMap<>();
+        items.forEach(item -> totals.put(item.getItemId(), new Totals()));
+        itemUtilizationRepository.streamOverlapping(totals.keySet(), from, to,
+                row -> totals.get(row.getItemId()).add(row, from, to));
+        double calendarHours = Duration.between(from, to).getSeconds() / SECONDS_PER_HOUR;
+        for (ItemUtilizationDto item : items) {
+            totals.get(item.getItemId()).fill(item, calendarHours);
+        }
+    }
+
+    private class ChunkTask extends RecursiveAction {
+        private final List<ItemUtilizationDto> items;
+        private final LocalDateTime from;
+        private final LocalDateTime to;
+
+        private ChunkTask(List<ItemUtilizationDto> items, LocalDateTime from, LocalDateTime to) {
+            this.items = items;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (items.size() <= chunkSize) {
+                if (!items.isEmpty()) {
+                    aggregate(items, from, to);
+                }
+                return;
+            }
+            int middle = items.size() / 2;
+            invokeAll(new ChunkTask(items.subList(0, middle), from, to),
+                    new ChunkTask(items.subList(middle, items.size()), from, to));
+        }
+    }
+
+    /**
+     * Итоги одной вещи. Подтвержденные бронирования вещи не пересекаются (это гарантирует ограничение в базе),
+     * поэтому их часы внутри периода просто складываются.
+     */
+    private static class Totals {
+        private long bookings;
+        private long bookedSeconds;
+        private long approved;
+        private long rejected;
+        private long leadTimeSeconds;
+        private long leadTimeSamples;
+
+        private void add(ItemBookingRow row, LocalDateTime from, LocalDateTime to) {
+            bookings++;
+            if (row.getStatus() == BookingStatus.APPROVED) {
+                approved++;
+                LocalDateTime start = row.getStart().isBefore(from) ? from : row.getStart();
+                LocalDateTime end = row.getEnd().isAfter(to) ? to : row.getEnd();
+                bookedSeconds += Duration.between(start, end).getSeconds();
+            } else if (row.getStatus() == BookingStatus.REJECTED) {
+                rejected++;
+            }
+            if (row.getCreated() != null) {
+                leadTimeSeconds += Math.max(0, Duration.between(row.getCreated(), row.getStart()).getSeconds());
+                leadTimeSamples++;
+            }
+        }
+
+        private void fill(ItemUtilizationDto item, double calendarHours) {
+            item.setBookings(bookings);
+            item.setBookedHours(bookedSeconds / SECONDS_PER_HOUR);
+            item.setCalendarHours(calendarHours);
+            item.setUtilization(item.getBookedHours() / calendarHours);
+            item.setApprovalRate(approved + rejected == 0 ? null : (double) approved / (approved + rejected));
+            item.setAverageLeadTimeHours(leadTimeSamples == 0 ? null
+                    : leadTimeSeconds / SECONDS_PER_HOUR / leadTimeSamples);
+        }
+    }
+}
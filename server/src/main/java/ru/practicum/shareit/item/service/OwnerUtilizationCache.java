@@ -0,0 +1,101 @@
+package ru.practicum.shareit.item.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.practicum.shareit.booking.model.BookingChangedEvent;
+import ru.practicum.shareit.item.dto.item.OwnerUtilizationDto;
+import ru.practicum.shareit.item.model.ItemChangedEvent;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Кэш загрузки вещей владельца по периодам. Сбрасывается для владельца после фиксации транзакции,
+ * изменившей его вещи или их бронирования. Если владелец события неизвестен (удаление вещи, импорт),
+ * сбрасывается весь кэш. Версии владельца и всего кэша защищают от записи результата, вычисленного до сброса.
+ */
+@Component
+public class OwnerUtilizationCache {
+    private static final int MAX_WINDOWS_PER_OWNER = 16;
+    private final Map<Long, Map<Window, Entry>> entriesByOwner = new ConcurrentHashMap<>();
+    private final Map<Long, Long> versions = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+    private final long ttlNanos;
+
+    public OwnerUtilizationCache(@Value("${shareit.items.stats.cache-ttl:PT5M}") Duration ttl) {
+        this.ttlNanos = ttl.toNanos();
+    }
+
+    public OwnerUtilizationDto get(long ownerId, LocalDateTime from, LocalDateTime to,
+                                   Supplier<OwnerUtilizationDto> loader) {
+        Window window = new Window(from, to);
+        long generationBefore = generation.get();
+        long version = versions.getOrDefault(ownerId, 0L);
+        Entry cached = entriesByOwner.getOrDefault(ownerId, Map.of()).get(window);
+        long now = System.nanoTime();
+        if (cached != null && cached.getVersion() == version && cached.getGeneration() == generationBefore
+                && now - cached.getExpiresAt() < 0) {
+            return cached.getUtilization();
+        }
+        OwnerUtilizationDto utilization = loader.get();
+        if (versions.getOrDefault(ownerId, 0L) == version && generation.get() == generationBefore) {
+            Map<Window, Entry> windows = entriesByOwner.computeIfAbsent(ownerId, id -> new ConcurrentHashMap<>());
+            if (windows.size() >= MAX_WINDOWS_PER_OWNER) {
+                windows.clear();
+            }
+            windows.put(window, new Entry(utilization, version, generationBefore, now + ttlNanos));
+        }
+        return utilization;
+    }
+
+    public void invalidate(long ownerId) {
+        versions.merge(ownerId, 1L, Long::sum);
+        entriesByOwner.remove(ownerId);
+    }
+
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        entriesByOwner.clear();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookingChanged(BookingChangedEvent event) {
+        invalidateOwnerOrAll(event.getItemOwnerId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onItemChanged(ItemChangedEvent event) {
+        invalidateOwnerOrAll(event.getOwnerId());
+    }
+
+    private void invalidateOwnerOrAll(Long ownerId) {
+        if (ownerId == null) {
+            invalidateAll();
+        } else {
+            invalidate(ownerId);
+        }
+    }
+
+    @Data
+    @AllArgsConstructor
+    private static class Window {
+        private final LocalDateTime from;
+        private final LocalDateTime to;
+    }
+
+    @Data
+    @AllArgsConstructor
+    private static class Entry {
+        private final OwnerUtilizationDto utilization;
+        private final long version;
+        private final long generation;
+        private final long expiresAt;
+    }
+}
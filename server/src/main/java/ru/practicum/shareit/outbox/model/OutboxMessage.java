@@ -0,0 +1,23 @@
+package ru.practicum.shareit.outbox.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Событие предметной области, записанное в таблицу outbox в транзакции изменения.
+ * payload - событие в JSON, aggregateType и aggregateId - чье это событие (booking, item),
+ * attempts - число неудачных попыток доставки.
+ */
+@Data
+@AllArgsConstructor
+public class OutboxMessage {
+    private Long id;
+    private String aggregateType;
+    private Long aggregateId;
+    private String eventType;
+    private String payload;
+    private LocalDateTime created;
+    private int attempts;
+}
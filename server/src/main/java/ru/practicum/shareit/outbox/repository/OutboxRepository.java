@@ -0,0 +1,88 @@
+package ru.practicum.shareit.outbox.repository;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import ru.practicum.shareit.outbox.model.OutboxMessage;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Работает с outbox через JDBC: выборка пачки с FOR UPDATE SKIP LOCKED в JPQL не выражается.
+ * H2 (профили ci, test) не поддерживает SKIP LOCKED и работает на одном узле, поэтому там пачка
+ * блокируется обычным FOR UPDATE.
+ * Сообщение со статусом DEAD больше не выбирается и остается в таблице для разбора.
+ */
+@Repository
+public class OutboxRepository {
+    private static final String INSERT = "INSERT INTO outbox (aggregate_type, aggregate_id, event_type, payload, "
+            + "created, available_at) VALUES (:aggregateType, :aggregateId, :eventType, :payload, :created, :created)";
+    private static final String LOCK_BATCH = "SELECT id, aggregate_type, aggregate_id, event_type, payload, created, "
+            + "attempts "
+            + "FROM outbox "
+            + "WHERE status = 'PENDING' AND available_at <= :now "
+            + "ORDER BY id "
+            + "LIMIT :limit "
+            + "FOR UPDATE";
+    private static final String SKIP_LOCKED = " SKIP LOCKED";
+    private static final String CLAIM = "UPDATE outbox SET available_at = :claimedUntil WHERE id IN (:ids)";
+    private static final String RECORD_FAILURE = "UPDATE outbox SET attempts = attempts + 1, "
+            + "status = CASE WHEN attempts + 1 >= :maxAttempts THEN 'DEAD' ELSE status END "
+            + "WHERE id = :id";
+    private static final String DELETE = "DELETE FROM outbox WHERE id IN (:ids)";
+    private static final RowMapper<OutboxMessage> ROW_MAPPER = (rs, rowNum) -> new OutboxMessage(
+            rs.getLong("id"), rs.getString("aggregate_type"), rs.getLong("aggregate_id"),
+            rs.getString("event_type"), rs.getString("payload"), rs.getTimestamp("created").toLocalDateTime(),
+            rs.getInt("attempts"));
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final String lockBatch;
+
+    public OutboxRepository(NamedParameterJdbcTemplate jdbcTemplate,
+                            @Value("${spring.sql.init.platform:postgresql}") String platform) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.lockBatch = "h2".equals(platform) ? LOCK_BATCH : LOCK_BATCH + SKIP_LOCKED;
+    }
+
+    public void save(OutboxMessage message) {
+        jdbcTemplate.update(INSERT, new MapSqlParameterSource()
+                .addValue("aggregateType", message.getAggregateType())
+                .addValue("aggregateId", message.getAggregateId())
+                .addValue("eventType", message.getEventType())
+                .addValue("payload", message.getPayload())
+                .addValue("created", message.getCreated()));
+    }
+
+    /**
+     * Забирает до limit самых старых доступных сообщений: откладывает их до claimedUntil, чтобы после фиксации
+     * транзакции их не выбрал другой узел. Сообщения, заблокированные другим узлом, пропускаются, поэтому
+     * диспетчеры нескольких узлов разбирают очередь без ожидания друг друга. Если узел не удалил и не вернул
+     * сообщение до claimedUntil, оно снова становится доступным.
+     */
+    public List<OutboxMessage> claimBatch(int limit, LocalDateTime now, LocalDateTime claimedUntil) {
+        List<OutboxMessage> batch = jdbcTemplate.query(lockBatch, Map.of("limit", limit, "now", now), ROW_MAPPER);
+        if (!batch.isEmpty()) {
+            jdbcTemplate.update(CLAIM, Map.of("claimedUntil", claimedUntil, "ids", batch.stream()
+                    .map(OutboxMessage::getId)
+                    .collect(Collectors.toList())));
+        }
+        return batch;
+    }
+
+    /**
+     * Увеличивает число попыток; сообщение, исчерпавшее maxAttempts, получает статус DEAD.
+     * Повтор остальных начинается, когда истечет срок, до которого они были забраны.
+     */
+    public void recordFailure(long id, int maxAttempts) {
+        jdbcTemplate.update(RECORD_FAILURE, Map.of("id", id, "maxAttempts", maxAttempts));
+    }
+
+    public int deleteByIds(Collection<Long> ids) {
+        return jdbcTemplate.update(DELETE, Map.of("ids", ids));
+    }
+}
@@ -0,0 +1,20 @@
+package ru.practicum.shareit.outbox.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.outbox.model.OutboxMessage;
+
+/**
+ * Передает сообщения слушателям внутри приложения: достаточно объявить @EventListener с параметром OutboxMessage.
+ */
+@Component
+@RequiredArgsConstructor
+public class ApplicationEventOutboxSink implements OutboxSink {
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Override
+    public void publish(OutboxMessage message) {
+        eventPublisher.publishEvent(message);
+    }
+}
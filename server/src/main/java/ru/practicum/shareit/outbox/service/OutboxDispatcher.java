@@ -0,0 +1,130 @@
+package ru.practicum.shareit.outbox.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.outbox.model.OutboxMessage;
+import ru.practicum.shareit.outbox.repository.OutboxRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Разбирает outbox пачками по batchSize. Пачка забирается короткой транзакцией с SKIP LOCKED на срок claimTimeout,
+ * передается получателям уже без транзакции и блокировок, затем доставленные сообщения удаляются.
+ * Упавшее сообщение не задерживает остальные: у него растет число попыток, и оно повторяется после claimTimeout,
+ * а после maxAttempts неудач получает статус DEAD и больше не выбирается.
+ * Несколько узлов разбирают очередь параллельно, не получая одних и тех же сообщений.
+ * Метрики: shareit.outbox.dispatched - число доставленных сообщений (пропускная способность),
+ * shareit.outbox.failed - неудачные попытки доставки, shareit.outbox.dead - сообщения, переведенные в DEAD,
+ * shareit.outbox.lag - возраст самого старого сообщения последней пачки в секундах,
+ * shareit.outbox.batch - время доставки пачки.
+ */
+@Slf4j
+@Component
+public class OutboxDispatcher {
+    private final OutboxRepository outboxRepository;
+    private final List<OutboxSink> sinks;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final Duration claimTimeout;
+    private final Counter dispatched;
+    private final Counter failed;
+    private final Counter dead;
+    private final Timer batchTimer;
+    private final AtomicLong lagMillis = new AtomicLong();
+
+    public OutboxDispatcher(OutboxRepository outboxRepository,
+                            List<OutboxSink> sinks,
+                            TransactionTemplate transactionTemplate,
+                            MeterRegistry meterRegistry,
+                            @Value("${shareit.outbox.batch-size:500}") int batchSize,
+                            @Value("${shareit.outbox.max-attempts:10}") int maxAttempts,
+                            @Value("${shareit.outbox.claim-timeout:PT1M}") Duration claimTimeout) {
+        this.outboxRepository = outboxRepository;
+        this.sinks = sinks;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.claimTimeout = claimTimeout;
+        this.dispatched = Counter.builder("shareit.outbox.dispatched")
+                .description("Сообщения outbox, переданные получателям")
+                .register(meterRegistry);
+        this.failed = Counter.builder("shareit.outbox.failed")
+                .description("Неудачные попытки доставки сообщений outbox")
+                .register(meterRegistry);
+        this.dead = Counter.builder("shareit.outbox.dead")
+                .description("Сообщения outbox, исчерпавшие попытки доставки")
+                .register(meterRegistry);
+        this.batchTimer = Timer.builder("shareit.outbox.batch")
+                .description("Время доставки пачки сообщений outbox")
+                .register(meterRegistry);
+        Gauge.builder("shareit.outbox.lag", lagMillis, lag -> lag.get() / 1000.0)
+                .description("Возраст самого старого сообщения последней пачки outbox, секунды")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${shareit.outbox.poll-interval:PT1S}")
+    public void dispatch() {
+        int claimed;
+        try {
+            do {
+                claimed = batchTimer.record(this::dispatchBatch);
+            } while (claimed == batchSize);
+        } catch (RuntimeException e) {
+            log.warn("Пачка outbox не обработана и будет повторена после {}: {}", claimTimeout, e.getMessage());
+        }
+    }
+
+    private int dispatchBatch() {
+        LocalDateTime now = LocalDateTime.now();
+        List<OutboxMessage> batch = transactionTemplate.execute(status ->
+                outboxRepository.claimBatch(batchSize, now, now.plus(claimTimeout)));
+        if (batch == null || batch.isEmpty()) {
+            lagMillis.set(0);
+            return 0;
+        }
+        lagMillis.set(Duration.between(batch.get(0).getCreated(), now).toMillis());
+        List<Long> delivered = new ArrayList<>(batch.size());
+        List<OutboxMessage> undelivered = new ArrayList<>();
+        for (OutboxMessage message : batch) {
+            try {
+                sinks.forEach(sink -> sink.publish(message));
+                delivered.add(message.getId());
+            } catch (RuntimeException e) {
+                undelivered.add(message);
+                log.warn("Сообщение outbox {} не доставлено, попытка {} из {}: {}", message.getId(),
+                        message.getAttempts() + 1, maxAttempts, e.getMessage());
+            }
+        }
+        transactionTemplate.execute(status -> {
+            if (!delivered.isEmpty()) {
+                outboxRepository.deleteByIds(delivered);
+            }
+            undelivered.forEach(message -> outboxRepository.recordFailure(message.getId(), maxAttempts));
+            return null;
+        });
+        dispatched.increment(delivered.size());
+        failed.increment(undelivered.size());
+        undelivered.stream()
+                .filter(message -> message.getAttempts() + 1 >= maxAttempts)
+                .forEach(message -> {
+                    dead.increment();
+                    log.error("Сообщение outbox {} исчерпало попытки доставки и переведено в DEAD.",
+                            message.getId());
+                });
+        log.debug("Из outbox доставлено {} сообщений, не доставлено {}.", delivered.size(), undelivered.size());
+        return batch.size();
+    }
+}
@@ -0,0 +1,11 @@
+package ru.practicum.shareit.outbox.service;
+
+import ru.practicum.shareit.outbox.model.OutboxMessage;
+
+/**
+ * Получатель сообщений outbox. После исключения из publish сообщение будет доставлено повторно всем получателям,
+ * поэтому получатели должны выдерживать повторы (доставка "хотя бы один раз"). Вызывается вне транзакции.
+ */
+public interface OutboxSink {
+    void publish(OutboxMessage message);
+}
@@ -0,0 +1,60 @@
+package ru.practicum.shareit.outbox.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.model.BookingChangedEvent;
+import ru.practicum.shareit.item.model.ItemChangedEvent;
+import ru.practicum.shareit.outbox.model.OutboxMessage;
+import ru.practicum.shareit.outbox.repository.OutboxRepository;
+
+import java.time.LocalDateTime;
+
+/**
+ * Записывает события бронирований и вещей в outbox. Слушатели синхронные и выполняются в транзакции,
+ * опубликовавшей событие: сообщение фиксируется вместе с изменением или откатывается вместе с ним.
+ * События, опубликованные вне транзакции (импорт после записи пачки), записываются в собственной транзакции.
+ */
+@Component
+@RequiredArgsConstructor
+public class OutboxWriter {
+    static final String BOOKING = "booking";
+    static final String ITEM = "item";
+    private final OutboxRepository outboxRepository;
+    private final ObjectMapper objectMapper;
+
+    @EventListener
+    @Transactional
+    public void onBookingChanged(BookingChangedEvent event) {
+        String type;
+        if (event.getBookingId() == null) {
+            type = "IMPORTED";
+        } else if (event.getPreviousStatus() == null) {
+            type = "CREATED";
+        } else {
+            type = "STATUS_CHANGED";
+        }
+        Long aggregateId = event.getBookingId() != null ? event.getBookingId() : event.getItemId();
+        save(BOOKING, aggregateId, type, event);
+    }
+
+    @EventListener
+    @Transactional
+    public void onItemChanged(ItemChangedEvent event) {
+        save(ITEM, event.getItemId(), event.getType().name(), event);
+    }
+
+    private void save(String aggregateType, Long aggregateId, String eventType, Object event) {
+        String payload;
+        try {
+            payload = objectMapper.writeValueAsString(event);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Не удалось сериализовать событие " + event, e);
+        }
+        outboxRepository.save(new OutboxMessage(null, aggregateType, aggregateId, eventType, payload,
+                LocalDateTime.now(), 0));
+    }
+}
@@ -0,0 +1,30 @@
+package ru.practicum.shareit.user.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Публикуется внутри транзакции изменения или удаления пользователя.
+ * Для удаленного пользователя заполнены только userId и type.
+ */
+@Data
+@AllArgsConstructor
+public class UserChangedEvent {
+    private Long userId;
+    private String name;
+    private String email;
+    private Type type;
+
+    public enum Type {
+        UPDATED,
+        DELETED
+    }
+
+    public static UserChangedEvent updated(User user) {
+        return new UserChangedEvent(user.getId(), user.getName(), user.getEmail(), Type.UPDATED);
+    }
+
+    public static UserChangedEvent deleted(long userId) {
+        return new UserChangedEvent(userId, null, null, Type.DELETED);
+    }
+}
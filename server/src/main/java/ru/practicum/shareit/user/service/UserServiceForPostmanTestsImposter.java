@@ -2,6 +2,7 @@ package ru.practicum.shareit.user.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Primary;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -11,6 +12,7 @@ import ru.practicum.shareit.exception.notFound.UserNotFoundException;
 import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.dto.UserMapper;
 import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.model.UserChangedEvent;
 import ru.practicum.shareit.user.repository.UserRepository;
 
 import java.util.List;
@@ -23,6 +25,7 @@ import java.util.stream.Collectors;
 public class UserServiceForPostmanTestsImposter implements UserService {
     private final UserRepository userRepository;
     private final UserMapper userMapper;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Transactional
     @Override
@@ -59,7 +62,9 @@ public class UserServiceForPostmanTestsImposter implements UserService {
             throwIfEmailAlreadyExists(userDto.getEmail());
         }
         mergeDtoIntoExistingUser(userDto, userToUpdate);
-        return userMapper.userToDto(userRepository.save(userToUpdate));
+        User saved = userRepository.save(userToUpdate);
+        eventPublisher.publishEvent(UserChangedEvent.updated(saved));
+        return userMapper.userToDto(saved);
     }
 
     @Transactional
@@ -67,6 +72,7 @@ public class UserServiceForPostmanTestsImposter implements UserService {
     public void delete(long id) {
         throwIfRepositoryNotContains(id);
         userRepository.deleteById(id);
+        eventPublisher.publishEvent(UserChangedEvent.deleted(id));
     }
 
     @Transactional(readOnly = true)
@@ -0,0 +1,13 @@
+package ru.practicum.shareit.util;
+
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.booking.service.BookingExportFormat;
+
+@Component
+public class BookingExportFormatConverter implements Converter<String, BookingExportFormat> {
+    @Override
+    public BookingExportFormat convert(String source) {
+        return BookingExportFormat.valueOf(source.toUpperCase());
+    }
+}
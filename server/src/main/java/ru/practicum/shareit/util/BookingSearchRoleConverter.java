@@ -0,0 +1,13 @@
+package ru.practicum.shareit.util;
+
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.booking.service.BookingSearchRole;
+
+@Component
+public class BookingSearchRoleConverter implements Converter<String, BookingSearchRole> {
+    @Override
+    public BookingSearchRole convert(String source) {
+        return BookingSearchRole.valueOf(source.toUpperCase());
+    }
+}
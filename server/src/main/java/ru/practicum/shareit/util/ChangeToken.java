@@ -0,0 +1,34 @@
+package ru.practicum.shareit.util;
+
+import ru.practicum.shareit.exception.InvalidCursorException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Номер изменения, до которого клиент уже получил изменения бронирований. Передается в виде непрозрачного токена.
+ */
+public class ChangeToken {
+    public static final long INITIAL = 0L;
+
+    public static long decode(String token) throws InvalidCursorException {
+        if (token == null) {
+            return INITIAL;
+        }
+        long changeSeq;
+        try {
+            changeSeq = Long.parseLong(new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8));
+        } catch (IllegalArgumentException e) {
+            changeSeq = -1L;
+        }
+        if (changeSeq < INITIAL) {
+            throw new InvalidCursorException("Некорректное значение параметра since: " + token);
+        }
+        return changeSeq;
+    }
+
+    public static String encode(long changeSeq) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(String.valueOf(changeSeq).getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,63 @@
+package ru.practicum.shareit.util;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import ru.practicum.shareit.exception.InvalidCursorException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Позиция последней возвращенной строки в выборке, упорядоченной по (start, id).
+ * Признак archive означает, что выдача уже перешла от горячих данных к архиву.
+ * Клиенту передается в виде непрозрачного токена.
+ */
+@Data
+@AllArgsConstructor
+public class KeysetCursor {
+    private static final char SEPARATOR = '/';
+    private static final String ARCHIVE_SUFFIX = SEPARATOR + "archive";
+    private static final LocalDateTime LATEST = LocalDateTime.of(9999, 12, 31, 23, 59, 59);
+    private static final LocalDateTime EARLIEST = LocalDateTime.of(1900, 1, 1, 0, 0);
+    private LocalDateTime start;
+    private long id;
+    private boolean archive;
+
+    public KeysetCursor(LocalDateTime start, long id) {
+        this(start, id, false);
+    }
+
+    public static KeysetCursor beforeFirstDescending() {
+        return new KeysetCursor(LATEST, Long.MAX_VALUE);
+    }
+
+    public static KeysetCursor beforeFirstAscending() {
+        return new KeysetCursor(EARLIEST, Long.MIN_VALUE);
+    }
+
+    public static KeysetCursor beforeFirstArchived() {
+        return new KeysetCursor(LATEST, Long.MAX_VALUE, true);
+    }
+
+    public static KeysetCursor decode(String token) throws InvalidCursorException {
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            boolean archive = value.endsWith(ARCHIVE_SUFFIX);
+            if (archive) {
+                value = value.substring(0, value.length() - ARCHIVE_SUFFIX.length());
+            }
+            int separatorIndex = value.lastIndexOf(SEPARATOR);
+            return new KeysetCursor(LocalDateTime.parse(value.substring(0, separatorIndex)),
+                    Long.parseLong(value.substring(separatorIndex + 1)), archive);
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw new InvalidCursorException("Некорректное значение параметра after: " + token);
+        }
+    }
+
+    public String encode() {
+        String value = start.toString() + SEPARATOR + id + (archive ? ARCHIVE_SUFFIX : "");
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+}
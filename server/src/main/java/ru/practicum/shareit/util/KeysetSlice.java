@@ -0,0 +1,17 @@
+package ru.practicum.shareit.util;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Страница выборки без подсчета общего количества строк.
+ * after - курсор для запроса следующей страницы или null, если страница последняя.
+ */
+@Data
+@AllArgsConstructor
+public class KeysetSlice<T> {
+    private List<T> content;
+    private String after;
+}
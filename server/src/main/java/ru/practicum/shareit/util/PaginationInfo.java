@@ -4,6 +4,7 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
+import ru.practicum.shareit.exception.InvalidPaginationException;
 
 @Data
 @AllArgsConstructor
@@ -17,7 +18,20 @@ public class PaginationInfo {
         this.limit = limit;
     }
 
-    public PageRequest asPageRequest() {
+    /**
+     * Первая страница выборки по курсору: смещения нет, проверяется только размер.
+     */
+    public static PageRequest firstPage(int limit) {
+        return new PaginationInfo(0, limit).asPageRequest();
+    }
+
+    public PageRequest asPageRequest() throws InvalidPaginationException {
+        if (offset < 0) {
+            throw new InvalidPaginationException("Параметр from не может быть отрицательным: " + offset);
+        }
+        if (limit <= 0) {
+            throw new InvalidPaginationException("Параметр size должен быть положительным: " + limit);
+        }
         return sort == null ? PageRequest.of(offset / limit, limit)
                 : PageRequest.of(offset / limit, limit, sort);
     }
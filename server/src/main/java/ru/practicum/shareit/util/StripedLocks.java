@@ -0,0 +1,34 @@
+package ru.practicum.shareit.util;
+
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Фиксированный набор блокировок, между которыми ключи распределяются по хэшу. Память не зависит от числа ключей,
+ * а ключи из разных полос не мешают друг другу; ключи одной полосы сериализуются вместе.
+ */
+public class StripedLocks {
+    private final Lock[] locks;
+
+    public StripedLocks(int stripes) {
+        if (stripes < 1) {
+            throw new IllegalArgumentException("Число полос должно быть положительным.");
+        }
+        this.locks = new Lock[stripes];
+        for (int i = 0; i < stripes; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    public int stripeOf(long key) {
+        return Math.floorMod(Long.hashCode(key), locks.length);
+    }
+
+    public Lock lockOf(int stripe) {
+        return locks[stripe];
+    }
+
+    public int size() {
+        return locks.length;
+    }
+}
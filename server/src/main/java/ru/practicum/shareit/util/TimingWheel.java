@@ -0,0 +1,153 @@
+package ru.practicum.shareit.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Иерархическое колесо таймеров. Уровень 0 делится на slotsPerLevel тиков, каждый следующий уровень
+ * в slotsPerLevel раз крупнее. Дедлайн кладется на самый низкий уровень, на котором старшие разряды
+ * его тика совпадают с текущим, и опускается ниже при проворачивании колеса. Добавление, отмена
+ * и срабатывание - O(1) на таймер; сроки за пределами всех уровней ждут в списке переполнения.
+ * Отмена ленивая: ключ удаляется из deadlines, а его запись в слоте пропускается при срабатывании.
+ */
+public class TimingWheel<K> {
+    private final long tickMillis;
+    private final int bitsPerLevel;
+    private final int levels;
+    private final long slotMask;
+    private final List<List<Deque<Timer<K>>>> wheels;
+    private final List<Timer<K>> overflow = new ArrayList<>();
+    private final Map<K, Long> deadlines = new HashMap<>();
+    private long currentTick;
+    private long currentMillis;
+
+    public TimingWheel(long tickMillis, int bitsPerLevel, int levels, long nowMillis) {
+        this.tickMillis = tickMillis;
+        this.bitsPerLevel = bitsPerLevel;
+        this.levels = levels;
+        this.slotMask = (1L << bitsPerLevel) - 1;
+        this.wheels = new ArrayList<>(levels);
+        for (int level = 0; level < levels; level++) {
+            List<Deque<Timer<K>>> slots = new ArrayList<>(1 << bitsPerLevel);
+            for (int slot = 0; slot <= slotMask; slot++) {
+                slots.add(new ArrayDeque<>());
+            }
+            wheels.add(slots);
+        }
+        this.currentTick = nowMillis / tickMillis;
+        this.currentMillis = nowMillis;
+    }
+
+    /**
+     * Ставит или переносит дедлайн ключа. Повторная постановка с тем же тиком ничего не меняет.
+     *
+     * @return false, если дедлайн уже наступил (не позже последнего проворачивания колеса или его тика):
+     * ключ не запоминается, и его нужно обработать сразу.
+     */
+    public synchronized boolean schedule(K key, long deadlineMillis) {
+        long tick = Math.floorDiv(deadlineMillis + tickMillis - 1, tickMillis);
+        if (tick <= currentTick || deadlineMillis <= currentMillis) {
+            deadlines.remove(key);
+            return false;
+        }
+        Long previous = deadlines.put(key, tick);
+        if (previous == null || previous != tick) {
+            place(new Timer<>(key, tick));
+        }
+        return true;
+    }
+
+    public synchronized void cancel(K key) {
+        deadlines.remove(key);
+    }
+
+    public synchronized int size() {
+        return deadlines.size();
+    }
+
+    synchronized int placedTimers() {
+        int placed = overflow.size();
+        for (List<Deque<Timer<K>>> slots : wheels) {
+            for (Deque<Timer<K>> slot : slots) {
+                placed += slot.size();
+            }
+        }
+        return placed;
+    }
+
+    /**
+     * Проворачивает колесо до nowMillis и возвращает ключи, дедлайны которых наступили.
+     */
+    public synchronized List<K> advance(long nowMillis) {
+        long targetTick = nowMillis / tickMillis;
+        currentMillis = Math.max(currentMillis, nowMillis);
+        List<K> expired = new ArrayList<>();
+        while (currentTick < targetTick) {
+            currentTick++;
+            cascade();
+            Deque<Timer<K>> slot = wheels.get(0).get((int) (currentTick & slotMask));
+            Timer<K> timer;
+            while ((timer = slot.poll()) != null) {
+                if (deadlines.remove(timer.key, timer.tick)) {
+                    expired.add(timer.key);
+                }
+            }
+        }
+        return expired;
+    }
+
+    private void cascade() {
+        for (int level = 1; level < levels; level++) {
+            int shift = level * bitsPerLevel;
+            if ((currentTick & ((1L << shift) - 1)) != 0) {
+                return;
+            }
+            Deque<Timer<K>> slot = wheels.get(level).get((int) ((currentTick >>> shift) & slotMask));
+            List<Timer<K>> moved = new ArrayList<>(slot);
+            slot.clear();
+            moved.forEach(this::replace);
+        }
+        if ((currentTick & ((1L << (levels * bitsPerLevel)) - 1)) == 0) {
+            List<Timer<K>> moved = new ArrayList<>(overflow);
+            overflow.clear();
+            moved.forEach(this::replace);
+        }
+    }
+
+    private void replace(Timer<K> timer) {
+        if (!Long.valueOf(timer.tick).equals(deadlines.get(timer.key))) {
+            return;
+        }
+        if (timer.tick <= currentTick) {
+            wheels.get(0).get((int) (currentTick & slotMask)).add(timer);
+        } else {
+            place(timer);
+        }
+    }
+
+    private void place(Timer<K> timer) {
+        for (int level = 0; level < levels; level++) {
+            int higherShift = (level + 1) * bitsPerLevel;
+            if ((timer.tick >>> higherShift) == (currentTick >>> higherShift)) {
+                int slot = (int) ((timer.tick >>> (level * bitsPerLevel)) & slotMask);
+                wheels.get(level).get(slot).add(timer);
+                return;
+            }
+        }
+        overflow.add(timer);
+    }
+
+    private static class Timer<K> {
+        private final K key;
+        private final long tick;
+
+        private Timer(K key, long tick) {
+            this.key = key;
+            this.tick = tick;
+        }
+    }
+}
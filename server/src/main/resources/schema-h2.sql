@@ -0,0 +1,38 @@
+CREATE SEQUENCE IF NOT EXISTS bookings_change_seq;
+
+CREATE TABLE IF NOT EXISTS bookings(
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL PRIMARY KEY,
+    item_id BIGINT NOT NULL REFERENCES items(id) ON DELETE CASCADE,
+    booker_id BIGINT NOT NULL REFERENCES users(id) ON DELETE CASCADE,
+    start TIMESTAMP NOT NULL,
+    ending TIMESTAMP NOT NULL,
+    status VARCHAR(10),
+    created TIMESTAMP DEFAULT LOCALTIMESTAMP NOT NULL,
+    change_seq BIGINT DEFAULT NEXT VALUE FOR bookings_change_seq
+        ON UPDATE NEXT VALUE FOR bookings_change_seq NOT NULL,
+    changed TIMESTAMP DEFAULT LOCALTIMESTAMP ON UPDATE LOCALTIMESTAMP NOT NULL,
+    CONSTRAINT ending_gt_start CHECK (ending > start)
+);
+
+CREATE INDEX IF NOT EXISTS bookings_booker_start_idx ON bookings (booker_id, start DESC, id DESC);
+CREATE INDEX IF NOT EXISTS bookings_item_start_idx ON bookings (item_id, start DESC, id DESC);
+CREATE INDEX IF NOT EXISTS bookings_item_status_start_idx ON bookings (item_id, status, start DESC, id DESC);
+CREATE INDEX IF NOT EXISTS bookings_booker_change_seq_idx ON bookings (booker_id, change_seq);
+CREATE INDEX IF NOT EXISTS bookings_item_change_seq_idx ON bookings (item_id, change_seq);
+CREATE INDEX IF NOT EXISTS bookings_change_seq_idx ON bookings (change_seq);
+
+CREATE TABLE IF NOT EXISTS bookings_archive(
+    id BIGINT NOT NULL PRIMARY KEY,
+    item_id BIGINT NOT NULL REFERENCES items(id) ON DELETE CASCADE,
+    booker_id BIGINT NOT NULL REFERENCES users(id) ON DELETE CASCADE,
+    start TIMESTAMP NOT NULL,
+    ending TIMESTAMP NOT NULL,
+    status VARCHAR(10),
+    created TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS bookings_archive_booker_start_idx ON bookings_archive (booker_id, start DESC, id DESC);
+CREATE INDEX IF NOT EXISTS bookings_archive_item_start_idx ON bookings_archive (item_id, start DESC, id DESC);
+
+CREATE INDEX IF NOT EXISTS booking_view_owner_start_idx ON booking_view (owner_id, start DESC, booking_id DESC);
+CREATE INDEX IF NOT EXISTS booking_view_booker_start_idx ON booking_view (booker_id, start DESC, booking_id DESC);
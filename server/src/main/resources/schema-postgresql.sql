@@ -0,0 +1,79 @@
+CREATE EXTENSION IF NOT EXISTS btree_gist;
+
+CREATE SEQUENCE IF NOT EXISTS bookings_change_seq;
+
+CREATE TABLE IF NOT EXISTS bookings(
+    id BIGSERIAL NOT NULL,
+    item_id BIGINT NOT NULL REFERENCES items(id) ON DELETE CASCADE,
+    booker_id BIGINT NOT NULL REFERENCES users(id) ON DELETE CASCADE,
+    start TIMESTAMP NOT NULL,
+    ending TIMESTAMP NOT NULL,
+    status VARCHAR(10),
+    created TIMESTAMP NOT NULL DEFAULT clock_timestamp(),
+    change_seq BIGINT NOT NULL DEFAULT nextval('bookings_change_seq'),
+    changed TIMESTAMP NOT NULL DEFAULT clock_timestamp(),
+    CONSTRAINT ending_gt_start CHECK (ending > start),
+    PRIMARY KEY (id, start)
+) PARTITION BY RANGE (start);
+
+CREATE TABLE IF NOT EXISTS bookings_default PARTITION OF bookings DEFAULT;
+
+ALTER TABLE bookings_default ADD CONSTRAINT bookings_default_approved_no_overlap
+EXCLUDE USING gist (item_id WITH =, tsrange(start, ending) WITH &&) WHERE (status = 'APPROVED');
+
+CREATE INDEX IF NOT EXISTS bookings_booker_start_idx ON bookings (booker_id, start DESC, id DESC);
+CREATE INDEX IF NOT EXISTS bookings_item_start_idx ON bookings (item_id, start DESC, id DESC);
+CREATE INDEX IF NOT EXISTS bookings_item_status_start_idx ON bookings (item_id, status, start DESC, id DESC);
+CREATE INDEX IF NOT EXISTS bookings_waiting_id_idx ON bookings (id) WHERE status = 'WAITING';
+CREATE INDEX IF NOT EXISTS bookings_booker_change_seq_idx ON bookings (booker_id, change_seq);
+CREATE INDEX IF NOT EXISTS bookings_item_change_seq_idx ON bookings (item_id, change_seq);
+CREATE INDEX IF NOT EXISTS bookings_change_seq_idx ON bookings (change_seq);
+
+CREATE OR REPLACE FUNCTION bookings_touch_change_seq() RETURNS trigger LANGUAGE plpgsql AS '
+BEGIN
+    NEW.change_seq := nextval(''bookings_change_seq'');
+    NEW.changed := clock_timestamp();
+    RETURN NEW;
+END';
+
+DROP TRIGGER IF EXISTS bookings_touch_change_seq ON bookings;
+CREATE TRIGGER bookings_touch_change_seq BEFORE UPDATE ON bookings
+FOR EACH ROW EXECUTE FUNCTION bookings_touch_change_seq();
+
+CREATE OR REPLACE FUNCTION bookings_check_approved_overlap() RETURNS trigger LANGUAGE plpgsql AS '
+BEGIN
+    IF NEW.status = ''APPROVED'' THEN
+        PERFORM pg_advisory_xact_lock(2, hashtext(NEW.item_id::text));
+        IF EXISTS (SELECT 1 FROM bookings b
+                   WHERE b.item_id = NEW.item_id AND b.status = ''APPROVED'' AND b.id <> NEW.id
+                     AND tsrange(b.start, b.ending) && tsrange(NEW.start, NEW.ending)) THEN
+            RAISE EXCEPTION ''bookings_approved_no_overlap: item % is already booked for an overlapping period'',
+                NEW.item_id USING ERRCODE = ''exclusion_violation'';
+        END IF;
+    END IF;
+    RETURN NULL;
+END';
+
+DROP TRIGGER IF EXISTS bookings_check_approved_overlap ON bookings;
+CREATE TRIGGER bookings_check_approved_overlap AFTER INSERT OR UPDATE OF status, start, ending, item_id ON bookings
+FOR EACH ROW EXECUTE FUNCTION bookings_check_approved_overlap();
+
+CREATE TABLE IF NOT EXISTS bookings_archive(
+    id BIGINT NOT NULL PRIMARY KEY,
+    item_id BIGINT NOT NULL REFERENCES items(id) ON DELETE CASCADE,
+    booker_id BIGINT NOT NULL REFERENCES users(id) ON DELETE CASCADE,
+    start TIMESTAMP NOT NULL,
+    ending TIMESTAMP NOT NULL,
+    status VARCHAR(10),
+    created TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS bookings_archive_booker_start_idx ON bookings_archive (booker_id, start DESC, id DESC);
+CREATE INDEX IF NOT EXISTS bookings_archive_item_start_idx ON bookings_archive (item_id, start DESC, id DESC);
+
+CREATE INDEX IF NOT EXISTS booking_view_owner_start_idx ON booking_view (owner_id, start DESC, booking_id DESC)
+INCLUDE (ending, status, item_id, item_name, item_description, item_available, item_request_id, booker_id,
+         booker_name, booker_email);
+CREATE INDEX IF NOT EXISTS booking_view_booker_start_idx ON booking_view (booker_id, start DESC, booking_id DESC)
+INCLUDE (ending, status, item_id, owner_id, item_name, item_description, item_available, item_request_id,
+         booker_name, booker_email);
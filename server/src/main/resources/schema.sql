@@ -1,4 +1,6 @@
-DROP TABLE IF EXISTS users, items, bookings, requests, comments;
+DROP TABLE IF EXISTS users, items, bookings, bookings_archive, booking_view, booking_waitlist,
+    recurring_bookings, requests, comments, idempotency_keys, outbox;
+DROP SEQUENCE IF EXISTS bookings_change_seq;
 
 CREATE TABLE IF NOT EXISTS users(
     id BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL PRIMARY KEY,
@@ -15,15 +17,7 @@ CREATE TABLE IF NOT EXISTS items(
     request_id BIGINT
 );
 
-CREATE TABLE IF NOT EXISTS bookings(
-    id BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL PRIMARY KEY,
-    item_id BIGINT NOT NULL REFERENCES items(id) ON DELETE CASCADE,
-    booker_id BIGINT NOT NULL REFERENCES users(id) ON DELETE CASCADE,
-    start TIMESTAMP NOT NULL,
-    ending TIMESTAMP NOT NULL,
-    status VARCHAR(10),
-    CONSTRAINT ending_gt_start CHECK (ending > start)
-);
+CREATE INDEX IF NOT EXISTS items_owner_idx ON items (owner_id);
 
 CREATE TABLE IF NOT EXISTS requests(
 id BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL PRIMARY KEY,
@@ -41,4 +35,79 @@ text VARCHAR(500) NOT NULL,
 item_id BIGINT NOT NULL REFERENCES items(id) ON DELETE CASCADE,
 author_id BIGINT NOT NULL REFERENCES users(id) ON DELETE NO ACTION,
 created TIMESTAMP NOT NULL
-);
\ No newline at end of file
+);
+
+CREATE TABLE IF NOT EXISTS booking_waitlist(
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL PRIMARY KEY,
+    item_id BIGINT NOT NULL REFERENCES items(id) ON DELETE CASCADE,
+    booker_id BIGINT NOT NULL REFERENCES users(id) ON DELETE CASCADE,
+    start TIMESTAMP NOT NULL,
+    ending TIMESTAMP NOT NULL,
+    created TIMESTAMP NOT NULL,
+    CONSTRAINT waitlist_ending_gt_start CHECK (ending > start)
+);
+
+CREATE INDEX IF NOT EXISTS booking_waitlist_item_created_idx ON booking_waitlist (item_id, created, id);
+
+CREATE TABLE IF NOT EXISTS recurring_bookings(
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL PRIMARY KEY,
+    item_id BIGINT NOT NULL REFERENCES items(id) ON DELETE CASCADE,
+    booker_id BIGINT NOT NULL REFERENCES users(id) ON DELETE CASCADE,
+    start TIMESTAMP NOT NULL,
+    ending TIMESTAMP NOT NULL,
+    frequency VARCHAR(16) NOT NULL,
+    interval_count INTEGER NOT NULL,
+    until TIMESTAMP NOT NULL,
+    last_end TIMESTAMP NOT NULL,
+    status VARCHAR(16) NOT NULL,
+    CONSTRAINT recurring_ending_gt_start CHECK (ending > start),
+    CONSTRAINT recurring_interval_positive CHECK (interval_count > 0)
+);
+
+CREATE INDEX IF NOT EXISTS recurring_bookings_item_idx ON recurring_bookings (item_id, start, last_end);
+CREATE INDEX IF NOT EXISTS recurring_bookings_booker_idx ON recurring_bookings (booker_id, start, last_end);
+
+CREATE TABLE IF NOT EXISTS idempotency_keys(
+    user_id BIGINT NOT NULL,
+    operation VARCHAR(64) NOT NULL,
+    idempotency_key VARCHAR(255) NOT NULL,
+    request_hash VARCHAR(64) NOT NULL,
+    response TEXT NOT NULL,
+    created TIMESTAMP NOT NULL,
+    PRIMARY KEY (user_id, operation, idempotency_key)
+);
+
+CREATE INDEX IF NOT EXISTS idempotency_keys_created_idx ON idempotency_keys (created);
+
+CREATE TABLE IF NOT EXISTS outbox(
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL PRIMARY KEY,
+    aggregate_type VARCHAR(32) NOT NULL,
+    aggregate_id BIGINT NOT NULL,
+    event_type VARCHAR(32) NOT NULL,
+    payload TEXT NOT NULL,
+    created TIMESTAMP NOT NULL,
+    status VARCHAR(8) DEFAULT 'PENDING' NOT NULL,
+    attempts INT DEFAULT 0 NOT NULL,
+    available_at TIMESTAMP NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS outbox_status_id_idx ON outbox (status, id);
+
+CREATE TABLE IF NOT EXISTS booking_view(
+    booking_id BIGINT NOT NULL PRIMARY KEY,
+    start TIMESTAMP NOT NULL,
+    ending TIMESTAMP NOT NULL,
+    status VARCHAR(10),
+    change_seq BIGINT NOT NULL,
+    item_id BIGINT NOT NULL,
+    owner_id BIGINT NOT NULL,
+    item_name VARCHAR(125),
+    item_description VARCHAR(125),
+    item_available BOOL NOT NULL,
+    item_request_id BIGINT,
+    booker_id BIGINT NOT NULL,
+    booker_name VARCHAR(125),
+    booker_email VARCHAR(125) NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS booking_view_item_idx ON booking_view (item_id);
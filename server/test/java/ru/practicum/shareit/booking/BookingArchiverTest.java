@@ -0,0 +1,61 @@
+package ru.practicum.shareit.booking;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.dto.BookingView;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.repository.BookingArchiveRepository;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.booking.service.BookingArchiver;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.util.KeysetCursor;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@SpringBootTest
+@Transactional
+@RequiredArgsConstructor(onConstructor = @__(@Autowired))
+public class BookingArchiverTest {
+    private final UserRepository userRepository;
+    private final ItemRepository itemRepository;
+    private final BookingRepository bookingRepository;
+    private final BookingArchiveRepository bookingArchiveRepository;
+    private final BookingArchiver bookingArchiver;
+
+    @Test
+    public void methodArchiveMovesOnlyLongEndedBookingsToArchive() {
+        User booker = userRepository.save(new User(null, "n", "e@m.l"));
+        User owner = userRepository.save(new User(null, "name", "e@ma.il"));
+        Item item = itemRepository.save(new Item(null, owner, "name", "description", true, null,
+                Collections.emptyList()));
+        Booking old = bookingRepository.save(new Booking(null, item, booker, LocalDateTime.now().minusYears(3),
+                LocalDateTime.now().minusYears(3).plusDays(1), BookingStatus.APPROVED));
+        Booking recent = bookingRepository.save(new Booking(null, item, booker, LocalDateTime.now().minusDays(3),
+                LocalDateTime.now().minusDays(2), BookingStatus.APPROVED));
+
+        bookingArchiver.archive();
+
+        Assertions.assertEquals(List.of(recent.getId()), bookingRepository.findAll().stream()
+                .map(Booking::getId)
+                .collect(Collectors.toList()));
+        KeysetCursor cursor = KeysetCursor.beforeFirstArchived();
+        List<BookingView> archived = bookingArchiveRepository.findByItemOwner(owner.getId(),
+                List.of(BookingStatus.APPROVED), cursor.getStart(), cursor.getId(), PageRequest.of(0, 10))
+                .getContent();
+        Assertions.assertEquals(1, archived.size());
+        Assertions.assertEquals(old.getId(), archived.get(0).getId());
+        Assertions.assertEquals(booker.getId(), archived.get(0).getBookerId());
+    }
+}
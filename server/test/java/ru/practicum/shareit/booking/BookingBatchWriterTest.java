@@ -0,0 +1,51 @@
+package ru.practicum.shareit.booking;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import ru.practicum.shareit.booking.dto.BookingImportDto;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.repository.BookingBatchWriter;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+
+@DataJpaTest
+@Import(BookingBatchWriter.class)
+@RequiredArgsConstructor(onConstructor = @__(@Autowired))
+public class BookingBatchWriterTest {
+    private final UserRepository userRepository;
+    private final ItemRepository itemRepository;
+    private final BookingRepository bookingRepository;
+    private final BookingBatchWriter bookingBatchWriter;
+
+    @Test
+    public void methodWriteInsertsBookingsWithJdbcBatchOnH2() {
+        User booker = userRepository.save(new User(null, "n", "e@m.l"));
+        User owner = userRepository.save(new User(null, "name", "e@ma.il"));
+        Item item = itemRepository.save(new Item(null, owner, "name", "description", true, null,
+                Collections.emptyList()));
+        LocalDateTime start = LocalDateTime.of(2020, 1, 1, 10, 0);
+
+        Assertions.assertEquals(BookingBatchWriter.Mode.JDBC_BATCH, bookingBatchWriter.write(List.of(
+                new BookingImportDto(item.getId(), booker.getId(), start, start.plusHours(1), BookingStatus.APPROVED),
+                new BookingImportDto(item.getId(), booker.getId(), start.plusDays(1), start.plusDays(2),
+                        BookingStatus.REJECTED))));
+
+        List<Booking> bookings = bookingRepository.findAll();
+        Assertions.assertEquals(2, bookings.size());
+        Assertions.assertEquals(start, bookings.get(0).getStart());
+        Assertions.assertEquals(item.getId(), bookings.get(0).getItem().getId());
+        Assertions.assertEquals(BookingStatus.REJECTED, bookings.get(1).getStatus());
+    }
+}
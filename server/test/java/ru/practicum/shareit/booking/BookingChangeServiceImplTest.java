@@ -0,0 +1,131 @@
+package ru.practicum.shareit.booking;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.dto.BookingChanges;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingMapper;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.booking.service.BookingChangeServiceImpl;
+import ru.practicum.shareit.exception.InvalidCursorException;
+import ru.practicum.shareit.exception.InvalidPaginationException;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.user.service.UserService;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@SpringBootTest
+@Transactional
+@RequiredArgsConstructor(onConstructor = @__(@Autowired))
+public class BookingChangeServiceImplTest {
+    private final UserRepository userRepository;
+    private final ItemRepository itemRepository;
+    private final BookingRepository bookingRepository;
+    private final BookingMapper bookingMapper;
+    private final UserService userService;
+    private User booker;
+    private User owner;
+    private Item item;
+
+    @BeforeEach
+    public void createUsersAndItem() {
+        booker = userRepository.save(new User(null, "n", "e@m.l"));
+        owner = userRepository.save(new User(null, "name", "e@ma.il"));
+        item = itemRepository.save(new Item(null, owner, "name", "description", true, null,
+                Collections.emptyList()));
+    }
+
+    @Test
+    public void changesSinceTokenContainOnlyNewAndUpdatedBookings() {
+        BookingChangeServiceImpl service = service(Duration.ZERO);
+        Booking first = save(1);
+        Booking second = save(2);
+
+        BookingChanges initial = service.findChangesByBooker(booker.getId(), null, 10);
+        Assertions.assertEquals(List.of(first.getId(), second.getId()), ids(initial));
+        Assertions.assertTrue(service.findChangesByBooker(booker.getId(), initial.getToken(), 10)
+                .getBookings().isEmpty());
+
+        bookingRepository.updateStatusByIds(List.of(first.getId()), BookingStatus.WAITING, BookingStatus.APPROVED);
+        BookingChanges changed = service.findChangesByBooker(booker.getId(), initial.getToken(), 10);
+
+        Assertions.assertEquals(List.of(first.getId()), ids(changed));
+        Assertions.assertEquals(BookingStatus.APPROVED, changed.getBookings().get(0).getStatus());
+    }
+
+    @Test
+    public void ownerChangesAreLimitedToOwnItemsAndPagedBySize() {
+        BookingChangeServiceImpl service = service(Duration.ZERO);
+        Booking first = save(1);
+        Booking second = save(2);
+        Item otherItem = itemRepository.save(new Item(null, booker, "other", "description", true, null,
+                Collections.emptyList()));
+        bookingRepository.saveAndFlush(new Booking(null, otherItem, owner, LocalDateTime.now().plusDays(3),
+                LocalDateTime.now().plusDays(4), BookingStatus.WAITING));
+
+        BookingChanges page = service.findChangesByItemOwner(owner.getId(), null, 1);
+        BookingChanges next = service.findChangesByItemOwner(owner.getId(), page.getToken(), 10);
+
+        Assertions.assertEquals(List.of(first.getId()), ids(page));
+        Assertions.assertEquals(List.of(second.getId()), ids(next));
+    }
+
+    @Test
+    public void tokenDoesNotPassChangesYoungerThanSettleTime() {
+        BookingChangeServiceImpl service = service(Duration.ofHours(1));
+        Booking booking = save(1);
+
+        BookingChanges changes = service.findChangesByBooker(booker.getId(), null, 10);
+        BookingChanges repeated = service.findChangesByBooker(booker.getId(), changes.getToken(), 10);
+
+        Assertions.assertEquals(List.of(booking.getId()), ids(changes));
+        Assertions.assertEquals(List.of(booking.getId()), ids(repeated));
+        Assertions.assertEquals(changes.getToken(), repeated.getToken());
+    }
+
+    @Test
+    public void invalidTokenThrowsException() {
+        BookingChangeServiceImpl service = service(Duration.ZERO);
+
+        Assertions.assertThrows(InvalidCursorException.class,
+                () -> service.findChangesByBooker(booker.getId(), "not a token", 10));
+    }
+
+    @Test
+    public void nonPositiveSizeThrowsException() {
+        BookingChangeServiceImpl service = service(Duration.ZERO);
+
+        Assertions.assertThrows(InvalidPaginationException.class,
+                () -> service.findChangesByItemOwner(booker.getId(), null, 0));
+    }
+
+    private BookingChangeServiceImpl service(Duration settleTime) {
+        return new BookingChangeServiceImpl(bookingRepository, bookingMapper, userService, settleTime);
+    }
+
+    private Booking save(int daysAhead) {
+        return bookingRepository.saveAndFlush(new Booking(null, item, booker,
+                LocalDateTime.now().plusDays(daysAhead), LocalDateTime.now().plusDays(daysAhead).plusHours(1),
+                BookingStatus.WAITING));
+    }
+
+    private List<Long> ids(BookingChanges changes) {
+        return changes.getBookings().stream()
+                .map(BookingDto::getId)
+                .collect(Collectors.toList());
+    }
+}
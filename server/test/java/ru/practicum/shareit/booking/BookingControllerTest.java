@@ -12,24 +12,50 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.format.support.FormattingConversionService;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import ru.practicum.shareit.booking.controller.BookingController;
+import ru.practicum.shareit.booking.dto.BookingCreationResult;
+import ru.practicum.shareit.booking.dto.BookingChanges;
+import ru.practicum.shareit.booking.dto.BookingImportReport;
+import ru.practicum.shareit.booking.dto.BookingSearchFilter;
+import ru.practicum.shareit.booking.dto.BookingStatusUpdateDto;
+import ru.practicum.shareit.booking.dto.BookingStatusUpdateResult;
+import ru.practicum.shareit.booking.dto.RecurringBookingDto;
 import ru.practicum.shareit.booking.dto.SimpleBookingDto;
+import ru.practicum.shareit.booking.dto.WaitlistEntryDto;
 import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.model.RecurrenceFrequency;
+import ru.practicum.shareit.booking.service.BookingChangeService;
+import ru.practicum.shareit.booking.service.BookingExportFormat;
+import ru.practicum.shareit.booking.service.BookingExportService;
+import ru.practicum.shareit.booking.service.BookingImportService;
+import ru.practicum.shareit.booking.service.BookingSearchRole;
 import ru.practicum.shareit.booking.service.BookingService;
 import ru.practicum.shareit.booking.service.BookingState;
+import ru.practicum.shareit.booking.service.BookingWaitlistService;
+import ru.practicum.shareit.booking.service.RecurringBookingService;
 import ru.practicum.shareit.exception.ExceptionControllerAdvice;
+import ru.practicum.shareit.exception.mismatch.ImportNotAllowedException;
+import ru.practicum.shareit.util.KeysetSlice;
 
 import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.Collections;
 import java.util.List;
+import java.util.Set;
 
-import static org.mockito.Mockito.when;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @ExtendWith(MockitoExtension.class)
@@ -46,6 +72,16 @@ public class BookingControllerTest {
             BookingStatus.WAITING, 0L, 999L);
     @MockBean
     private BookingService bookingService;
+    @MockBean
+    private BookingImportService bookingImportService;
+    @MockBean
+    private BookingWaitlistService bookingWaitlistService;
+    @MockBean
+    private RecurringBookingService recurringBookingService;
+    @MockBean
+    private BookingChangeService bookingChangeService;
+    @MockBean
+    private BookingExportService bookingExportService;
     private MockMvc mockMvc;
 
     @BeforeEach
@@ -78,6 +114,81 @@ public class BookingControllerTest {
                 .andExpect(jsonPath("$.end").isNotEmpty());
     }
 
+    @Test
+    @SneakyThrows
+    public void methodCreateWithWaitlistWhenItemBusyReturnsCode202AndEntry() {
+        WaitlistEntryDto entry = new WaitlistEntryDto(5L, 0L, 999L, bookingDto.getStart(), bookingDto.getEnd(),
+                LocalDateTime.of(2024, 12, 1, 0, 0));
+        when(bookingService.createOrEnqueue(any(), eq(999L))).thenReturn(new BookingCreationResult(null, entry));
+
+        mockMvc.perform(post("/bookings?waitlist=true")
+                        .content(mapper.writeValueAsString(bookingDto))
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON)
+                        .header("X-Sharer-User-Id", "999"))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.id").value(5))
+                .andExpect(jsonPath("$.itemId").value(0));
+        verify(bookingService, never()).create(any(), anyLong());
+    }
+
+    @Test
+    @SneakyThrows
+    public void methodCreateRecurringCallsServiceWithBookerId() {
+        RecurringBookingDto recurring = new RecurringBookingDto(null, 0L, null, bookingDto.getStart(),
+                bookingDto.getEnd(), RecurrenceFrequency.WEEKLY, 1, bookingDto.getEnd().plusWeeks(4), null);
+        RecurringBookingDto created = new RecurringBookingDto(3L, 0L, 999L, bookingDto.getStart(),
+                bookingDto.getEnd(), RecurrenceFrequency.WEEKLY, 1, bookingDto.getEnd().plusWeeks(4),
+                BookingStatus.WAITING);
+        when(recurringBookingService.create(recurring, 999L)).thenReturn(created);
+
+        mockMvc.perform(post("/bookings/recurring")
+                        .content(mapper.writeValueAsString(recurring))
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON)
+                        .header("X-Sharer-User-Id", "999"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(3))
+                .andExpect(jsonPath("$.frequency").value("WEEKLY"))
+                .andExpect(jsonPath("$.status").value("WAITING"));
+    }
+
+    @Test
+    @SneakyThrows
+    public void methodUpdateRecurringCallsServiceWithItemOwnerId() {
+        mockMvc.perform(patch("/bookings/recurring/3?approved=true")
+                        .header("X-Sharer-User-Id", "999"))
+                .andExpect(status().isOk());
+        verify(recurringBookingService).update(3L, true, 999L);
+    }
+
+    @Test
+    @SneakyThrows
+    public void methodCreateWithWaitlistWhenItemFreeReturnsBooking() {
+        when(bookingService.createOrEnqueue(any(), eq(999L))).thenReturn(new BookingCreationResult(bookingDto,
+                null));
+
+        mockMvc.perform(post("/bookings?waitlist=true")
+                        .content(mapper.writeValueAsString(bookingDto))
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON)
+                        .header("X-Sharer-User-Id", "999"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.bookerId").value(999));
+    }
+
+    @Test
+    @SneakyThrows
+    public void methodDeleteWaitlistEntryCallsService() {
+        mockMvc.perform(delete("/bookings/waitlist/5")
+                        .header("X-Sharer-User-Id", "999"))
+                .andExpect(status().isOk());
+        verify(bookingWaitlistService).delete(5L, 999L);
+    }
+
     @Test
     @SneakyThrows
     public void methodUpdateCallsServiceAndReturnsBookingDto() {
@@ -98,6 +209,60 @@ public class BookingControllerTest {
                 .andExpect(jsonPath("$.end").isNotEmpty());
     }
 
+    @Test
+    @SneakyThrows
+    public void methodImportBookingsPassesNdjsonBodyToServiceAndReturnsReport() {
+        BookingImportReport report = new BookingImportReport(2, 1, 1, "JDBC_BATCH", 10, 100,
+                List.of(new BookingImportReport.LineError(2, "message")));
+        when(bookingImportService.importBookings(any(), eq(100L))).thenReturn(report);
+
+        mockMvc.perform(post("/bookings/import")
+                        .header("X-Sharer-User-Id", "100")
+                        .content("{}\n{}\n")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported").value(1))
+                .andExpect(jsonPath("$.writeMode").value("JDBC_BATCH"))
+                .andExpect(jsonPath("$.errors[0].line").value(2));
+    }
+
+    @Test
+    @SneakyThrows
+    public void methodImportBookingsWhenUserIsNotAllowedReturnsForbidden() {
+        when(bookingImportService.importBookings(any(), eq(2L)))
+                .thenThrow(new ImportNotAllowedException("Пользователь с id 2 не может импортировать бронирования."));
+
+        mockMvc.perform(post("/bookings/import")
+                        .header("X-Sharer-User-Id", "2")
+                        .content("{}\n")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    @SneakyThrows
+    public void methodUpdateAllCallsServiceAndReturnsResultPerBooking() {
+        BookingStatusUpdateDto statusUpdateDto = new BookingStatusUpdateDto(List.of(1L, 2L), true);
+        when(bookingService.updateAll(statusUpdateDto, 999L)).thenReturn(List.of(
+                new BookingStatusUpdateResult(1L, BookingStatusUpdateResult.Outcome.UPDATED, BookingStatus.APPROVED),
+                new BookingStatusUpdateResult(2L, BookingStatusUpdateResult.Outcome.NOT_FOUND, null)));
+
+        mockMvc.perform(patch("/bookings/status")
+                        .content(mapper.writeValueAsString(statusUpdateDto))
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON)
+                        .header("X-Sharer-User-Id", "999"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].bookingId").value(1))
+                .andExpect(jsonPath("$[0].outcome").value("UPDATED"))
+                .andExpect(jsonPath("$[0].status").value("APPROVED"))
+                .andExpect(jsonPath("$[1].outcome").value("NOT_FOUND"));
+    }
+
     @Test
     @SneakyThrows
     public void methodRetrieveCallsServiceAndReturnsBookingDto() {
@@ -120,7 +285,7 @@ public class BookingControllerTest {
     @SneakyThrows
     public void methodFindByBookerAndByStateValueAllCallsServiceAndReturnsBookingDto() {
         when(bookingService.findByBookerAndByState(BookingState.ALL, 999L,
-                0, 2)).thenReturn(List.of(bookingDto));
+                0, 2, null)).thenReturn(new KeysetSlice<>(List.of(bookingDto), null));
 
         mockMvc.perform(get("/bookings?from=0&size=2")
                         .accept(MediaType.APPLICATION_JSON)
@@ -139,7 +304,7 @@ public class BookingControllerTest {
     @SneakyThrows
     public void methodFindByBookerAndByStateValueFutureCallsServiceAndReturnsBookingDto() {
         when(bookingService.findByBookerAndByState(BookingState.FUTURE, 999L,
-                0, 2)).thenReturn(List.of(bookingDto));
+                0, 2, null)).thenReturn(new KeysetSlice<>(List.of(bookingDto), null));
 
         mockMvc.perform(get("/bookings?state=future&from=0&size=2")
                         .accept(MediaType.APPLICATION_JSON)
@@ -158,7 +323,7 @@ public class BookingControllerTest {
     @SneakyThrows
     public void methodFindByBookerAndByStateValueRejectedCallsServiceAndReturnsEmptyList() {
         when(bookingService.findByBookerAndByState(BookingState.REJECTED, 999L,
-                0, 2)).thenReturn(Collections.emptyList());
+                0, 2, null)).thenReturn(new KeysetSlice<>(Collections.emptyList(), null));
 
         mockMvc.perform(get("/bookings?state=rejected&from=0&size=2")
                         .accept(MediaType.APPLICATION_JSON)
@@ -172,7 +337,7 @@ public class BookingControllerTest {
     @SneakyThrows
     public void methodFindByItemOwnerAndByStateValueAllCallsServiceAndReturnsBookingDto() {
         when(bookingService.findByItemOwnerAndByState(BookingState.ALL, 999L,
-                0, 2)).thenReturn(List.of(bookingDto));
+                0, 2, null)).thenReturn(new KeysetSlice<>(List.of(bookingDto), null));
 
         mockMvc.perform(get("/bookings/owner?from=0&size=2")
                         .accept(MediaType.APPLICATION_JSON)
@@ -191,7 +356,7 @@ public class BookingControllerTest {
     @SneakyThrows
     public void methodFindByItemOwnerAndByStateValueFutureCallsServiceAndReturnsBookingDto() {
         when(bookingService.findByItemOwnerAndByState(BookingState.FUTURE, 999L,
-                0, 2)).thenReturn(List.of(bookingDto));
+                0, 2, null)).thenReturn(new KeysetSlice<>(List.of(bookingDto), null));
 
         mockMvc.perform(get("/bookings/owner?state=future&from=0&size=2")
                         .accept(MediaType.APPLICATION_JSON)
@@ -210,7 +375,7 @@ public class BookingControllerTest {
     @SneakyThrows
     public void methodFindByItemOwnerAndByStateValueRejectedCallsServiceAndReturnsEmptyList() {
         when(bookingService.findByItemOwnerAndByState(BookingState.REJECTED, 999L,
-                0, 2)).thenReturn(Collections.emptyList());
+                0, 2, null)).thenReturn(new KeysetSlice<>(Collections.emptyList(), null));
 
         mockMvc.perform(get("/bookings/owner?state=rejected&from=0&size=2")
                         .accept(MediaType.APPLICATION_JSON)
@@ -219,4 +384,110 @@ public class BookingControllerTest {
                 .andExpect(jsonPath("$").isArray())
                 .andExpect(jsonPath("$.length()").value(0));
     }
+
+    @Test
+    @SneakyThrows
+    public void methodFindByItemOwnerAndByStateWithAfterReturnsNextPageHeader() {
+        when(bookingService.findByItemOwnerAndByState(BookingState.WAITING, 999L,
+                0, 1, "token")).thenReturn(new KeysetSlice<>(List.of(bookingDto), "next"));
+
+        mockMvc.perform(get("/bookings/owner?state=waiting&size=1&after=token")
+                        .accept(MediaType.APPLICATION_JSON)
+                        .header("X-Sharer-User-Id", "999"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(BookingController.NEXT_PAGE_HEADER, "next"))
+                .andExpect(jsonPath("$.length()").value(1));
+    }
+
+    @Test
+    @SneakyThrows
+    public void methodFindByBookerAndByStateOnLastPageOmitsNextPageHeader() {
+        when(bookingService.findByBookerAndByState(BookingState.ALL, 999L,
+                0, 2, null)).thenReturn(new KeysetSlice<>(List.of(bookingDto), null));
+
+        mockMvc.perform(get("/bookings?from=0&size=2")
+                        .accept(MediaType.APPLICATION_JSON)
+                        .header("X-Sharer-User-Id", "999"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(BookingController.NEXT_PAGE_HEADER));
+    }
+
+    @Test
+    @SneakyThrows
+    public void methodFindByBookerAndByStateReturnsTotalCountHeader() {
+        when(bookingService.findByBookerAndByState(BookingState.FUTURE, 999L,
+                0, 2, null)).thenReturn(new KeysetSlice<>(List.of(bookingDto), "next"));
+        when(bookingService.countByBookerAndByState(BookingState.FUTURE, 999L)).thenReturn(42L);
+
+        mockMvc.perform(get("/bookings?state=future&from=0&size=2")
+                        .accept(MediaType.APPLICATION_JSON)
+                        .header("X-Sharer-User-Id", "999"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(BookingController.TOTAL_COUNT_HEADER, "42"));
+    }
+
+    @Test
+    @SneakyThrows
+    public void methodFindChangesByBookerReturnsSyncTokenHeader() {
+        when(bookingChangeService.findChangesByBooker(999L, "since", 100))
+                .thenReturn(new BookingChanges(List.of(bookingDto), "token"));
+
+        mockMvc.perform(get("/bookings/changes?since=since")
+                        .accept(MediaType.APPLICATION_JSON)
+                        .header("X-Sharer-User-Id", "999"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(BookingController.SYNC_TOKEN_HEADER, "token"))
+                .andExpect(jsonPath("$.length()").value(1));
+    }
+
+    @Test
+    @SneakyThrows
+    public void methodFindChangesByItemOwnerWithoutSinceStartsFromBeginning() {
+        when(bookingChangeService.findChangesByItemOwner(999L, null, 2))
+                .thenReturn(new BookingChanges(Collections.emptyList(), "token"));
+
+        mockMvc.perform(get("/bookings/owner/changes?size=2")
+                        .accept(MediaType.APPLICATION_JSON)
+                        .header("X-Sharer-User-Id", "999"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(BookingController.SYNC_TOKEN_HEADER, "token"))
+                .andExpect(jsonPath("$.length()").value(0));
+    }
+
+    @Test
+    @SneakyThrows
+    public void methodExportByItemOwnerStreamsBodyAsAttachment() {
+        when(bookingExportService.exportByItemOwner(999L, BookingExportFormat.CSV))
+                .thenReturn(out -> out.write("id\n1\n".getBytes(StandardCharsets.UTF_8)));
+
+        MvcResult result = mockMvc.perform(get("/bookings/owner/export?format=csv")
+                        .header("X-Sharer-User-Id", "999"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_TYPE, "text/csv"))
+                .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"bookings.csv\""))
+                .andExpect(content().string("id\n1\n"));
+    }
+
+    @Test
+    @SneakyThrows
+    public void methodSearchPassesFiltersToServiceAndReturnsNextPageHeader() {
+        BookingSearchFilter filter = new BookingSearchFilter(BookingSearchRole.OWNER, 5L,
+                Set.of(BookingStatus.APPROVED, BookingStatus.WAITING), LocalDateTime.of(2030, 3, 1, 0, 0),
+                LocalDateTime.of(2030, 4, 1, 0, 0));
+        when(bookingService.search(filter, 999L, 2, null))
+                .thenReturn(new KeysetSlice<>(List.of(bookingDto), "next"));
+
+        mockMvc.perform(get("/bookings/search?role=owner&itemId=5&status=APPROVED,WAITING"
+                                + "&start=2030-03-01T00:00:00&end=2030-04-01T00:00:00&size=2")
+                        .accept(MediaType.APPLICATION_JSON)
+                        .header("X-Sharer-User-Id", "999"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(BookingController.NEXT_PAGE_HEADER, "next"))
+                .andExpect(jsonPath("$.length()").value(1));
+    }
 }
@@ -0,0 +1,94 @@
+package ru.practicum.shareit.booking;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.dto.SimpleBookingDto;
+import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.time.LocalDateTime;
+import java.util.Collections;
+
+@SpringBootTest
+@Transactional
+public class BookingCreateStatementCountTest {
+    /**
+     * Проверка вещи и арендатора, проверка пересечения с повторяющимися бронированиями и INSERT.
+     */
+    private static final int CREATE_STATEMENTS = 3;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private ItemRepository itemRepository;
+    @Autowired
+    private BookingService bookingService;
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    private Statistics statistics;
+    private User booker;
+    private Item item;
+
+    @BeforeEach
+    public void putUsersAndItemToDb() {
+        booker = userRepository.save(new User(null, "booker", "booker@m.l"));
+        User owner = userRepository.save(new User(null, "owner", "owner@m.l"));
+        item = itemRepository.save(new Item(null, owner, "name", "description", true, null,
+                Collections.emptyList()));
+        entityManager.flush();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+    }
+
+    @Test
+    public void createExecutesSingleValidationQueryBeforeInsert() {
+        entityManager.clear();
+        statistics.clear();
+
+        bookingService.create(booking(1), booker.getId());
+
+        Assertions.assertEquals(CREATE_STATEMENTS, statistics.getPrepareStatementCount());
+    }
+
+    /**
+     * Средняя задержка создания бронирования на H2 в памяти, без сети до базы: разница с прежним путем
+     * на Postgres больше, потому что каждый сэкономленный запрос - это еще и круг по сети.
+     * Запуск: mvn test -pl server -Dtest=BookingCreateStatementCountTest -Dbenchmark=true
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    public void benchmarkCreateLatency() {
+        for (int i = 0; i < 2_000; i++) {
+            bookingService.create(booking(i + 1), booker.getId());
+            entityManager.clear();
+        }
+        int creates = 10_000;
+        statistics.clear();
+        long started = System.nanoTime();
+        for (int i = 0; i < creates; i++) {
+            bookingService.create(booking(2_000 + i + 1), booker.getId());
+            entityManager.clear();
+        }
+        long elapsed = System.nanoTime() - started;
+        System.out.printf("create: %.1f us/op, %.2f statements/op%n", elapsed / 1_000.0 / creates,
+                (double) statistics.getPrepareStatementCount() / creates);
+    }
+
+    private SimpleBookingDto booking(int hoursAhead) {
+        LocalDateTime start = LocalDateTime.now().plusDays(1).plusHours(hoursAhead);
+        return new SimpleBookingDto(0L, start, start.plusMinutes(30), null, item.getId(), 0L);
+    }
+}
@@ -0,0 +1,175 @@
+package ru.practicum.shareit.booking;
+
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.practicum.shareit.booking.controller.BookingController;
+import ru.practicum.shareit.booking.model.BookingChangedEvent;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.service.BookingChangeService;
+import ru.practicum.shareit.booking.service.BookingEventBroadcaster;
+import ru.practicum.shareit.booking.service.BookingExportService;
+import ru.practicum.shareit.booking.service.BookingImportService;
+import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.booking.service.BookingWaitlistService;
+import ru.practicum.shareit.booking.service.RecurringBookingService;
+import ru.practicum.shareit.exception.ExceptionControllerAdvice;
+import ru.practicum.shareit.exception.notFound.UserNotFoundException;
+import ru.practicum.shareit.idempotency.service.IdempotencyService;
+import ru.practicum.shareit.user.service.UserService;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+import static org.mockito.Mockito.doThrow;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@ExtendWith(MockitoExtension.class)
+public class BookingEventBroadcasterTest {
+    private static final long OWNER_ID = 2L;
+    @Mock
+    private BookingService bookingService;
+    @Mock
+    private BookingImportService bookingImportService;
+    @Mock
+    private BookingWaitlistService bookingWaitlistService;
+    @Mock
+    private RecurringBookingService recurringBookingService;
+    @Mock
+    private UserService userService;
+    @Mock
+    private IdempotencyService idempotencyService;
+    @Mock
+    private BookingChangeService bookingChangeService;
+    @Mock
+    private BookingExportService bookingExportService;
+    private BookingEventBroadcaster broadcaster;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    public void setUp() {
+        broadcaster = new BookingEventBroadcaster(userService, 16, Duration.ofMinutes(1), 1, Duration.ofSeconds(10));
+        mockMvc = MockMvcBuilders
+                .standaloneSetup(new BookingController(bookingService, bookingImportService, bookingWaitlistService,
+                        recurringBookingService, broadcaster, idempotencyService, bookingChangeService,
+                        bookingExportService))
+                .setControllerAdvice(ExceptionControllerAdvice.class)
+                .build();
+    }
+
+    @AfterEach
+    public void shutdown() {
+        broadcaster.shutdown();
+    }
+
+    @Test
+    @SneakyThrows
+    public void streamDeliversLifecycleEventsOfOwnItemsOnly() {
+        MockHttpServletResponse response = subscribe(OWNER_ID);
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+
+        broadcaster.onBookingChanged(new BookingChangedEvent(10L, 5L, 3L, 1L, null, BookingStatus.WAITING,
+                start, start.plusHours(1)));
+        broadcaster.onBookingChanged(new BookingChangedEvent(11L, 5L, OWNER_ID, 1L, null, BookingStatus.WAITING,
+                start, start.plusHours(1)));
+        broadcaster.onBookingChanged(new BookingChangedEvent(11L, 5L, OWNER_ID, 1L, BookingStatus.WAITING,
+                BookingStatus.APPROVED, start, start.plusHours(1)));
+
+        String content = awaitContent(response, body -> body.contains("event:approved"));
+        Assertions.assertTrue(content.indexOf("event:created") < content.indexOf("event:approved"));
+        Assertions.assertTrue(content.contains("\"bookingId\":11"));
+        Assertions.assertFalse(content.contains("\"bookingId\":10"));
+    }
+
+    @Test
+    @SneakyThrows
+    public void heartbeatIsSentAsComment() {
+        MockHttpServletResponse response = subscribe(OWNER_ID);
+
+        broadcaster.heartbeat();
+
+        Assertions.assertTrue(awaitContent(response, body -> body.contains(":heartbeat")).contains(":heartbeat"));
+    }
+
+    @Test
+    @SneakyThrows
+    public void stalledSendIsInterruptedAndSubscriberClosed() {
+        CountDownLatch sendStarted = new CountDownLatch(1);
+        CountDownLatch sendInterrupted = new CountDownLatch(1);
+        AtomicInteger sends = new AtomicInteger();
+        broadcaster.shutdown();
+        broadcaster = new BookingEventBroadcaster(userService, 16, Duration.ofMinutes(1), 1, Duration.ofMillis(1)) {
+            @Override
+            protected SseEmitter newEmitter(long timeoutMillis) {
+                return new SseEmitter(timeoutMillis) {
+                    @Override
+                    public void send(SseEventBuilder builder) throws IOException {
+                        sends.incrementAndGet();
+                        sendStarted.countDown();
+                        try {
+                            new CountDownLatch(1).await();
+                        } catch (InterruptedException e) {
+                            sendInterrupted.countDown();
+                            throw new IOException(e);
+                        }
+                    }
+                };
+            }
+        };
+        broadcaster.subscribe(OWNER_ID);
+
+        broadcaster.heartbeat();
+        Assertions.assertTrue(sendStarted.await(1, TimeUnit.SECONDS));
+        Thread.sleep(5);
+        broadcaster.closeStalled();
+
+        Assertions.assertTrue(sendInterrupted.await(1, TimeUnit.SECONDS));
+        broadcaster.heartbeat();
+        Thread.sleep(50);
+        Assertions.assertEquals(1, sends.get());
+    }
+
+    @Test
+    @SneakyThrows
+    public void streamForUnknownUserReturnsNotFound() {
+        doThrow(new UserNotFoundException("Пользователь не найден.")).when(userService)
+                .throwIfRepositoryNotContains(OWNER_ID);
+
+        mockMvc.perform(get("/bookings/owner/stream").header("X-Sharer-User-Id", OWNER_ID))
+                .andExpect(status().isNotFound());
+    }
+
+    @SneakyThrows
+    private MockHttpServletResponse subscribe(long itemOwnerId) {
+        return mockMvc.perform(get("/bookings/owner/stream").header("X-Sharer-User-Id", itemOwnerId))
+                .andExpect(request().asyncStarted())
+                .andReturn()
+                .getResponse();
+    }
+
+    @SneakyThrows
+    private String awaitContent(MockHttpServletResponse response, Predicate<String> condition) {
+        String content = response.getContentAsString();
+        for (int attempt = 0; attempt < 100 && !condition.test(content); attempt++) {
+            Thread.sleep(20);
+            content = response.getContentAsString();
+        }
+        return content;
+    }
+}
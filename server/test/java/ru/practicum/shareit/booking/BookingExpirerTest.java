@@ -0,0 +1,173 @@
+package ru.practicum.shareit.booking;
+
+import lombok.RequiredArgsConstructor;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.mockito.Mockito;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+import ru.practicum.shareit.booking.dto.BookingStatusCheck;
+import ru.practicum.shareit.booking.model.BookingChangedEvent;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.model.BookingTransition;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.booking.repository.BookingTransitionJournal;
+import ru.practicum.shareit.booking.service.BookingExpirer;
+import ru.practicum.shareit.booking.service.BookingTransitionRecorder;
+import ru.practicum.shareit.booking.service.BookingWaitlistService;
+import ru.practicum.shareit.booking.service.ItemBookingLock;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+@SpringBootTest(properties = {"shareit.bookings.approval.lead-time=PT1H", "shareit.bookings.approval.tick=PT1H",
+        "shareit.bookings.approval.sync-interval=PT1H"})
+@Transactional
+@RequiredArgsConstructor(onConstructor = @__(@Autowired))
+public class BookingExpirerTest {
+    private final UserRepository userRepository;
+    private final ItemRepository itemRepository;
+    private final BookingRepository bookingRepository;
+    private final BookingExpirer bookingExpirer;
+
+    @Test
+    public void methodExpireCancelsOnlyWaitingBookingsPastApprovalDeadline() {
+        User booker = userRepository.save(new User(null, "n", "e@m.l"));
+        User owner = userRepository.save(new User(null, "name", "e@ma.il"));
+        Item item = itemRepository.save(new Item(null, owner, "name", "description", true, null,
+                Collections.emptyList()));
+        LocalDateTime soon = LocalDateTime.now().plusMinutes(30);
+        Booking stale = bookingRepository.save(new Booking(null, item, booker, soon, soon.plusHours(1),
+                BookingStatus.WAITING));
+        Booking approved = bookingRepository.save(new Booking(null, item, booker, soon.plusHours(2),
+                soon.plusHours(3), BookingStatus.APPROVED));
+        Booking later = bookingRepository.save(new Booking(null, item, booker, soon.plusDays(2),
+                soon.plusDays(3), BookingStatus.WAITING));
+        bookingRepository.flush();
+
+        bookingExpirer.load();
+        bookingExpirer.expire();
+
+        Assertions.assertEquals(BookingStatus.CANCELED, bookingRepository.findById(stale.getId())
+                .orElseThrow().getStatus());
+        Assertions.assertEquals(BookingStatus.APPROVED, bookingRepository.findById(approved.getId())
+                .orElseThrow().getStatus());
+        Assertions.assertEquals(BookingStatus.WAITING, bookingRepository.findById(later.getId())
+                .orElseThrow().getStatus());
+    }
+
+    @Test
+    public void methodSyncSchedulesBookingsWrittenWithoutEventAfterLoad() {
+        User booker = userRepository.save(new User(null, "n", "e@m.l"));
+        User owner = userRepository.save(new User(null, "name", "e@ma.il"));
+        Item item = itemRepository.save(new Item(null, owner, "name", "description", true, null,
+                Collections.emptyList()));
+        bookingExpirer.load();
+        LocalDateTime soon = LocalDateTime.now().plusMinutes(30);
+        Booking stale = bookingRepository.save(new Booking(null, item, booker, soon, soon.plusHours(1),
+                BookingStatus.WAITING));
+        bookingRepository.flush();
+
+        bookingExpirer.expire();
+        Assertions.assertEquals(BookingStatus.WAITING, bookingRepository.findById(stale.getId())
+                .orElseThrow().getStatus());
+
+        bookingExpirer.sync();
+        bookingExpirer.expire();
+
+        Assertions.assertEquals(BookingStatus.CANCELED, bookingRepository.findById(stale.getId())
+                .orElseThrow().getStatus());
+    }
+
+    @Test
+    public void bookingApprovedBeforeLockIsNotCanceledAndNotPublished() {
+        BookingRepository repository = Mockito.mock(BookingRepository.class);
+        ApplicationEventPublisher publisher = Mockito.mock(ApplicationEventPublisher.class);
+        BookingWaitlistService waitlist = Mockito.mock(BookingWaitlistService.class);
+        ItemBookingLock lock = Mockito.mock(ItemBookingLock.class);
+        TransactionTemplate transactionTemplate = new TransactionTemplate() {
+            @Override
+            public <T> T execute(TransactionCallback<T> action) {
+                return action.doInTransaction(null);
+            }
+        };
+        BookingExpirer expirer = new BookingExpirer(repository, transactionTemplate, publisher, waitlist, lock,
+                Duration.ofHours(1), Duration.ofHours(1), Duration.ofSeconds(10));
+        LocalDateTime soon = LocalDateTime.now().plusMinutes(30);
+        BookingStatusCheck waiting = new BookingStatusCheck(1L, 10L, 20L, 30L, BookingStatus.WAITING, soon,
+                soon.plusHours(1));
+        BookingStatusCheck approved = new BookingStatusCheck(1L, 10L, 20L, 30L, BookingStatus.APPROVED, soon,
+                soon.plusHours(1));
+        Mockito.when(repository.findStatusChecksByIds(List.of(1L))).thenReturn(List.of(waiting), List.of(approved));
+
+        expirer.onBookingChanged(new BookingChangedEvent(1L, 10L, 20L, 30L, null, BookingStatus.WAITING, soon,
+                soon.plusHours(1)));
+        expirer.expire();
+
+        Mockito.verify(lock).lockAll(Set.of(10L));
+        Mockito.verify(repository, Mockito.never()).cancelWaitingByIds(Mockito.any());
+        Mockito.verifyNoInteractions(publisher, waitlist);
+    }
+
+    @Test
+    @SneakyThrows
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void bookingCanceledByExpirerIsReadBackFromJournal(@TempDir Path directory) {
+        BookingRepository repository = Mockito.mock(BookingRepository.class);
+        ApplicationEventPublisher publisher = Mockito.mock(ApplicationEventPublisher.class);
+        BookingWaitlistService waitlist = Mockito.mock(BookingWaitlistService.class);
+        ItemBookingLock lock = Mockito.mock(ItemBookingLock.class);
+        TransactionTemplate transactionTemplate = new TransactionTemplate() {
+            @Override
+            public <T> T execute(TransactionCallback<T> action) {
+                return action.doInTransaction(null);
+            }
+        };
+        BookingTransitionJournal journal = new BookingTransitionJournal(directory.toString(),
+                DataSize.ofKilobytes(1), BookingTransitionJournal.FsyncPolicy.NONE);
+        BookingTransitionRecorder recorder = new BookingTransitionRecorder(journal);
+        Mockito.doAnswer(invocation -> {
+            recorder.onBookingChanged(invocation.getArgument(0));
+            return null;
+        }).when(publisher).publishEvent(Mockito.any(BookingChangedEvent.class));
+        BookingExpirer expirer = new BookingExpirer(repository, transactionTemplate, publisher, waitlist, lock,
+                Duration.ofHours(1), Duration.ofHours(1), Duration.ofSeconds(10));
+        LocalDateTime soon = LocalDateTime.now().plusMinutes(30);
+        BookingStatusCheck waiting = new BookingStatusCheck(1L, 10L, 20L, 30L, BookingStatus.WAITING, soon,
+                soon.plusHours(1));
+        Mockito.when(repository.findStatusChecksByIds(List.of(1L))).thenReturn(List.of(waiting));
+        Mockito.when(repository.cancelWaitingByIds(List.of(1L))).thenReturn(1);
+
+        try {
+            expirer.onBookingChanged(new BookingChangedEvent(1L, 10L, 20L, 30L, null, BookingStatus.WAITING, soon,
+                    soon.plusHours(1)));
+            expirer.expire();
+
+            List<BookingTransition> transitions = journal.findByBookingId(1L);
+            Assertions.assertEquals(1, transitions.size());
+            Assertions.assertEquals(BookingStatus.WAITING, transitions.get(0).getPreviousStatus());
+            Assertions.assertEquals(BookingStatus.CANCELED, transitions.get(0).getStatus());
+            Assertions.assertEquals(BookingTransitionRecorder.SYSTEM_ACTOR_ID, transitions.get(0).getActorId());
+            Assertions.assertEquals(10L, transitions.get(0).getItemId());
+        } finally {
+            journal.close();
+        }
+    }
+}
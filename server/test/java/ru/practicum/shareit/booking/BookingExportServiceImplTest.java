@@ -0,0 +1,95 @@
+package ru.practicum.shareit.booking;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.booking.service.BookingExportFormat;
+import ru.practicum.shareit.booking.service.BookingExportService;
+import ru.practicum.shareit.exception.notFound.UserNotFoundException;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Collections;
+
+@SpringBootTest
+@Transactional
+@RequiredArgsConstructor(onConstructor = @__(@Autowired))
+public class BookingExportServiceImplTest {
+    private final UserRepository userRepository;
+    private final ItemRepository itemRepository;
+    private final BookingRepository bookingRepository;
+    private final BookingExportService bookingExportService;
+    private final ObjectMapper objectMapper;
+    private User booker;
+    private User owner;
+    private Booking first;
+    private Booking second;
+
+    @BeforeEach
+    public void createBookings() {
+        booker = userRepository.save(new User(null, "Doe, \"John\"", "e@m.l"));
+        owner = userRepository.save(new User(null, "name", "e@ma.il"));
+        Item item = itemRepository.save(new Item(null, owner, "drill", "description", true, null,
+                Collections.emptyList()));
+        Item otherItem = itemRepository.save(new Item(null, booker, "other", "description", true, null,
+                Collections.emptyList()));
+        LocalDateTime start = LocalDateTime.of(2030, 1, 1, 10, 0);
+        second = bookingRepository.save(new Booking(null, item, booker, start.plusDays(1),
+                start.plusDays(2), BookingStatus.APPROVED));
+        first = bookingRepository.save(new Booking(null, item, booker, start, start.plusHours(1),
+                BookingStatus.WAITING));
+        bookingRepository.saveAndFlush(new Booking(null, otherItem, owner, start, start.plusHours(1),
+                BookingStatus.WAITING));
+    }
+
+    @Test
+    @SneakyThrows
+    public void ndjsonExportContainsOwnerBookingsInStartOrder() {
+        String[] lines = export(BookingExportFormat.NDJSON).split("\n");
+
+        Assertions.assertEquals(2, lines.length);
+        JsonNode firstLine = objectMapper.readTree(lines[0]);
+        Assertions.assertEquals(first.getId(), firstLine.get("id").asLong());
+        Assertions.assertEquals("drill", firstLine.get("item").get("name").asText());
+        Assertions.assertEquals(booker.getId(), firstLine.get("booker").get("id").asLong());
+        Assertions.assertEquals(second.getId(), objectMapper.readTree(lines[1]).get("id").asLong());
+    }
+
+    @Test
+    public void csvExportStartsWithHeaderAndEscapesFields() {
+        String[] lines = export(BookingExportFormat.CSV).split("\n");
+
+        Assertions.assertEquals(3, lines.length);
+        Assertions.assertEquals("id,start,end,status,itemId,itemName,bookerId,bookerName,bookerEmail", lines[0]);
+        Assertions.assertEquals(first.getId() + ",2030-01-01T10:00:00,2030-01-01T11:00:00,WAITING,"
+                + first.getItem().getId() + ",drill," + booker.getId() + ",\"Doe, \"\"John\"\"\",e@m.l", lines[1]);
+    }
+
+    @Test
+    public void exportForUnknownOwnerThrowsExceptionBeforeStreaming() {
+        Assertions.assertThrows(UserNotFoundException.class,
+                () -> bookingExportService.exportByItemOwner(999L, BookingExportFormat.CSV));
+    }
+
+    @SneakyThrows
+    private String export(BookingExportFormat format) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        bookingExportService.exportByItemOwner(owner.getId(), format).writeTo(out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,153 @@
+package ru.practicum.shareit.booking;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import ru.practicum.shareit.booking.dto.BookingImportDto;
+import ru.practicum.shareit.booking.dto.BookingImportReport;
+import ru.practicum.shareit.booking.model.BookingChangedEvent;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.repository.BookingBatchWriter;
+import ru.practicum.shareit.booking.service.BookingImportServiceImpl;
+import ru.practicum.shareit.booking.service.BookingIntervalIndex;
+import ru.practicum.shareit.exception.mismatch.ImportNotAllowedException;
+import ru.practicum.shareit.item.dto.item.ItemOwnership;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class BookingImportServiceImplTest {
+    private static final long ADMIN_ID = 100L;
+    private final LocalDateTime start = LocalDateTime.now().plusDays(1).withNano(0);
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    @Mock
+    private ItemRepository itemRepository;
+    @Mock
+    private UserRepository userRepository;
+    @Mock
+    private BookingBatchWriter bookingBatchWriter;
+    @Mock
+    private BookingIntervalIndex bookingIntervalIndex;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    private BookingImportServiceImpl importService;
+
+    @BeforeEach
+    public void createService() {
+        importService = new BookingImportServiceImpl(objectMapper, itemRepository, userRepository,
+                bookingBatchWriter, bookingIntervalIndex, eventPublisher, Set.of(ADMIN_ID));
+    }
+
+    @Test
+    public void methodImportBookingsWritesValidLinesAndReportsRejectedOnes() {
+        BookingImportDto valid = new BookingImportDto(1L, 2L, start, start.plusHours(1), BookingStatus.REJECTED);
+        BookingImportDto unknownItem = new BookingImportDto(9L, 2L, start, start.plusHours(1), null);
+        BookingImportDto ownItem = new BookingImportDto(1L, 3L, start, start.plusHours(1), null);
+        BookingImportDto endBeforeStart = new BookingImportDto(1L, 2L, start, start.minusHours(1), null);
+        when(itemRepository.findOwnershipByIds(Set.of(1L, 9L))).thenReturn(List.of(new ItemOwnership(1L, 3L)));
+        when(userRepository.findExistingIds(Set.of(2L, 3L))).thenReturn(List.of(2L, 3L));
+        when(bookingBatchWriter.write(List.of(valid))).thenReturn(BookingBatchWriter.Mode.JDBC_BATCH);
+
+        BookingImportReport report = importService.importBookings(ndjson(valid, unknownItem, ownItem,
+                endBeforeStart, "{not json", ""), ADMIN_ID);
+
+        Assertions.assertEquals(5, report.getReceived());
+        Assertions.assertEquals(1, report.getImported());
+        Assertions.assertEquals(4, report.getRejected());
+        Assertions.assertEquals("JDBC_BATCH", report.getWriteMode());
+        Assertions.assertEquals(List.of(2L, 3L, 4L, 5L), report.getErrors().stream()
+                .map(BookingImportReport.LineError::getLine)
+                .collect(Collectors.toList()));
+        verify(bookingIntervalIndex, never()).build();
+        verify(eventPublisher).publishEvent(BookingChangedEvent.forImportedItem(1L));
+    }
+
+    @Test
+    public void methodImportBookingsWhenUserIsNotAllowedThrowsExceptionWithoutReading() {
+        BookingImportDto valid = new BookingImportDto(1L, 2L, start, start.plusHours(1), null);
+
+        Assertions.assertThrows(ImportNotAllowedException.class,
+                () -> importService.importBookings(ndjson(valid), 2L));
+
+        verifyNoInteractions(itemRepository, userRepository, bookingBatchWriter, eventPublisher);
+    }
+
+    @Test
+    public void methodImportBookingsSetsWaitingStatusByDefault() {
+        BookingImportDto withoutStatus = new BookingImportDto(1L, 2L, start, start.plusHours(1), null);
+        when(itemRepository.findOwnershipByIds(any())).thenReturn(List.of(new ItemOwnership(1L, 3L)));
+        when(userRepository.findExistingIds(any())).thenReturn(List.of(2L));
+        when(bookingBatchWriter.write(any())).thenReturn(BookingBatchWriter.Mode.JDBC_BATCH);
+
+        importService.importBookings(ndjson(withoutStatus), ADMIN_ID);
+
+        verify(bookingBatchWriter).write(List.of(new BookingImportDto(1L, 2L, start, start.plusHours(1),
+                BookingStatus.WAITING)));
+    }
+
+    @Test
+    public void methodImportBookingsRejectsOverlappingApprovalsAndRebuildsIndex() {
+        BookingImportDto first = new BookingImportDto(1L, 2L, start, start.plusHours(2), BookingStatus.APPROVED);
+        BookingImportDto second = new BookingImportDto(1L, 2L, start.plusHours(1), start.plusHours(3),
+                BookingStatus.APPROVED);
+        when(itemRepository.findOwnershipByIds(any())).thenReturn(List.of(new ItemOwnership(1L, 3L)));
+        when(userRepository.findExistingIds(any())).thenReturn(List.of(2L));
+        when(bookingIntervalIndex.tryAdd(1L, -1L, first.getStart(), first.getEnd())).thenReturn(true);
+        when(bookingIntervalIndex.tryAdd(1L, -2L, second.getStart(), second.getEnd())).thenReturn(false);
+        when(bookingBatchWriter.write(List.of(first))).thenReturn(BookingBatchWriter.Mode.COPY);
+
+        BookingImportReport report = importService.importBookings(ndjson(first, second), ADMIN_ID);
+
+        Assertions.assertEquals(1, report.getImported());
+        Assertions.assertEquals(2L, report.getErrors().get(0).getLine());
+        verify(bookingIntervalIndex, times(1)).build();
+    }
+
+    @Test
+    public void methodImportBookingsSplitsLinesIntoChunksAndSurvivesFailedChunk() {
+        BookingImportDto dto = new BookingImportDto(1L, 2L, start, start.plusHours(1), BookingStatus.WAITING);
+        Object[] lines = new Object[1_500];
+        Arrays.fill(lines, dto);
+        when(itemRepository.findOwnershipByIds(any())).thenReturn(List.of(new ItemOwnership(1L, 3L)));
+        when(userRepository.findExistingIds(any())).thenReturn(List.of(2L));
+        when(bookingBatchWriter.write(anyList()))
+                .thenThrow(new DataIntegrityViolationException("constraint"))
+                .thenReturn(BookingBatchWriter.Mode.JDBC_BATCH);
+
+        BookingImportReport report = importService.importBookings(ndjson(lines), ADMIN_ID);
+
+        Assertions.assertEquals(1_500, report.getReceived());
+        Assertions.assertEquals(500, report.getImported());
+        Assertions.assertEquals(1_000, report.getRejected());
+        Assertions.assertEquals(100, report.getErrors().size());
+        verify(itemRepository, times(2)).findOwnershipByIds(any());
+        verify(bookingBatchWriter, times(2)).write(anyList());
+    }
+
+    @SneakyThrows
+    private ByteArrayInputStream ndjson(Object... lines) {
+        StringBuilder body = new StringBuilder();
+        for (Object line : lines) {
+            body.append(line instanceof String ? line : objectMapper.writeValueAsString(line)).append('\n');
+        }
+        return new ByteArrayInputStream(body.toString().getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,179 @@
+package ru.practicum.shareit.booking;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.booking.dto.BookingInterval;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.booking.service.BookingIntervalIndex;
+import ru.practicum.shareit.item.model.ItemChangedEvent;
+import ru.practicum.shareit.user.model.UserChangedEvent;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class BookingIntervalIndexTest {
+    private final LocalDateTime base = LocalDateTime.now().plusDays(1).withNano(0);
+    @Mock
+    private BookingRepository bookingRepository;
+    @InjectMocks
+    private BookingIntervalIndex index;
+
+    @BeforeEach
+    public void fillIndex() {
+        index.add(1L, 10L, base, base.plusHours(2));
+        index.add(1L, 11L, base.plusHours(4), base.plusHours(6));
+    }
+
+    @Test
+    public void methodOverlapsDetectsIntersectionsOnlyForSameItem() {
+        Assertions.assertTrue(index.overlaps(1L, base.plusHours(1), base.plusHours(3)));
+        Assertions.assertTrue(index.overlaps(1L, base.minusHours(1), base.plusHours(10)));
+        Assertions.assertTrue(index.overlaps(1L, base.plusHours(5), base.plusMinutes(330)));
+        Assertions.assertFalse(index.overlaps(1L, base.plusHours(2), base.plusHours(4)));
+        Assertions.assertFalse(index.overlaps(1L, base.minusHours(2), base));
+        Assertions.assertFalse(index.overlaps(2L, base, base.plusHours(2)));
+    }
+
+    @Test
+    public void methodOverlapsDetectsIntersectionsWithNestedIntervals() {
+        index.add(2L, 20L, base, base.plusDays(2));
+        index.add(2L, 21L, base.plusHours(1), base.plusHours(2));
+
+        Assertions.assertTrue(index.overlaps(2L, base.plusDays(1), base.plusDays(3)));
+    }
+
+    @Test
+    public void methodTryAddRejectsOverlappingInterval() {
+        Assertions.assertFalse(index.tryAdd(1L, 12L, base.plusHours(1), base.plusHours(5)));
+        Assertions.assertTrue(index.tryAdd(1L, 12L, base.plusHours(2), base.plusHours(4)));
+        Assertions.assertEquals(3, index.size());
+        Assertions.assertTrue(index.overlaps(1L, base.plusHours(3), base.plusMinutes(190)));
+    }
+
+    @Test
+    public void methodRemoveFreesInterval() {
+        index.remove(1L, 10L);
+        index.remove(3L, 10L);
+
+        Assertions.assertFalse(index.overlaps(1L, base, base.plusHours(2)));
+        Assertions.assertEquals(1, index.size());
+    }
+
+    @Test
+    public void methodAddEvictsEndedIntervals() {
+        index.add(2L, 20L, LocalDateTime.now().minusDays(2), LocalDateTime.now().minusDays(1));
+        index.add(2L, 21L, base, base.plusHours(1));
+
+        Assertions.assertEquals(3, index.size());
+    }
+
+    @Test
+    public void methodBuildLoadsApprovedIntervalsFromRepository() {
+        when(bookingRepository.findIntervalsByStatusAndEndAfter(eq(BookingStatus.APPROVED),
+                any(LocalDateTime.class), eq(0L), any()))
+                .thenReturn(List.of(new BookingInterval(5L, 50L, base, base.plusHours(1))));
+
+        index.build();
+
+        Assertions.assertEquals(1, index.size());
+        Assertions.assertTrue(index.overlaps(5L, base, base.plusMinutes(1)));
+        Assertions.assertFalse(index.overlaps(1L, base, base.plusHours(2)));
+    }
+
+    @Test
+    public void methodTryAddInsideTransactionReleasesIntervalAfterRollback() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            Assertions.assertTrue(index.tryAdd(1L, 12L, base.plusHours(2), base.plusHours(4)));
+            Assertions.assertTrue(index.tryAdd(1L, 13L, base.plusHours(6), base.plusHours(8)));
+            List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager
+                    .getSynchronizations();
+
+            synchronizations.get(0).afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+            synchronizations.get(1).afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        Assertions.assertFalse(index.overlaps(1L, base.plusHours(2), base.plusHours(4)));
+        Assertions.assertTrue(index.overlaps(1L, base.plusHours(6), base.plusHours(8)));
+    }
+
+    @Test
+    public void deletedItemOrUserReleasesCascadedIntervals() {
+        index.add(2L, 20L, base, base.plusHours(2));
+        index.add(3L, 30L, base, base.plusHours(2));
+        index.add(3L, -1L, base.plusHours(4), base.plusHours(6));
+        when(bookingRepository.findExistingIds(anyCollection())).thenReturn(List.of(10L, 11L));
+
+        index.onItemChanged(ItemChangedEvent.deleted(2L));
+        index.onUserChanged(UserChangedEvent.deleted(7L));
+
+        Assertions.assertFalse(index.overlaps(2L, base, base.plusHours(2)));
+        Assertions.assertFalse(index.overlaps(3L, base, base.plusHours(2)));
+        Assertions.assertTrue(index.overlaps(3L, base.plusHours(4), base.plusHours(6)));
+        Assertions.assertEquals(3, index.size());
+    }
+
+    /**
+     * Оценка индекса сверяется с независимым расчетом: на вещь - заголовок объекта, запись карты и четыре массива
+     * long емкостью 128 (ближайшая степень двойки не меньше 100 интервалов).
+     */
+    @Test
+    public void footprintForMillionBookingsMatchesArrayLayout() {
+        int items = 10_000;
+        fillMillionBookings(items);
+
+        long perItem = 32 + 48 + 4 * (16 + 128L * Long.BYTES);
+        Assertions.assertEquals(1_000_000, index.size());
+        Assertions.assertEquals(items * perItem, index.footprintBytes());
+        Assertions.assertTrue(index.footprintBytes() < 64L << 20);
+        Assertions.assertTrue(index.overlaps(items - 1, base.plusMinutes(30), base.plusMinutes(90)));
+    }
+
+    /**
+     * Сравнивает оценку с фактическим приростом кучи после сборки мусора.
+     * Запуск: mvn test -pl server -Dtest=BookingIntervalIndexTest -Dbenchmark=true
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    public void benchmarkHeapForMillionBookings() {
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        long before = runtime.totalMemory() - runtime.freeMemory();
+        fillMillionBookings(10_000);
+        System.gc();
+        long after = runtime.totalMemory() - runtime.freeMemory();
+
+        System.out.printf("index: estimate %d MB, heap growth %d MB%n", index.footprintBytes() >> 20,
+                (after - before) >> 20);
+    }
+
+    private void fillMillionBookings(int items) {
+        when(bookingRepository.findIntervalsByStatusAndEndAfter(any(), any(), anyLong(), any()))
+                .thenReturn(Collections.emptyList());
+        index.build();
+        int bookingsPerItem = 100;
+        long bookingId = 0L;
+        for (int slot = 0; slot < bookingsPerItem; slot++) {
+            LocalDateTime start = base.plusHours(slot * 2L);
+            for (long itemId = 0; itemId < items; itemId++) {
+                index.add(itemId, bookingId++, start, start.plusHours(1));
+            }
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package ru.practicum.shareit.booking;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.SimpleBookingDto;
+import ru.practicum.shareit.booking.model.BookingChangedEvent;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.service.BookingListCache;
+import ru.practicum.shareit.booking.service.BookingState;
+import ru.practicum.shareit.booking.service.BookingStateCounters;
+import ru.practicum.shareit.util.KeysetSlice;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class BookingListCacheTest {
+    private static final long BOOKER_ID = 1L;
+    private static final long OWNER_ID = 2L;
+    @Mock
+    private BookingStateCounters bookingStateCounters;
+    private SimpleMeterRegistry meterRegistry;
+    private BookingListCache cache;
+    private AtomicInteger loads;
+
+    @BeforeEach
+    public void createCache() {
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new BookingListCache(bookingStateCounters, meterRegistry, Duration.ofMinutes(1), true);
+        loads = new AtomicInteger();
+    }
+
+    @Test
+    public void methodGetReturnsCachedPageAndCountsHitsAndMisses() {
+        Supplier<KeysetSlice<BookingDto>> loader = loader(Collections.emptyList());
+
+        KeysetSlice<BookingDto> first = cache.get(BookingListCache.Role.BOOKER, BOOKER_ID, BookingState.ALL, 0, 10,
+                null, loader);
+        KeysetSlice<BookingDto> second = cache.get(BookingListCache.Role.BOOKER, BOOKER_ID, BookingState.ALL, 0, 10,
+                null, loader);
+        cache.get(BookingListCache.Role.BOOKER, BOOKER_ID, BookingState.ALL, 10, 10, null, loader);
+
+        Assertions.assertSame(first, second);
+        Assertions.assertEquals(2, loads.get());
+        Assertions.assertEquals(1, meterRegistry.get("shareit.bookings.list.cache").tag("result", "hit")
+                .counter().count());
+        Assertions.assertEquals(2, meterRegistry.get("shareit.bookings.list.cache").tag("result", "miss")
+                .counter().count());
+        Assertions.assertEquals(2, meterRegistry.get("shareit.bookings.list.cache.size").gauge().value());
+    }
+
+    @Test
+    public void disabledCacheLoadsEveryPage() {
+        cache = new BookingListCache(bookingStateCounters, meterRegistry, Duration.ofMinutes(1), false);
+        Supplier<KeysetSlice<BookingDto>> loader = loader(Collections.emptyList());
+
+        cache.get(BookingListCache.Role.BOOKER, BOOKER_ID, BookingState.ALL, 0, 10, null, loader);
+        cache.get(BookingListCache.Role.BOOKER, BOOKER_ID, BookingState.ALL, 0, 10, null, loader);
+
+        Assertions.assertEquals(2, loads.get());
+        Assertions.assertEquals(0, meterRegistry.get("shareit.bookings.list.cache.size").gauge().value());
+    }
+
+    @Test
+    @SneakyThrows
+    public void entryExpiresWhenBookingOnPageStarts() {
+        LocalDateTime start = LocalDateTime.now().plusNanos(Duration.ofMillis(100).toNanos());
+        Supplier<KeysetSlice<BookingDto>> loader = loader(List.of(booking(start, start.plusHours(1))));
+
+        cache.get(BookingListCache.Role.BOOKER, BOOKER_ID, BookingState.FUTURE, 0, 10, null, loader);
+        cache.get(BookingListCache.Role.BOOKER, BOOKER_ID, BookingState.FUTURE, 0, 10, null, loader);
+        Assertions.assertEquals(1, loads.get());
+
+        Thread.sleep(150);
+        cache.get(BookingListCache.Role.BOOKER, BOOKER_ID, BookingState.FUTURE, 0, 10, null, loader);
+        Assertions.assertEquals(2, loads.get());
+    }
+
+    @Test
+    @SneakyThrows
+    public void entryExpiresAtNextBoundaryOfUserBookingsOutsidePage() {
+        LocalDateTime boundary = LocalDateTime.now().plusNanos(Duration.ofMillis(100).toNanos());
+        when(bookingStateCounters.nextBoundaryOfItemOwner(eq(OWNER_ID), any())).thenReturn(boundary);
+        Supplier<KeysetSlice<BookingDto>> loader = loader(Collections.emptyList());
+
+        cache.get(BookingListCache.Role.ITEM_OWNER, OWNER_ID, BookingState.CURRENT, 0, 10, null, loader);
+        cache.get(BookingListCache.Role.ITEM_OWNER, OWNER_ID, BookingState.CURRENT, 0, 10, null, loader);
+        Assertions.assertEquals(1, loads.get());
+
+        Thread.sleep(150);
+        cache.get(BookingListCache.Role.ITEM_OWNER, OWNER_ID, BookingState.CURRENT, 0, 10, null, loader);
+        Assertions.assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void bookingChangedEventEvictsBookerAndOwnerPages() {
+        Supplier<KeysetSlice<BookingDto>> loader = loader(Collections.emptyList());
+        cache.get(BookingListCache.Role.BOOKER, BOOKER_ID, BookingState.WAITING, 0, 10, null, loader);
+        cache.get(BookingListCache.Role.ITEM_OWNER, OWNER_ID, BookingState.WAITING, 0, 10, null, loader);
+        cache.get(BookingListCache.Role.BOOKER, 3L, BookingState.WAITING, 0, 10, null, loader);
+
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        cache.onBookingChanged(new BookingChangedEvent(10L, 5L, OWNER_ID, BOOKER_ID, null, BookingStatus.WAITING,
+                start, start.plusHours(1)));
+        cache.get(BookingListCache.Role.BOOKER, BOOKER_ID, BookingState.WAITING, 0, 10, null, loader);
+        cache.get(BookingListCache.Role.ITEM_OWNER, OWNER_ID, BookingState.WAITING, 0, 10, null, loader);
+        cache.get(BookingListCache.Role.BOOKER, 3L, BookingState.WAITING, 0, 10, null, loader);
+
+        Assertions.assertEquals(5, loads.get());
+    }
+
+    @Test
+    public void pageLoadedBeforeInvalidationIsNotCached() {
+        Supplier<KeysetSlice<BookingDto>> loader = () -> {
+            loads.incrementAndGet();
+            cache.invalidate(BookingListCache.Role.BOOKER, BOOKER_ID);
+            return new KeysetSlice<>(Collections.emptyList(), null);
+        };
+
+        cache.get(BookingListCache.Role.BOOKER, BOOKER_ID, BookingState.ALL, 0, 10, null, loader);
+        cache.get(BookingListCache.Role.BOOKER, BOOKER_ID, BookingState.ALL, 0, 10, null, loader);
+
+        Assertions.assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void importEventEvictsAllPages() {
+        Supplier<KeysetSlice<BookingDto>> loader = loader(Collections.emptyList());
+        cache.get(BookingListCache.Role.BOOKER, BOOKER_ID, BookingState.ALL, 0, 10, null, loader);
+
+        cache.onBookingChanged(BookingChangedEvent.forImportedItem(5L));
+        cache.get(BookingListCache.Role.BOOKER, BOOKER_ID, BookingState.ALL, 0, 10, null, loader);
+
+        Assertions.assertEquals(2, loads.get());
+    }
+
+    private Supplier<KeysetSlice<BookingDto>> loader(List<BookingDto> bookings) {
+        return () -> {
+            loads.incrementAndGet();
+            return new KeysetSlice<>(bookings, null);
+        };
+    }
+
+    private BookingDto booking(LocalDateTime start, LocalDateTime end) {
+        return new SimpleBookingDto(10L, start, end, BookingStatus.APPROVED, 5L, BOOKER_ID);
+    }
+}
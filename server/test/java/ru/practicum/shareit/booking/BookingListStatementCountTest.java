@@ -0,0 +1,107 @@
+package ru.practicum.shareit.booking;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.booking.service.BookingState;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+@SpringBootTest
+@Transactional
+public class BookingListStatementCountTest {
+    private static final int USER_CHECK_AND_LIST_QUERY = 2;
+    private static final Set<BookingState> ARCHIVED_STATES = EnumSet.of(BookingState.ALL, BookingState.PAST,
+            BookingState.WAITING, BookingState.REJECTED);
+    private static final Set<BookingState> RECURRING_STATES = EnumSet.of(BookingState.CURRENT, BookingState.FUTURE);
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private ItemRepository itemRepository;
+    @Autowired
+    private BookingRepository bookingRepository;
+    @Autowired
+    private BookingService bookingService;
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    private Statistics statistics;
+    private User booker;
+    private User owner;
+
+    @BeforeEach
+    public void putBookingsToDb() {
+        booker = userRepository.save(new User(null, "booker", "booker@m.l"));
+        owner = userRepository.save(new User(null, "owner", "owner@m.l"));
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < 5; i++) {
+            Item item = itemRepository.save(new Item(null, owner, "item" + i, "description", true, null,
+                    Collections.emptyList()));
+            bookingRepository.save(new Booking(null, item, booker, now.minusDays(2), now.minusDays(1),
+                    BookingStatus.APPROVED));
+            bookingRepository.save(new Booking(null, item, booker, now.minusHours(1), now.plusHours(1),
+                    BookingStatus.APPROVED));
+            bookingRepository.save(new Booking(null, item, booker, now.plusDays(1), now.plusDays(2),
+                    BookingStatus.WAITING));
+            bookingRepository.save(new Booking(null, item, booker, now.plusDays(3), now.plusDays(4),
+                    BookingStatus.REJECTED));
+        }
+        entityManager.flush();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+    }
+
+    @Test
+    public void listByBookerExecutesSingleQueryForEveryState() {
+        for (BookingState state : BookingState.values()) {
+            startCounting();
+            bookingService.findByBookerAndByState(state, booker.getId(), 0, 20, null);
+            assertStatementCount(state);
+        }
+    }
+
+    @Test
+    public void listByItemOwnerExecutesSingleQueryForEveryState() {
+        for (BookingState state : BookingState.values()) {
+            startCounting();
+            bookingService.findByItemOwnerAndByState(state, owner.getId(), 0, 20, null);
+            assertStatementCount(state);
+        }
+    }
+
+    private void startCounting() {
+        entityManager.clear();
+        statistics.clear();
+    }
+
+    /**
+     * Страница размером 20 не заполняется горячими данными, поэтому для состояний с архивом
+     * добавляется ровно один запрос к bookings_archive. Для текущих и будущих бронирований добавляется
+     * один запрос к recurring_bookings.
+     */
+    private void assertStatementCount(BookingState state) {
+        long expected = USER_CHECK_AND_LIST_QUERY + (ARCHIVED_STATES.contains(state) ? 1 : 0)
+                + (RECURRING_STATES.contains(state) ? 1 : 0);
+        Assertions.assertEquals(expected, statistics.getPrepareStatementCount(),
+                "Неожиданное число запросов для состояния " + state);
+    }
+}
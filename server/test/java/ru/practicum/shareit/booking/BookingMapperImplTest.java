@@ -4,10 +4,13 @@ import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingMapperImpl;
+import ru.practicum.shareit.booking.dto.BookingView;
 import ru.practicum.shareit.booking.dto.OutcomingBookingDto;
 import ru.practicum.shareit.booking.dto.SimpleBookingDto;
+import ru.practicum.shareit.booking.dto.WaitlistEntryDto;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.model.WaitlistEntry;
 import ru.practicum.shareit.item.dto.item.ItemDto;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.user.dto.UserDto;
@@ -38,6 +41,37 @@ public class BookingMapperImplTest {
         Assertions.assertEquals(dto, mapper.bookingToOutcomingDto(booking, itemDto, bookerDto));
     }
 
+    @Test
+    public void methodViewToOutcomingDtoReturnsOutcomingBookingDto() {
+        BookingView view = new BookingView(0L, booking.getStart(), booking.getEnd(), booking.getStatus(),
+                0L, 0L, "n", "d", true, null, 0L, "n", "e@m.l");
+        OutcomingBookingDto dto = new OutcomingBookingDto(booking.getId(), booking.getStart(), booking.getEnd(),
+                booking.getStatus(), new ItemDto(0L, 0L, "n", "d", true, null),
+                new UserDto(0L, "n", "e@m.l"));
+
+        Assertions.assertEquals(dto, mapper.viewToOutcomingDto(view));
+    }
+
+    @Test
+    public void methodViewToOutcomingDtoHidesSyntheticIdOfRecurringOccurrence() {
+        BookingView view = new BookingView(-3001L, booking.getStart(), booking.getEnd(), booking.getStatus(),
+                0L, 0L, "n", "d", true, null, 0L, "n", "e@m.l", 3L);
+
+        OutcomingBookingDto dto = (OutcomingBookingDto) mapper.viewToOutcomingDto(view);
+
+        Assertions.assertNull(dto.getId());
+        Assertions.assertEquals(3L, dto.getRecurringBookingId());
+    }
+
+    @Test
+    public void methodWaitlistEntryToDtoReturnsWaitlistEntryDto() {
+        LocalDateTime created = LocalDateTime.of(2024, 12, 1, 0, 0);
+        WaitlistEntry entry = new WaitlistEntry(5L, item, user, booking.getStart(), booking.getEnd(), created);
+
+        Assertions.assertEquals(new WaitlistEntryDto(5L, item.getId(), user.getId(), booking.getStart(),
+                booking.getEnd(), created), mapper.waitlistEntryToDto(entry));
+    }
+
     @Test
     public void methodBookingToSimpleDtoReturnsSimpleBookingDto() {
         Assertions.assertEquals(simpleBookingDto, mapper.bookingToSimpleDto(booking));
@@ -45,6 +79,10 @@ public class BookingMapperImplTest {
 
     @Test
     public void methodBookingFromSimpleDtoReturnsBooking() {
-        Assertions.assertEquals(booking, mapper.bookingFromDto(simpleBookingDto, item, user));
+        Booking mapped = mapper.bookingFromDto(simpleBookingDto, item, user);
+
+        Assertions.assertNull(mapped.getId());
+        mapped.setId(booking.getId());
+        Assertions.assertEquals(booking, mapped);
     }
 }
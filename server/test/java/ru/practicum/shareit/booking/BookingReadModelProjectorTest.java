@@ -0,0 +1,123 @@
+package ru.practicum.shareit.booking;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.SimpleBookingDto;
+import ru.practicum.shareit.booking.model.BookingChangedEvent;
+import ru.practicum.shareit.booking.model.BookingReadModel;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.repository.BookingReadModelRepository;
+import ru.practicum.shareit.booking.repository.BookingReadModelWriter;
+import ru.practicum.shareit.booking.service.BookingReadModelProjector;
+import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.item.dto.item.ItemDto;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.user.service.UserService;
+
+import javax.persistence.EntityManager;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+
+@SpringBootTest
+@Transactional
+@RequiredArgsConstructor(onConstructor = @__(@Autowired))
+public class BookingReadModelProjectorTest {
+    private final UserRepository userRepository;
+    private final ItemRepository itemRepository;
+    private final BookingReadModelRepository bookingReadModelRepository;
+    private final BookingService bookingService;
+    private final ItemService itemService;
+    private final UserService userService;
+    private final EntityManager entityManager;
+    private User owner;
+    private User booker;
+    private Item item;
+
+    @BeforeEach
+    public void putUsersAndItemToDb() {
+        owner = userRepository.save(new User(null, "owner", "owner@m.l"));
+        booker = userRepository.save(new User(null, "booker", "booker@m.l"));
+        item = itemRepository.save(new Item(null, owner, "name", "description", true, null,
+                Collections.emptyList()));
+    }
+
+    @Test
+    public void bookingWritesAreProjectedInSameTransaction() {
+        BookingDto created = bookingService.create(new SimpleBookingDto(0L, LocalDateTime.now().plusDays(1),
+                LocalDateTime.now().plusDays(2), null, item.getId(), 0L), booker.getId());
+        Assertions.assertEquals(BookingStatus.WAITING, readModelOf(created).getStatus());
+        Assertions.assertEquals(owner.getId(), readModelOf(created).getOwnerId());
+
+        bookingService.update(created.getId(), true, owner.getId());
+
+        Assertions.assertEquals(BookingStatus.APPROVED, readModelOf(created).getStatus());
+    }
+
+    @Test
+    public void itemAndUserUpdatesRewriteProjectedFieldsAndDeletesRemoveRows() {
+        BookingDto created = bookingService.create(new SimpleBookingDto(0L, LocalDateTime.now().plusDays(1),
+                LocalDateTime.now().plusDays(2), null, item.getId(), 0L), booker.getId());
+
+        ItemDto itemUpdate = new ItemDto(item.getId(), "new name", null, false, null);
+        itemUpdate.setOwnerId(owner.getId());
+        itemService.update(itemUpdate);
+        userService.update(new UserDto(booker.getId(), "new booker", null));
+
+        BookingReadModel row = readModelOf(created);
+        Assertions.assertEquals("new name", row.getItemName());
+        Assertions.assertFalse(row.getItemAvailable());
+        Assertions.assertEquals("new booker", row.getBookerName());
+        Assertions.assertEquals("booker@m.l", row.getBookerEmail());
+
+        userService.delete(booker.getId());
+        entityManager.clear();
+        Assertions.assertTrue(bookingReadModelRepository.findById(created.getId()).isEmpty());
+    }
+
+    @Test
+    public void bookingChangesOfTransactionAreRefreshedOnceBeforeCommit() {
+        BookingReadModelWriter writer = Mockito.mock(BookingReadModelWriter.class);
+        BookingReadModelProjector projector = new BookingReadModelProjector(writer,
+                Mockito.mock(EntityManager.class));
+
+        projector.onBookingChanged(changed(1L, BookingStatus.WAITING));
+        projector.onBookingChanged(changed(2L, BookingStatus.WAITING));
+        projector.onBookingChanged(changed(1L, BookingStatus.APPROVED));
+        Mockito.verifyNoInteractions(writer);
+
+        TransactionSynchronizationUtils.triggerBeforeCommit(false);
+
+        Mockito.verify(writer).refresh(List.of(1L, 2L));
+        Mockito.verifyNoMoreInteractions(writer);
+    }
+
+    private static BookingChangedEvent changed(long bookingId, BookingStatus status) {
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        return new BookingChangedEvent(bookingId, 10L, 20L, 30L, null, status, start, start.plusDays(1));
+    }
+
+    /**
+     * Строки booking_view пишутся перед фиксацией, поэтому тест, работающий в одной транзакции,
+     * запускает этот шаг сам.
+     */
+    private BookingReadModel readModelOf(BookingDto booking) {
+        TransactionSynchronizationUtils.triggerBeforeCommit(false);
+        entityManager.flush();
+        entityManager.clear();
+        return bookingReadModelRepository.findById(booking.getId()).orElseThrow();
+    }
+}
@@ -0,0 +1,60 @@
+package ru.practicum.shareit.booking;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.DefaultApplicationArguments;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.repository.BookingReadModelWriter;
+import ru.practicum.shareit.booking.service.BookingReadModelRebuilder;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class BookingReadModelRebuilderTest {
+    private final BookingReadModelWriter bookingReadModelWriter = mock(BookingReadModelWriter.class);
+    private final TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+    private final BookingReadModelRebuilder rebuilder = new BookingReadModelRebuilder(bookingReadModelWriter,
+            transactionTemplate, 3, 10);
+
+    @Test
+    public void methodRebuildSplitsItemIdsIntoRangesEachInOwnTransaction() {
+        runCallbacksInPlace();
+        when(bookingReadModelWriter.findMaxItemId()).thenReturn(25L);
+        when(bookingReadModelWriter.rebuildItemRange(anyLong(), anyLong())).thenReturn(4);
+
+        Assertions.assertEquals(12, rebuilder.rebuild());
+
+        verify(bookingReadModelWriter).rebuildItemRange(1, 10);
+        verify(bookingReadModelWriter).rebuildItemRange(11, 20);
+        verify(bookingReadModelWriter).rebuildItemRange(21, 25);
+    }
+
+    @Test
+    public void failedRangeFailsRebuild() {
+        runCallbacksInPlace();
+        when(bookingReadModelWriter.findMaxItemId()).thenReturn(5L);
+        when(bookingReadModelWriter.rebuildItemRange(1, 5)).thenThrow(new IllegalArgumentException());
+
+        Assertions.assertThrows(IllegalStateException.class, rebuilder::rebuild);
+    }
+
+    @Test
+    public void rebuildRunsOnStartupOnlyWithOption() {
+        rebuilder.run(new DefaultApplicationArguments());
+        verify(bookingReadModelWriter, never()).findMaxItemId();
+
+        rebuilder.run(new DefaultApplicationArguments("--rebuild-booking-view"));
+        verify(bookingReadModelWriter).findMaxItemId();
+    }
+
+    @SuppressWarnings("unchecked")
+    private void runCallbacksInPlace() {
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.getArgument(0, TransactionCallback.class).doInTransaction(null));
+    }
+}
@@ -0,0 +1,175 @@
+package ru.practicum.shareit.booking;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.shareit.booking.dto.BookingView;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingReadModel;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.repository.BookingReadModelRepository;
+import ru.practicum.shareit.booking.repository.BookingReadModelWriter;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.util.KeysetCursor;
+
+import javax.persistence.EntityManager;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@DataJpaTest
+@Import(BookingReadModelWriter.class)
+@RequiredArgsConstructor(onConstructor = @__(@Autowired))
+public class BookingReadModelRepositoryTest {
+    private final UserRepository userRepository;
+    private final ItemRepository itemRepository;
+    private final BookingRepository bookingRepository;
+    private final BookingReadModelRepository bookingReadModelRepository;
+    private final BookingReadModelWriter bookingReadModelWriter;
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManager entityManager;
+    private User booker = new User(null, "n", "e@m.l");
+    private User owner = new User(null, "name", "e@ma.il");
+    private Item item = new Item(null, owner,
+            "name", "description", true, null,
+            Collections.emptyList());
+    private Booking past = new Booking(null, item, booker, LocalDateTime.now().minusDays(1),
+            LocalDateTime.now().minusHours(12), BookingStatus.APPROVED);
+    private Booking current = new Booking(null, item, booker, LocalDateTime.now().minusHours(2),
+            LocalDateTime.now().plusHours(12), BookingStatus.APPROVED);
+    private Booking future = new Booking(null, item, booker, LocalDateTime.now().plusDays(1),
+            LocalDateTime.now().plusDays(2), BookingStatus.APPROVED);
+
+    @BeforeEach
+    public void putBookingsToDbAndReadModel() {
+        booker = userRepository.save(booker);
+        owner = userRepository.save(owner);
+        item = itemRepository.save(item);
+        past = bookingRepository.save(past);
+        current = bookingRepository.save(current);
+        future = bookingRepository.save(future);
+        bookingReadModelWriter.refresh(List.of(past.getId(), current.getId(), future.getId()));
+    }
+
+    @Test
+    public void methodFindCurrentByBookerReturnsListOfCurrentBooking() {
+        KeysetCursor cursor = KeysetCursor.beforeFirstAscending();
+        Assertions.assertEquals(List.of(current.getId()), idsOf(bookingReadModelRepository.findCurrentByBooker(
+                booker.getId(), LocalDateTime.now(), cursor.getStart(), cursor.getId(), PageRequest.of(0, 10))));
+    }
+
+    @Test
+    public void methodFindCurrentByItemOwnerReturnsListOfCurrentBooking() {
+        KeysetCursor cursor = KeysetCursor.beforeFirstAscending();
+        Assertions.assertEquals(List.of(current.getId()), idsOf(bookingReadModelRepository.findCurrentByItemOwner(
+                owner.getId(), LocalDateTime.now(), cursor.getStart(), cursor.getId(), PageRequest.of(0, 10))));
+    }
+
+    @Test
+    public void methodFindAllByItemOwnerPagesThroughBookingsWithCursor() {
+        KeysetCursor cursor = KeysetCursor.beforeFirstDescending();
+        Slice<BookingView> first = bookingReadModelRepository.findAllByItemOwner(owner.getId(), cursor.getStart(),
+                cursor.getId(), PageRequest.of(0, 2));
+        Assertions.assertEquals(List.of(future.getId(), current.getId()), idsOf(first));
+        Assertions.assertTrue(first.hasNext());
+
+        BookingView last = first.getContent().get(1);
+        Slice<BookingView> second = bookingReadModelRepository.findAllByItemOwner(owner.getId(), last.getStart(),
+                last.getId(), PageRequest.of(0, 2));
+        Assertions.assertEquals(List.of(past.getId()), idsOf(second));
+        Assertions.assertFalse(second.hasNext());
+    }
+
+    @Test
+    public void methodFindAllByBookerProjectsItemAndBookerFields() {
+        KeysetCursor cursor = KeysetCursor.beforeFirstDescending();
+        BookingView view = bookingReadModelRepository.findAllByBooker(booker.getId(), cursor.getStart(), cursor.getId(),
+                PageRequest.of(0, 1)).getContent().get(0);
+
+        Assertions.assertEquals(new BookingView(future.getId(), view.getStart(), view.getEnd(),
+                BookingStatus.APPROVED, item.getId(), owner.getId(), "name", "description", true, null,
+                booker.getId(), "n", "e@m.l"), view);
+    }
+
+    @Test
+    public void methodFindPastByBookerFiltersByStatusesAndTime() {
+        KeysetCursor cursor = KeysetCursor.beforeFirstDescending();
+        Assertions.assertEquals(List.of(past.getId()), idsOf(bookingReadModelRepository.findPastByBooker(booker.getId(),
+                List.of(BookingStatus.APPROVED), LocalDateTime.now(), cursor.getStart(), cursor.getId(),
+                PageRequest.of(0, 10))));
+        Assertions.assertEquals(Collections.emptyList(), bookingReadModelRepository.findByBookerAndStatus(
+                booker.getId(), BookingStatus.WAITING, cursor.getStart(), cursor.getId(), PageRequest.of(0, 10))
+                .getContent());
+    }
+
+    @Test
+    public void methodRefreshPicksUpStatusChangeButNotOlderChange() {
+        bookingRepository.updateStatusByIds(List.of(future.getId()), BookingStatus.APPROVED, BookingStatus.REJECTED);
+        bookingReadModelWriter.refresh(List.of(future.getId()));
+        Assertions.assertEquals(BookingStatus.REJECTED, readModelOf(future).getStatus());
+
+        jdbcTemplate.update("UPDATE booking_view SET change_seq = ? WHERE booking_id = ?", Long.MAX_VALUE,
+                future.getId());
+        bookingRepository.updateStatusByIds(List.of(future.getId()), BookingStatus.REJECTED, BookingStatus.WAITING);
+        bookingReadModelWriter.refresh(List.of(future.getId()));
+        Assertions.assertEquals(BookingStatus.REJECTED, readModelOf(future).getStatus());
+    }
+
+    @Test
+    public void methodsUpdateItemAndUpdateBookerRewriteDenormalizedFields() {
+        bookingReadModelWriter.updateItem(item.getId(), owner.getId(), "new name", "new description", false);
+        bookingReadModelWriter.updateBooker(booker.getId(), "new n", "new@m.l");
+
+        BookingReadModel row = readModelOf(past);
+        Assertions.assertEquals("new name", row.getItemName());
+        Assertions.assertEquals("new description", row.getItemDescription());
+        Assertions.assertFalse(row.getItemAvailable());
+        Assertions.assertEquals("new n", row.getBookerName());
+        Assertions.assertEquals("new@m.l", row.getBookerEmail());
+    }
+
+    @Test
+    public void methodRebuildItemRangeRestoresMissingRowsAndDropsOrphans() {
+        jdbcTemplate.update("DELETE FROM booking_view WHERE booking_id = ?", current.getId());
+        bookingRepository.deleteByIds(List.of(past.getId()));
+
+        Assertions.assertEquals(2, bookingReadModelWriter.rebuildItemRange(item.getId(), item.getId()));
+        entityManager.clear();
+
+        Assertions.assertEquals(List.of(current.getId(), future.getId()), bookingReadModelRepository.findAll()
+                .stream()
+                .map(BookingReadModel::getId)
+                .sorted()
+                .collect(Collectors.toList()));
+        Assertions.assertEquals(item.getId(), bookingReadModelWriter.findMaxItemId());
+    }
+
+    @Test
+    public void methodDeleteByUserIdRemovesRowsOfBookerAndOwner() {
+        Assertions.assertEquals(3, bookingReadModelWriter.deleteByUserId(owner.getId()));
+        Assertions.assertEquals(0, bookingReadModelWriter.deleteByUserId(booker.getId()));
+    }
+
+    private BookingReadModel readModelOf(Booking booking) {
+        entityManager.clear();
+        return bookingReadModelRepository.findById(booking.getId()).orElseThrow();
+    }
+
+    private List<Long> idsOf(Slice<BookingView> slice) {
+        return slice.getContent().stream()
+                .map(BookingView::getId)
+                .collect(Collectors.toList());
+    }
+}
@@ -6,6 +6,8 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import ru.practicum.shareit.booking.dto.BookingInterval;
+import ru.practicum.shareit.booking.dto.BookingStatusCheck;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.model.BookingStatus;
 import ru.practicum.shareit.booking.repository.BookingRepository;
@@ -17,6 +19,7 @@ import ru.practicum.shareit.user.repository.UserRepository;
 import java.time.LocalDateTime;
 import java.util.Collections;
 import java.util.List;
+import java.util.stream.Collectors;
 
 @DataJpaTest
 @RequiredArgsConstructor(onConstructor = @__(@Autowired))
@@ -47,15 +50,51 @@ public class BookingRepositoryTest {
     }
 
     @Test
-    public void methodFindCurrentByBookerReturnsListOfCurrentBooking() {
-        Assertions.assertEquals(List.of(current), bookingRepository.findCurrentByBooker(booker.getId(),
-                LocalDateTime.now()));
+    public void methodFindIntervalsByItemOverlappingReturnsIntervalsInsideWindowByStart() {
+        List<Long> ids = bookingRepository.findIntervalsByItemOverlapping(item.getId(),
+                        List.of(BookingStatus.APPROVED, BookingStatus.WAITING), LocalDateTime.now().minusHours(1),
+                        LocalDateTime.now().plusDays(3)).stream()
+                .map(BookingInterval::getBookingId)
+                .collect(Collectors.toList());
+
+        Assertions.assertEquals(List.of(current.getId(), future.getId()), ids);
     }
 
     @Test
-    public void methodFindCurrentByItemOwnerReturnsListOfCurrentBooking() {
-        Assertions.assertEquals(List.of(current), bookingRepository.findCurrentByItemOwner(owner.getId(),
-                LocalDateTime.now()));
+    public void methodFindIdsOverlappingStatusReturnsBookingsOverlappingOtherApprovedBookings() {
+        Booking overlapping = bookingRepository.save(new Booking(null, item, booker, LocalDateTime.now().plusHours(1),
+                LocalDateTime.now().plusDays(1).plusHours(1), BookingStatus.WAITING));
+        Booking free = bookingRepository.save(new Booking(null, item, booker, LocalDateTime.now().plusDays(3),
+                LocalDateTime.now().plusDays(4), BookingStatus.WAITING));
+
+        Assertions.assertEquals(List.of(overlapping.getId()), bookingRepository.findIdsOverlappingStatus(
+                List.of(overlapping.getId(), free.getId()), BookingStatus.APPROVED));
+        Assertions.assertEquals(Collections.emptyList(), bookingRepository.findIdsOverlappingStatus(
+                List.of(past.getId()), BookingStatus.APPROVED));
+    }
+
+    @Test
+    public void methodFindStatusChecksByIdsReturnsOwnerAndStatusOfExistingBookings() {
+        List<BookingStatusCheck> checks = bookingRepository.findStatusChecksByIds(List.of(past.getId(), 999L));
+
+        Assertions.assertEquals(1, checks.size());
+        Assertions.assertEquals(past.getId(), checks.get(0).getBookingId());
+        Assertions.assertEquals(item.getId(), checks.get(0).getItemId());
+        Assertions.assertEquals(owner.getId(), checks.get(0).getItemOwnerId());
+        Assertions.assertEquals(BookingStatus.APPROVED, checks.get(0).getStatus());
+    }
+
+    @Test
+    public void methodUpdateStatusByIdsUpdatesOnlyGivenBookingsWithExpectedStatus() {
+        Assertions.assertEquals(2, bookingRepository.updateStatusByIds(List.of(past.getId(), future.getId()),
+                BookingStatus.APPROVED, BookingStatus.REJECTED));
+        Assertions.assertEquals(0, bookingRepository.updateStatusByIds(List.of(past.getId()),
+                BookingStatus.WAITING, BookingStatus.APPROVED));
+
+        Assertions.assertEquals(BookingStatus.REJECTED, bookingRepository.findById(past.getId())
+                .orElseThrow().getStatus());
+        Assertions.assertEquals(BookingStatus.APPROVED, bookingRepository.findById(current.getId())
+                .orElseThrow().getStatus());
     }
 
     @Test
@@ -0,0 +1,107 @@
+package ru.practicum.shareit.booking;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Slice;
+import ru.practicum.shareit.booking.dto.BookingSearchFilter;
+import ru.practicum.shareit.booking.dto.BookingView;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.booking.repository.BookingSearchRepository;
+import ru.practicum.shareit.booking.service.BookingSearchRole;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.util.KeysetCursor;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+@DataJpaTest
+@Import(BookingSearchRepository.class)
+@RequiredArgsConstructor(onConstructor = @__(@Autowired))
+public class BookingSearchRepositoryTest {
+    private static final LocalDateTime MARCH = LocalDateTime.of(2030, 3, 1, 0, 0);
+    private final UserRepository userRepository;
+    private final ItemRepository itemRepository;
+    private final BookingRepository bookingRepository;
+    private final BookingSearchRepository bookingSearchRepository;
+    private User booker;
+    private User owner;
+    private Item drill;
+    private Booking marchApproved;
+    private Booking marchWaiting;
+    private Booking aprilApproved;
+    private Booking otherItemMarch;
+
+    @BeforeEach
+    public void createBookings() {
+        booker = userRepository.save(new User(null, "n", "e@m.l"));
+        owner = userRepository.save(new User(null, "name", "e@ma.il"));
+        drill = itemRepository.save(new Item(null, owner, "drill", "description", true, null,
+                Collections.emptyList()));
+        Item saw = itemRepository.save(new Item(null, owner, "saw", "description", true, null,
+                Collections.emptyList()));
+        marchApproved = save(drill, MARCH.plusDays(2), BookingStatus.APPROVED);
+        marchWaiting = save(drill, MARCH.plusDays(5), BookingStatus.WAITING);
+        aprilApproved = save(drill, MARCH.plusMonths(1).plusDays(1), BookingStatus.APPROVED);
+        otherItemMarch = save(saw, MARCH.plusDays(3), BookingStatus.APPROVED);
+    }
+
+    @Test
+    public void searchCombinesItemStatusAndWindowFilters() {
+        BookingSearchFilter filter = new BookingSearchFilter(BookingSearchRole.OWNER, drill.getId(),
+                Set.of(BookingStatus.APPROVED), MARCH, MARCH.plusMonths(1));
+
+        Assertions.assertEquals(List.of(marchApproved.getId()), idsOf(search(owner, filter, 10)));
+    }
+
+    @Test
+    public void searchWithoutFiltersReturnsAllBookingsOfRoleInStartDescendingOrder() {
+        BookingSearchFilter filter = new BookingSearchFilter(BookingSearchRole.BOOKER, null, null, null, null);
+
+        Assertions.assertEquals(List.of(aprilApproved.getId(), marchWaiting.getId(), otherItemMarch.getId(),
+                marchApproved.getId()), idsOf(search(booker, filter, 10)));
+        Assertions.assertTrue(search(owner, filter, 10).getContent().isEmpty());
+    }
+
+    @Test
+    public void searchWithMultipleStatusesPagesThroughResultsWithCursor() {
+        BookingSearchFilter filter = new BookingSearchFilter(BookingSearchRole.OWNER, null,
+                Set.of(BookingStatus.APPROVED, BookingStatus.WAITING), MARCH, MARCH.plusMonths(1));
+
+        Slice<BookingView> first = search(owner, filter, 2);
+        BookingView last = first.getContent().get(1);
+        Slice<BookingView> second = bookingSearchRepository.search(owner.getId(), filter,
+                new KeysetCursor(last.getStart(), last.getId()), 2);
+
+        Assertions.assertEquals(List.of(marchWaiting.getId(), otherItemMarch.getId()), idsOf(first));
+        Assertions.assertTrue(first.hasNext());
+        Assertions.assertEquals(List.of(marchApproved.getId()), idsOf(second));
+        Assertions.assertFalse(second.hasNext());
+    }
+
+    private Slice<BookingView> search(User user, BookingSearchFilter filter, int size) {
+        return bookingSearchRepository.search(user.getId(), filter, KeysetCursor.beforeFirstDescending(), size);
+    }
+
+    private Booking save(Item item, LocalDateTime start, BookingStatus status) {
+        return bookingRepository.save(new Booking(null, item, booker, start, start.plusDays(1), status));
+    }
+
+    private List<Long> idsOf(Slice<BookingView> slice) {
+        return slice.getContent().stream()
+                .map(BookingView::getId)
+                .collect(Collectors.toList());
+    }
+}
@@ -1,41 +1,78 @@
 package ru.practicum.shareit.booking;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.data.domain.Page;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+import ru.practicum.shareit.booking.dto.BookingCreationCheck;
+import ru.practicum.shareit.booking.dto.BookingCreationResult;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingInterval;
 import ru.practicum.shareit.booking.dto.BookingMapper;
+import ru.practicum.shareit.booking.dto.BookingSearchFilter;
+import ru.practicum.shareit.booking.dto.BookingStatusCheck;
+import ru.practicum.shareit.booking.dto.BookingStatusUpdateDto;
+import ru.practicum.shareit.booking.dto.BookingStatusUpdateResult;
+import ru.practicum.shareit.booking.dto.BookingView;
 import ru.practicum.shareit.booking.dto.SimpleBookingDto;
+import ru.practicum.shareit.booking.dto.WaitlistEntryDto;
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingChangedEvent;
 import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.repository.BookingArchiveRepository;
+import ru.practicum.shareit.booking.repository.BookingReadModelRepository;
 import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.booking.repository.BookingSearchRepository;
+import ru.practicum.shareit.booking.service.BookingIntervalIndex;
+import ru.practicum.shareit.booking.service.BookingListCache;
+import ru.practicum.shareit.booking.service.BookingSearchRole;
 import ru.practicum.shareit.booking.service.BookingServiceImpl;
 import ru.practicum.shareit.booking.service.BookingState;
+import ru.practicum.shareit.booking.service.BookingStateCounters;
+import ru.practicum.shareit.booking.service.BookingWaitlistService;
+import ru.practicum.shareit.booking.service.ItemBookingLock;
+import ru.practicum.shareit.booking.service.RecurringBookingService;
+import ru.practicum.shareit.exception.InvalidCursorException;
+import ru.practicum.shareit.exception.InvalidPaginationException;
 import ru.practicum.shareit.exception.ItemNotAvailableException;
 import ru.practicum.shareit.exception.ShareItException;
 import ru.practicum.shareit.exception.alreadyExists.ApprovedAlreadyExistsException;
-import ru.practicum.shareit.exception.alreadyExists.BookingAlreadyExistsException;
 import ru.practicum.shareit.exception.mismatch.ItemOwnerOrBookerMismatchException;
 import ru.practicum.shareit.exception.mismatch.OwnerMismatchException;
+import ru.practicum.shareit.exception.mismatch.TimeMismatchException;
 import ru.practicum.shareit.exception.notFound.BookingNotFoundException;
+import ru.practicum.shareit.exception.notFound.ItemNotFoundException;
+import ru.practicum.shareit.exception.notFound.UserNotFoundException;
 import ru.practicum.shareit.item.dto.item.ItemDto;
 import ru.practicum.shareit.item.dto.item.ItemMapper;
 import ru.practicum.shareit.item.model.Item;
-import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.item.repository.ItemRepository;
 import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.dto.UserMapper;
 import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserRepository;
 import ru.practicum.shareit.user.service.UserService;
-import ru.practicum.shareit.util.PaginationInfo;
+import ru.practicum.shareit.util.KeysetCursor;
+import ru.practicum.shareit.util.KeysetSlice;
 
+import java.sql.SQLException;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.mockito.Mockito.*;
 
@@ -45,18 +82,43 @@ public class BookingServiceImplTest {
     private User user;
     private Item item;
     private Booking booking;
+    private BookingView view;
+    private BookingCreationCheck check;
     @Mock
     private BookingRepository bookingRepository;
     @Mock
+    private BookingReadModelRepository bookingReadModelRepository;
+    @Mock
+    private BookingArchiveRepository bookingArchiveRepository;
+    @Mock
     private BookingMapper bookingMapper;
     @Mock
     private UserService userService;
     @Mock
     private UserMapper userMapper;
     @Mock
-    private ItemService itemService;
+    private ItemRepository itemRepository;
+    @Mock
+    private UserRepository userRepository;
     @Mock
     private ItemMapper itemMapper;
+    @Mock
+    private BookingIntervalIndex bookingIntervalIndex;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    @Mock
+    private BookingWaitlistService bookingWaitlistService;
+    @Mock
+    private RecurringBookingService recurringBookingService;
+    @Mock
+    private BookingStateCounters bookingStateCounters;
+    @Mock
+    private ItemBookingLock itemBookingLock;
+    @Mock
+    private BookingSearchRepository bookingSearchRepository;
+    @Spy
+    private BookingListCache bookingListCache = new BookingListCache(mock(BookingStateCounters.class),
+            new SimpleMeterRegistry(), Duration.ofMinutes(1), true);
     @InjectMocks
     private BookingServiceImpl bookingService;
 
@@ -71,79 +133,352 @@ public class BookingServiceImplTest {
                 Collections.emptyList());
         booking = new Booking(0L, item, user, bookingDto.getStart(), bookingDto.getEnd(),
                 bookingDto.getStatus());
+        view = new BookingView(0L, bookingDto.getStart(), bookingDto.getEnd(), bookingDto.getStatus(),
+                0L, 0L, "name", "description", true, null, 999L, "n", "e@m.l");
+        check = new BookingCreationCheck(999L, "n", "e@m.l", 0L, 0L, "name", "description", true, null);
+    }
+
+    private void stubStatusCheck() {
+        when(bookingRepository.findStatusChecksByIds(List.of(0L))).thenReturn(List.of(new BookingStatusCheck(0L, 0L,
+                0L, 999L, booking.getStatus(), booking.getStart(), booking.getEnd())));
+    }
+
+    private void stubNewBooking() {
+        when(bookingRepository.findCreationCheck(999L, 0L)).thenReturn(Optional.of(check));
+        when(itemRepository.getReferenceById(0L)).thenReturn(item);
+        when(userRepository.getReferenceById(999L)).thenReturn(user);
+        when(bookingMapper.bookingFromDto(bookingDto, item, user)).thenReturn(booking);
     }
 
     @Test
     public void methodCreateCallsMapperRepositoriesValidator() {
-        when(itemService.findByIdOrThrow(0L)).thenReturn(item);
-        when(userService.findByIdOrThrow(999L)).thenReturn(user);
-        when(bookingMapper.bookingFromDto(bookingDto, item, user)).thenReturn(booking);
-        when(bookingRepository.existsById(0L)).thenReturn(false);
-        when(bookingRepository.save(booking)).thenReturn(booking);
-        when(userMapper.userToDto(user)).thenReturn(new UserDto());
-        when(itemMapper.itemToDto(item)).thenReturn(new ItemDto());
-        when(bookingMapper.bookingToOutcomingDto(booking, new ItemDto(), new UserDto())).thenReturn(bookingDto);
+        stubNewBooking();
+        when(bookingRepository.saveAndFlush(booking)).thenReturn(booking);
+        when(bookingMapper.bookingToOutcomingDto(booking, new ItemDto(0L, 0L, "name", "description", true, null),
+                new UserDto(999L, "n", "e@m.l"))).thenReturn(bookingDto);
 
         Assertions.assertEquals(bookingDto, bookingService.create(bookingDto, 999L));
+        verify(eventPublisher).publishEvent(new BookingChangedEvent(0L, 0L, 0L, 999L, null, BookingStatus.WAITING,
+                booking.getStart(), booking.getEnd()));
+        verify(userMapper, never()).userToDto(any());
+        verify(itemMapper, never()).itemToDto(any());
     }
 
     @Test
-    public void methodCreateWhenBookingAlreadyExistsThrowsException() {
-        booking.setStart(LocalDateTime.now().minusHours(1));
-        when(itemService.findByIdOrThrow(0L)).thenReturn(item);
-        when(userService.findByIdOrThrow(999L)).thenReturn(user);
-        when(bookingMapper.bookingFromDto(bookingDto, item, user)).thenReturn(booking);
-        when(bookingRepository.existsById(0L)).thenReturn(true);
+    public void methodCreateWhenBookerNotFoundThrowsException() {
+        when(bookingRepository.findCreationCheck(999L, 0L)).thenReturn(Optional.empty());
 
-        Assertions.assertThrows(BookingAlreadyExistsException.class,
-                () -> bookingService.create(bookingDto, 999L));
+        Assertions.assertThrows(UserNotFoundException.class, () -> bookingService.create(bookingDto, 999L));
+        verify(bookingRepository, never()).saveAndFlush(any());
+    }
+
+    @Test
+    public void methodCreateWhenItemNotFoundThrowsException() {
+        when(bookingRepository.findCreationCheck(999L, 0L)).thenReturn(Optional.of(new BookingCreationCheck(999L,
+                "n", "e@m.l", null, null, null, null, null, null)));
+
+        Assertions.assertThrows(ItemNotFoundException.class, () -> bookingService.create(bookingDto, 999L));
+        verify(bookingRepository, never()).saveAndFlush(any());
     }
 
     @Test
     public void methodCreateWhenItemNotAvailableThrowsException() {
-        item.setAvailable(false);
-        when(itemService.findByIdOrThrow(0L)).thenReturn(item);
-        when(userService.findByIdOrThrow(999L)).thenReturn(user);
-        when(bookingMapper.bookingFromDto(bookingDto, item, user)).thenReturn(booking);
-        when(bookingRepository.existsById(0L)).thenReturn(false);
+        check.setItemAvailable(false);
+        when(bookingRepository.findCreationCheck(999L, 0L)).thenReturn(Optional.of(check));
 
         Assertions.assertThrows(ItemNotAvailableException.class, () -> bookingService.create(bookingDto, 999L));
     }
 
     @Test
     public void methodCreateWhenOwnerIsBookerThrowsException() {
-        item.setOwner(user);
-        when(itemService.findByIdOrThrow(0L)).thenReturn(item);
-        when(userService.findByIdOrThrow(999L)).thenReturn(user);
-        when(bookingMapper.bookingFromDto(bookingDto, item, user)).thenReturn(booking);
-        when(bookingRepository.existsById(0L)).thenReturn(false);
+        check.setItemOwnerId(999L);
+        when(bookingRepository.findCreationCheck(999L, 0L)).thenReturn(Optional.of(check));
 
         Assertions.assertThrows(OwnerMismatchException.class, () -> bookingService.create(bookingDto, 999L));
     }
 
+    @Test
+    public void methodCreateWhenIntervalOccupiedThrowsException() {
+        stubNewBooking();
+        when(bookingIntervalIndex.overlaps(0L, booking.getStart(), booking.getEnd())).thenReturn(true);
+
+        Assertions.assertThrows(ItemNotAvailableException.class, () -> bookingService.create(bookingDto, 999L));
+        verify(bookingRepository, never()).saveAndFlush(any());
+    }
+
     @Test
     public void methodUpdateCallsBookingRepositoryValidator() {
+        stubStatusCheck();
         when(bookingRepository.findById(0L)).thenReturn(Optional.of(booking));
-        when(bookingRepository.save(booking)).thenReturn(booking);
+        when(bookingIntervalIndex.tryAdd(0L, 0L, booking.getStart(), booking.getEnd())).thenReturn(true);
+        when(bookingRepository.saveAndFlush(booking)).thenReturn(booking);
         when(userMapper.userToDto(user)).thenReturn(new UserDto());
         when(itemMapper.itemToDto(item)).thenReturn(new ItemDto());
         when(bookingMapper.bookingToOutcomingDto(booking, new ItemDto(), new UserDto())).thenReturn(bookingDto);
 
         Assertions.assertEquals(bookingDto, bookingService.update(0L, true, 0L));
         Assertions.assertEquals(BookingStatus.APPROVED, booking.getStatus());
+        verify(eventPublisher).publishEvent(new BookingChangedEvent(0L, 0L, 0L, 999L, BookingStatus.WAITING,
+                BookingStatus.APPROVED, booking.getStart(), booking.getEnd()));
     }
 
     @Test
-    public void methodUpdateWhenOwnerMismatchedThrowsException() {
+    public void methodUpdateWhenRejectedPromotesWaitlist() {
+        stubStatusCheck();
+        when(bookingRepository.findById(0L)).thenReturn(Optional.of(booking));
+        when(bookingRepository.saveAndFlush(booking)).thenReturn(booking);
+
+        bookingService.update(0L, false, 0L);
+
+        Assertions.assertEquals(BookingStatus.REJECTED, booking.getStatus());
+        verify(bookingWaitlistService).promote(0L, booking.getStart(), booking.getEnd());
+    }
+
+    @Test
+    public void methodCreateOrEnqueueWhenIntervalHasWaitingBookingEnqueues() {
+        WaitlistEntryDto entry = new WaitlistEntryDto(5L, 0L, 999L, booking.getStart(), booking.getEnd(),
+                LocalDateTime.now());
+        stubNewBooking();
+        when(bookingRepository.findIntervalsByItemOverlapping(eq(0L), any(), eq(booking.getStart()),
+                eq(booking.getEnd()))).thenReturn(List.of(new BookingInterval(0L, 1L, booking.getStart(),
+                booking.getEnd())));
+        when(bookingWaitlistService.enqueue(booking)).thenReturn(entry);
+
+        Assertions.assertEquals(new BookingCreationResult(null, entry), bookingService.createOrEnqueue(bookingDto,
+                999L));
+        verify(bookingRepository, never()).saveAndFlush(any());
+    }
+
+    @Test
+    public void methodCreateOrEnqueueWhenIntervalFreeCreatesBooking() {
+        stubNewBooking();
+        when(bookingRepository.findIntervalsByItemOverlapping(eq(0L), any(), any(), any()))
+                .thenReturn(Collections.emptyList());
+        when(bookingRepository.saveAndFlush(booking)).thenReturn(booking);
+        when(bookingMapper.bookingToOutcomingDto(booking, new ItemDto(0L, 0L, "name", "description", true, null),
+                new UserDto(999L, "n", "e@m.l"))).thenReturn(bookingDto);
+
+        Assertions.assertEquals(new BookingCreationResult(bookingDto, null), bookingService.createOrEnqueue(bookingDto,
+                999L));
+        verify(bookingWaitlistService, never()).enqueue(any());
+    }
+
+    @Test
+    public void methodUpdateWhenIntervalOccupiedThrowsException() {
+        stubStatusCheck();
+        when(bookingRepository.findById(0L)).thenReturn(Optional.of(booking));
+        when(bookingIntervalIndex.tryAdd(0L, 0L, booking.getStart(), booking.getEnd())).thenReturn(false);
+
+        Assertions.assertThrows(ItemNotAvailableException.class, () -> bookingService
+                .update(0L, true, 0L));
+        Assertions.assertEquals(BookingStatus.WAITING, booking.getStatus());
+        verify(bookingRepository, never()).saveAndFlush(any());
+    }
+
+    @Test
+    public void methodUpdateReadsBookingAfterLockingItem() {
+        stubStatusCheck();
+        when(bookingRepository.findById(0L)).thenReturn(Optional.of(booking));
+        when(bookingRepository.saveAndFlush(booking)).thenReturn(booking);
+
+        bookingService.update(0L, false, 0L);
+
+        InOrder inOrder = inOrder(bookingRepository, itemBookingLock);
+        inOrder.verify(bookingRepository).findStatusChecksByIds(List.of(0L));
+        inOrder.verify(itemBookingLock).lock(0L);
+        inOrder.verify(bookingRepository).findById(0L);
+    }
+
+    @Test
+    public void methodUpdateWhenOverlapConstraintViolatedThrowsItemNotAvailableException() {
+        stubStatusCheck();
+        when(bookingRepository.findById(0L)).thenReturn(Optional.of(booking));
+        when(bookingIntervalIndex.tryAdd(0L, 0L, booking.getStart(), booking.getEnd())).thenReturn(true);
+        when(bookingRepository.saveAndFlush(booking)).thenThrow(new DataIntegrityViolationException("exclusion",
+                new SQLException("conflicting key value violates exclusion constraint "
+                        + "\"bookings_approved_no_overlap\"", "23P01")));
+
+        Assertions.assertThrows(ItemNotAvailableException.class, () -> bookingService
+                .update(0L, true, 0L));
+    }
+
+    @Test
+    public void methodUpdateAllChecksBookingsWithOneQueryAndUpdatesWithOneStatement() {
+        LocalDateTime start = bookingDto.getStart();
+        LocalDateTime end = bookingDto.getEnd();
+        when(bookingRepository.findStatusChecksByIds(List.of(1L, 2L, 3L, 4L, 5L))).thenReturn(List.of(
+                new BookingStatusCheck(1L, 0L, 0L, 999L, BookingStatus.WAITING, start, end),
+                new BookingStatusCheck(2L, 7L, 8L, 999L, BookingStatus.WAITING, start, end),
+                new BookingStatusCheck(3L, 0L, 0L, 999L, BookingStatus.APPROVED, start, end),
+                new BookingStatusCheck(4L, 0L, 0L, 999L, BookingStatus.WAITING, start, end)));
+        when(bookingIntervalIndex.tryAdd(0L, 1L, start, end)).thenReturn(true);
+        when(bookingIntervalIndex.tryAdd(0L, 4L, start, end)).thenReturn(false);
+        when(bookingRepository.updateStatusByIds(List.of(1L), BookingStatus.WAITING, BookingStatus.APPROVED))
+                .thenReturn(1);
+
+        Assertions.assertEquals(List.of(
+                        new BookingStatusUpdateResult(1L, BookingStatusUpdateResult.Outcome.UPDATED,
+                                BookingStatus.APPROVED),
+                        new BookingStatusUpdateResult(2L, BookingStatusUpdateResult.Outcome.OWNER_MISMATCH, null),
+                        new BookingStatusUpdateResult(3L, BookingStatusUpdateResult.Outcome.ALREADY_APPROVED,
+                                BookingStatus.APPROVED),
+                        new BookingStatusUpdateResult(4L, BookingStatusUpdateResult.Outcome.ITEM_NOT_AVAILABLE,
+                                BookingStatus.WAITING),
+                        new BookingStatusUpdateResult(5L, BookingStatusUpdateResult.Outcome.NOT_FOUND, null)),
+                bookingService.updateAll(new BookingStatusUpdateDto(List.of(1L, 2L, 3L, 4L, 5L, 1L), true), 0L));
+        verify(bookingRepository, times(1)).updateStatusByIds(List.of(1L), BookingStatus.WAITING,
+                BookingStatus.APPROVED);
+        verify(bookingRepository, never()).findById(anyLong());
+    }
+
+    @Test
+    public void methodUpdateAllWhenApprovedRecurringBookingOverlapsReturnsItemNotAvailable() {
+        BookingStatusCheck check = new BookingStatusCheck(1L, 0L, 0L, 999L, BookingStatus.WAITING, booking.getStart(),
+                booking.getEnd());
+        when(bookingRepository.findStatusChecksByIds(List.of(1L))).thenReturn(List.of(check));
+        when(recurringBookingService.findOverlappingApproved(any())).thenReturn(Set.of(1L));
+
+        Assertions.assertEquals(List.of(new BookingStatusUpdateResult(1L,
+                        BookingStatusUpdateResult.Outcome.ITEM_NOT_AVAILABLE, BookingStatus.WAITING)),
+                bookingService.updateAll(new BookingStatusUpdateDto(List.of(1L), true), 0L));
+        verify(bookingIntervalIndex, never()).tryAdd(anyLong(), anyLong(), any(), any());
+        verify(bookingRepository, never()).updateStatusByIds(any(), any(), any());
+    }
+
+    @Test
+    public void methodUpdateAllWhenApprovedBookingInDatabaseOverlapsReturnsItemNotAvailable() {
+        when(bookingRepository.findStatusChecksByIds(List.of(1L))).thenReturn(List.of(new BookingStatusCheck(1L, 0L,
+                0L, 999L, BookingStatus.WAITING, booking.getStart(), booking.getEnd())));
+        when(bookingRepository.findIdsOverlappingStatus(List.of(1L), BookingStatus.APPROVED)).thenReturn(List.of(1L));
+
+        Assertions.assertEquals(List.of(new BookingStatusUpdateResult(1L,
+                        BookingStatusUpdateResult.Outcome.ITEM_NOT_AVAILABLE, BookingStatus.WAITING)),
+                bookingService.updateAll(new BookingStatusUpdateDto(List.of(1L), true), 0L));
+        verify(bookingIntervalIndex, never()).tryAdd(anyLong(), anyLong(), any(), any());
+        verify(bookingRepository, never()).updateStatusByIds(any(), any(), any());
+    }
+
+    @Test
+    public void methodUpdateAllChecksStatusesReadAfterLockingItems() {
+        when(bookingRepository.findStatusChecksByIds(List.of(1L))).thenReturn(
+                List.of(new BookingStatusCheck(1L, 0L, 0L, 999L, BookingStatus.WAITING, booking.getStart(),
+                        booking.getEnd())),
+                List.of(new BookingStatusCheck(1L, 0L, 0L, 999L, BookingStatus.APPROVED, booking.getStart(),
+                        booking.getEnd())));
+
+        Assertions.assertEquals(List.of(new BookingStatusUpdateResult(1L,
+                        BookingStatusUpdateResult.Outcome.ALREADY_APPROVED, BookingStatus.APPROVED)),
+                bookingService.updateAll(new BookingStatusUpdateDto(List.of(1L), false), 0L));
+        InOrder inOrder = inOrder(bookingRepository, itemBookingLock);
+        inOrder.verify(bookingRepository).findStatusChecksByIds(List.of(1L));
+        inOrder.verify(itemBookingLock).lockAll(Set.of(0L));
+        inOrder.verify(bookingRepository).findStatusChecksByIds(List.of(1L));
+        verify(bookingRepository, never()).updateStatusByIds(any(), any(), any());
+    }
+
+    @Test
+    public void methodCreateWhenApprovedRecurringBookingOverlapsThrowsException() {
+        stubNewBooking();
+        when(recurringBookingService.overlapsApproved(0L, booking.getStart(), booking.getEnd())).thenReturn(true);
+
+        Assertions.assertThrows(ItemNotAvailableException.class, () -> bookingService.create(bookingDto, 999L));
+        verify(bookingRepository, never()).saveAndFlush(any());
+    }
+
+    @Test
+    public void methodUpdateAllWithRejectionDoesNotReserveIntervals() {
+        when(bookingRepository.findStatusChecksByIds(List.of(1L))).thenReturn(List.of(
+                new BookingStatusCheck(1L, 0L, 0L, 999L, BookingStatus.WAITING, booking.getStart(), booking.getEnd())));
+        when(bookingRepository.updateStatusByIds(List.of(1L), BookingStatus.WAITING, BookingStatus.REJECTED))
+                .thenReturn(1);
+
+        Assertions.assertEquals(List.of(new BookingStatusUpdateResult(1L,
+                        BookingStatusUpdateResult.Outcome.UPDATED, BookingStatus.REJECTED)),
+                bookingService.updateAll(new BookingStatusUpdateDto(List.of(1L), false), 0L));
+        verify(bookingRepository, times(1)).updateStatusByIds(List.of(1L), BookingStatus.WAITING,
+                BookingStatus.REJECTED);
+        verify(bookingIntervalIndex, never()).tryAdd(anyLong(), anyLong(), any(), any());
+    }
+
+    @Test
+    public void methodUpdateAllWhenStatusChangedBeforeUpdateReportsItWithoutEvents() {
+        BookingStatusCheck waiting = new BookingStatusCheck(1L, 0L, 0L, 999L, BookingStatus.WAITING,
+                booking.getStart(), booking.getEnd());
+        BookingStatusCheck canceled = new BookingStatusCheck(1L, 0L, 0L, 999L, BookingStatus.CANCELED,
+                booking.getStart(), booking.getEnd());
+        when(bookingRepository.findStatusChecksByIds(List.of(1L))).thenReturn(List.of(waiting), List.of(waiting),
+                List.of(canceled));
+        when(bookingIntervalIndex.tryAdd(0L, 1L, booking.getStart(), booking.getEnd())).thenReturn(true);
+        when(bookingRepository.updateStatusByIds(List.of(1L), BookingStatus.WAITING, BookingStatus.APPROVED))
+                .thenReturn(0);
+
+        Assertions.assertEquals(List.of(new BookingStatusUpdateResult(1L,
+                        BookingStatusUpdateResult.Outcome.STATUS_CHANGED, BookingStatus.CANCELED)),
+                bookingService.updateAll(new BookingStatusUpdateDto(List.of(1L), true), 0L));
+        verify(bookingIntervalIndex, times(1)).remove(0L, 1L);
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    public void methodUpdateAllWhenNothingAcceptedSkipsUpdate() {
+        when(bookingRepository.findStatusChecksByIds(List.of(1L))).thenReturn(Collections.emptyList());
+
+        bookingService.updateAll(new BookingStatusUpdateDto(List.of(1L), true), 0L);
+        verify(bookingRepository, never()).updateStatusByIds(any(), any(), any());
+    }
+
+    @Test
+    public void methodUpdateAllWhenOverlapConstraintViolatedThrowsException() {
+        when(bookingRepository.findStatusChecksByIds(List.of(1L))).thenReturn(List.of(
+                new BookingStatusCheck(1L, 0L, 0L, 999L, BookingStatus.WAITING, booking.getStart(), booking.getEnd())));
+        when(bookingIntervalIndex.tryAdd(0L, 1L, booking.getStart(), booking.getEnd())).thenReturn(true);
+        when(bookingRepository.updateStatusByIds(List.of(1L), BookingStatus.WAITING, BookingStatus.APPROVED))
+                .thenThrow(new DataIntegrityViolationException("exclusion",
+                        new SQLException("conflicting key value violates exclusion constraint "
+                                + "\"bookings_approved_no_overlap\"", "23P01")));
+
+        Assertions.assertThrows(ItemNotAvailableException.class, () -> bookingService
+                .updateAll(new BookingStatusUpdateDto(List.of(1L), true), 0L));
+    }
+
+    @Test
+    public void methodUpdateWhenOtherConstraintViolatedRethrowsException() {
+        stubStatusCheck();
+        when(bookingRepository.findById(0L)).thenReturn(Optional.of(booking));
+        when(bookingRepository.saveAndFlush(booking)).thenThrow(new DataIntegrityViolationException("check",
+                new SQLException("new row violates check constraint \"ending_gt_start\"", "23514")));
+
+        Assertions.assertThrows(DataIntegrityViolationException.class, () -> bookingService
+                .update(0L, false, 0L));
+    }
+
+    @Test
+    public void methodUpdateWhenRejectedDoesNotReserveInterval() {
+        stubStatusCheck();
         when(bookingRepository.findById(0L)).thenReturn(Optional.of(booking));
+        when(bookingRepository.saveAndFlush(booking)).thenReturn(booking);
+        when(userMapper.userToDto(user)).thenReturn(new UserDto());
+        when(itemMapper.itemToDto(item)).thenReturn(new ItemDto());
+        when(bookingMapper.bookingToOutcomingDto(booking, new ItemDto(), new UserDto())).thenReturn(bookingDto);
+
+        Assertions.assertEquals(bookingDto, bookingService.update(0L, false, 0L));
+        Assertions.assertEquals(BookingStatus.REJECTED, booking.getStatus());
+        verify(bookingIntervalIndex, never()).tryAdd(anyLong(), anyLong(), any(), any());
+    }
+
+    @Test
+    public void methodUpdateWhenOwnerMismatchedThrowsException() {
+        stubStatusCheck();
 
         Assertions.assertThrows(OwnerMismatchException.class, () -> bookingService
                 .update(0L, true, 999L));
+        verify(itemBookingLock, never()).lock(anyLong());
+        verify(bookingRepository, never()).findById(anyLong());
     }
 
     @Test
     public void methodUpdateWhenBookingNotFoundThrowsException() {
-        when(bookingRepository.findById(0L)).thenReturn(Optional.empty());
+        when(bookingRepository.findStatusChecksByIds(List.of(0L))).thenReturn(Collections.emptyList());
 
         Assertions.assertThrows(BookingNotFoundException.class, () -> bookingService
                 .update(0L, true, 0L));
@@ -151,6 +486,7 @@ public class BookingServiceImplTest {
 
     @Test
     public void methodUpdateWhenAlreadyApprovedThrowsException() {
+        stubStatusCheck();
         booking.setStatus(BookingStatus.APPROVED);
         when(bookingRepository.findById(0L)).thenReturn(Optional.of(booking));
 
@@ -181,177 +517,332 @@ public class BookingServiceImplTest {
 
     @Test
     public void methodFindByBookerAndByStateValueAllCallsRepositoryMethod() {
-        PaginationInfo info = new PaginationInfo(0, 10);
-        when(bookingRepository.findAllByBookerIdOrderByStartDesc(0L, info.asPageRequest()))
-                .thenReturn(Page.empty());
+        mockEmptyArchiveForBooker();
+        when(bookingReadModelRepository.findAllByBooker(eq(0L), any(LocalDateTime.class), eq(Long.MAX_VALUE),
+                eq(PageRequest.of(0, 10)))).thenReturn(new SliceImpl<>(Collections.emptyList()));
 
-        Assertions.assertEquals(Collections.emptyList(),
-                bookingService.findByBookerAndByState(BookingState.ALL, 0L, 0, 10));
+        Assertions.assertEquals(new KeysetSlice<>(Collections.emptyList(), null),
+                bookingService.findByBookerAndByState(BookingState.ALL, 0L, 0, 10, null));
         verify(userService, times(1)).throwIfRepositoryNotContains(0L);
     }
 
     @Test
     public void methodFindByBookerAndByStateValueCurrentCallsRepositoryMethod() {
-        PaginationInfo info = new PaginationInfo(0, 10);
-        when(bookingRepository.findCurrentByBooker(anyLong(), any(LocalDateTime.class)))
-                .thenReturn(List.of(booking));
-        when(userMapper.userToDto(any())).thenReturn(new UserDto());
-        when(itemMapper.itemToDto(any())).thenReturn(new ItemDto());
-        when(bookingMapper.bookingToOutcomingDto(booking, new ItemDto(), new UserDto()))
-                .thenReturn(bookingDto);
+        when(bookingReadModelRepository.findCurrentByBooker(anyLong(), any(LocalDateTime.class),
+                any(LocalDateTime.class), eq(Long.MIN_VALUE), any(Pageable.class)))
+                .thenReturn(new SliceImpl<>(List.of(view)));
+        mockMappingToOutcomingDto();
 
         Assertions.assertEquals(List.of(bookingDto),
-                bookingService.findByBookerAndByState(BookingState.CURRENT, 0L, 0, 10));
+                bookingService.findByBookerAndByState(BookingState.CURRENT, 0L, 0, 10, null).getContent());
         verify(userService, times(1)).throwIfRepositoryNotContains(0L);
     }
 
     @Test
     public void methodFindByBookerAndByStateValueFutureCallsRepositoryMethod() {
-        PaginationInfo info = new PaginationInfo(0, 10);
-        when(bookingRepository.findAllByBookerIdAndStatusInAndStartIsAfterOrderByStartDesc(anyLong(),
-                any(BookingStatus[].class), any(LocalDateTime.class)))
-                .thenReturn(List.of(booking));
-        when(userMapper.userToDto(any())).thenReturn(new UserDto());
-        when(itemMapper.itemToDto(any())).thenReturn(new ItemDto());
-        when(bookingMapper.bookingToOutcomingDto(booking, new ItemDto(), new UserDto()))
-                .thenReturn(bookingDto);
+        when(bookingReadModelRepository.findFutureByBooker(anyLong(), eq(List.of(BookingStatus.APPROVED,
+                        BookingStatus.WAITING)), any(LocalDateTime.class), any(LocalDateTime.class), anyLong(),
+                any(Pageable.class))).thenReturn(new SliceImpl<>(List.of(view)));
+        mockMappingToOutcomingDto();
 
         Assertions.assertEquals(List.of(bookingDto),
-                bookingService.findByBookerAndByState(BookingState.FUTURE, 0L, 0, 10));
+                bookingService.findByBookerAndByState(BookingState.FUTURE, 0L, 0, 10, null).getContent());
         verify(userService, times(1)).throwIfRepositoryNotContains(0L);
     }
 
+    @Test
+    public void methodFindByBookerAndByStateValueFutureMergesRecurringOccurrencesInStartOrder() {
+        BookingView later = new BookingView(-1L, view.getStart().plusDays(1), view.getEnd().plusDays(1),
+                BookingStatus.WAITING, 0L, 0L, "name", "description", true, null, 999L, "n", "e@m.l", 7L);
+        BookingView earlier = new BookingView(-2L, view.getStart().minusMinutes(10), view.getStart(),
+                BookingStatus.WAITING, 0L, 0L, "name", "description", true, null, 999L, "n", "e@m.l", 7L);
+        SimpleBookingDto laterDto = new SimpleBookingDto(1L, later.getStart(), later.getEnd(),
+                BookingStatus.WAITING, 0L, 999L);
+        when(bookingReadModelRepository.findFutureByBooker(anyLong(), any(), any(LocalDateTime.class),
+                any(LocalDateTime.class), anyLong(), any(Pageable.class))).thenReturn(new SliceImpl<>(List.of(view)));
+        when(recurringBookingService.findFutureOccurrencesByBooker(eq(0L), any(), any(LocalDateTime.class)))
+                .thenReturn(List.of(earlier, later));
+        when(bookingMapper.viewToOutcomingDto(later)).thenReturn(laterDto);
+        mockMappingToOutcomingDto();
+
+        KeysetSlice<BookingDto> slice = bookingService.findByBookerAndByState(BookingState.FUTURE, 0L, 0, 2, null);
+
+        Assertions.assertEquals(List.of(laterDto, bookingDto), slice.getContent());
+        Assertions.assertEquals(new KeysetCursor(view.getStart(), view.getId()).encode(), slice.getAfter());
+    }
+
+    @Test
+    public void methodCountByItemOwnerAndByStateReadsCountersWithoutQueries() {
+        when(bookingStateCounters.countByItemOwner(BookingState.WAITING, 0L)).thenReturn(3L);
+
+        Assertions.assertEquals(3L, bookingService.countByItemOwnerAndByState(BookingState.WAITING, 0L));
+        verifyNoInteractions(bookingRepository, bookingArchiveRepository);
+    }
+
     @Test
     public void methodFindByBookerAndByStateValuePastCallsRepositoryMethod() {
-        PaginationInfo info = new PaginationInfo(0, 10);
-        when(bookingRepository.findAllByBookerIdAndStatusInAndEndIsBeforeOrderByStartDesc(anyLong(),
-                any(BookingStatus[].class), any(LocalDateTime.class)))
-                .thenReturn(List.of(booking));
-        when(userMapper.userToDto(any())).thenReturn(new UserDto());
-        when(itemMapper.itemToDto(any())).thenReturn(new ItemDto());
-        when(bookingMapper.bookingToOutcomingDto(booking, new ItemDto(), new UserDto()))
-                .thenReturn(bookingDto);
+        mockEmptyArchiveForBooker();
+        when(bookingReadModelRepository.findPastByBooker(anyLong(), anyCollection(), any(LocalDateTime.class),
+                any(LocalDateTime.class), anyLong(), any(Pageable.class)))
+                .thenReturn(new SliceImpl<>(List.of(view)));
+        mockMappingToOutcomingDto();
 
         Assertions.assertEquals(List.of(bookingDto),
-                bookingService.findByBookerAndByState(BookingState.PAST, 0L, 0, 10));
+                bookingService.findByBookerAndByState(BookingState.PAST, 0L, 0, 10, null).getContent());
         verify(userService, times(1)).throwIfRepositoryNotContains(0L);
     }
 
     @Test
     public void methodFindByBookerAndByStateValueWaitingCallsRepositoryMethod() {
-        PaginationInfo info = new PaginationInfo(0, 10);
-        when(bookingRepository.findAllByBookerIdAndStatusOrderByStartDesc(0L,
-                BookingStatus.WAITING)).thenReturn(List.of(booking));
-        when(userMapper.userToDto(any())).thenReturn(new UserDto());
-        when(itemMapper.itemToDto(any())).thenReturn(new ItemDto());
-        when(bookingMapper.bookingToOutcomingDto(booking, new ItemDto(), new UserDto()))
-                .thenReturn(bookingDto);
+        mockEmptyArchiveForBooker();
+        when(bookingReadModelRepository.findByBookerAndStatus(eq(0L), eq(BookingStatus.WAITING),
+                any(LocalDateTime.class), anyLong(), any(Pageable.class))).thenReturn(new SliceImpl<>(List.of(view)));
+        mockMappingToOutcomingDto();
 
         Assertions.assertEquals(List.of(bookingDto),
-                bookingService.findByBookerAndByState(BookingState.WAITING, 0L, 0, 10));
+                bookingService.findByBookerAndByState(BookingState.WAITING, 0L, 0, 10, null).getContent());
         verify(userService, times(1)).throwIfRepositoryNotContains(0L);
     }
 
     @Test
     public void methodFindByBookerAndByStateValueRejectedCallsRepositoryMethod() {
-        PaginationInfo info = new PaginationInfo(0, 10);
-        when(bookingRepository.findAllByBookerIdAndStatusOrderByStartDesc(0L,
-                BookingStatus.REJECTED)).thenReturn(List.of(booking));
-        when(userMapper.userToDto(any())).thenReturn(new UserDto());
-        when(itemMapper.itemToDto(any())).thenReturn(new ItemDto());
-        when(bookingMapper.bookingToOutcomingDto(booking, new ItemDto(), new UserDto()))
-                .thenReturn(bookingDto);
+        mockEmptyArchiveForBooker();
+        when(bookingReadModelRepository.findByBookerAndStatus(eq(0L), eq(BookingStatus.REJECTED),
+                any(LocalDateTime.class), anyLong(), any(Pageable.class))).thenReturn(new SliceImpl<>(List.of(view)));
+        mockMappingToOutcomingDto();
 
         Assertions.assertEquals(List.of(bookingDto),
-                bookingService.findByBookerAndByState(BookingState.REJECTED, 0L, 0, 10));
+                bookingService.findByBookerAndByState(BookingState.REJECTED, 0L, 0, 10, null).getContent());
         verify(userService, times(1)).throwIfRepositoryNotContains(0L);
     }
 
+    @Test
+    public void methodFindByBookerAndByStateWhenSliceHasNextReturnsCursorOfLastBooking() {
+        view.setId(5L);
+        when(bookingReadModelRepository.findAllByBooker(eq(0L), any(LocalDateTime.class), anyLong(),
+                eq(PageRequest.of(0, 1)))).thenReturn(new SliceImpl<>(List.of(view), PageRequest.of(0, 1), true));
+        mockMappingToOutcomingDto();
+
+        String after = bookingService.findByBookerAndByState(BookingState.ALL, 0L, 0, 1, null).getAfter();
+        Assertions.assertEquals(new KeysetCursor(view.getStart(), 5L), KeysetCursor.decode(after));
+    }
+
+    @Test
+    public void methodFindByBookerAndByStateWithAfterSeeksFromCursor() {
+        mockEmptyArchiveForBooker();
+        KeysetCursor cursor = new KeysetCursor(LocalDateTime.of(2030, 1, 1, 12, 0), 7L);
+        when(bookingReadModelRepository.findAllByBooker(0L, cursor.getStart(), 7L, PageRequest.of(0, 10)))
+                .thenReturn(new SliceImpl<>(Collections.emptyList()));
+
+        Assertions.assertNull(bookingService.findByBookerAndByState(BookingState.ALL, 0L, 40, 10,
+                cursor.encode()).getAfter());
+    }
+
+    @Test
+    public void methodFindByBookerAndByStateWhenHotPageIsShortFillsItFromArchive() {
+        BookingView archived = new BookingView(3L, LocalDateTime.of(2020, 1, 1, 10, 0),
+                LocalDateTime.of(2020, 1, 2, 10, 0), BookingStatus.APPROVED,
+                0L, 0L, "name", "description", true, null, 999L, "n", "e@m.l");
+        BookingDto archivedDto = new SimpleBookingDto(3L, archived.getStart(), archived.getEnd(),
+                BookingStatus.APPROVED, 0L, 999L);
+        when(bookingReadModelRepository.findAllByBooker(eq(0L), any(LocalDateTime.class), anyLong(),
+                eq(PageRequest.of(0, 2)))).thenReturn(new SliceImpl<>(List.of(view)));
+        when(bookingArchiveRepository.findByBooker(eq(0L), any(), eq(KeysetCursor.beforeFirstArchived().getStart()),
+                eq(Long.MAX_VALUE), eq(PageRequest.of(0, 1))))
+                .thenReturn(new SliceImpl<>(List.of(archived), PageRequest.of(0, 1), true));
+        mockMappingToOutcomingDto();
+        when(bookingMapper.viewToOutcomingDto(archived)).thenReturn(archivedDto);
+
+        KeysetSlice<BookingDto> slice = bookingService.findByBookerAndByState(BookingState.ALL, 0L, 0, 2, null);
+
+        Assertions.assertEquals(List.of(bookingDto, archivedDto), slice.getContent());
+        Assertions.assertEquals(new KeysetCursor(archived.getStart(), 3L, true), KeysetCursor.decode(slice.getAfter()));
+    }
+
+    @Test
+    public void methodFindByBookerAndByStateWithOffsetOnLastHotPageContinuesIntoArchive() {
+        BookingView archived = new BookingView(3L, LocalDateTime.of(2020, 1, 1, 10, 0),
+                LocalDateTime.of(2020, 1, 2, 10, 0), BookingStatus.APPROVED,
+                0L, 0L, "name", "description", true, null, 999L, "n", "e@m.l");
+        BookingDto archivedDto = new SimpleBookingDto(3L, archived.getStart(), archived.getEnd(),
+                BookingStatus.APPROVED, 0L, 999L);
+        when(bookingReadModelRepository.findPastByBooker(eq(0L), anyCollection(), any(LocalDateTime.class),
+                any(LocalDateTime.class), anyLong(), eq(PageRequest.of(2, 2))))
+                .thenReturn(new SliceImpl<>(List.of(view)));
+        when(bookingArchiveRepository.findByBooker(eq(0L), any(), eq(KeysetCursor.beforeFirstArchived().getStart()),
+                eq(Long.MAX_VALUE), eq(PageRequest.of(0, 1))))
+                .thenReturn(new SliceImpl<>(List.of(archived), PageRequest.of(0, 1), true));
+        mockMappingToOutcomingDto();
+        when(bookingMapper.viewToOutcomingDto(archived)).thenReturn(archivedDto);
+
+        KeysetSlice<BookingDto> slice = bookingService.findByBookerAndByState(BookingState.PAST, 0L, 4, 2, null);
+
+        Assertions.assertEquals(List.of(bookingDto, archivedDto), slice.getContent());
+        Assertions.assertEquals(new KeysetCursor(archived.getStart(), 3L, true), KeysetCursor.decode(slice.getAfter()));
+    }
+
+    @Test
+    public void methodFindByBookerAndByStateWithOffsetPastHotRowsThrowsExceptionWhenArchiveIsNotEmpty() {
+        when(bookingReadModelRepository.findAllByBooker(eq(0L), any(LocalDateTime.class), anyLong(),
+                eq(PageRequest.of(3, 2)))).thenReturn(new SliceImpl<>(Collections.emptyList()));
+        when(bookingArchiveRepository.findByBooker(anyLong(), any(), any(), anyLong(), any()))
+                .thenReturn(new SliceImpl<>(List.of(view)), new SliceImpl<>(Collections.emptyList()));
+
+        Assertions.assertThrows(InvalidPaginationException.class, () -> bookingService
+                .findByBookerAndByState(BookingState.ALL, 0L, 6, 2, null));
+        Assertions.assertEquals(Collections.emptyList(), bookingService
+                .findByBookerAndByState(BookingState.ALL, 0L, 6, 2, null).getContent());
+    }
+
+    @Test
+    public void methodFindByItemOwnerAndByStateWithArchiveCursorSkipsHotData() {
+        KeysetCursor cursor = new KeysetCursor(LocalDateTime.of(2020, 1, 1, 10, 0), 3L, true);
+        when(bookingArchiveRepository.findByItemOwner(0L, List.of(BookingStatus.APPROVED), cursor.getStart(), 3L,
+                PageRequest.of(0, 10))).thenReturn(new SliceImpl<>(Collections.emptyList()));
+
+        Assertions.assertNull(bookingService.findByItemOwnerAndByState(BookingState.PAST, 0L, 0, 10,
+                cursor.encode()).getAfter());
+        verify(bookingReadModelRepository, never()).findPastByItemOwner(anyLong(), any(), any(), any(), anyLong(),
+                any());
+    }
+
+    @Test
+    public void methodFindByBookerAndByStateWhenHotPageIsFullPointsNextPageToArchive() {
+        when(bookingReadModelRepository.findByBookerAndStatus(eq(0L), eq(BookingStatus.REJECTED),
+                any(LocalDateTime.class), anyLong(), eq(PageRequest.of(0, 1))))
+                .thenReturn(new SliceImpl<>(List.of(view)));
+        when(bookingArchiveRepository.findByBooker(eq(0L), eq(List.of(BookingStatus.REJECTED)), any(), anyLong(),
+                eq(PageRequest.of(0, 1)))).thenReturn(new SliceImpl<>(List.of(view)));
+        mockMappingToOutcomingDto();
+
+        String after = bookingService.findByBookerAndByState(BookingState.REJECTED, 0L, 0, 1, null).getAfter();
+        Assertions.assertEquals(KeysetCursor.beforeFirstArchived(), KeysetCursor.decode(after));
+    }
+
+    @Test
+    public void methodFindByBookerAndByStateWithMalformedAfterThrowsException() {
+        Assertions.assertThrows(InvalidCursorException.class, () -> bookingService
+                .findByBookerAndByState(BookingState.ALL, 0L, 0, 10, "%%%"));
+    }
+
+    @Test
+    public void methodFindByBookerAndByStateWithCursorAndNonPositiveSizeThrowsException() {
+        String after = KeysetCursor.beforeFirstDescending().encode();
+
+        Assertions.assertThrows(InvalidPaginationException.class, () -> bookingService
+                .findByBookerAndByState(BookingState.ALL, 0L, 0, 0, after));
+        Assertions.assertThrows(InvalidPaginationException.class, () -> bookingService
+                .search(new BookingSearchFilter(BookingSearchRole.BOOKER, null, null, null, null), 0L, -1, null));
+    }
+
     @Test
     public void methodFindByOwnerAndByStateValueAllCallsRepositoryMethod() {
-        PaginationInfo info = new PaginationInfo(0, 10);
-        when(bookingRepository.findAllByItemOwnerIdOrderByStartDesc(0L, info.asPageRequest()))
-                .thenReturn(Page.empty());
+        mockEmptyArchiveForItemOwner();
+        when(bookingReadModelRepository.findAllByItemOwner(eq(0L), any(LocalDateTime.class), eq(Long.MAX_VALUE),
+                eq(PageRequest.of(0, 10)))).thenReturn(new SliceImpl<>(Collections.emptyList()));
 
-        Assertions.assertEquals(Collections.emptyList(),
-                bookingService.findByItemOwnerAndByState(BookingState.ALL, 0L, 0, 10));
+        Assertions.assertEquals(new KeysetSlice<>(Collections.emptyList(), null),
+                bookingService.findByItemOwnerAndByState(BookingState.ALL, 0L, 0, 10, null));
         verify(userService, times(1)).throwIfRepositoryNotContains(0L);
     }
 
     @Test
     public void methodFindByOwnerAndByStateValueCurrentCallsRepositoryMethod() {
-        PaginationInfo info = new PaginationInfo(0, 10);
-        when(bookingRepository.findCurrentByItemOwner(anyLong(), any(LocalDateTime.class)))
-                .thenReturn(List.of(booking));
-        when(userMapper.userToDto(any())).thenReturn(new UserDto());
-        when(itemMapper.itemToDto(any())).thenReturn(new ItemDto());
-        when(bookingMapper.bookingToOutcomingDto(booking, new ItemDto(), new UserDto()))
-                .thenReturn(bookingDto);
+        when(bookingReadModelRepository.findCurrentByItemOwner(anyLong(), any(LocalDateTime.class),
+                any(LocalDateTime.class), eq(Long.MIN_VALUE), any(Pageable.class)))
+                .thenReturn(new SliceImpl<>(List.of(view)));
+        mockMappingToOutcomingDto();
 
         Assertions.assertEquals(List.of(bookingDto),
-                bookingService.findByItemOwnerAndByState(BookingState.CURRENT, 0L, 0, 10));
+                bookingService.findByItemOwnerAndByState(BookingState.CURRENT, 0L, 0, 10, null).getContent());
         verify(userService, times(1)).throwIfRepositoryNotContains(0L);
     }
 
     @Test
     public void methodFindByOwnerAndByStateValueFutureCallsRepositoryMethod() {
-        PaginationInfo info = new PaginationInfo(0, 10);
-        when(bookingRepository.findAllByItemOwnerIdAndStatusInAndStartIsAfterOrderByStartDesc(anyLong(),
-                any(BookingStatus[].class), any(LocalDateTime.class)))
-                .thenReturn(List.of(booking));
-        when(userMapper.userToDto(any())).thenReturn(new UserDto());
-        when(itemMapper.itemToDto(any())).thenReturn(new ItemDto());
-        when(bookingMapper.bookingToOutcomingDto(booking, new ItemDto(), new UserDto()))
-                .thenReturn(bookingDto);
+        when(bookingReadModelRepository.findFutureByItemOwner(anyLong(), anyCollection(), any(LocalDateTime.class),
+                any(LocalDateTime.class), anyLong(), any(Pageable.class)))
+                .thenReturn(new SliceImpl<>(List.of(view)));
+        mockMappingToOutcomingDto();
 
         Assertions.assertEquals(List.of(bookingDto),
-                bookingService.findByItemOwnerAndByState(BookingState.FUTURE, 0L, 0, 10));
+                bookingService.findByItemOwnerAndByState(BookingState.FUTURE, 0L, 0, 10, null).getContent());
         verify(userService, times(1)).throwIfRepositoryNotContains(0L);
     }
 
     @Test
     public void methodFindByOwnerAndByStateValuePastCallsRepositoryMethod() {
-        PaginationInfo info = new PaginationInfo(0, 10);
-        when(bookingRepository.findAllByItemOwnerIdAndStatusInAndEndIsBeforeOrderByStartDesc(anyLong(),
-                any(BookingStatus[].class), any(LocalDateTime.class)))
-                .thenReturn(List.of(booking));
-        when(userMapper.userToDto(any())).thenReturn(new UserDto());
-        when(itemMapper.itemToDto(any())).thenReturn(new ItemDto());
-        when(bookingMapper.bookingToOutcomingDto(booking, new ItemDto(), new UserDto()))
-                .thenReturn(bookingDto);
+        mockEmptyArchiveForItemOwner();
+        when(bookingReadModelRepository.findPastByItemOwner(anyLong(), eq(List.of(BookingStatus.APPROVED)),
+                any(LocalDateTime.class), any(LocalDateTime.class), anyLong(), any(Pageable.class)))
+                .thenReturn(new SliceImpl<>(List.of(view)));
+        mockMappingToOutcomingDto();
 
         Assertions.assertEquals(List.of(bookingDto),
-                bookingService.findByItemOwnerAndByState(BookingState.PAST, 0L, 0, 10));
+                bookingService.findByItemOwnerAndByState(BookingState.PAST, 0L, 0, 10, null).getContent());
         verify(userService, times(1)).throwIfRepositoryNotContains(0L);
     }
 
     @Test
     public void methodFindByOwnerAndByStateValueWaitingCallsRepositoryMethod() {
-        PaginationInfo info = new PaginationInfo(0, 10);
-        when(bookingRepository.findAllByItemOwnerIdAndStatusOrderByStartDesc(0L,
-                BookingStatus.WAITING)).thenReturn(List.of(booking));
-        when(userMapper.userToDto(any())).thenReturn(new UserDto());
-        when(itemMapper.itemToDto(any())).thenReturn(new ItemDto());
-        when(bookingMapper.bookingToOutcomingDto(booking, new ItemDto(), new UserDto()))
-                .thenReturn(bookingDto);
+        mockEmptyArchiveForItemOwner();
+        when(bookingReadModelRepository.findByItemOwnerAndStatus(eq(0L), eq(BookingStatus.WAITING),
+                any(LocalDateTime.class), anyLong(), any(Pageable.class)))
+                .thenReturn(new SliceImpl<>(List.of(view)));
+        mockMappingToOutcomingDto();
 
         Assertions.assertEquals(List.of(bookingDto),
-                bookingService.findByItemOwnerAndByState(BookingState.WAITING, 0L, 0, 10));
+                bookingService.findByItemOwnerAndByState(BookingState.WAITING, 0L, 0, 10, null).getContent());
         verify(userService, times(1)).throwIfRepositoryNotContains(0L);
     }
 
     @Test
     public void methodFindByOwnerAndByStateValueRejectedCallsRepositoryMethod() {
-        PaginationInfo info = new PaginationInfo(0, 10);
-        when(bookingRepository.findAllByItemOwnerIdAndStatusOrderByStartDesc(0L,
-                BookingStatus.REJECTED)).thenReturn(List.of(booking));
-        when(userMapper.userToDto(any())).thenReturn(new UserDto());
-        when(itemMapper.itemToDto(any())).thenReturn(new ItemDto());
-        when(bookingMapper.bookingToOutcomingDto(booking, new ItemDto(), new UserDto()))
-                .thenReturn(bookingDto);
+        mockEmptyArchiveForItemOwner();
+        when(bookingReadModelRepository.findByItemOwnerAndStatus(eq(0L), eq(BookingStatus.REJECTED),
+                any(LocalDateTime.class), anyLong(), any(Pageable.class)))
+                .thenReturn(new SliceImpl<>(List.of(view)));
+        mockMappingToOutcomingDto();
 
         Assertions.assertEquals(List.of(bookingDto),
-                bookingService.findByItemOwnerAndByState(BookingState.REJECTED, 0L, 0, 10));
+                bookingService.findByItemOwnerAndByState(BookingState.REJECTED, 0L, 0, 10, null).getContent());
         verify(userService, times(1)).throwIfRepositoryNotContains(0L);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void methodSearchReturnsNextPageCursorWhenSliceHasNext() {
+        BookingSearchFilter filter = new BookingSearchFilter(BookingSearchRole.OWNER, 1L,
+                Set.of(BookingStatus.APPROVED), null, null);
+        when(bookingSearchRepository.search(eq(0L), eq(filter), any(KeysetCursor.class), eq(1)))
+                .thenReturn(new SliceImpl<>(List.of(view), PageRequest.of(0, 1), true));
+        mockMappingToOutcomingDto();
+
+        KeysetSlice<BookingDto> result = bookingService.search(filter, 0L, 1, null);
+
+        Assertions.assertEquals(List.of(bookingDto), result.getContent());
+        Assertions.assertEquals(new KeysetCursor(view.getStart(), view.getId()).encode(), result.getAfter());
+    }
+
+    @Test
+    public void methodSearchWhenWindowEndIsNotAfterStartThrowsException() {
+        LocalDateTime start = LocalDateTime.of(2030, 3, 1, 0, 0);
+        BookingSearchFilter filter = new BookingSearchFilter(BookingSearchRole.BOOKER, null, null, start, start);
+
+        Assertions.assertThrows(TimeMismatchException.class, () -> bookingService.search(filter, 0L, 10, null));
+        verifyNoInteractions(bookingSearchRepository);
+    }
+
+    private void mockEmptyArchiveForBooker() {
+        when(bookingArchiveRepository.findByBooker(anyLong(), any(), any(), anyLong(), any()))
+                .thenReturn(new SliceImpl<>(Collections.emptyList()));
+    }
+
+    private void mockEmptyArchiveForItemOwner() {
+        when(bookingArchiveRepository.findByItemOwner(anyLong(), any(), any(), anyLong(), any()))
+                .thenReturn(new SliceImpl<>(Collections.emptyList()));
+    }
+
+    private void mockMappingToOutcomingDto() {
+        when(bookingMapper.viewToOutcomingDto(view)).thenReturn(bookingDto);
+    }
+}
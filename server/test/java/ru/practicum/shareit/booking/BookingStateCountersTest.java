@@ -0,0 +1,204 @@
+package ru.practicum.shareit.booking;
+
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.practicum.shareit.booking.dto.BookingStatusCheck;
+import ru.practicum.shareit.booking.dto.BookingStatusCount;
+import ru.practicum.shareit.booking.model.BookingChangedEvent;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.repository.BookingArchiveRepository;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.booking.service.BookingState;
+import ru.practicum.shareit.booking.service.BookingStateCounters;
+import ru.practicum.shareit.item.model.ItemChangedEvent;
+import ru.practicum.shareit.user.model.UserChangedEvent;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class BookingStateCountersTest {
+    private static final long BOOKER_ID = 1L;
+    private static final long OWNER_ID = 2L;
+    @Mock
+    private BookingRepository bookingRepository;
+    @Mock
+    private BookingArchiveRepository bookingArchiveRepository;
+    private BookingStateCounters counters;
+
+    @BeforeEach
+    public void createCounters() {
+        counters = new BookingStateCounters(bookingRepository, bookingArchiveRepository, Duration.ofMillis(1), true);
+    }
+
+    @Test
+    public void methodRebuildCountsEndedArchivedAndUnfinishedBookings() {
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        when(bookingRepository.countEndedByBookerAndStatus(any())).thenReturn(List.of(
+                new BookingStatusCount(BOOKER_ID, BookingStatus.APPROVED, 3L),
+                new BookingStatusCount(BOOKER_ID, BookingStatus.WAITING, 1L)));
+        when(bookingRepository.countEndedByItemOwnerAndStatus(any())).thenReturn(List.of(
+                new BookingStatusCount(OWNER_ID, BookingStatus.APPROVED, 3L),
+                new BookingStatusCount(OWNER_ID, BookingStatus.WAITING, 1L)));
+        when(bookingArchiveRepository.countByBookerAndStatus()).thenReturn(List.of(
+                new BookingStatusCount(BOOKER_ID, BookingStatus.REJECTED, 2L)));
+        when(bookingArchiveRepository.countByItemOwnerAndStatus()).thenReturn(List.of(
+                new BookingStatusCount(OWNER_ID, BookingStatus.REJECTED, 2L)));
+        when(bookingRepository.findStatusChecksByEndAfter(any(), eq(0L), any())).thenReturn(List.of(
+                new BookingStatusCheck(10L, 5L, OWNER_ID, BOOKER_ID, BookingStatus.WAITING, start,
+                        start.plusHours(1))));
+
+        counters.rebuild();
+
+        Assertions.assertEquals(7, counters.countByBooker(BookingState.ALL, BOOKER_ID));
+        Assertions.assertEquals(4, counters.countByBooker(BookingState.PAST, BOOKER_ID));
+        Assertions.assertEquals(3, counters.countByItemOwner(BookingState.PAST, OWNER_ID));
+        Assertions.assertEquals(2, counters.countByBooker(BookingState.WAITING, BOOKER_ID));
+        Assertions.assertEquals(2, counters.countByItemOwner(BookingState.REJECTED, OWNER_ID));
+        Assertions.assertEquals(1, counters.countByItemOwner(BookingState.FUTURE, OWNER_ID));
+        Assertions.assertEquals(0, counters.countByBooker(BookingState.CURRENT, BOOKER_ID));
+        Assertions.assertEquals(0, counters.countByBooker(BookingState.ALL, OWNER_ID));
+    }
+
+    @Test
+    public void methodOnBookingChangedMovesBookingBetweenStatusStates() {
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        counters.onBookingChanged(event(null, BookingStatus.WAITING, start, start.plusHours(1)));
+        Assertions.assertEquals(1, counters.countByBooker(BookingState.WAITING, BOOKER_ID));
+        Assertions.assertEquals(1, counters.countByBooker(BookingState.FUTURE, BOOKER_ID));
+
+        counters.onBookingChanged(event(BookingStatus.WAITING, BookingStatus.REJECTED, start, start.plusHours(1)));
+
+        Assertions.assertEquals(1, counters.countByBooker(BookingState.ALL, BOOKER_ID));
+        Assertions.assertEquals(0, counters.countByBooker(BookingState.WAITING, BOOKER_ID));
+        Assertions.assertEquals(0, counters.countByBooker(BookingState.FUTURE, BOOKER_ID));
+        Assertions.assertEquals(1, counters.countByItemOwner(BookingState.REJECTED, OWNER_ID));
+    }
+
+    @Test
+    public void methodOnBookingChangedForEndedBookingUsesPreviousStatus() {
+        LocalDateTime end = LocalDateTime.now().minusDays(1);
+        when(bookingRepository.countEndedByItemOwnerAndStatus(any())).thenReturn(List.of(
+                new BookingStatusCount(OWNER_ID, BookingStatus.WAITING, 1L)));
+        counters.rebuild();
+
+        counters.onBookingChanged(event(BookingStatus.WAITING, BookingStatus.APPROVED, end.minusHours(1), end));
+
+        Assertions.assertEquals(1, counters.countByItemOwner(BookingState.ALL, OWNER_ID));
+        Assertions.assertEquals(0, counters.countByItemOwner(BookingState.WAITING, OWNER_ID));
+        Assertions.assertEquals(1, counters.countByItemOwner(BookingState.PAST, OWNER_ID));
+    }
+
+    @Test
+    @SneakyThrows
+    public void methodAdvanceMovesBookingFromFutureToCurrentToPast() {
+        LocalDateTime start = LocalDateTime.now().plusNanos(Duration.ofMillis(100).toNanos());
+        counters.onBookingChanged(event(null, BookingStatus.APPROVED, start, start.plusNanos(
+                Duration.ofMillis(200).toNanos())));
+        Assertions.assertEquals(1, counters.countByBooker(BookingState.FUTURE, BOOKER_ID));
+
+        Thread.sleep(150);
+        counters.advance();
+        Assertions.assertEquals(0, counters.countByBooker(BookingState.FUTURE, BOOKER_ID));
+        Assertions.assertEquals(1, counters.countByBooker(BookingState.CURRENT, BOOKER_ID));
+
+        Thread.sleep(250);
+        counters.advance();
+        Assertions.assertEquals(0, counters.countByBooker(BookingState.CURRENT, BOOKER_ID));
+        Assertions.assertEquals(1, counters.countByItemOwner(BookingState.PAST, OWNER_ID));
+        Assertions.assertEquals(1, counters.countByItemOwner(BookingState.ALL, OWNER_ID));
+    }
+
+    @Test
+    public void methodReconcileRepairsDrift() {
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        counters.onBookingChanged(event(null, BookingStatus.WAITING, start, start.plusHours(1)));
+
+        counters.reconcile();
+
+        Assertions.assertEquals(0, counters.countByBooker(BookingState.ALL, BOOKER_ID));
+        Assertions.assertEquals(0, counters.countByItemOwner(BookingState.WAITING, OWNER_ID));
+    }
+
+    @Test
+    public void methodNextBoundaryReturnsNearestStartOrEndOfUnfinishedBookings() {
+        LocalDateTime now = LocalDateTime.now();
+        counters.onBookingChanged(event(null, BookingStatus.APPROVED, now.minusHours(1), now.plusHours(2)));
+        counters.onBookingChanged(new BookingChangedEvent(11L, 5L, OWNER_ID, 3L, null, BookingStatus.WAITING,
+                now.plusHours(1), now.plusHours(3)));
+
+        Assertions.assertEquals(now.plusHours(2), counters.nextBoundaryOfBooker(BOOKER_ID, now));
+        Assertions.assertEquals(now.plusHours(1), counters.nextBoundaryOfItemOwner(OWNER_ID, now));
+        Assertions.assertEquals(now.plusHours(3), counters.nextBoundaryOfItemOwner(OWNER_ID, now.plusHours(2)));
+
+        counters.onBookingChanged(new BookingChangedEvent(11L, 5L, OWNER_ID, 3L, BookingStatus.WAITING,
+                BookingStatus.REJECTED, now.plusHours(1), now.plusHours(3)));
+        Assertions.assertEquals(now.plusHours(1), counters.nextBoundaryOfItemOwner(OWNER_ID, now));
+        Assertions.assertNull(counters.nextBoundaryOfBooker(2L, now));
+    }
+
+    @Test
+    public void importEventRebuildsCountersOnNextTick() {
+        when(bookingRepository.findStatusChecksByEndAfter(any(), anyLong(), any()))
+                .thenReturn(Collections.emptyList());
+
+        counters.onBookingChanged(BookingChangedEvent.forImportedItem(5L));
+        verify(bookingRepository, never()).findStatusChecksByEndAfter(any(), anyLong(), any());
+
+        counters.advance();
+        verify(bookingRepository, times(1)).findStatusChecksByEndAfter(any(), anyLong(), any());
+    }
+
+    @Test
+    public void cascadedDeletionCountsFromDatabaseUntilRebuild() {
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        counters.onBookingChanged(event(null, BookingStatus.WAITING, start, start.plusHours(1)));
+        when(bookingRepository.findStatusChecksByEndAfter(any(), anyLong(), any()))
+                .thenReturn(Collections.emptyList());
+
+        counters.onUserChanged(UserChangedEvent.deleted(OWNER_ID));
+
+        Assertions.assertEquals(0, counters.countByBooker(BookingState.WAITING, BOOKER_ID));
+        verify(bookingRepository).findStatusChecksByBookerAndEndAfter(eq(BOOKER_ID), any());
+
+        counters.onItemChanged(ItemChangedEvent.deleted(5L));
+        counters.advance();
+
+        Assertions.assertEquals(0, counters.countByItemOwner(BookingState.ALL, OWNER_ID));
+        verify(bookingRepository, never()).findStatusChecksByItemOwnerAndEndAfter(anyLong(), any());
+    }
+
+    @Test
+    public void countersOffCountFromDatabase() {
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        counters = new BookingStateCounters(bookingRepository, bookingArchiveRepository, Duration.ofMillis(1), false);
+        when(bookingRepository.countEndedByStatusOfItemOwner(eq(OWNER_ID), any())).thenReturn(List.of(
+                new BookingStatusCount(OWNER_ID, BookingStatus.APPROVED, 2L)));
+        when(bookingArchiveRepository.countByStatusOfItemOwner(OWNER_ID)).thenReturn(List.of(
+                new BookingStatusCount(OWNER_ID, BookingStatus.REJECTED, 1L)));
+        when(bookingRepository.findStatusChecksByItemOwnerAndEndAfter(eq(OWNER_ID), any())).thenReturn(List.of(
+                new BookingStatusCheck(10L, 5L, OWNER_ID, BOOKER_ID, BookingStatus.WAITING, start,
+                        start.plusHours(1))));
+
+        Assertions.assertEquals(4, counters.countByItemOwner(BookingState.ALL, OWNER_ID));
+        Assertions.assertEquals(2, counters.countByItemOwner(BookingState.PAST, OWNER_ID));
+        Assertions.assertEquals(1, counters.countByItemOwner(BookingState.FUTURE, OWNER_ID));
+        Assertions.assertEquals(1, counters.countByItemOwner(BookingState.REJECTED, OWNER_ID));
+    }
+
+    private BookingChangedEvent event(BookingStatus previousStatus, BookingStatus status, LocalDateTime start,
+                                      LocalDateTime end) {
+        return new BookingChangedEvent(10L, 5L, OWNER_ID, BOOKER_ID, previousStatus, status, start, end);
+    }
+}
@@ -0,0 +1,136 @@
+package ru.practicum.shareit.booking;
+
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.unit.DataSize;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.model.BookingTransition;
+import ru.practicum.shareit.booking.repository.BookingTransitionJournal;
+
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class BookingTransitionJournalTest {
+    private static final Instant EPOCH = Instant.parse("2030-01-01T00:00:00Z");
+    private static final DataSize SEGMENT_SIZE = DataSize.ofBytes(40 * 300);
+    @TempDir
+    Path directory;
+    private BookingTransitionJournal journal;
+
+    @AfterEach
+    @SneakyThrows
+    public void closeJournal() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        if (journal != null) {
+            journal.close();
+        }
+    }
+
+    @Test
+    public void transitionsAreReadBackByBookingIdAcrossSegments() {
+        journal = open(BookingTransitionJournal.FsyncPolicy.NONE);
+        appendMany(1_000);
+
+        List<BookingTransition> transitions = journal.findByBookingId(7L);
+
+        Assertions.assertEquals(List.of(7L, 7L, 7L), transitions.stream()
+                .map(BookingTransition::getBookingId)
+                .collect(Collectors.toList()));
+        Assertions.assertEquals(new BookingTransition(7L, 107L, 1007L, null, BookingStatus.WAITING,
+                EPOCH.plusSeconds(7)), transitions.get(0));
+        Assertions.assertEquals(4, segments().size());
+    }
+
+    @Test
+    public void transitionsAreReadBackByTimeRangeInTimeOrder() {
+        journal = open(BookingTransitionJournal.FsyncPolicy.ALWAYS);
+        appendMany(1_000);
+
+        List<BookingTransition> transitions = journal.findBetween(EPOCH.plusSeconds(290), EPOCH.plusSeconds(310));
+
+        Assertions.assertEquals(20, transitions.size());
+        Assertions.assertEquals(EPOCH.plusSeconds(290), transitions.get(0).getTimestamp());
+        Assertions.assertEquals(EPOCH.plusSeconds(309), transitions.get(19).getTimestamp());
+    }
+
+    @Test
+    @SneakyThrows
+    public void reopenedJournalRecoversRecordsAndStopsAtTornRecord() {
+        journal = open(BookingTransitionJournal.FsyncPolicy.INTERVAL);
+        appendMany(310);
+        journal.flush();
+        journal.close();
+        try (RandomAccessFile file = new RandomAccessFile(segments().get(1).toFile(), "rw")) {
+            file.seek(9 * 40 + 8);
+            file.writeLong(-1L);
+        }
+
+        journal = open(BookingTransitionJournal.FsyncPolicy.INTERVAL);
+        journal.append(transition(2_000, EPOCH.plusSeconds(2_000)));
+
+        Assertions.assertEquals(309, journal.findBetween(EPOCH, EPOCH.plusSeconds(1_000)).size());
+        Assertions.assertEquals(1, journal.findByBookingId(2_000).size());
+        Assertions.assertTrue(journal.findByBookingId(-1L).isEmpty());
+    }
+
+    @Test
+    public void transitionIsAppendedOnlyAfterCommit() {
+        journal = open(BookingTransitionJournal.FsyncPolicy.NONE);
+        TransactionSynchronizationManager.initSynchronization();
+
+        journal.appendAfterCommit(transition(1, EPOCH));
+        Assertions.assertTrue(journal.findByBookingId(1).isEmpty());
+
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        synchronizations.forEach(TransactionSynchronization::afterCommit);
+        Assertions.assertEquals(1, journal.findByBookingId(1).size());
+    }
+
+    @Test
+    public void secondJournalOnSameDirectoryThrowsException() {
+        journal = open(BookingTransitionJournal.FsyncPolicy.NONE);
+
+        Assertions.assertThrows(IllegalStateException.class, () -> open(BookingTransitionJournal.FsyncPolicy.NONE));
+    }
+
+    @SneakyThrows
+    private BookingTransitionJournal open(BookingTransitionJournal.FsyncPolicy fsyncPolicy) {
+        return new BookingTransitionJournal(directory.toString(), SEGMENT_SIZE, fsyncPolicy);
+    }
+
+    /**
+     * Бронирование id = i % 333 получает запись в секунду i: у каждого id три записи в разных сегментах.
+     */
+    private void appendMany(int count) {
+        for (int i = 0; i < count; i++) {
+            journal.append(transition(i % 333, EPOCH.plusSeconds(i)));
+        }
+    }
+
+    private BookingTransition transition(long bookingId, Instant timestamp) {
+        return new BookingTransition(bookingId, bookingId + 100, bookingId + 1000, null, BookingStatus.WAITING,
+                timestamp);
+    }
+
+    @SneakyThrows
+    private List<Path> segments() {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.toString().endsWith(".seg"))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package ru.practicum.shareit.booking;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.dto.BookingCreationResult;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.SimpleBookingDto;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.booking.repository.WaitlistRepository;
+import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.booking.service.BookingWaitlistService;
+import ru.practicum.shareit.exception.notFound.WaitlistEntryNotFoundException;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@SpringBootTest
+@Transactional
+@RequiredArgsConstructor(onConstructor = @__(@Autowired))
+public class BookingWaitlistServiceImplTest {
+    private final UserRepository userRepository;
+    private final ItemRepository itemRepository;
+    private final BookingRepository bookingRepository;
+    private final WaitlistRepository waitlistRepository;
+    private final BookingService bookingService;
+    private final BookingWaitlistService bookingWaitlistService;
+    private User owner;
+    private User first;
+    private User second;
+    private User third;
+    private Item item;
+    private LocalDateTime start;
+
+    @BeforeEach
+    public void putUsersAndItemToDb() {
+        owner = userRepository.save(new User(null, "owner", "owner@m.l"));
+        first = userRepository.save(new User(null, "first", "first@m.l"));
+        second = userRepository.save(new User(null, "second", "second@m.l"));
+        third = userRepository.save(new User(null, "third", "third@m.l"));
+        item = itemRepository.save(new Item(null, owner, "name", "description", true, null,
+                Collections.emptyList()));
+        start = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.SECONDS);
+    }
+
+    @Test
+    public void methodCreateOrEnqueueQueuesRequestForBusyIntervalAndRejectionPromotesOldestEntry() {
+        BookingDto busy = bookingService.createOrEnqueue(request(start, start.plusHours(2)), first.getId())
+                .getBooking();
+        BookingCreationResult queuedFirst = bookingService.createOrEnqueue(request(start.plusHours(1),
+                start.plusHours(3)), second.getId());
+        BookingCreationResult queuedSecond = bookingService.createOrEnqueue(request(start.plusMinutes(90),
+                start.plusMinutes(150)), third.getId());
+        Assertions.assertNotNull(busy);
+        Assertions.assertNotNull(queuedFirst.getWaitlistEntry());
+        Assertions.assertNotNull(queuedSecond.getWaitlistEntry());
+
+        bookingService.update(busy.getId(), false, owner.getId());
+
+        List<Booking> waiting = bookingRepository.findAll().stream()
+                .filter(booking -> booking.getStatus() == BookingStatus.WAITING)
+                .collect(Collectors.toList());
+        Assertions.assertEquals(1, waiting.size());
+        Assertions.assertEquals(second.getId(), waiting.get(0).getBooker().getId());
+        Assertions.assertEquals(List.of(queuedSecond.getWaitlistEntry().getId()), waitlistRepository.findAll()
+                .stream()
+                .map(entry -> entry.getId())
+                .collect(Collectors.toList()));
+    }
+
+    @Test
+    public void methodDeleteWhenEntryBelongsToAnotherUserThrowsException() {
+        bookingService.createOrEnqueue(request(start, start.plusHours(2)), first.getId());
+        long entryId = bookingService.createOrEnqueue(request(start, start.plusHours(2)), second.getId())
+                .getWaitlistEntry().getId();
+
+        Assertions.assertThrows(WaitlistEntryNotFoundException.class,
+                () -> bookingWaitlistService.delete(entryId, first.getId()));
+        bookingWaitlistService.delete(entryId, second.getId());
+        Assertions.assertTrue(waitlistRepository.findAll().isEmpty());
+    }
+
+    private SimpleBookingDto request(LocalDateTime from, LocalDateTime to) {
+        SimpleBookingDto dto = new SimpleBookingDto();
+        dto.setItemId(item.getId());
+        dto.setStart(from);
+        dto.setEnd(to);
+        return dto;
+    }
+}
@@ -0,0 +1,134 @@
+package ru.practicum.shareit.booking;
+
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.mockito.InOrder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.booking.service.ItemAdvisoryLock;
+import ru.practicum.shareit.booking.service.ItemBookingLock;
+import ru.practicum.shareit.util.StripedLocks;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+public class ItemBookingLockTest {
+    private final ItemAdvisoryLock advisoryLock = mock(ItemAdvisoryLock.class);
+    private final ItemBookingLock itemBookingLock = new ItemBookingLock(advisoryLock, 16);
+
+    @AfterEach
+    public void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    public void methodLockOutsideTransactionThrowsException() {
+        Assertions.assertThrows(IllegalStateException.class, () -> itemBookingLock.lock(1L));
+    }
+
+    @Test
+    @SneakyThrows
+    public void lockIsHeldUntilTransactionCompletes() {
+        TransactionSynchronizationManager.initSynchronization();
+        itemBookingLock.lock(1L);
+        verify(advisoryLock).lock(1);
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        CountDownLatch acquired = new CountDownLatch(1);
+        Future<?> other = executor.submit(() -> {
+            TransactionSynchronizationManager.initSynchronization();
+            itemBookingLock.lock(17L);
+            acquired.countDown();
+            complete();
+        });
+        Assertions.assertFalse(acquired.await(100, TimeUnit.MILLISECONDS));
+
+        complete();
+        Assertions.assertTrue(acquired.await(1, TimeUnit.SECONDS));
+        other.get();
+        executor.shutdown();
+    }
+
+    @Test
+    public void methodLockAllTakesEachStripeOnceInAscendingOrder() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        itemBookingLock.lockAll(List.of(35L, 2L, 18L, 3L));
+
+        InOrder inOrder = inOrder(advisoryLock);
+        inOrder.verify(advisoryLock).lock(2);
+        inOrder.verify(advisoryLock).lock(3);
+        inOrder.verifyNoMoreInteractions();
+        complete();
+    }
+
+    /**
+     * Пропускная способность создания бронирований под блокировкой вещи при конкуренции потоков:
+     * одна общая блокировка против полос. Запуск: mvn test -pl server -Dtest=ItemBookingLockTest -Dbenchmark=true
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    public void benchmarkThroughputWithAndWithoutStriping() {
+        int threads = 16;
+        for (int stripes : new int[]{1, 16, 1024}) {
+            measure(new StripedLocks(stripes), threads, 1_000);
+            double opsPerSecond = measure(new StripedLocks(stripes), threads, 3_000);
+            System.out.printf("stripes=%d threads=%d: %.0f ops/s%n", stripes, threads, opsPerSecond);
+        }
+    }
+
+    /**
+     * Каждая операция берет полосу случайной из 10 000 вещей и держит ее около 200 мкс, ожидая, как ждала бы
+     * ответов базы на проверку занятости и вставку бронирования.
+     */
+    @SneakyThrows
+    private double measure(StripedLocks stripedLocks, int threads, long durationMillis) {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        AtomicBoolean running = new AtomicBoolean(true);
+        LongAdder operations = new LongAdder();
+        for (int i = 0; i < threads; i++) {
+            executor.execute(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                while (running.get()) {
+                    Lock lock = stripedLocks.lockOf(stripedLocks.stripeOf(random.nextLong(10_000)));
+                    lock.lock();
+                    try {
+                        LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(200));
+                    } finally {
+                        lock.unlock();
+                    }
+                    operations.increment();
+                }
+            });
+        }
+        Thread.sleep(durationMillis);
+        running.set(false);
+        executor.shutdown();
+        executor.awaitTermination(1, TimeUnit.SECONDS);
+        return operations.sum() * 1000.0 / durationMillis;
+    }
+
+    private void complete() {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        synchronizations.forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+    }
+}
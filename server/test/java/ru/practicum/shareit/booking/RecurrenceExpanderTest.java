@@ -0,0 +1,85 @@
+package ru.practicum.shareit.booking;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import ru.practicum.shareit.booking.dto.BookingInterval;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.model.RecurrenceFrequency;
+import ru.practicum.shareit.booking.model.RecurringBooking;
+import ru.practicum.shareit.booking.service.RecurrenceExpander;
+import ru.practicum.shareit.item.model.Item;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class RecurrenceExpanderTest {
+    private final LocalDateTime start = LocalDateTime.of(2030, 1, 7, 10, 0);
+
+    @Test
+    public void methodExpandReturnsSameOccurrencesAsFullEnumerationForAnyWindow() {
+        RecurringBooking series = series(RecurrenceFrequency.WEEKLY, 2, start.plusHours(3), start.plusWeeks(20));
+        List<BookingInterval> all = enumerate(series);
+        Random random = new Random(7);
+        for (int i = 0; i < 500; i++) {
+            LocalDateTime from = start.minusDays(10).plusHours(random.nextInt(24 * 180));
+            LocalDateTime to = from.plusHours(1 + random.nextInt(24 * 40));
+            List<BookingInterval> expected = new ArrayList<>();
+            for (BookingInterval occurrence : all) {
+                if (occurrence.getStart().isBefore(to) && occurrence.getEnd().isAfter(from)) {
+                    expected.add(occurrence);
+                }
+            }
+            Assertions.assertEquals(expected, RecurrenceExpander.expand(series, from, to),
+                    "Окно " + from + " - " + to);
+        }
+    }
+
+    @Test
+    public void methodCountAndLastEndRespectHorizon() {
+        RecurringBooking series = series(RecurrenceFrequency.DAILY, 1, start.plusHours(1), start.plusDays(3));
+
+        Assertions.assertEquals(3, RecurrenceExpander.count(series));
+        Assertions.assertEquals(start.plusDays(2).plusHours(1), series.getLastEnd());
+        Assertions.assertEquals(3, RecurrenceExpander.expand(series, start, start.plusDays(3).plusHours(1))
+                .size());
+    }
+
+    @Test
+    public void methodOverlapsComparesTwoSeriesOccurrenceByOccurrence() {
+        RecurringBooking weekly = series(RecurrenceFrequency.WEEKLY, 1, start.plusHours(2), start.plusWeeks(10));
+        RecurringBooking sameWeekdayLater = series(RecurrenceFrequency.WEEKLY, 1, start.plusHours(2),
+                start.plusWeeks(10));
+        sameWeekdayLater.setStart(start.plusWeeks(5).plusHours(1));
+        sameWeekdayLater.setEnd(start.plusWeeks(5).plusHours(3));
+        sameWeekdayLater.setLastEnd(RecurrenceExpander.lastEnd(sameWeekdayLater));
+        RecurringBooking nextDay = series(RecurrenceFrequency.WEEKLY, 1, start.plusHours(2), start.plusWeeks(10));
+        nextDay.setStart(start.plusDays(1));
+        nextDay.setEnd(start.plusDays(1).plusHours(2));
+        nextDay.setLastEnd(RecurrenceExpander.lastEnd(nextDay));
+
+        Assertions.assertTrue(RecurrenceExpander.overlaps(weekly, sameWeekdayLater));
+        Assertions.assertFalse(RecurrenceExpander.overlaps(weekly, nextDay));
+    }
+
+    private RecurringBooking series(RecurrenceFrequency frequency, int interval, LocalDateTime end,
+                                    LocalDateTime until) {
+        Item item = new Item();
+        item.setId(1L);
+        RecurringBooking series = new RecurringBooking(1L, item, null, start, end, frequency, interval, until, null,
+                BookingStatus.APPROVED);
+        series.setLastEnd(RecurrenceExpander.lastEnd(series));
+        return series;
+    }
+
+    private List<BookingInterval> enumerate(RecurringBooking series) {
+        List<BookingInterval> occurrences = new ArrayList<>();
+        for (long k = 0; k < RecurrenceExpander.count(series); k++) {
+            occurrences.add(new BookingInterval(1L, k,
+                    series.getStart().plus(RecurrenceExpander.period(series).multipliedBy(k)),
+                    series.getEnd().plus(RecurrenceExpander.period(series).multipliedBy(k))));
+        }
+        return occurrences;
+    }
+}
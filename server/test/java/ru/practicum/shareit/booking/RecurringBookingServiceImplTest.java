@@ -0,0 +1,135 @@
+package ru.practicum.shareit.booking;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.OutcomingBookingDto;
+import ru.practicum.shareit.booking.dto.RecurringBookingDto;
+import ru.practicum.shareit.booking.dto.SimpleBookingDto;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.model.RecurrenceFrequency;
+import ru.practicum.shareit.booking.repository.RecurringBookingRepository;
+import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.booking.service.BookingState;
+import ru.practicum.shareit.booking.service.RecurringBookingService;
+import ru.practicum.shareit.exception.ItemNotAvailableException;
+import ru.practicum.shareit.exception.mismatch.TimeMismatchException;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.util.KeysetSlice;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@SpringBootTest
+@Transactional
+@RequiredArgsConstructor(onConstructor = @__(@Autowired))
+public class RecurringBookingServiceImplTest {
+    private final UserRepository userRepository;
+    private final ItemRepository itemRepository;
+    private final RecurringBookingRepository recurringBookingRepository;
+    private final RecurringBookingService recurringBookingService;
+    private final BookingService bookingService;
+    private User owner;
+    private User booker;
+    private Item item;
+    private LocalDateTime start;
+
+    @BeforeEach
+    public void putUsersAndItemToDb() {
+        owner = userRepository.save(new User(null, "owner", "owner@m.l"));
+        booker = userRepository.save(new User(null, "booker", "booker@m.l"));
+        item = itemRepository.save(new Item(null, owner, "name", "description", true, null,
+                Collections.emptyList()));
+        start = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.SECONDS);
+    }
+
+    @Test
+    public void methodCreateStoresSingleRowForWholeSeries() {
+        RecurringBookingDto created = recurringBookingService.create(weekly(start, start.plusHours(2),
+                start.plusYears(1)), booker.getId());
+
+        Assertions.assertEquals(BookingStatus.WAITING, created.getStatus());
+        Assertions.assertEquals(1, recurringBookingRepository.count());
+        Assertions.assertEquals(start.plusWeeks(52).plusHours(2),
+                recurringBookingRepository.findAll().get(0).getLastEnd());
+    }
+
+    @Test
+    public void methodCreateWhenOccurrenceLongerThanPeriodThrowsException() {
+        Assertions.assertThrows(TimeMismatchException.class, () -> recurringBookingService.create(
+                weekly(start, start.plusDays(8), start.plusWeeks(4)), booker.getId()));
+    }
+
+    @Test
+    public void approvedSeriesBlocksOverlappingBookingsOnlyInItsOccurrences() {
+        RecurringBookingDto created = recurringBookingService.create(weekly(start, start.plusHours(2),
+                start.plusWeeks(10)), booker.getId());
+        recurringBookingService.update(created.getId(), true, owner.getId());
+        User other = userRepository.save(new User(null, "other", "other@m.l"));
+
+        Assertions.assertThrows(ItemNotAvailableException.class, () -> bookingService.create(
+                booking(start.plusWeeks(6).plusHours(1), start.plusWeeks(6).plusHours(3)), other.getId()));
+        Assertions.assertNotNull(bookingService.create(booking(start.plusWeeks(6).plusHours(2),
+                start.plusWeeks(6).plusHours(4)), other.getId()).getId());
+        Assertions.assertNotNull(bookingService.create(booking(start.plusWeeks(11),
+                start.plusWeeks(11).plusHours(2)), other.getId()).getId());
+    }
+
+    @Test
+    public void methodUpdateWhenAnotherApprovedSeriesOverlapsThrowsException() {
+        RecurringBookingDto first = recurringBookingService.create(weekly(start, start.plusHours(2),
+                start.plusWeeks(10)), booker.getId());
+        RecurringBookingDto second = recurringBookingService.create(weekly(start.plusWeeks(3).plusHours(1),
+                start.plusWeeks(3).plusHours(3), start.plusWeeks(5)), booker.getId());
+        recurringBookingService.update(first.getId(), true, owner.getId());
+
+        Assertions.assertThrows(ItemNotAvailableException.class,
+                () -> recurringBookingService.update(second.getId(), true, owner.getId()));
+    }
+
+    @Test
+    public void futureListProjectsOnlyOccurrencesInsideWindowAndPagesThroughThemWithCursor() {
+        RecurringBookingDto created = recurringBookingService.create(weekly(start, start.plusHours(2),
+                start.plusYears(1)), booker.getId());
+        recurringBookingService.update(created.getId(), true, owner.getId());
+
+        List<BookingDto> bookings = new ArrayList<>();
+        String after = null;
+        do {
+            KeysetSlice<BookingDto> slice = bookingService.findByBookerAndByState(BookingState.FUTURE,
+                    booker.getId(), 0, 2, after);
+            bookings.addAll(slice.getContent());
+            after = slice.getAfter();
+        } while (after != null);
+
+        List<LocalDateTime> starts = bookings.stream()
+                .map(BookingDto::getStart)
+                .collect(Collectors.toList());
+        Assertions.assertEquals(List.of(start.plusWeeks(4), start.plusWeeks(3), start.plusWeeks(2),
+                start.plusWeeks(1), start), starts);
+        Assertions.assertTrue(bookings.stream()
+                .allMatch(booking -> booking.getId() == null
+                        && created.getId().equals(((OutcomingBookingDto) booking).getRecurringBookingId())));
+    }
+
+    private RecurringBookingDto weekly(LocalDateTime start, LocalDateTime end, LocalDateTime until) {
+        return new RecurringBookingDto(null, item.getId(), null, start, end, RecurrenceFrequency.WEEKLY, 1, until,
+                null);
+    }
+
+    private SimpleBookingDto booking(LocalDateTime start, LocalDateTime end) {
+        return new SimpleBookingDto(0L, start, end, null, item.getId(), 0L);
+    }
+}
@@ -0,0 +1,114 @@
+package ru.practicum.shareit.idempotency;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.exception.InvalidIdempotencyKeyException;
+import ru.practicum.shareit.idempotency.dto.IdempotentResponse;
+import ru.practicum.shareit.idempotency.repository.IdempotencyRecordRepository;
+import ru.practicum.shareit.idempotency.service.IdempotencyServiceImpl;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@SpringBootTest
+public class IdempotencyServiceImplTest {
+    private static final String OPERATION = "POST /items";
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+    @Autowired
+    private NamedParameterJdbcTemplate jdbcTemplate;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private ObjectMapper objectMapper;
+    private final AtomicInteger executions = new AtomicInteger();
+
+    @AfterEach
+    public void clear() {
+        idempotencyRecordRepository.deleteAll();
+    }
+
+    @Test
+    public void storedResponseIsReplayedFromTableWhenNotInMemory() {
+        IdempotencyServiceImpl service = service(Duration.ofHours(1));
+
+        IdempotentResponse first = service.execute("key", 1L, OPERATION, Map.of("name", "item"), this::create);
+        IdempotentResponse second = service.execute("key", 1L, OPERATION, Map.of("name", "item"), this::create);
+
+        Assertions.assertFalse(first.isReplayed());
+        Assertions.assertTrue(second.isReplayed());
+        Assertions.assertEquals(1, executions.get());
+        Assertions.assertEquals(7, objectMapper.valueToTree(second.getBody()).get("id").asInt());
+    }
+
+    @Test
+    public void sameKeyOfOtherUserOrOperationIsIndependent() {
+        IdempotencyServiceImpl service = service(Duration.ofHours(1));
+
+        service.execute("key", 1L, OPERATION, Map.of(), this::create);
+        service.execute("key", 2L, OPERATION, Map.of(), this::create);
+        service.execute("key", 1L, "POST /bookings", Map.of(), this::create);
+
+        Assertions.assertEquals(3, executions.get());
+    }
+
+    @Test
+    public void keyReusedForOtherRequestIsRejected() {
+        IdempotencyServiceImpl service = service(Duration.ofHours(1));
+        service.execute("key", 1L, OPERATION, Map.of("name", "item"), this::create);
+
+        Assertions.assertThrows(InvalidIdempotencyKeyException.class,
+                () -> service.execute("key", 1L, OPERATION, Map.of("name", "other"), this::create));
+        Assertions.assertThrows(InvalidIdempotencyKeyException.class,
+                () -> service.execute(" ", 1L, OPERATION, Map.of(), this::create));
+        Assertions.assertEquals(1, executions.get());
+    }
+
+    @Test
+    public void failedActionDoesNotStoreResponse() {
+        IdempotencyServiceImpl service = service(Duration.ofHours(1));
+
+        Assertions.assertThrows(IllegalStateException.class, () -> service.execute("key", 1L, OPERATION, Map.of(),
+                () -> {
+                    throw new IllegalStateException();
+                }));
+        IdempotentResponse retried = service.execute("key", 1L, OPERATION, Map.of(), this::create);
+
+        Assertions.assertFalse(retried.isReplayed());
+        Assertions.assertEquals(1, idempotencyRecordRepository.count());
+    }
+
+    @Test
+    @SneakyThrows
+    public void expiredKeyExecutesActionAgain() {
+        IdempotencyServiceImpl service = service(Duration.ofMillis(1));
+
+        service.execute("key", 1L, OPERATION, Map.of(), this::create);
+        Thread.sleep(5);
+        IdempotentResponse second = service.execute("key", 1L, OPERATION, Map.of(), this::create);
+
+        Assertions.assertFalse(second.isReplayed());
+        Assertions.assertEquals(2, executions.get());
+        Thread.sleep(5);
+        service.purgeExpired();
+        Assertions.assertEquals(0, idempotencyRecordRepository.count());
+    }
+
+    private IdempotencyServiceImpl service(Duration ttl) {
+        return new IdempotencyServiceImpl(idempotencyRecordRepository, jdbcTemplate, transactionTemplate,
+                objectMapper, ttl, 0);
+    }
+
+    private Map<String, Object> create() {
+        executions.incrementAndGet();
+        return Map.of("id", 7, "name", "item");
+    }
+}
@@ -14,13 +14,18 @@ import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import ru.practicum.shareit.exception.ExceptionControllerAdvice;
+import ru.practicum.shareit.exception.mismatch.TimeMismatchException;
 import ru.practicum.shareit.exception.notFound.UserNotFoundException;
 import ru.practicum.shareit.item.controller.ItemController;
 import ru.practicum.shareit.item.dto.comment.CommentDto;
 import ru.practicum.shareit.item.dto.comment.IncomingCommentDto;
 import ru.practicum.shareit.item.dto.item.AdvancedItemDto;
+import ru.practicum.shareit.item.dto.item.ItemAvailabilityDto;
 import ru.practicum.shareit.item.dto.item.ItemDto;
+import ru.practicum.shareit.item.dto.item.ItemUtilizationDto;
+import ru.practicum.shareit.item.dto.item.OwnerUtilizationDto;
 import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.item.service.ItemUtilizationService;
 
 import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
@@ -30,6 +35,7 @@ import java.util.List;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -47,6 +53,8 @@ public class ItemControllerTest {
             null, null, Collections.emptyList());
     @MockBean
     private ItemService itemService;
+    @MockBean
+    private ItemUtilizationService itemUtilizationService;
     private MockMvc mockMvc;
 
     @BeforeEach
@@ -113,6 +121,60 @@ public class ItemControllerTest {
                 .andExpect(jsonPath("$.description").value(advancedItemDto.getDescription()));
     }
 
+    @Test
+    public void getItemsIdAvailabilityReturnsBusyAndFreeSlots() throws Exception {
+        LocalDateTime from = LocalDateTime.of(2030, 1, 1, 0, 0);
+        LocalDateTime to = from.plusDays(2);
+        when(itemService.getAvailability(999L, from, to)).thenReturn(new ItemAvailabilityDto(999L, from, to,
+                List.of(new ItemAvailabilityDto.Slot(from, from.plusDays(1))),
+                List.of(new ItemAvailabilityDto.Slot(from.plusDays(1), to))));
+
+        mockMvc.perform(get("/items/999/availability?from=2030-01-01T00:00:00&to=2030-01-03T00:00:00")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.itemId").value(999L))
+                .andExpect(jsonPath("$.busy.length()").value(1))
+                .andExpect(jsonPath("$.free.length()").value(1));
+    }
+
+    @Test
+    public void getItemsIdAvailabilityReturnsCode400WhenWindowInvalid() throws Exception {
+        when(itemService.getAvailability(anyLong(), any(), any())).thenThrow(new TimeMismatchException("Ошибка"));
+
+        mockMvc.perform(get("/items/999/availability?from=2030-01-03T00:00:00&to=2030-01-01T00:00:00")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void getItemsOwnerStatsReturnsUtilization() throws Exception {
+        LocalDateTime from = LocalDateTime.of(2030, 1, 1, 0, 0);
+        LocalDateTime to = from.plusDays(1);
+        when(itemUtilizationService.getOwnerUtilization(0L, from, to)).thenReturn(new OwnerUtilizationDto(0L, from,
+                to, List.of(new ItemUtilizationDto(999L, "item", 2, 6, 24, 0.25, 0.5, 12.0))));
+
+        mockMvc.perform(get("/items/owner/stats?from=2030-01-01T00:00:00&to=2030-01-02T00:00:00")
+                        .accept(MediaType.APPLICATION_JSON)
+                        .header("X-Sharer-User-Id", "0"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.ownerId").value(0L))
+                .andExpect(jsonPath("$.items.length()").value(1))
+                .andExpect(jsonPath("$.items[0].itemId").value(999L))
+                .andExpect(jsonPath("$.items[0].utilization").value(0.25))
+                .andExpect(jsonPath("$.items[0].approvalRate").value(0.5));
+    }
+
+    @Test
+    public void getItemsOwnerStatsReturnsCode404WhenOwnerNotFound() throws Exception {
+        when(itemUtilizationService.getOwnerUtilization(anyLong(), any(), any()))
+                .thenThrow(new UserNotFoundException("Ошибка"));
+
+        mockMvc.perform(get("/items/owner/stats?from=2030-01-01T00:00:00&to=2030-01-02T00:00:00")
+                        .accept(MediaType.APPLICATION_JSON)
+                        .header("X-Sharer-User-Id", "99"))
+                .andExpect(status().isNotFound());
+    }
+
     @Test
     public void getItemsSearchReturnsItemDto() throws Exception {
         when(itemService.searchByText("desc", 0, 2)).thenReturn(List.of(itemDto));
@@ -178,6 +240,49 @@ public class ItemControllerTest {
                 .andExpect(jsonPath("$.available").value(true));
     }
 
+    @Test
+    public void postItemsWithSameIdempotencyKeyReplaysResponseWithoutCreatingAgain() throws Exception {
+        when(itemService.create(any(ItemDto.class))).thenReturn(
+                new ItemDto(7L, 0L, "name", "d", true, null));
+
+        for (String replayed : List.of("false", "true")) {
+            mockMvc.perform(post("/items")
+                            .content(mapper.writeValueAsString(itemDto))
+                            .characterEncoding(StandardCharsets.UTF_8)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .accept(MediaType.APPLICATION_JSON)
+                            .header("X-Sharer-User-Id", "0")
+                            .header("Idempotency-Key", "item-replay"))
+                    .andExpect(status().isCreated())
+                    .andExpect(header().string("Idempotent-Replayed", replayed))
+                    .andExpect(jsonPath("$.id").value(7))
+                    .andExpect(jsonPath("$.name").value("name"));
+        }
+        verify(itemService, times(1)).create(any(ItemDto.class));
+    }
+
+    @Test
+    public void postItemsWithReusedIdempotencyKeyAndOtherBodyReturnsCode400() throws Exception {
+        when(itemService.create(any(ItemDto.class))).thenReturn(
+                new ItemDto(7L, 0L, "name", "d", true, null));
+        mockMvc.perform(post("/items")
+                        .content(mapper.writeValueAsString(itemDto))
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header("X-Sharer-User-Id", "0")
+                        .header("Idempotency-Key", "item-mismatch"))
+                .andExpect(status().isCreated());
+
+        mockMvc.perform(post("/items")
+                        .content(mapper.writeValueAsString(new ItemDto(0L, 0L, "other", "d", true, null)))
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header("X-Sharer-User-Id", "0")
+                        .header("Idempotency-Key", "item-mismatch"))
+                .andExpect(status().isBadRequest());
+        verify(itemService, times(1)).create(any(ItemDto.class));
+    }
+
     @Test
     public void patchItemsItemIdReturnsItemDto() throws Exception {
         when(itemService.update(any(ItemDto.class))).thenAnswer(invocationOnMock -> {
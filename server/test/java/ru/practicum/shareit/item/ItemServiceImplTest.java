@@ -6,32 +6,41 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import ru.practicum.shareit.booking.dto.BookingInterval;
 import ru.practicum.shareit.booking.dto.BookingMapper;
 import ru.practicum.shareit.booking.repository.BookingRepository;
 import ru.practicum.shareit.exception.alreadyExists.ItemAlreadyExistsException;
 import ru.practicum.shareit.exception.mismatch.MismatchException;
 import ru.practicum.shareit.exception.mismatch.OwnerMismatchException;
+import ru.practicum.shareit.exception.mismatch.TimeMismatchException;
 import ru.practicum.shareit.exception.notFound.BookingForCommentNotFoundException;
 import ru.practicum.shareit.exception.notFound.ItemNotFoundException;
 import ru.practicum.shareit.item.dto.comment.CommentDto;
 import ru.practicum.shareit.item.dto.comment.CommentMapper;
 import ru.practicum.shareit.item.dto.comment.IncomingCommentDto;
 import ru.practicum.shareit.item.dto.item.AdvancedItemDto;
+import ru.practicum.shareit.item.dto.item.ItemAvailabilityDto;
 import ru.practicum.shareit.item.dto.item.ItemDto;
 import ru.practicum.shareit.item.dto.item.ItemMapper;
 import ru.practicum.shareit.item.model.Comment;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.model.ItemChangedEvent;
 import ru.practicum.shareit.item.repository.CommentRepository;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.service.ItemAvailabilityCache;
 import ru.practicum.shareit.item.service.ItemServiceImpl;
 import ru.practicum.shareit.request.service.ItemRequestService;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.service.UserService;
 import ru.practicum.shareit.util.PaginationInfo;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
 
 import static org.mockito.Mockito.*;
@@ -59,6 +68,10 @@ public class ItemServiceImplTest {
     private CommentRepository commentRepository;
     @Mock
     private ItemRequestService itemRequestService;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    @Spy
+    private ItemAvailabilityCache itemAvailabilityCache = new ItemAvailabilityCache(Duration.ofMinutes(1));
     @InjectMocks
     private ItemServiceImpl itemService;
 
@@ -87,6 +100,7 @@ public class ItemServiceImplTest {
         verify(itemMapper, times(1)).itemFromDto(itemDto, user, null);
         verify(itemMapper, times(1)).itemToDto(item);
         verify(itemRepository, times(1)).existsById(0L);
+        verify(eventPublisher).publishEvent(ItemChangedEvent.of(item, ItemChangedEvent.Type.CREATED));
 
         Assertions.assertEquals(itemDto, dto);
     }
@@ -173,6 +187,7 @@ public class ItemServiceImplTest {
 
         itemService.delete(0L);
         verify(itemRepository, times(1)).deleteById(0L);
+        verify(eventPublisher).publishEvent(ItemChangedEvent.deleted(0L));
     }
 
     @Test
@@ -195,4 +210,62 @@ public class ItemServiceImplTest {
 
         Assertions.assertThrows(ItemNotFoundException.class, () -> itemService.findByIdOrThrow(0L));
     }
+
+    @Test
+    public void methodGetAvailabilityMergesOverlappingIntervalsAndReturnsGaps() {
+        LocalDateTime from = LocalDateTime.of(2030, 1, 1, 0, 0);
+        LocalDateTime to = from.plusDays(10);
+        when(itemRepository.existsById(0L)).thenReturn(true);
+        when(bookingRepository.findIntervalsByItemOverlapping(eq(0L), any(), eq(from), eq(to))).thenReturn(List.of(
+                new BookingInterval(0L, 1L, from.minusDays(1), from.plusDays(1)),
+                new BookingInterval(0L, 2L, from.plusDays(3), from.plusDays(5)),
+                new BookingInterval(0L, 3L, from.plusDays(4), from.plusDays(6)),
+                new BookingInterval(0L, 4L, from.plusDays(6), from.plusDays(7))));
+
+        ItemAvailabilityDto availability = itemService.getAvailability(0L, from, to);
+
+        Assertions.assertEquals(List.of(
+                new ItemAvailabilityDto.Slot(from, from.plusDays(1)),
+                new ItemAvailabilityDto.Slot(from.plusDays(3), from.plusDays(7))), availability.getBusy());
+        Assertions.assertEquals(List.of(
+                new ItemAvailabilityDto.Slot(from.plusDays(1), from.plusDays(3)),
+                new ItemAvailabilityDto.Slot(from.plusDays(7), to)), availability.getFree());
+    }
+
+    @Test
+    public void methodGetAvailabilityUsesCacheUntilBookingsOfItemChange() {
+        LocalDateTime from = LocalDateTime.of(2030, 1, 1, 0, 0);
+        LocalDateTime to = from.plusDays(1);
+        when(itemRepository.existsById(0L)).thenReturn(true);
+        when(bookingRepository.findIntervalsByItemOverlapping(eq(0L), any(), eq(from), eq(to)))
+                .thenReturn(Collections.emptyList());
+
+        itemService.getAvailability(0L, from, to);
+        ItemAvailabilityDto cached = itemService.getAvailability(0L, from, to);
+        itemAvailabilityCache.invalidate(0L);
+        itemService.getAvailability(0L, from, to);
+
+        Assertions.assertEquals(List.of(new ItemAvailabilityDto.Slot(from, to)), cached.getFree());
+        verify(bookingRepository, times(2)).findIntervalsByItemOverlapping(eq(0L), any(), eq(from), eq(to));
+    }
+
+    @Test
+    public void methodGetAvailabilityWhenItemNotExistsThrowsException() {
+        LocalDateTime from = LocalDateTime.of(2030, 1, 1, 0, 0);
+        when(itemRepository.existsById(0L)).thenReturn(false);
+
+        Assertions.assertThrows(ItemNotFoundException.class,
+                () -> itemService.getAvailability(0L, from, from.plusDays(1)));
+    }
+
+    @Test
+    public void methodGetAvailabilityWhenWindowInvalidThrowsException() {
+        LocalDateTime from = LocalDateTime.of(2030, 1, 1, 0, 0);
+
+        Assertions.assertThrows(TimeMismatchException.class,
+                () -> itemService.getAvailability(0L, from, from));
+        Assertions.assertThrows(TimeMismatchException.class,
+                () -> itemService.getAvailability(0L, from, from.plusYears(2)));
+        verifyNoInteractions(bookingRepository);
+    }
 }
@@ -0,0 +1,146 @@
+package ru.practicum.shareit.item;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingChangedEvent;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.exception.mismatch.TimeMismatchException;
+import ru.practicum.shareit.exception.notFound.UserNotFoundException;
+import ru.practicum.shareit.item.dto.item.ItemUtilizationDto;
+import ru.practicum.shareit.item.dto.item.OwnerUtilizationDto;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.repository.ItemUtilizationRepository;
+import ru.practicum.shareit.item.service.ItemUtilizationServiceImpl;
+import ru.practicum.shareit.item.service.OwnerUtilizationCache;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.user.service.UserService;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Части вещей считаются в потоках пула в своих соединениях, поэтому данные теста фиксируются
+ * и удаляются после него вместе с пользователями.
+ */
+@SpringBootTest
+public class ItemUtilizationServiceImplTest {
+    private static final LocalDateTime FROM = LocalDateTime.of(2030, 1, 1, 0, 0);
+    private static final LocalDateTime TO = FROM.plusDays(1);
+    private static final LocalDateTime CREATED = FROM.minusDays(2);
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private ItemRepository itemRepository;
+    @Autowired
+    private BookingRepository bookingRepository;
+    @Autowired
+    private ItemUtilizationRepository itemUtilizationRepository;
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private NamedParameterJdbcTemplate jdbcTemplate;
+    private final List<Long> userIds = new ArrayList<>();
+    private OwnerUtilizationCache cache;
+    private ItemUtilizationServiceImpl service;
+    private User owner;
+    private User booker;
+    private List<Item> items;
+
+    @BeforeEach
+    public void createData() {
+        cache = new OwnerUtilizationCache(Duration.ofMinutes(5));
+        service = new ItemUtilizationServiceImpl(itemRepository, itemUtilizationRepository, userService, cache, 2, 2);
+        owner = user();
+        booker = user();
+        items = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            items.add(itemRepository.save(new Item(null, owner, "item" + i, "description", true, null,
+                    Collections.emptyList())));
+        }
+        Item otherItem = itemRepository.save(new Item(null, booker, "other", "description", true, null,
+                Collections.emptyList()));
+
+        book(items.get(0), FROM.minusHours(2), FROM.plusHours(4), BookingStatus.APPROVED);
+        book(items.get(0), FROM.plusHours(10), FROM.plusHours(12), BookingStatus.APPROVED);
+        book(items.get(0), FROM.plusHours(13), FROM.plusHours(14), BookingStatus.REJECTED);
+        book(items.get(0), TO.plusHours(1), TO.plusHours(2), BookingStatus.APPROVED);
+        book(items.get(1), FROM.plusHours(5), FROM.plusHours(6), BookingStatus.WAITING);
+        book(otherItem, FROM.plusHours(1), FROM.plusHours(20), BookingStatus.APPROVED);
+        jdbcTemplate.update("UPDATE bookings SET created = :created WHERE item_id IN (:itemIds)",
+                new MapSqlParameterSource("created", Timestamp.valueOf(CREATED))
+                        .addValue("itemIds", List.of(items.get(0).getId(), items.get(1).getId())));
+        jdbcTemplate.update("INSERT INTO bookings_archive (id, item_id, booker_id, start, ending, status) "
+                        + "VALUES (:id, :itemId, :bookerId, :start, :ending, 'APPROVED')",
+                new MapSqlParameterSource("id", Long.MAX_VALUE - items.get(1).getId())
+                        .addValue("itemId", items.get(1).getId())
+                        .addValue("bookerId", booker.getId())
+                        .addValue("start", Timestamp.valueOf(FROM.plusHours(2)))
+                        .addValue("ending", Timestamp.valueOf(FROM.plusHours(3))));
+    }
+
+    @AfterEach
+    public void deleteData() {
+        jdbcTemplate.update("DELETE FROM users WHERE id IN (:ids)", new MapSqlParameterSource("ids", userIds));
+    }
+
+    @Test
+    public void utilizationIsAggregatedPerItemAcrossChunks() {
+        OwnerUtilizationDto utilization = service.getOwnerUtilization(owner.getId(), FROM, TO);
+
+        Assertions.assertEquals(items.stream().map(Item::getId).collect(Collectors.toList()),
+                utilization.getItems().stream().map(ItemUtilizationDto::getItemId).collect(Collectors.toList()));
+        Assertions.assertEquals(new ItemUtilizationDto(items.get(0).getId(), "item0", 3, 6, 24, 0.25,
+                2.0 / 3, 55.0), utilization.getItems().get(0));
+        Assertions.assertEquals(new ItemUtilizationDto(items.get(1).getId(), "item1", 2, 1, 24, 1.0 / 24,
+                1.0, 53.0), utilization.getItems().get(1));
+        Assertions.assertEquals(new ItemUtilizationDto(items.get(4).getId(), "item4", 0, 0, 24, 0,
+                null, null), utilization.getItems().get(4));
+    }
+
+    @Test
+    public void utilizationIsCachedUntilOwnerBookingsChange() {
+        OwnerUtilizationDto first = service.getOwnerUtilization(owner.getId(), FROM, TO);
+
+        Assertions.assertSame(first, service.getOwnerUtilization(owner.getId(), FROM, TO));
+        Assertions.assertNotSame(first, service.getOwnerUtilization(owner.getId(), FROM, TO.plusDays(1)));
+
+        cache.onBookingChanged(new BookingChangedEvent(null, items.get(2).getId(), owner.getId(), booker.getId(),
+                null, BookingStatus.WAITING, FROM, TO));
+
+        Assertions.assertNotSame(first, service.getOwnerUtilization(owner.getId(), FROM, TO));
+    }
+
+    @Test
+    public void invalidWindowOrUnknownOwnerThrowsException() {
+        Assertions.assertThrows(TimeMismatchException.class,
+                () -> service.getOwnerUtilization(owner.getId(), TO, FROM));
+        Assertions.assertThrows(UserNotFoundException.class,
+                () -> service.getOwnerUtilization(Long.MAX_VALUE, FROM, TO));
+    }
+
+    private User user() {
+        User user = userRepository.save(new User(null, "name", UUID.randomUUID() + "@m.l"));
+        userIds.add(user.getId());
+        return user;
+    }
+
+    private void book(Item item, LocalDateTime start, LocalDateTime end, BookingStatus status) {
+        bookingRepository.save(new Booking(null, item, booker, start, end, status));
+    }
+}
@@ -0,0 +1,104 @@
+package ru.practicum.shareit.outbox;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.outbox.model.OutboxMessage;
+import ru.practicum.shareit.outbox.repository.OutboxRepository;
+import ru.practicum.shareit.outbox.service.OutboxDispatcher;
+import ru.practicum.shareit.outbox.service.OutboxSink;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class OutboxDispatcherTest {
+    private final OutboxRepository outboxRepository = mock(OutboxRepository.class);
+    private final OutboxSink sink = mock(OutboxSink.class);
+    private final TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final OutboxDispatcher dispatcher = new OutboxDispatcher(outboxRepository, List.of(sink),
+            transactionTemplate, meterRegistry, 2, 3, Duration.ofMinutes(1));
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    public void executeCallbacksInPlace() {
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.getArgument(0, TransactionCallback.class).doInTransaction(null));
+    }
+
+    @Test
+    public void methodDispatchDeliversFullBatchesUntilQueueIsDrained() {
+        OutboxMessage first = message(1L);
+        OutboxMessage second = message(2L);
+        OutboxMessage third = message(3L);
+        when(outboxRepository.claimBatch(eq(2), any(), any())).thenReturn(List.of(first, second), List.of(third));
+
+        dispatcher.dispatch();
+
+        verify(sink).publish(first);
+        verify(sink).publish(second);
+        verify(sink).publish(third);
+        verify(outboxRepository).deleteByIds(List.of(1L, 2L));
+        verify(outboxRepository).deleteByIds(List.of(3L));
+        Assertions.assertEquals(3.0, meterRegistry.get("shareit.outbox.dispatched").counter().count());
+        Assertions.assertTrue(meterRegistry.get("shareit.outbox.lag").gauge().value() > 0);
+    }
+
+    @Test
+    public void methodDispatchWhenSinkFailsRecordsFailureAndDeliversRestOfBatch() {
+        OutboxMessage poison = message(1L, 0);
+        OutboxMessage next = message(2L, 0);
+        when(outboxRepository.claimBatch(eq(2), any(), any())).thenReturn(List.of(poison, next), List.of());
+        doThrow(new IllegalStateException("sink is down")).when(sink).publish(poison);
+
+        dispatcher.dispatch();
+
+        verify(sink).publish(next);
+        verify(outboxRepository).deleteByIds(List.of(2L));
+        verify(outboxRepository).recordFailure(1L, 3);
+        Assertions.assertEquals(1.0, meterRegistry.get("shareit.outbox.dispatched").counter().count());
+        Assertions.assertEquals(1.0, meterRegistry.get("shareit.outbox.failed").counter().count());
+        Assertions.assertEquals(0.0, meterRegistry.get("shareit.outbox.dead").counter().count());
+    }
+
+    @Test
+    public void methodDispatchWhenLastAttemptFailsCountsDeadMessage() {
+        when(outboxRepository.claimBatch(eq(2), any(), any())).thenReturn(List.of(message(1L, 2)));
+        doThrow(new IllegalStateException("sink is down")).when(sink).publish(any());
+
+        dispatcher.dispatch();
+
+        verify(outboxRepository, never()).deleteByIds(anyCollection());
+        verify(outboxRepository).recordFailure(1L, 3);
+        Assertions.assertEquals(1.0, meterRegistry.get("shareit.outbox.dead").counter().count());
+    }
+
+    @Test
+    public void methodDispatchWhenQueueIsEmptyResetsLag() {
+        when(outboxRepository.claimBatch(eq(2), any(), any())).thenReturn(Collections.emptyList());
+
+        dispatcher.dispatch();
+
+        verifyNoInteractions(sink);
+        Assertions.assertEquals(0.0, meterRegistry.get("shareit.outbox.lag").gauge().value());
+    }
+
+    private OutboxMessage message(long id) {
+        return message(id, 0);
+    }
+
+    private OutboxMessage message(long id, int attempts) {
+        return new OutboxMessage(id, "booking", id, "CREATED", "{}", LocalDateTime.now().minusSeconds(5),
+                attempts);
+    }
+}
@@ -0,0 +1,65 @@
+package ru.practicum.shareit.outbox;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import ru.practicum.shareit.outbox.model.OutboxMessage;
+import ru.practicum.shareit.outbox.repository.OutboxRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@DataJpaTest
+@Import(OutboxRepository.class)
+@RequiredArgsConstructor(onConstructor = @__(@Autowired))
+public class OutboxRepositoryTest {
+    private final OutboxRepository outboxRepository;
+
+    @Test
+    public void methodClaimBatchReturnsOldestMessagesAndDeleteByIdsRemovesThem() {
+        LocalDateTime created = LocalDateTime.of(2030, 1, 1, 0, 0);
+        outboxRepository.save(new OutboxMessage(null, "item", 1L, "CREATED", "{\"itemId\":1}", created, 0));
+        outboxRepository.save(new OutboxMessage(null, "item", 1L, "UPDATED", "{\"itemId\":1}", created, 0));
+        outboxRepository.save(new OutboxMessage(null, "booking", 2L, "CREATED", "{\"bookingId\":2}", created, 0));
+
+        LocalDateTime now = created.plusSeconds(1);
+        List<OutboxMessage> batch = outboxRepository.claimBatch(2, now, now.plusMinutes(1));
+
+        Assertions.assertEquals(List.of("CREATED", "UPDATED"), batch.stream()
+                .map(OutboxMessage::getEventType)
+                .collect(Collectors.toList()));
+        Assertions.assertEquals("{\"itemId\":1}", batch.get(0).getPayload());
+        Assertions.assertEquals(created, batch.get(0).getCreated());
+
+        Assertions.assertEquals(2, outboxRepository.deleteByIds(batch.stream()
+                .map(OutboxMessage::getId)
+                .collect(Collectors.toList())));
+        List<OutboxMessage> rest = outboxRepository.claimBatch(10, now, now.plusMinutes(1));
+        Assertions.assertEquals(1, rest.size());
+        Assertions.assertEquals("booking", rest.get(0).getAggregateType());
+    }
+
+    @Test
+    public void methodClaimBatchSkipsClaimedUntilTimeoutAndDeadMessages() {
+        LocalDateTime created = LocalDateTime.of(2030, 1, 1, 0, 0);
+        outboxRepository.save(new OutboxMessage(null, "item", 1L, "CREATED", "{}", created, 0));
+        LocalDateTime now = created.plusSeconds(1);
+        long id = outboxRepository.claimBatch(10, now, now.plusMinutes(1)).get(0).getId();
+
+        Assertions.assertEquals(List.of(), outboxRepository.claimBatch(10, now.plusSeconds(30),
+                now.plusMinutes(2)));
+
+        outboxRepository.recordFailure(id, 2);
+        List<OutboxMessage> retried = outboxRepository.claimBatch(10, now.plusMinutes(1), now.plusMinutes(2));
+        Assertions.assertEquals(1, retried.size());
+        Assertions.assertEquals(1, retried.get(0).getAttempts());
+
+        outboxRepository.recordFailure(id, 2);
+        Assertions.assertEquals(List.of(), outboxRepository.claimBatch(10, now.plusMinutes(3),
+                now.plusMinutes(4)));
+    }
+}
@@ -0,0 +1,77 @@
+package ru.practicum.shareit.outbox;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.SimpleBookingDto;
+import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.item.dto.item.ItemDto;
+import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.outbox.model.OutboxMessage;
+import ru.practicum.shareit.outbox.repository.OutboxRepository;
+import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.service.UserService;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@SpringBootTest
+@Transactional
+@RequiredArgsConstructor(onConstructor = @__(@Autowired))
+public class OutboxWriterTest {
+    private final UserService userService;
+    private final ItemService itemService;
+    private final BookingService bookingService;
+    private final OutboxRepository outboxRepository;
+    private UserDto owner;
+    private UserDto booker;
+
+    @BeforeEach
+    public void createUsers() {
+        owner = userService.create(new UserDto(null, "owner", "outbox-owner@m.l"));
+        booker = userService.create(new UserDto(null, "booker", "outbox-booker@m.l"));
+    }
+
+    @Test
+    public void itemChangesAreWrittenToOutboxInTheSameTransaction() {
+        ItemDto item = itemService.create(new ItemDto(null, owner.getId(), "drill", "description", true, null));
+        itemService.update(new ItemDto(item.getId(), owner.getId(), "hammer drill", null, null, null));
+        itemService.delete(item.getId());
+
+        List<OutboxMessage> messages = messagesOf("item", item.getId());
+
+        Assertions.assertEquals(List.of("CREATED", "UPDATED", "DELETED"), messages.stream()
+                .map(OutboxMessage::getEventType)
+                .collect(Collectors.toList()));
+        Assertions.assertTrue(messages.get(1).getPayload().contains("\"name\":\"hammer drill\""));
+    }
+
+    @Test
+    public void bookingCreationAndApprovalAreWrittenToOutbox() {
+        ItemDto item = itemService.create(new ItemDto(null, owner.getId(), "drill", "description", true, null));
+        BookingDto booking = bookingService.create(new SimpleBookingDto(0L, LocalDateTime.now().plusDays(1),
+                LocalDateTime.now().plusDays(2), null, item.getId(), booker.getId()), booker.getId());
+        bookingService.update(booking.getId(), true, owner.getId());
+
+        List<OutboxMessage> messages = messagesOf("booking", booking.getId());
+
+        Assertions.assertEquals(List.of("CREATED", "STATUS_CHANGED"), messages.stream()
+                .map(OutboxMessage::getEventType)
+                .collect(Collectors.toList()));
+        Assertions.assertTrue(messages.get(1).getPayload().contains("\"status\":\"APPROVED\""));
+    }
+
+    private List<OutboxMessage> messagesOf(String aggregateType, long aggregateId) {
+        LocalDateTime now = LocalDateTime.now();
+        return outboxRepository.claimBatch(1_000, now, now).stream()
+                .filter(message -> message.getAggregateType().equals(aggregateType)
+                        && message.getAggregateId() == aggregateId)
+                .collect(Collectors.toList());
+    }
+}
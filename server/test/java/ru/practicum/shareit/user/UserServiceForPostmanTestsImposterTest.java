@@ -8,6 +8,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import ru.practicum.shareit.exception.alreadyExists.AlreadyExistsException;
 import ru.practicum.shareit.exception.alreadyExists.EmailAlreadyExistsException;
 import ru.practicum.shareit.exception.alreadyExists.UserAlreadyExistsException;
@@ -15,6 +16,7 @@ import ru.practicum.shareit.exception.notFound.UserNotFoundException;
 import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.dto.UserMapper;
 import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.model.UserChangedEvent;
 import ru.practicum.shareit.user.repository.UserRepository;
 import ru.practicum.shareit.user.service.UserServiceForPostmanTestsImposter;
 
@@ -31,6 +33,8 @@ public class UserServiceForPostmanTestsImposterTest {
     private UserRepository userRepository;
     @Mock
     private UserMapper userMapper;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
     @InjectMocks
     private UserServiceForPostmanTestsImposter userService;
 
@@ -195,6 +199,7 @@ public class UserServiceForPostmanTestsImposterTest {
 
         verify(userRepository, times(1)).existsById(0L);
         verify(userRepository, times(1)).deleteById(0L);
+        verify(eventPublisher).publishEvent(UserChangedEvent.deleted(0L));
     }
 
     @Test
@@ -0,0 +1,39 @@
+package ru.practicum.shareit.util;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import ru.practicum.shareit.exception.InvalidCursorException;
+
+import java.time.LocalDateTime;
+
+public class KeysetCursorTest {
+
+    @Test
+    public void methodDecodeRestoresEncodedCursor() {
+        KeysetCursor cursor = new KeysetCursor(LocalDateTime.of(2024, 2, 29, 10, 15, 30, 123_000), 42L);
+
+        Assertions.assertEquals(cursor, KeysetCursor.decode(cursor.encode()));
+    }
+
+    @Test
+    public void methodDecodeRestoresArchivePhase() {
+        KeysetCursor cursor = new KeysetCursor(LocalDateTime.of(2020, 1, 1, 10, 0), 7L, true);
+
+        Assertions.assertEquals(cursor, KeysetCursor.decode(cursor.encode()));
+        Assertions.assertFalse(KeysetCursor.decode(new KeysetCursor(cursor.getStart(), 7L).encode()).isArchive());
+    }
+
+    @Test
+    public void methodDecodeWhenTokenMalformedThrowsException() {
+        Assertions.assertThrows(InvalidCursorException.class, () -> KeysetCursor.decode("not a cursor"));
+        Assertions.assertThrows(InvalidCursorException.class, () -> KeysetCursor.decode("bm9zZXBhcmF0b3I"));
+    }
+
+    @Test
+    public void methodsBeforeFirstReturnBoundsOutsideAnyBooking() {
+        Assertions.assertTrue(KeysetCursor.beforeFirstDescending().getStart()
+                .isAfter(LocalDateTime.now().plusYears(1000)));
+        Assertions.assertTrue(KeysetCursor.beforeFirstAscending().getStart()
+                .isBefore(LocalDateTime.of(1970, 1, 1, 0, 0)));
+    }
+}
@@ -4,6 +4,7 @@ import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
+import ru.practicum.shareit.exception.InvalidPaginationException;
 
 public class PaginationInfoTest {
     private final PaginationInfo info = new PaginationInfo(11, 5);
@@ -29,4 +30,12 @@ public class PaginationInfoTest {
         Assertions.assertEquals(Sort.by(Sort.Direction.ASC, "property"), request.getSort());
         info.setSort(Sort.unsorted());
     }
+
+    @Test
+    public void invalidOffsetOrSizeThrowsException() {
+        Assertions.assertThrows(InvalidPaginationException.class, () -> new PaginationInfo(-1, 5).asPageRequest());
+        Assertions.assertThrows(InvalidPaginationException.class, () -> new PaginationInfo(0, 0).asPageRequest());
+        Assertions.assertThrows(InvalidPaginationException.class, () -> PaginationInfo.firstPage(-3));
+        Assertions.assertEquals(PageRequest.of(0, 3), PaginationInfo.firstPage(3));
+    }
 }
@@ -0,0 +1,83 @@
+package ru.practicum.shareit.util;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+public class TimingWheelTest {
+
+    @Test
+    public void methodAdvanceFiresEveryTimerExactlyAtItsTickAcrossLevelsAndOverflow() {
+        TimingWheel<Integer> wheel = new TimingWheel<>(1, 2, 2, 0);
+        Map<Integer, Long> deadlines = new HashMap<>();
+        Random random = new Random(42);
+        for (int key = 0; key < 500; key++) {
+            long deadline = 1 + random.nextInt(100);
+            deadlines.put(key, deadline);
+            Assertions.assertTrue(wheel.schedule(key, deadline));
+        }
+
+        for (long now = 1; now <= 100; now++) {
+            List<Integer> expected = new ArrayList<>();
+            for (Map.Entry<Integer, Long> entry : deadlines.entrySet()) {
+                if (entry.getValue() == now) {
+                    expected.add(entry.getKey());
+                }
+            }
+            List<Integer> fired = wheel.advance(now);
+            fired.sort(Integer::compareTo);
+            Assertions.assertEquals(expected, fired, "Неверные таймеры на тике " + now);
+        }
+        Assertions.assertEquals(0, wheel.size());
+    }
+
+    @Test
+    public void methodAdvanceSkipsCanceledAndFiresRescheduledTimersOnce() {
+        TimingWheel<String> wheel = new TimingWheel<>(1000, 6, 4, 0);
+        wheel.schedule("canceled", 5_000);
+        wheel.schedule("moved", 5_000);
+        wheel.cancel("canceled");
+        wheel.schedule("moved", 70_000);
+
+        Assertions.assertEquals(List.of(), wheel.advance(60_000));
+        Assertions.assertEquals(List.of("moved"), wheel.advance(70_000));
+        Assertions.assertEquals(List.of(), wheel.advance(200_000));
+    }
+
+    @Test
+    public void methodScheduleWithSameDeadlineTwicePlacesOneTimer() {
+        TimingWheel<String> wheel = new TimingWheel<>(1000, 6, 4, 0);
+
+        Assertions.assertTrue(wheel.schedule("twice", 5_000));
+        Assertions.assertTrue(wheel.schedule("twice", 5_000));
+
+        Assertions.assertEquals(1, wheel.placedTimers());
+        Assertions.assertEquals(List.of("twice"), wheel.advance(5_000));
+        Assertions.assertEquals(0, wheel.placedTimers());
+    }
+
+    @Test
+    public void methodScheduleWhenDeadlinePassedReturnsFalse() {
+        TimingWheel<String> wheel = new TimingWheel<>(1000, 6, 4, 10_000);
+
+        Assertions.assertFalse(wheel.schedule("late", 9_000));
+        Assertions.assertTrue(wheel.schedule("soon", 10_500));
+        Assertions.assertEquals(1, wheel.size());
+        Assertions.assertEquals(List.of("soon"), wheel.advance(11_000));
+    }
+
+    @Test
+    public void methodScheduleWhenDeadlinePassedWithinCurrentTickReturnsFalse() {
+        TimingWheel<String> wheel = new TimingWheel<>(1000, 6, 4, 10_000);
+        wheel.advance(11_700);
+
+        Assertions.assertFalse(wheel.schedule("late", 11_300));
+        Assertions.assertTrue(wheel.schedule("soon", 11_900));
+        Assertions.assertEquals(List.of("soon"), wheel.advance(12_000));
+    }
+}